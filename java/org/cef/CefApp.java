@@ -4,21 +4,21 @@
 
 package org.cef;
 
+import org.cef.CefStartupProfile.Phase;
+import org.cef.callback.CefCommandLine;
 import org.cef.callback.CefSchemeHandlerFactory;
+import org.cef.callback.CefSchemeRegistrar;
 import org.cef.handler.CefAppHandler;
 import org.cef.handler.CefAppHandlerAdapter;
+import org.cef.handler.CefPrintHandler;
 
 import java.awt.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.io.File;
-import java.io.FilenameFilter;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
 
-import javax.swing.SwingUtilities;
-import javax.swing.Timer;
 
 import com.jetbrains.cef.JdkEx;
 
@@ -127,7 +127,9 @@ public class CefApp extends CefAppHandlerAdapter {
     private static CefApp self = null;
     private static CefAppHandler appHandler_ = null;
     private static CefAppState state_ = CefAppState.NONE;
-    private Timer workTimer_ = null;
+    private static final CefStartupProfile startupProfile_ = new CefStartupProfile();
+    private static CompletableFuture<String> jcefLibPath_ = null;
+    private final CefMessagePump messagePump_ = new CefMessagePump(this::N_DoMessageLoopWork);
     private HashSet<CefClient> clients_ = new HashSet<CefClient>();
     private CefSettings settings_ = null;
 
@@ -143,6 +145,14 @@ public class CefApp extends CefAppHandlerAdapter {
     private CefApp(String[] args, CefSettings settings) throws UnsatisfiedLinkError {
         super(args);
         if (settings != null) settings_ = settings.clone();
+        // Locate the JCEF library and start the AWT event dispatch thread in the background
+        // while the native libraries are loaded.
+        resolveJcefLibPath();
+        if (!CefAppThread.isHeadless()) {
+            CompletableFuture.runAsync(() -> EventQueue.invokeLater(() -> {}));
+        }
+
+        startupProfile_.begin(Phase.LIBRARY_LOAD);
         if (OS.isWindows()) {
             // [tav] "jawt" is loaded by JDK AccessBridgeLoader that leads to UnsatisfiedLinkError
             try {
@@ -158,24 +168,25 @@ public class CefApp extends CefAppHandlerAdapter {
         } else if (OS.isLinux()) {
             SystemBootstrap.loadLibrary("cef");
         }
+        startupProfile_.end(Phase.LIBRARY_LOAD);
         if (appHandler_ == null) {
             appHandler_ = this;
         }
 
-        // Execute on the AWT event dispatching thread.
+        // Execute on the JCEF thread.
         try {
             Runnable r = new Runnable() {
                 @Override
                 public void run() {
                     // Perform native pre-initialization.
-                    if (!N_PreInitialize())
+                    startupProfile_.begin(Phase.PRE_INITIALIZE);
+                    boolean success = N_PreInitialize();
+                    startupProfile_.end(Phase.PRE_INITIALIZE);
+                    if (!success)
                         throw new IllegalStateException("Failed to pre-initialize native code");
                 }
             };
-            if (SwingUtilities.isEventDispatchThread())
-                r.run();
-            else
-                SwingUtilities.invokeAndWait(r);
+            CefAppThread.invokeAndWait(r);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -198,6 +209,28 @@ public class CefApp extends CefAppHandlerAdapter {
         appHandler_ = appHandler;
     }
 
+    /**
+     * Run CEF without an AWT toolkit. Initialization, the message loop work, state changes and
+     * shutdown run on a dedicated thread named "JCEF" instead of the AWT event dispatch thread,
+     * see CefAppThread. In this mode browsers must be off-screen browsers created with a
+     * CefRenderingWithHandler, which have no UI component.
+     *
+     * This method must be called before the CefApp instance is created.
+     * @throws IllegalStateException if CefApp was already created.
+     */
+    public static synchronized void setHeadless(boolean headless) throws IllegalStateException {
+        if (self != null || getState() != CefAppState.NONE)
+            throw new IllegalStateException("Must be called before CefApp is created");
+        CefAppThread.setHeadless(headless);
+    }
+
+    /**
+     * Returns true if CEF runs without an AWT toolkit.
+     */
+    public static boolean isHeadless() {
+        return CefAppThread.isHeadless();
+    }
+
     /**
      * Get an instance of this class.
      * @return an instance of this class
@@ -248,6 +281,14 @@ public class CefApp extends CefAppHandlerAdapter {
         return null;
     }
 
+    /**
+     * Returns the timings of the startup phases. If the log severity is LOGSEVERITY_INFO or
+     * LOGSEVERITY_VERBOSE they are also printed when the first browser has been created.
+     */
+    public static CefStartupProfile getStartupProfile() {
+        return startupProfile_;
+    }
+
     /**
      * Returns the current state of CefApp.
      * @return current state.
@@ -262,8 +303,8 @@ public class CefApp extends CefAppHandlerAdapter {
         synchronized (state_) {
             state_ = state;
         }
-        // Execute on the AWT event dispatching thread.
-        SwingUtilities.invokeLater(new Runnable() {
+        // Execute on the JCEF thread.
+        CefAppThread.invokeLater(new Runnable() {
             @Override
             public void run() {
                 if (appHandler_ != null) appHandler_.stateHasChanged(state);
@@ -389,64 +430,69 @@ public class CefApp extends CefAppHandlerAdapter {
      * @return true on success.
      */
     private final void initialize() {
-        // Execute on the AWT event dispatching thread.
+        // Complete the settings on the calling thread. Only native initialization needs the
+        // JCEF thread.
+        startupProfile_.begin(Phase.SETTINGS);
+        String library_path = getJcefLibPath();
+        CefSettings settings = settings_ != null ? settings_ : new CefSettings();
+
+        // Avoid to override user values by testing on NULL
+        if (OS.isMacintosh()) {
+            if (settings.browser_subprocess_path == null) {
+                Path path = Paths.get(
+                        library_path, "../Frameworks/jcef Helper.app/Contents/MacOS/jcef Helper");
+                settings.browser_subprocess_path = path.normalize().toAbsolutePath().toString();
+            }
+        } else if (OS.isWindows()) {
+            if (settings.browser_subprocess_path == null) {
+                Path path = Paths.get(library_path, "jcef_helper.exe");
+                settings.browser_subprocess_path = path.normalize().toAbsolutePath().toString();
+            }
+        } else if (OS.isLinux()) {
+            if (settings.browser_subprocess_path == null) {
+                Path path = Paths.get(library_path, "jcef_helper");
+                settings.browser_subprocess_path = path.normalize().toAbsolutePath().toString();
+            }
+            if (settings.resources_dir_path == null) {
+                Path path = Paths.get(library_path);
+                settings.resources_dir_path = path.normalize().toAbsolutePath().toString();
+            }
+            if (settings.locales_dir_path == null) {
+                Path path = Paths.get(library_path, "locales");
+                settings.locales_dir_path = path.normalize().toAbsolutePath().toString();
+            }
+        }
+        startupProfile_.end(Phase.SETTINGS);
+
+        // Execute on the JCEF thread.
         try {
             Runnable r = new Runnable() {
                 @Override
                 public void run() {
-                    String library_path = getJcefLibPath();
-                    if (settings_.log_severity == CefSettings.LogSeverity.LOGSEVERITY_INFO ||
-                        settings_.log_severity == CefSettings.LogSeverity.LOGSEVERITY_VERBOSE)
-                    {
+                    if (isVerboseLogging()) {
                         System.out.println("initialize on " + Thread.currentThread()
                                 + " with library path " + library_path);
                     }
 
-                    CefSettings settings = settings_ != null ? settings_ : new CefSettings();
-
-                    // Avoid to override user values by testing on NULL
-                    if (OS.isMacintosh()) {
-                        if (settings.browser_subprocess_path == null) {
-                            Path path = Paths.get(library_path,
-                                    "../Frameworks/jcef Helper.app/Contents/MacOS/jcef Helper");
-                            settings.browser_subprocess_path =
-                                    path.normalize().toAbsolutePath().toString();
-                        }
-                    } else if (OS.isWindows()) {
-                        if (settings.browser_subprocess_path == null) {
-                            Path path = Paths.get(library_path, "jcef_helper.exe");
-                            settings.browser_subprocess_path =
-                                    path.normalize().toAbsolutePath().toString();
-                        }
-                    } else if (OS.isLinux()) {
-                        if (settings.browser_subprocess_path == null) {
-                            Path path = Paths.get(library_path, "jcef_helper");
-                            settings.browser_subprocess_path =
-                                    path.normalize().toAbsolutePath().toString();
-                        }
-                        if (settings.resources_dir_path == null) {
-                            Path path = Paths.get(library_path);
-                            settings.resources_dir_path =
-                                    path.normalize().toAbsolutePath().toString();
-                        }
-                        if (settings.locales_dir_path == null) {
-                            Path path = Paths.get(library_path, "locales");
-                            settings.locales_dir_path =
-                                    path.normalize().toAbsolutePath().toString();
-                        }
+                    startupProfile_.begin(Phase.INITIALIZE);
+                    startupProfile_.beginAt(Phase.CONTEXT_INITIALIZED, Phase.INITIALIZE);
+                    startupProfile_.beginAt(Phase.FIRST_BROWSER_CREATED, Phase.INITIALIZE);
+                    CefAppHandler appHandler = new ProfilingAppHandler(appHandler_);
+                    boolean success;
+                    if (CefAppThread.isHeadless()) {
+                        success = N_Initialize(appHandler, settings, true);
+                    } else {
+                        success = JdkEx.InvokeOnToolkitHelperAccessor.invokeAndBlock(()
+                                -> N_Initialize(appHandler, settings, EventQueue.isDispatchThread()),
+                                Boolean.FALSE);
                     }
-
-                    if (JdkEx.InvokeOnToolkitHelperAccessor.invokeAndBlock(() ->
-                            N_Initialize(appHandler_, settings, EventQueue.isDispatchThread()), Boolean.FALSE))
-                    {
+                    startupProfile_.end(Phase.INITIALIZE);
+                    if (success) {
                         setState(CefAppState.INITIALIZED);
                     }
                 }
             };
-            if (SwingUtilities.isEventDispatchThread())
-                r.run();
-            else
-                SwingUtilities.invokeAndWait(r);
+            CefAppThread.invokeAndWait(r);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -458,9 +504,9 @@ public class CefApp extends CefAppHandlerAdapter {
      */
     protected final void handleBeforeTerminate() {
         System.out.println("Cmd+Q termination request.");
-        // Execute on the AWT event dispatching thread. Always call asynchronously
+        // Execute on the JCEF thread. Always call asynchronously
         // so the call stack has a chance to unwind.
-        SwingUtilities.invokeLater(new Runnable() {
+        CefAppThread.invokeLater(new Runnable() {
             @Override
             public void run() {
                 CefAppHandler handler =
@@ -476,71 +522,40 @@ public class CefApp extends CefAppHandlerAdapter {
     private final void shutdown() {
         // [tav] in order to "unwind" invokeLater(()-> CefApp.dispose()) explicitly.
 
-        // Execute on the AWT event dispatching thread. Always call asynchronously
+        // Execute on the JCEF thread. Always call asynchronously
         // so the call stack has a chance to unwind.
         Runnable _shutdown = () -> {
             System.out.println("shutdown on " + Thread.currentThread());
 
             // Shutdown native CEF.
+            messagePump_.stop();
             N_Shutdown();
 
             setState(CefAppState.TERMINATED);
             CefApp.self = null;
+            // Let a dedicated JCEF thread exit after the state notification.
+            CefAppThread.shutdown();
         };
-        if (EventQueue.isDispatchThread())
+        if (CefAppThread.isCurrent())
             _shutdown.run();
         else
-            SwingUtilities.invokeLater(_shutdown);
+            CefAppThread.invokeLater(_shutdown);
     }
 
     /**
      * Perform a single message loop iteration. Used on all platforms except
-     * Windows with windowed rendering.
+     * Windows with windowed rendering. Requests are coalesced by the message
+     * pump, see CefMessagePump for details.
      */
     public final void doMessageLoopWork(final long delay_ms) {
-        // Execute on the AWT event dispatching thread.
-        SwingUtilities.invokeLater(new Runnable() {
-            @Override
-            public void run() {
-                if (getState() == CefAppState.TERMINATED) return;
-
-                // The maximum number of milliseconds we're willing to wait between
-                // calls to DoMessageLoopWork().
-                final long kMaxTimerDelay = 1000 / 30; // 30fps
-
-                if (workTimer_ != null) {
-                    workTimer_.stop();
-                    workTimer_ = null;
-                }
-
-                if (delay_ms <= 0) {
-                    // Execute the work immediately.
-                    N_DoMessageLoopWork();
+        messagePump_.schedule(delay_ms);
+    }
 
-                    // Schedule more work later.
-                    doMessageLoopWork(kMaxTimerDelay);
-                } else {
-                    long timer_delay_ms = delay_ms;
-                    // Never wait longer than the maximum allowed time.
-                    if (timer_delay_ms > kMaxTimerDelay) timer_delay_ms = kMaxTimerDelay;
-
-                    workTimer_ = new Timer((int) timer_delay_ms, new ActionListener() {
-                        @Override
-                        public void actionPerformed(ActionEvent evt) {
-                            // Timer has timed out.
-                            workTimer_.stop();
-                            workTimer_ = null;
-
-                            N_DoMessageLoopWork();
-
-                            // Schedule more work later.
-                            doMessageLoopWork(kMaxTimerDelay);
-                        }
-                    });
-                    workTimer_.start();
-                }
-            }
-        });
+    /**
+     * Returns the scheduler of the native message loop work.
+     */
+    public final CefMessagePump getMessagePump() {
+        return messagePump_;
     }
 
     /**
@@ -552,37 +567,117 @@ public class CefApp extends CefAppHandlerAdapter {
      */
     public static final boolean startup(String[] args) {
         if (OS.isLinux() || OS.isMacintosh()) {
+            resolveJcefLibPath();
+            startupProfile_.begin(Phase.LIBRARY_LOAD);
             SystemBootstrap.loadLibrary("jcef");
+            startupProfile_.end(Phase.LIBRARY_LOAD);
             return N_Startup(OS.isMacintosh() ? getCefFrameworkPath(args) : null);
         }
         return true;
     }
 
+    /**
+     * Called by CefClient when a browser has been created.
+     */
+    static final void onBrowserCreated() {
+        if (startupProfile_.end(Phase.FIRST_BROWSER_CREATED) && isVerboseLogging()) {
+            System.out.println(startupProfile_);
+        }
+    }
+
+    private static boolean isVerboseLogging() {
+        CefApp app = self;
+        if (app == null || app.settings_ == null) return false;
+        return app.settings_.log_severity == CefSettings.LogSeverity.LOGSEVERITY_INFO
+                || app.settings_.log_severity == CefSettings.LogSeverity.LOGSEVERITY_VERBOSE;
+    }
+
     /**
      * Get the path which contains the jcef library
      * @return The path to the jcef library
      */
     private static final String getJcefLibPath() {
+        return resolveJcefLibPath().join();
+    }
+
+    /**
+     * Start locating the jcef library in the background if that didn't happen yet.
+     */
+    private static synchronized CompletableFuture<String> resolveJcefLibPath() {
+        if (jcefLibPath_ == null) {
+            jcefLibPath_ = CompletableFuture.supplyAsync(() -> {
+                startupProfile_.begin(Phase.LIBRARY_PATH);
+                String path = findJcefLibPath();
+                startupProfile_.end(Phase.LIBRARY_PATH);
+                return path;
+            });
+        }
+        return jcefLibPath_;
+    }
+
+    private static final String findJcefLibPath() {
         if (OS.isMacintosh()) {
             return System.getProperty("java.home") + "/lib";
         }
+        // Check for the library file directly instead of listing each directory.
+        String library_name = System.mapLibraryName("jcef");
         String library_path = System.getProperty("java.library.path");
         String[] paths = library_path.split(System.getProperty("path.separator"));
         for (String path : paths) {
-            File dir = new File(path);
-            String[] found = dir.list(new FilenameFilter() {
-                @Override
-                public boolean accept(File dir, String name) {
-                    return (name.equalsIgnoreCase("libjcef.dylib")
-                            || name.equalsIgnoreCase("libjcef.so")
-                            || name.equalsIgnoreCase("jcef.dll"));
-                }
-            });
-            if (found != null && found.length != 0) return path;
+            if (new File(path, library_name).isFile()) return path;
         }
         return library_path;
     }
 
+    /**
+     * Forwards all calls to the application handler and records when the context has been
+     * initialized.
+     */
+    private static final class ProfilingAppHandler implements CefAppHandler {
+        private final CefAppHandler handler_;
+
+        ProfilingAppHandler(CefAppHandler handler) {
+            handler_ = handler;
+        }
+
+        @Override
+        public void onBeforeCommandLineProcessing(
+                String process_type, CefCommandLine command_line) {
+            handler_.onBeforeCommandLineProcessing(process_type, command_line);
+        }
+
+        @Override
+        public boolean onBeforeTerminate() {
+            return handler_.onBeforeTerminate();
+        }
+
+        @Override
+        public void stateHasChanged(CefAppState state) {
+            handler_.stateHasChanged(state);
+        }
+
+        @Override
+        public void onRegisterCustomSchemes(CefSchemeRegistrar registrar) {
+            handler_.onRegisterCustomSchemes(registrar);
+        }
+
+        @Override
+        public void onContextInitialized() {
+            startupProfile_.end(Phase.CONTEXT_INITIALIZED);
+            handler_.onContextInitialized();
+        }
+
+        @Override
+        public CefPrintHandler getPrintHandler() {
+            return handler_.getPrintHandler();
+        }
+
+        @Override
+        public void onScheduleMessagePumpWork(long delay_ms) {
+            handler_.onScheduleMessagePumpWork(delay_ms);
+        }
+    }
+
     /**
      * Get the path that contains the CEF Framework on macOS.
      * @return The path to the CEF Framework.
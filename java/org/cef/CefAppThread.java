@@ -0,0 +1,142 @@
+package org.cef;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * The thread that initializes CEF and performs its message loop work. This is the AWT event
+ * dispatch thread unless CefApp.setHeadless() was called, in which case it is a dedicated thread
+ * named "JCEF" that runs until CEF has been shut down and doesn't require an AWT toolkit. Tasks
+ * posted to the dedicated thread after the shutdown are dropped.
+ */
+public final class CefAppThread {
+    private static volatile boolean headless_ = false;
+    private static ScheduledExecutorService executor_ = null;
+    private static boolean shutdown_ = false;
+    private static volatile Thread thread_ = null;
+
+    private CefAppThread() {}
+
+    /**
+     * Returns true if the thread is a dedicated thread instead of the AWT event dispatch thread.
+     */
+    public static boolean isHeadless() {
+        return headless_;
+    }
+
+    /**
+     * Returns true if called on the thread.
+     */
+    public static boolean isCurrent() {
+        return headless_ ? Thread.currentThread() == thread_
+                         : SwingUtilities.isEventDispatchThread();
+    }
+
+    /**
+     * Run |runnable| asynchronously on the thread.
+     */
+    public static void invokeLater(Runnable runnable) {
+        if (headless_) {
+            ScheduledExecutorService executor = getExecutor();
+            if (executor == null) return;
+            try {
+                executor.execute(runnable);
+            } catch (RejectedExecutionException e) {
+                // Shut down in the meantime.
+            }
+        } else {
+            SwingUtilities.invokeLater(runnable);
+        }
+    }
+
+    /**
+     * Run |runnable| on the thread after |delayMs|.
+     */
+    public static void invokeLater(Runnable runnable, int delayMs) {
+        if (headless_) {
+            schedule(runnable, TimeUnit.MILLISECONDS.toNanos(delayMs));
+        } else {
+            Timer timer = new Timer(delayMs, e -> runnable.run());
+            timer.setRepeats(false);
+            timer.start();
+        }
+    }
+
+    /**
+     * Run |runnable| on the thread and wait for it to complete. Runs |runnable| directly if called
+     * on the thread.
+     * @throws InvocationTargetException if |runnable| throws.
+     * @throws IllegalStateException if the dedicated thread has been shut down.
+     */
+    public static void invokeAndWait(Runnable runnable)
+            throws InterruptedException, InvocationTargetException {
+        if (isCurrent()) {
+            runnable.run();
+        } else if (headless_) {
+            ScheduledExecutorService executor = getExecutor();
+            Future<?> future = null;
+            try {
+                if (executor != null) future = executor.submit(runnable);
+            } catch (RejectedExecutionException e) {
+                // Shut down in the meantime.
+            }
+            if (future == null) {
+                throw new IllegalStateException("The JCEF thread has been shut down");
+            }
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw new InvocationTargetException(e.getCause());
+            }
+        } else {
+            SwingUtilities.invokeAndWait(runnable);
+        }
+    }
+
+    // Only valid in headless mode. Returns null after shutdown.
+    static ScheduledFuture<?> schedule(Runnable runnable, long delayNanos) {
+        ScheduledExecutorService executor = getExecutor();
+        if (executor == null) return null;
+        try {
+            return executor.schedule(runnable, delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    static void setHeadless(boolean headless) {
+        headless_ = headless;
+    }
+
+    // Lets the thread terminate once it has run the tasks already posted to it. The thread is not
+    // recreated afterwards.
+    static synchronized void shutdown() {
+        shutdown_ = true;
+        if (executor_ == null) return;
+        executor_.shutdown();
+        executor_ = null;
+    }
+
+    // Returns null after shutdown.
+    private static synchronized ScheduledExecutorService getExecutor() {
+        if (shutdown_) return null;
+        if (executor_ == null) {
+            executor_ = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                // Not a daemon thread, like the AWT event dispatch thread.
+                Thread thread = new Thread(runnable, "JCEF");
+                thread_ = thread;
+                return thread;
+            });
+        }
+        return executor_;
+    }
+}
@@ -11,6 +11,7 @@ import org.cef.browser.CefRendering;
 import org.cef.browser.CefBrowserFactory;
 import org.cef.browser.CefFrame;
 import org.cef.browser.CefMessageRouter;
+import org.cef.browser.CefUserScript;
 import org.cef.browser.CefRequestContext;
 import org.cef.callback.CefAuthCallback;
 import org.cef.callback.CefBeforeDownloadCallback;
@@ -108,8 +109,10 @@ public class CefClient extends CefClientHandler
     CefClient() throws UnsatisfiedLinkError {
         super();
 
-        KeyboardFocusManager.getCurrentKeyboardFocusManager().addPropertyChangeListener(
-                propertyChangeListener);
+        if (!CefApp.isHeadless()) {
+            KeyboardFocusManager.getCurrentKeyboardFocusManager().addPropertyChangeListener(
+                    propertyChangeListener);
+        }
     }
 
     private boolean isPartOf(Object obj, Component browserUI) {
@@ -567,6 +570,7 @@ public class CefClient extends CefClientHandler
         synchronized (browser_) {
             browser_.put(identifier, browser);
         }
+        CefApp.onBrowserCreated();
         if (lifeSpanHandler_ != null) lifeSpanHandler_.onAfterCreated(browser);
     }
 
@@ -608,8 +612,10 @@ public class CefClient extends CefClientHandler
             }
 
             if (browser_.isEmpty() && isDisposed_) {
-                KeyboardFocusManager.getCurrentKeyboardFocusManager().removePropertyChangeListener(
-                        propertyChangeListener);
+                if (!CefApp.isHeadless()) {
+                    KeyboardFocusManager.getCurrentKeyboardFocusManager()
+                            .removePropertyChangeListener(propertyChangeListener);
+                }
                 removeContextMenuHandler(this);
                 removeDialogHandler(this);
                 removeDisplayHandler(this);
@@ -681,6 +687,25 @@ public class CefClient extends CefClientHandler
         super.removeMessageRouter(messageRouter);
     }
 
+    // CefUserScript
+
+    /**
+     * Add a user script to all browsers of this client, replacing any script with the same name.
+     * The script applies to browsers that already exist from their next script context on.
+     */
+    @Override
+    public void addUserScript(CefUserScript script) {
+        super.addUserScript(script);
+    }
+
+    /**
+     * Remove the user script with the specified name from all browsers of this client.
+     */
+    @Override
+    public void removeUserScript(String name) {
+        super.removeUserScript(name);
+    }
+
     // CefRenderHandler
 
     @Override
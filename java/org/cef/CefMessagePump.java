@@ -0,0 +1,229 @@
+package org.cef;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.Timer;
+
+/**
+ * Schedules the native message loop work requested with CefAppHandler.onScheduleMessagePumpWork
+ * on the JCEF thread (see CefAppThread) when CEF uses an external message pump.
+ *
+ * Requests may arrive on any thread. A request is coalesced with the pending run if that run is
+ * due no later than the request, otherwise the pending run is moved forward. Immediate requests
+ * are posted to the thread and delayed requests use a single reusable Swing timer, or the
+ * scheduler of the dedicated thread in headless mode. The timer is re-armed if it fires before
+ * the requested time. After each run the next run is scheduled after
+ * at most MAX_DELAY_MS so that work CEF didn't request explicitly is still performed.
+ */
+public final class CefMessagePump {
+    /**
+     * The maximum number of milliseconds between two runs.
+     */
+    public static final long MAX_DELAY_MS = 1000 / 30; // 30fps
+
+    /**
+     * A snapshot of the pump metrics. Times are in milliseconds.
+     */
+    public static final class Metrics {
+        private final long requestCount_;
+        private final long coalescedCount_;
+        private final long runCount_;
+        private final double averageLatency_;
+        private final double maxLatency_;
+        private final double averageWorkTime_;
+        private final double maxWorkTime_;
+
+        Metrics(CefMessagePump pump) {
+            requestCount_ = pump.requestCount_;
+            coalescedCount_ = pump.coalescedCount_;
+            runCount_ = pump.runCount_;
+            averageLatency_ = runCount_ == 0 ? 0 : pump.totalLatencyNanos_ / 1e6 / runCount_;
+            maxLatency_ = pump.maxLatencyNanos_ / 1e6;
+            averageWorkTime_ = runCount_ == 0 ? 0 : pump.totalWorkNanos_ / 1e6 / runCount_;
+            maxWorkTime_ = pump.maxWorkNanos_ / 1e6;
+        }
+
+        /**
+         * Returns the number of requests received from CEF.
+         */
+        public long getRequestCount() {
+            return requestCount_;
+        }
+
+        /**
+         * Returns the number of requests that were served by an already scheduled run.
+         */
+        public long getCoalescedCount() {
+            return coalescedCount_;
+        }
+
+        /**
+         * Returns the number of times the native message loop work was performed.
+         */
+        public long getRunCount() {
+            return runCount_;
+        }
+
+        /**
+         * Returns the average time from the time a run was due until it started.
+         */
+        public double getAverageLatency() {
+            return averageLatency_;
+        }
+
+        public double getMaxLatency() {
+            return maxLatency_;
+        }
+
+        /**
+         * Returns the average time spent performing the native message loop work per run.
+         */
+        public double getAverageWorkTime() {
+            return averageWorkTime_;
+        }
+
+        public double getMaxWorkTime() {
+            return maxWorkTime_;
+        }
+    }
+
+    private final Runnable work_;
+    private final Runnable runTask_ = this::run;
+    // Created on first use so that headless mode doesn't load Swing.
+    private Timer timer_ = null;
+    private ScheduledFuture<?> future_ = null;
+
+    // Time at which the pending run is due, or -1 if no run is pending.
+    private long dueNanos_ = -1;
+    // True if |runTask_| has been posted to the event queue.
+    private boolean posted_ = false;
+    private boolean stopped_ = false;
+
+    private long requestCount_ = 0;
+    private long coalescedCount_ = 0;
+    private long runCount_ = 0;
+    private long totalLatencyNanos_ = 0;
+    private long maxLatencyNanos_ = 0;
+    private long totalWorkNanos_ = 0;
+    private long maxWorkNanos_ = 0;
+
+    /**
+     * @param work Performs the native message loop work.
+     */
+    CefMessagePump(Runnable work) {
+        work_ = work;
+    }
+
+    /**
+     * Returns a snapshot of the current metrics.
+     */
+    public synchronized Metrics getMetrics() {
+        return new Metrics(this);
+    }
+
+    /**
+     * Schedule a run after |delayMs| or immediately if |delayMs| is not positive. May be called
+     * on any thread.
+     */
+    void schedule(long delayMs) {
+        synchronized (this) {
+            ++requestCount_;
+            if (!scheduleInternal(delayMs)) ++coalescedCount_;
+        }
+    }
+
+    /**
+     * Cancel the pending run and ignore all further requests.
+     */
+    synchronized void stop() {
+        stopped_ = true;
+        dueNanos_ = -1;
+        disarm();
+    }
+
+    // Returns false if the request was coalesced. Must be called while synchronized on this pump.
+    private boolean scheduleInternal(long delayMs) {
+        if (stopped_) return false;
+        long delayNanos =
+                TimeUnit.MILLISECONDS.toNanos(Math.max(0, Math.min(delayMs, MAX_DELAY_MS)));
+        long dueNanos = System.nanoTime() + delayNanos;
+        if (dueNanos_ >= 0 && dueNanos_ - dueNanos <= 0) return false;
+
+        dueNanos_ = dueNanos;
+        if (delayNanos == 0) {
+            disarm();
+            if (!posted_) {
+                posted_ = true;
+                CefAppThread.invokeLater(runTask_);
+            }
+        } else {
+            arm(delayNanos);
+        }
+        return true;
+    }
+
+    // Must be called while synchronized on this pump.
+    private void arm(long delayNanos) {
+        if (CefAppThread.isHeadless()) {
+            if (future_ != null) future_.cancel(false);
+            future_ = CefAppThread.schedule(this::onTimer, delayNanos);
+            return;
+        }
+        if (timer_ == null) {
+            timer_ = new Timer(0, e -> onTimer());
+            timer_.setRepeats(false);
+        }
+        // Round up since the timer only has millisecond resolution.
+        timer_.setInitialDelay((int) TimeUnit.NANOSECONDS.toMillis(delayNanos + 999999));
+        timer_.restart();
+    }
+
+    // Must be called while synchronized on this pump.
+    private void disarm() {
+        if (timer_ != null) timer_.stop();
+        if (future_ != null) {
+            future_.cancel(false);
+            future_ = null;
+        }
+    }
+
+    private void onTimer() {
+        synchronized (this) {
+            if (dueNanos_ < 0 || posted_) return;
+            long remainingNanos = dueNanos_ - System.nanoTime();
+            if (remainingNanos > 0) {
+                // The timer fired early.
+                arm(remainingNanos);
+                return;
+            }
+        }
+        run();
+    }
+
+    private void run() {
+        long startNanos = System.nanoTime();
+        synchronized (this) {
+            posted_ = false;
+            if (stopped_ || dueNanos_ < 0) return;
+            long latencyNanos = Math.max(0, startNanos - dueNanos_);
+            totalLatencyNanos_ += latencyNanos;
+            maxLatencyNanos_ = Math.max(maxLatencyNanos_, latencyNanos);
+            dueNanos_ = -1;
+            disarm();
+        }
+
+        try {
+            work_.run();
+        } finally {
+            long workNanos = System.nanoTime() - startNanos;
+            synchronized (this) {
+                ++runCount_;
+                totalWorkNanos_ += workNanos;
+                maxWorkNanos_ = Math.max(maxWorkNanos_, workNanos);
+                // Schedule more work later.
+                scheduleInternal(MAX_DELAY_MS);
+            }
+        }
+    }
+}
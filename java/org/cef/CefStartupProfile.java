@@ -0,0 +1,153 @@
+package org.cef;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Timings of the startup phases of CefApp. All times are in milliseconds relative to the start of
+ * the first recorded phase, or -1 if the phase has not been recorded (yet).
+ */
+public final class CefStartupProfile {
+    public enum Phase {
+        /**
+         * Locating the directory of the JCEF library. Runs in the background.
+         */
+        LIBRARY_PATH,
+
+        /**
+         * Loading the native libraries.
+         */
+        LIBRARY_LOAD,
+
+        /**
+         * Native pre-initialization on the AWT event dispatch thread.
+         */
+        PRE_INITIALIZE,
+
+        /**
+         * Completing the settings passed to CEF.
+         */
+        SETTINGS,
+
+        /**
+         * Native initialization of CEF on the AWT event dispatch thread.
+         */
+        INITIALIZE,
+
+        /**
+         * Ends when the CEF context has been initialized.
+         */
+        CONTEXT_INITIALIZED,
+
+        /**
+         * Ends when the first browser has been created.
+         */
+        FIRST_BROWSER_CREATED,
+    }
+
+    private static final class Entry {
+        final long beginNanos;
+        final String thread;
+        long endNanos = -1;
+        // Phases that run in several parts only count the time spent in each part.
+        long resumeNanos;
+        long totalNanos = 0;
+
+        Entry(long beginNanos) {
+            this.beginNanos = beginNanos;
+            this.resumeNanos = beginNanos;
+            this.thread = Thread.currentThread().getName();
+        }
+    }
+
+    private final Map<Phase, Entry> entries_ = new EnumMap<Phase, Entry>(Phase.class);
+    private long originNanos_ = -1;
+
+    CefStartupProfile() {}
+
+    /**
+     * Returns the start time of |phase|. The start of CONTEXT_INITIALIZED and
+     * FIRST_BROWSER_CREATED is the start of INITIALIZE.
+     */
+    public synchronized long getStartTime(Phase phase) {
+        Entry entry = entries_.get(phase);
+        return entry != null ? toMillis(entry.beginNanos - originNanos_) : -1;
+    }
+
+    /**
+     * Returns the time at which |phase| ended.
+     */
+    public synchronized long getEndTime(Phase phase) {
+        Entry entry = entries_.get(phase);
+        return entry != null && entry.endNanos >= 0 ? toMillis(entry.endNanos - originNanos_) : -1;
+    }
+
+    /**
+     * Returns the duration of |phase|, which excludes the time between its parts if it ran in
+     * more than one part.
+     */
+    public synchronized long getDuration(Phase phase) {
+        Entry entry = entries_.get(phase);
+        return entry != null && entry.endNanos >= 0 ? toMillis(entry.totalNanos) : -1;
+    }
+
+    /**
+     * Returns the time from the start of startup until the first browser was created.
+     */
+    public long getTimeToFirstBrowser() {
+        return getEndTime(Phase.FIRST_BROWSER_CREATED);
+    }
+
+    /**
+     * Returns a report of all recorded phases, one per line.
+     */
+    @Override
+    public synchronized String toString() {
+        StringBuilder report = new StringBuilder("JCEF startup profile:");
+        for (Map.Entry<Phase, Entry> mapEntry : entries_.entrySet()) {
+            Entry entry = mapEntry.getValue();
+            report.append(String.format("\n  %-22s start %6d ms", mapEntry.getKey(),
+                    toMillis(entry.beginNanos - originNanos_)));
+            if (entry.endNanos >= 0) {
+                report.append(String.format("  end %6d ms  duration %6d ms",
+                        toMillis(entry.endNanos - originNanos_),
+                        toMillis(entry.totalNanos)));
+            }
+            report.append("  on ").append(entry.thread);
+        }
+        return report.toString();
+    }
+
+    // Begins |phase| or, if it has ended, its next part.
+    synchronized void begin(Phase phase) {
+        long now = System.nanoTime();
+        if (originNanos_ < 0) originNanos_ = now;
+        Entry entry = entries_.get(phase);
+        if (entry == null) {
+            entries_.put(phase, new Entry(now));
+        } else if (entry.endNanos >= 0) {
+            entry.resumeNanos = now;
+            entry.endNanos = -1;
+        }
+    }
+
+    // Returns false if the phase had not begun or has already ended.
+    synchronized boolean end(Phase phase) {
+        Entry entry = entries_.get(phase);
+        if (entry == null || entry.endNanos >= 0) return false;
+        entry.endNanos = System.nanoTime();
+        entry.totalNanos += entry.endNanos - entry.resumeNanos;
+        return true;
+    }
+
+    // Starts |phase| at the start of |from|, for phases that end with an event.
+    synchronized void beginAt(Phase phase, Phase from) {
+        Entry fromEntry = entries_.get(from);
+        if (fromEntry == null) return;
+        entries_.put(phase, new Entry(fromEntry.beginNanos));
+    }
+
+    private static long toMillis(long nanos) {
+        return nanos / 1000000;
+    }
+}
@@ -0,0 +1,35 @@
+package org.cef.browser;
+
+import org.cef.callback.CefNativeAdapter;
+
+/**
+ * Native callback of a binary query. Responses are passed in the format of CefValueCodec.
+ */
+class CefBinaryQueryCallback_N extends CefNativeAdapter {
+    CefBinaryQueryCallback_N() {}
+
+    @Override
+    protected void finalize() throws Throwable {
+        failure(-1, "Unexpected call to CefBinaryQueryCallback_N::finalize()");
+        super.finalize();
+    }
+
+    void success(byte[] response) {
+        try {
+            N_Success(getNativeRef(null), response);
+        } catch (UnsatisfiedLinkError ule) {
+            ule.printStackTrace();
+        }
+    }
+
+    void failure(int error_code, String error_message) {
+        try {
+            N_Failure(getNativeRef(null), error_code, error_message);
+        } catch (UnsatisfiedLinkError ule) {
+            ule.printStackTrace();
+        }
+    }
+
+    private final native void N_Success(long self, byte[] response);
+    private final native void N_Failure(long self, int error_code, String error_message);
+}
@@ -0,0 +1,482 @@
+package org.cef.browser;
+
+import org.cef.CefClient;
+import org.cef.handler.CefLoadHandler;
+import org.cef.handler.CefLoadHandlerAdapter;
+import org.cef.network.CefRequest.TransitionType;
+
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.event.HierarchyEvent;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * Discards browsers that have been hidden for a while and recreates them when they are shown
+ * again, so that background browsers don't keep their render processes alive.
+ *
+ * Applications place the component of a Tab returned by register() in their UI instead of the
+ * browser's UI component. Once the component has been hidden for the idle timeout the browser's
+ * URL, zoom level, scroll position and last rendered frame are captured and the browser is
+ * closed. The Tab then shows the captured frame until its component is shown again or restore()
+ * is called, at which point a new browser is created for the URL and the zoom level and scroll
+ * position are applied when its main frame has loaded. Listeners are notified of both
+ * transitions since the restored browser is a new CefBrowser instance.
+ *
+ * The hibernator restores state from the load events of the client, so it must be registered
+ * with CefClient.addLoadHandler(). It forwards all load events to the delegate load handler.
+ *
+ * CEF can't restore the back/forward history of a browser, so a restored browser starts a new
+ * history with the captured URL. Pages that are loading or tabs that are pinned are not
+ * hibernated. All methods of Tab must be called on the AWT event dispatch thread.
+ */
+public final class CefBrowserHibernator extends CefLoadHandlerAdapter {
+    /**
+     * Receives notifications about hibernated and restored tabs on the AWT event dispatch thread.
+     */
+    public interface Listener {
+        /**
+         * Called after the browser of |tab| has been closed.
+         * @param browser The closed browser.
+         */
+        default void onHibernated(Tab tab, CefBrowser browser) {}
+
+        /**
+         * Called after a new browser has been created for |tab|.
+         * @param browser The new browser.
+         */
+        default void onRestored(Tab tab, CefBrowser browser) {}
+    }
+
+    /**
+     * A snapshot of the hibernation metrics.
+     */
+    public static final class Metrics {
+        private final int tabCount_;
+        private final int hibernatedCount_;
+        private final long hibernationCount_;
+        private final long restoreCount_;
+        private final long snapshotBytes_;
+
+        Metrics(int tabCount, int hibernatedCount, long hibernationCount, long restoreCount,
+                long snapshotBytes) {
+            tabCount_ = tabCount;
+            hibernatedCount_ = hibernatedCount;
+            hibernationCount_ = hibernationCount;
+            restoreCount_ = restoreCount;
+            snapshotBytes_ = snapshotBytes;
+        }
+
+        /**
+         * Returns the number of registered tabs.
+         */
+        public int getTabCount() {
+            return tabCount_;
+        }
+
+        /**
+         * Returns the number of tabs that currently have no browser. Each of them released one
+         * browser and, unless it shared its render process with another browser, one render
+         * process.
+         */
+        public int getHibernatedCount() {
+            return hibernatedCount_;
+        }
+
+        /**
+         * Returns the number of times a browser was closed by the hibernator.
+         */
+        public long getHibernationCount() {
+            return hibernationCount_;
+        }
+
+        /**
+         * Returns the number of times a browser was recreated by the hibernator.
+         */
+        public long getRestoreCount() {
+            return restoreCount_;
+        }
+
+        /**
+         * Returns the approximate Java heap size of the captured frames of hibernated tabs.
+         */
+        public long getSnapshotBytes() {
+            return snapshotBytes_;
+        }
+    }
+
+    private enum State {
+        ACTIVE,
+        HIBERNATING,
+        HIBERNATED,
+    }
+
+    /**
+     * A browser managed by the hibernator.
+     */
+    public final class Tab {
+        private final Supplier<CefRequestContext> contextFactory_;
+        private final CefRendering rendering_;
+        private final boolean isTransparent_;
+        private final JPanel component_ = new JPanel(new BorderLayout());
+        private final SnapshotView snapshotView_ = new SnapshotView();
+        private CefBrowser browser_;
+        private State state_ = State.ACTIVE;
+        private boolean pinned_ = false;
+        private long hiddenSince_;
+        private String url_;
+        private double zoomLevel_;
+        private int scrollX_;
+        private int scrollY_;
+
+        Tab(CefBrowser browser, Supplier<CefRequestContext> contextFactory) {
+            contextFactory_ = contextFactory;
+            rendering_ = browser instanceof CefBrowserOsr ? CefRendering.OFFSCREEN
+                                                          : CefRendering.DEFAULT;
+            isTransparent_ =
+                    browser instanceof CefBrowserOsr && ((CefBrowserOsr) browser).isTransparent();
+            browser_ = browser;
+            hiddenSince_ = System.nanoTime();
+            component_.add(browser.getUIComponent(), BorderLayout.CENTER);
+            component_.addHierarchyListener(e -> {
+                if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) == 0) return;
+                if (component_.isShowing()) {
+                    if (state_ != State.ACTIVE) restore();
+                } else {
+                    hiddenSince_ = System.nanoTime();
+                }
+            });
+        }
+
+        /**
+         * Returns the component to place in the UI.
+         */
+        public Component getComponent() {
+            return component_;
+        }
+
+        /**
+         * Returns the current browser or null if the tab is hibernated.
+         */
+        public CefBrowser getBrowser() {
+            return state_ == State.HIBERNATED ? null : browser_;
+        }
+
+        public boolean isHibernated() {
+            return state_ == State.HIBERNATED;
+        }
+
+        /**
+         * Returns the URL of the tab, which is the captured URL while it is hibernated.
+         */
+        public String getURL() {
+            return state_ == State.HIBERNATED ? url_ : browser_.getURL();
+        }
+
+        /**
+         * Returns the last rendered frame captured at hibernation or null.
+         */
+        public BufferedImage getSnapshot() {
+            return snapshotView_.image_;
+        }
+
+        /**
+         * Prevent or allow hibernation of the tab.
+         */
+        public void setPinned(boolean pinned) {
+            pinned_ = pinned;
+        }
+
+        public boolean isPinned() {
+            return pinned_;
+        }
+
+        /**
+         * Reset the idle time of the tab.
+         */
+        public void touch() {
+            hiddenSince_ = System.nanoTime();
+        }
+
+        /**
+         * Hibernate the tab now, even if it is visible.
+         * @return A future completed when the browser has been closed, or with false if the tab
+         *         was restored or unregistered before that or its state couldn't be captured.
+         */
+        public CompletableFuture<Boolean> hibernate() {
+            CompletableFuture<Boolean> result = new CompletableFuture<Boolean>();
+            if (state_ != State.ACTIVE) {
+                result.complete(state_ == State.HIBERNATED);
+                return result;
+            }
+            state_ = State.HIBERNATING;
+            CefBrowser browser = browser_;
+            CompletableFuture<BufferedImage> screenshot;
+            CompletableFuture<Object> scroll;
+            try {
+                url_ = browser.getURL();
+                zoomLevel_ = browser.getZoomLevel();
+                try {
+                    screenshot = browser.createScreenshot(false);
+                } catch (UnsupportedOperationException e) {
+                    // Windowed browsers can't capture their content.
+                    screenshot = CompletableFuture.completedFuture(null);
+                }
+
+                CefFrame frame = browser.getMainFrame();
+                scroll = frame != null
+                        ? frame.evaluateJavaScript("[window.scrollX, window.scrollY]", 1000)
+                        : CompletableFuture.completedFuture(null);
+                if (frame != null) frame.dispose();
+            } catch (RuntimeException e) {
+                // E.g. the GL context of an off-screen browser isn't available yet. Keep the
+                // browser so that the tab doesn't stay in the HIBERNATING state.
+                e.printStackTrace();
+                state_ = State.ACTIVE;
+                // Retry after another idle timeout at the earliest.
+                hiddenSince_ = System.nanoTime();
+                result.complete(false);
+                return result;
+            }
+            // Close the browser only after both captures are done. A failed capture leaves the
+            // tab without a frame or scroll position.
+            screenshot.exceptionally(e -> null).thenAcceptBoth(scroll.exceptionally(e -> null),
+                    (image, position) -> SwingUtilities.invokeLater(() -> {
+                        if (state_ != State.HIBERNATING || browser_ != browser) {
+                            // Restored while capturing.
+                            result.complete(false);
+                            return;
+                        }
+                        snapshotView_.image_ = image;
+                        if (position instanceof List && ((List<?>) position).size() == 2) {
+                            scrollX_ = toInt(((List<?>) position).get(0));
+                            scrollY_ = toInt(((List<?>) position).get(1));
+                        } else {
+                            scrollX_ = scrollY_ = 0;
+                        }
+                        result.complete(finishHibernation(browser));
+                    }));
+            return result;
+        }
+
+        /**
+         * Recreate the browser of a hibernated tab. Called automatically when the component of
+         * the tab is shown.
+         * @return The browser of the tab.
+         */
+        public CefBrowser restore() {
+            if (state_ == State.HIBERNATING) {
+                // The capture is still running. Keep the browser.
+                state_ = State.ACTIVE;
+            } else if (state_ == State.HIBERNATED) {
+                CefRequestContext context = contextFactory_ != null ? contextFactory_.get() : null;
+                browser_ = client_.createBrowser(url_, rendering_, isTransparent_, context);
+                restoring_.put(browser_, this);
+                component_.remove(snapshotView_);
+                snapshotView_.image_ = null;
+                component_.add(browser_.getUIComponent(), BorderLayout.CENTER);
+                component_.revalidate();
+                state_ = State.ACTIVE;
+                synchronized (CefBrowserHibernator.this) {
+                    ++restoreCount_;
+                }
+                for (Listener listener : listeners_) listener.onRestored(this, browser_);
+            }
+            hiddenSince_ = System.nanoTime();
+            return browser_;
+        }
+
+        private boolean finishHibernation(CefBrowser browser) {
+            if (state_ != State.HIBERNATING || browser_ != browser) return false;
+            state_ = State.HIBERNATED;
+            restoring_.remove(browser);
+            component_.remove(browser.getUIComponent());
+            component_.add(snapshotView_, BorderLayout.CENTER);
+            component_.revalidate();
+            component_.repaint();
+            browser.close(true);
+            synchronized (CefBrowserHibernator.this) {
+                ++hibernationCount_;
+            }
+            for (Listener listener : listeners_) listener.onHibernated(this, browser);
+            return true;
+        }
+
+        // Called on the CEF UI thread when the main frame of the restored browser has loaded.
+        private void applyRestoredState(CefBrowser browser) {
+            if (zoomLevel_ != 0) browser.setZoomLevel(zoomLevel_);
+            if (scrollX_ != 0 || scrollY_ != 0) {
+                browser.executeJavaScript(
+                        "window.scrollTo(" + scrollX_ + ", " + scrollY_ + ");", "", 0);
+            }
+        }
+    }
+
+    // Paints the captured frame scaled to the size of the tab.
+    private static final class SnapshotView extends JComponent {
+        private volatile BufferedImage image_;
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            BufferedImage image = image_;
+            if (image != null) g.drawImage(image, 0, 0, getWidth(), getHeight(), null);
+        }
+    }
+
+    private final CefClient client_;
+    private final CefLoadHandler delegate_;
+    private final long idleTimeoutNanos_;
+    private final Timer timer_;
+    private final List<Tab> tabs_ = new ArrayList<Tab>();
+    private final List<Listener> listeners_ = new ArrayList<Listener>();
+    // Restored browsers whose state is applied when their main frame has loaded.
+    private final Map<CefBrowser, Tab> restoring_ = new ConcurrentHashMap<CefBrowser, Tab>();
+    private long hibernationCount_ = 0;
+    private long restoreCount_ = 0;
+
+    /**
+     * Create a hibernator. Must be called on the AWT event dispatch thread.
+     * @param client The client that creates restored browsers.
+     * @param delegate The load handler to forward load events to or null.
+     * @param idleTimeoutMs The time a tab must be hidden before it is hibernated.
+     */
+    public CefBrowserHibernator(CefClient client, CefLoadHandler delegate, long idleTimeoutMs) {
+        if (idleTimeoutMs <= 0) {
+            throw new IllegalArgumentException("idleTimeoutMs must be positive");
+        }
+        client_ = client;
+        delegate_ = delegate;
+        idleTimeoutNanos_ = idleTimeoutMs * 1000000;
+        int delayMs = (int) Math.max(1000, Math.min(idleTimeoutMs / 4, 30000));
+        timer_ = new Timer(delayMs, e -> hibernateIdleTabs());
+        timer_.start();
+    }
+
+    /**
+     * Manage a browser of the global request context.
+     * @throws IllegalArgumentException if the browser has its own request context.
+     */
+    public Tab register(CefBrowser browser) {
+        return register(browser, null);
+    }
+
+    /**
+     * Manage a browser. Must be called on the AWT event dispatch thread before the browser's UI
+     * component has been added to a container.
+     * @param contextFactory Creates the request context of restored browsers, or null to use the
+     *         global context. A browser closes its request context, so restored browsers can't
+     *         use the context of the original browser.
+     * @throws IllegalArgumentException if the browser has no UI component, or if it has its own
+     *         request context and no factory is given.
+     */
+    public Tab register(CefBrowser browser, Supplier<CefRequestContext> contextFactory) {
+        if (browser.getUIComponent() == null) {
+            throw new IllegalArgumentException("Browsers without a UI component can't hibernate");
+        }
+        if (contextFactory == null && browser instanceof CefBrowser_N) {
+            CefRequestContext context = ((CefBrowser_N) browser).getRequestContext();
+            if (context != null && !context.isGlobal()) {
+                throw new IllegalArgumentException(
+                        "Browsers with their own request context need a context factory");
+            }
+        }
+        Tab tab = new Tab(browser, contextFactory);
+        tabs_.add(tab);
+        return tab;
+    }
+
+    /**
+     * Stop managing a tab. The browser of the tab, if any, stays open.
+     */
+    public void unregister(Tab tab) {
+        if (!tabs_.remove(tab)) return;
+        if (tab.state_ == State.HIBERNATING) tab.state_ = State.ACTIVE;
+        restoring_.remove(tab.browser_, tab);
+    }
+
+    public void addListener(Listener listener) {
+        listeners_.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners_.remove(listener);
+    }
+
+    /**
+     * Returns a snapshot of the current metrics. Must be called on the AWT event dispatch thread.
+     */
+    public Metrics getMetrics() {
+        int hibernatedCount = 0;
+        long snapshotBytes = 0;
+        for (Tab tab : tabs_) {
+            if (tab.state_ != State.HIBERNATED) continue;
+            ++hibernatedCount;
+            BufferedImage image = tab.snapshotView_.image_;
+            if (image != null) snapshotBytes += 4L * image.getWidth() * image.getHeight();
+        }
+        synchronized (this) {
+            return new Metrics(tabs_.size(), hibernatedCount, hibernationCount_, restoreCount_,
+                    snapshotBytes);
+        }
+    }
+
+    /**
+     * Stop hibernating tabs. Hibernated tabs stay hibernated until they are restored.
+     */
+    public void dispose() {
+        timer_.stop();
+    }
+
+    @Override
+    public void onLoadingStateChange(
+            CefBrowser browser, boolean isLoading, boolean canGoBack, boolean canGoForward) {
+        if (delegate_ != null)
+            delegate_.onLoadingStateChange(browser, isLoading, canGoBack, canGoForward);
+    }
+
+    @Override
+    public void onLoadStart(CefBrowser browser, CefFrame frame, TransitionType transitionType) {
+        if (delegate_ != null) delegate_.onLoadStart(browser, frame, transitionType);
+    }
+
+    @Override
+    public void onLoadEnd(CefBrowser browser, CefFrame frame, int httpStatusCode) {
+        if (frame.isMain()) {
+            Tab tab = restoring_.remove(browser);
+            if (tab != null) tab.applyRestoredState(browser);
+        }
+        if (delegate_ != null) delegate_.onLoadEnd(browser, frame, httpStatusCode);
+    }
+
+    @Override
+    public void onLoadError(CefBrowser browser, CefFrame frame, ErrorCode errorCode,
+            String errorText, String failedUrl) {
+        if (frame.isMain()) restoring_.remove(browser);
+        if (delegate_ != null)
+            delegate_.onLoadError(browser, frame, errorCode, errorText, failedUrl);
+    }
+
+    private void hibernateIdleTabs() {
+        long now = System.nanoTime();
+        for (Tab tab : new ArrayList<Tab>(tabs_)) {
+            if (tab.state_ != State.ACTIVE || tab.pinned_ || tab.component_.isShowing()) continue;
+            if (now - tab.hiddenSince_ < idleTimeoutNanos_ || tab.browser_.isLoading()) continue;
+            tab.hibernate();
+        }
+    }
+
+    private static int toInt(Object value) {
+        return value instanceof Number ? (int) Math.round(((Number) value).doubleValue()) : 0;
+    }
+}
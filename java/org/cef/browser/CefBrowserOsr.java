@@ -88,6 +88,10 @@ class CefBrowserOsr extends CefBrowser_N implements CefRenderHandler {
         createGLCanvas();
     }
 
+    boolean isTransparent() {
+        return isTransparent_;
+    }
+
     @Override
     public void createImmediately() {
         justCreated_ = true;
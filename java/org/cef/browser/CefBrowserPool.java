@@ -0,0 +1,304 @@
+package org.cef.browser;
+
+import org.cef.CefClient;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A pool of pre-created browsers that hides the latency of creating a browser and launching its
+ * render process. The pool keeps up to a target number of idle browsers per request context that
+ * have been created and loaded with about:blank, hands them out with acquire() and takes them
+ * back with release().
+ *
+ * Idle browsers are created in the background, one at a time with a short delay in between so
+ * that refilling doesn't compete with the application for the browser process. If no idle
+ * browser is available acquire() creates a new one, which is as slow as CefClient.createBrowser().
+ *
+ * Released browsers are reset by stopping the current load, closing find results and dev tools,
+ * resetting the zoom level and loading about:blank. The navigation history can't be cleared, so
+ * release browsers whose history must not be visible to the next user with close() instead.
+ */
+public final class CefBrowserPool {
+    private static final String BLANK_URL = "about:blank";
+    // Key of the global request context in the maps below.
+    private static final Object GLOBAL_CONTEXT = new Object();
+
+    private final CefClient client_;
+    private final CefRendering rendering_;
+    private final boolean isTransparent_;
+    private final int defaultTarget_;
+    private final long refillDelayMs_;
+
+    private final Map<Object, Integer> targets_ = new HashMap<Object, Integer>();
+    private final Map<Object, ArrayDeque<CefBrowser>> idle_ =
+            new HashMap<Object, ArrayDeque<CefBrowser>>();
+    // Request contexts of all browsers created by the pool that are not closed.
+    private final Map<CefBrowser, CefRequestContext> owned_ =
+            new WeakHashMap<CefBrowser, CefRequestContext>();
+    private final ScheduledExecutorService executor_;
+    private boolean refillScheduled_ = false;
+    private boolean disposed_ = false;
+    private long hitCount_ = 0;
+    private long missCount_ = 0;
+
+    /**
+     * Create a pool of off-screen browsers of the global request context.
+     * @param client The client of the browsers.
+     * @param target The number of idle browsers to keep for each request context.
+     */
+    public CefBrowserPool(CefClient client, int target) {
+        this(client, CefRendering.OFFSCREEN, false, target, 100);
+    }
+
+    /**
+     * Create a pool.
+     * @param client The client of the browsers.
+     * @param rendering The rendering of the browsers.
+     * @param isTransparent True to create transparent browsers.
+     * @param target The number of idle browsers to keep for each request context unless set with
+     *         setTarget().
+     * @param refillDelayMs The delay before creating an idle browser.
+     */
+    public CefBrowserPool(CefClient client, CefRendering rendering, boolean isTransparent,
+            int target, long refillDelayMs) {
+        if (target < 0) throw new IllegalArgumentException("target must not be negative");
+        client_ = client;
+        rendering_ = rendering;
+        isTransparent_ = isTransparent;
+        defaultTarget_ = target;
+        refillDelayMs_ = refillDelayMs;
+        executor_ = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "CefBrowserPool");
+            thread.setDaemon(true);
+            return thread;
+        });
+        synchronized (this) {
+            targets_.put(GLOBAL_CONTEXT, target);
+            scheduleRefill();
+        }
+    }
+
+    /**
+     * Set the number of idle browsers to keep for |context|. Excess idle browsers are closed.
+     * @param context The request context or null for the global context.
+     */
+    public void setTarget(CefRequestContext context, int target) {
+        if (target < 0) throw new IllegalArgumentException("target must not be negative");
+        List<CefBrowser> excess = new ArrayList<CefBrowser>();
+        synchronized (this) {
+            if (disposed_) return;
+            Object key = getKey(context);
+            targets_.put(key, target);
+            ArrayDeque<CefBrowser> idle = idle_.get(key);
+            while (idle != null && idle.size() > target) excess.add(idle.pollLast());
+            scheduleRefill();
+        }
+        for (CefBrowser browser : excess) closeBrowser(browser);
+    }
+
+    /**
+     * Returns the number of idle browsers kept for |context|.
+     * @param context The request context or null for the global context.
+     */
+    public synchronized int getTarget(CefRequestContext context) {
+        Integer target = targets_.get(getKey(context));
+        return target != null ? target : defaultTarget_;
+    }
+
+    /**
+     * Returns the number of idle browsers currently available for |context|.
+     * @param context The request context or null for the global context.
+     */
+    public synchronized int getIdleCount(CefRequestContext context) {
+        ArrayDeque<CefBrowser> idle = idle_.get(getKey(context));
+        return idle != null ? idle.size() : 0;
+    }
+
+    /**
+     * Returns the number of acquire() calls that were served by an idle browser.
+     */
+    public synchronized long getHitCount() {
+        return hitCount_;
+    }
+
+    /**
+     * Returns the number of acquire() calls that had to create a browser.
+     */
+    public synchronized long getMissCount() {
+        return missCount_;
+    }
+
+    /**
+     * Returns a browser of the global request context.
+     * @param url The URL to load or null to keep about:blank.
+     */
+    public CefBrowser acquire(String url) {
+        return acquire(null, url);
+    }
+
+    /**
+     * Returns a browser of |context|, taking an idle browser if available.
+     * @param context The request context or null for the global context.
+     * @param url The URL to load or null to keep about:blank.
+     * @throws IllegalStateException if the pool was disposed.
+     */
+    public CefBrowser acquire(CefRequestContext context, String url) {
+        CefBrowser browser = null;
+        synchronized (this) {
+            if (disposed_) throw new IllegalStateException("The pool is disposed");
+            Object key = getKey(context);
+            if (!targets_.containsKey(key)) targets_.put(key, defaultTarget_);
+            ArrayDeque<CefBrowser> idle = idle_.get(key);
+            while (idle != null && !idle.isEmpty() && browser == null) {
+                browser = idle.pollFirst();
+                if (isClosed(browser)) browser = null;
+            }
+            if (browser != null) {
+                ++hitCount_;
+            } else {
+                ++missCount_;
+            }
+            scheduleRefill();
+        }
+
+        if (browser == null) {
+            browser = createBrowser(context, url != null ? url : BLANK_URL);
+        } else if (url != null) {
+            browser.loadURL(url);
+        }
+        return browser;
+    }
+
+    /**
+     * Return a browser obtained from acquire() to the pool. The browser is reset and kept as an
+     * idle browser if the pool needs one, otherwise it is closed. Browsers that were not created
+     * by this pool are closed.
+     */
+    public void release(CefBrowser browser) {
+        Object key = null;
+        synchronized (this) {
+            if (!disposed_ && owned_.containsKey(browser) && !isClosed(browser)) {
+                key = getKey(owned_.get(browser));
+                if (getIdle(key).size() >= targets_.get(key)) key = null;
+            }
+        }
+        if (key == null) {
+            closeBrowser(browser);
+            return;
+        }
+
+        // Reset before the browser becomes visible to acquire().
+        browser.stopLoad();
+        browser.stopFinding(true);
+        browser.setFocus(false);
+        if (browser instanceof CefBrowser_N) ((CefBrowser_N) browser).closeDevTools();
+        browser.setZoomLevel(0);
+        browser.loadURL(BLANK_URL);
+
+        synchronized (this) {
+            ArrayDeque<CefBrowser> idle = getIdle(key);
+            if (!disposed_ && idle.size() < targets_.get(key)) {
+                idle.addLast(browser);
+                return;
+            }
+        }
+        closeBrowser(browser);
+    }
+
+    /**
+     * Close all idle browsers and stop creating new ones. Browsers that were acquired are not
+     * affected.
+     */
+    public void dispose() {
+        List<CefBrowser> idle = new ArrayList<CefBrowser>();
+        synchronized (this) {
+            if (disposed_) return;
+            disposed_ = true;
+            for (ArrayDeque<CefBrowser> browsers : idle_.values()) idle.addAll(browsers);
+            idle_.clear();
+        }
+        executor_.shutdownNow();
+        for (CefBrowser browser : idle) closeBrowser(browser);
+    }
+
+    // Must be called while synchronized on this pool.
+    private void scheduleRefill() {
+        if (refillScheduled_ || disposed_ || findContextToRefill() == null) return;
+        refillScheduled_ = true;
+        executor_.schedule(this::refill, refillDelayMs_, TimeUnit.MILLISECONDS);
+    }
+
+    private void refill() {
+        Object key;
+        synchronized (this) {
+            refillScheduled_ = false;
+            if (disposed_) return;
+            key = findContextToRefill();
+            if (key == null) return;
+        }
+
+        CefRequestContext context = key == GLOBAL_CONTEXT ? null : (CefRequestContext) key;
+        CefBrowser browser = createBrowser(context, BLANK_URL);
+        synchronized (this) {
+            if (!disposed_) {
+                getIdle(key).addLast(browser);
+                scheduleRefill();
+                return;
+            }
+        }
+        closeBrowser(browser);
+    }
+
+    // Returns the key of a request context with fewer idle browsers than its target.
+    private Object findContextToRefill() {
+        for (Map.Entry<Object, Integer> entry : targets_.entrySet()) {
+            ArrayDeque<CefBrowser> idle = idle_.get(entry.getKey());
+            if (idle != null) {
+                idle.removeIf(CefBrowserPool::isClosed);
+            }
+            if ((idle != null ? idle.size() : 0) < entry.getValue()) return entry.getKey();
+        }
+        return null;
+    }
+
+    private CefBrowser createBrowser(CefRequestContext context, String url) {
+        CefBrowser browser = client_.createBrowser(url, rendering_, isTransparent_, context);
+        browser.createImmediately();
+        synchronized (this) {
+            owned_.put(browser, context);
+        }
+        return browser;
+    }
+
+    private void closeBrowser(CefBrowser browser) {
+        synchronized (this) {
+            owned_.remove(browser);
+        }
+        browser.close(true);
+    }
+
+    private ArrayDeque<CefBrowser> getIdle(Object key) {
+        ArrayDeque<CefBrowser> idle = idle_.get(key);
+        if (idle == null) {
+            idle = new ArrayDeque<CefBrowser>();
+            idle_.put(key, idle);
+        }
+        return idle;
+    }
+
+    private static Object getKey(CefRequestContext context) {
+        return context == null || context.isGlobal() ? GLOBAL_CONTEXT : context;
+    }
+
+    private static boolean isClosed(CefBrowser browser) {
+        return browser instanceof CefBrowser_N && ((CefBrowser_N) browser).isClosed();
+    }
+}
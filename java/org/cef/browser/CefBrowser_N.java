@@ -5,6 +5,7 @@
 package org.cef.browser;
 
 import com.jetbrains.cef.JCefAppConfig;
+import org.cef.CefAppThread;
 import org.cef.CefClient;
 import org.cef.CefSettings;
 import org.cef.callback.CefDragData;
@@ -103,6 +104,8 @@ abstract class CefBrowser_N extends CefNativeAdapter implements CefBrowser {
     @Override
     public synchronized boolean doClose() {
         if (closeAllowed_) {
+            // Browsers without a UI component, e.g. in headless mode, have no window to close.
+            if (getUIComponent() == null) return false;
             SwingUtilities.invokeLater(new Runnable() {
                 @Override
                 public void run() {
@@ -457,13 +460,11 @@ abstract class CefBrowser_N extends CefNativeAdapter implements CefBrowser {
             }
 
             if (delayMs >= 0) {
-                Timer t = new Timer(delayMs, e -> close(force));
                 CefSettings settings = JCefAppConfig.getInstance().getCefSettings();
                 if (settings.log_severity == CefSettings.LogSeverity.LOGSEVERITY_VERBOSE) {
-                    System.out.println("DEBUG: native CefBrowser is still constructing, schedule to close '" + this + "' after " + t.getDelay() + " ms");
+                    System.out.println("DEBUG: native CefBrowser is still constructing, schedule to close '" + this + "' after " + delayMs + " ms");
                 }
-                t.setRepeats(false);
-                t.start();
+                CefAppThread.invokeLater(() -> close(force), delayMs);
                 return;
             }
         }
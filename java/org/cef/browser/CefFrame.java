@@ -4,6 +4,9 @@
 
 package org.cef.browser;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Interface representing a frame.
  */
@@ -74,6 +77,44 @@ public interface CefFrame {
      */
     public void executeJavaScript(String code, String url, int line);
 
+    /**
+     * Evaluate a JavaScript expression in this frame and return its result. If the result is a
+     * promise or another thenable it is awaited. The value is converted like the values of binary
+     * message router queries, see CefBinaryQueryHandler.
+     *
+     * @param code The expression to be evaluated.
+     * @return A future that completes with the result or exceptionally with a
+     *         CefJavaScriptException if the evaluation fails.
+     */
+    public CompletableFuture<Object> evaluateJavaScript(String code);
+
+    /**
+     * Evaluate a JavaScript expression in this frame and return its result. If the result is a
+     * promise or another thenable it is awaited.
+     *
+     * @param code The expression to be evaluated.
+     * @param timeoutMs The time to wait for the result or 0 to wait until the frame or its browser
+     *         goes away. The future completes exceptionally with a TimeoutException when the time
+     *         elapses.
+     * @return A future that completes with the result or exceptionally with a
+     *         CefJavaScriptException if the evaluation fails.
+     */
+    public CompletableFuture<Object> evaluateJavaScript(String code, long timeoutMs);
+
+    /**
+     * Evaluate several JavaScript expressions in this frame in one round trip to the render
+     * process. The expressions are evaluated in order.
+     *
+     * @param expressions The expressions to be evaluated.
+     * @param awaitPromises True to await results that are promises or other thenables.
+     * @param timeoutMs The time to wait for the results or 0 to wait until the frame or its
+     *         browser goes away.
+     * @return A future that completes with the results in the order of |expressions| or
+     *         exceptionally with a CefJavaScriptException for the first expression that failed.
+     */
+    public CompletableFuture<List<Object>> evaluateJavaScript(
+            List<String> expressions, boolean awaitPromises, long timeoutMs);
+
     /**
      * Executes undo in this frame.
      * @since JCEF API 1.1
@@ -6,6 +6,10 @@ package org.cef.browser;
 
 import org.cef.callback.CefNativeAdapter;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * This class represents all methods which are connected to the
  * native counterpart CEF.
@@ -108,6 +112,33 @@ class CefFrame_N extends CefNativeAdapter implements CefFrame {
         }
     }
 
+    @Override
+    public CompletableFuture<Object> evaluateJavaScript(String code) {
+        return evaluateJavaScript(code, 0);
+    }
+
+    @Override
+    public CompletableFuture<Object> evaluateJavaScript(String code, long timeoutMs) {
+        return evaluateJavaScript(Collections.singletonList(code), true, timeoutMs)
+                .thenApply(results -> results.get(0));
+    }
+
+    @Override
+    public CompletableFuture<List<Object>> evaluateJavaScript(
+            List<String> expressions, boolean awaitPromises, long timeoutMs) {
+        return CefJavaScriptEvaluation.start(this, expressions, awaitPromises, timeoutMs);
+    }
+
+    // Returns the ID of the frame's browser or 0 if the evaluation couldn't be sent.
+    int sendEvaluation(int id, String[] expressions, boolean awaitPromises) {
+        try {
+            return N_EvaluateJavaScript(getNativeRef(null), id, expressions, awaitPromises);
+        } catch (UnsatisfiedLinkError ule) {
+            ule.printStackTrace();
+            return 0;
+        }
+    }
+
     @Override
     public void undo() {
         try {
@@ -180,6 +211,8 @@ class CefFrame_N extends CefNativeAdapter implements CefFrame {
     private final native boolean N_IsFocused(long self);
     private final native CefFrame N_GetParent(long self);
     private final native void N_ExecuteJavaScript(long self, String code, String url, int line);
+    private final native int N_EvaluateJavaScript(
+            long self, int id, String[] expressions, boolean awaitPromises);
     private final native void N_Undo(long self);
     private final native void N_Redo(long self);
     private final native void N_Cut(long self);
@@ -0,0 +1,91 @@
+package org.cef.browser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the pending results of CefFrame.evaluateJavaScript(). The expressions are sent to the
+ * render process, which evaluates them in the frame's script context and responds with a list
+ * holding a [true, value] or [false, error message] pair per expression. Must be kept in sync
+ * with native/javascript_evaluation.cpp.
+ */
+final class CefJavaScriptEvaluation {
+    private static final AtomicInteger nextId_ = new AtomicInteger(1);
+    private static final Map<Integer, CefJavaScriptEvaluation> pending_ =
+            new ConcurrentHashMap<Integer, CefJavaScriptEvaluation>();
+
+    private final int id_;
+    private final CompletableFuture<List<Object>> future_ = new CompletableFuture<List<Object>>();
+    private volatile int browserId_ = 0;
+
+    private CefJavaScriptEvaluation(int id) {
+        id_ = id;
+    }
+
+    /**
+     * Start the evaluation of |expressions| in |frame|.
+     * @param timeoutMs The time to wait for the results or 0 to wait until the frame or its
+     *         browser goes away.
+     */
+    static CompletableFuture<List<Object>> start(CefFrame_N frame, List<String> expressions,
+            boolean awaitPromises, long timeoutMs) {
+        CefJavaScriptEvaluation evaluation =
+                new CefJavaScriptEvaluation(nextId_.getAndIncrement());
+        if (expressions.isEmpty()) {
+            evaluation.future_.complete(new ArrayList<Object>());
+            return evaluation.future_;
+        }
+
+        pending_.put(evaluation.id_, evaluation);
+        evaluation.future_.whenComplete(
+                (result, error) -> pending_.remove(evaluation.id_, evaluation));
+        if (timeoutMs > 0) evaluation.future_.orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+
+        int browserId = frame.sendEvaluation(
+                evaluation.id_, expressions.toArray(new String[0]), awaitPromises);
+        if (browserId <= 0) {
+            evaluation.future_.completeExceptionally(
+                    new CefJavaScriptException("The frame is not valid", 0));
+        } else {
+            evaluation.browserId_ = browserId;
+        }
+        return evaluation.future_;
+    }
+
+    // Called from native code when the results of an evaluation arrive.
+    static void onResult(int id, byte[] data) {
+        CefJavaScriptEvaluation evaluation = pending_.get(id);
+        if (evaluation == null) return;
+        try {
+            List<?> results = (List<?>) CefValueCodec.decode(data);
+            List<Object> values = new ArrayList<Object>(results.size());
+            for (int i = 0; i < results.size(); ++i) {
+                List<?> result = (List<?>) results.get(i);
+                if (!Boolean.TRUE.equals(result.get(0))) {
+                    evaluation.future_.completeExceptionally(
+                            new CefJavaScriptException(String.valueOf(result.get(1)), i));
+                    return;
+                }
+                values.add(result.get(1));
+            }
+            evaluation.future_.complete(values);
+        } catch (IllegalArgumentException | ClassCastException | IndexOutOfBoundsException e) {
+            evaluation.future_.completeExceptionally(e);
+        }
+    }
+
+    // Called from native code when the render process of a browser terminates or the browser
+    // is closed.
+    static void onBrowserGone(int browserId, String reason) {
+        for (CefJavaScriptEvaluation evaluation : pending_.values()) {
+            if (evaluation.browserId_ == browserId) {
+                evaluation.future_.completeExceptionally(new CefJavaScriptException(reason, 0));
+            }
+        }
+    }
+}
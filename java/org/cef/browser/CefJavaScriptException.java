@@ -0,0 +1,27 @@
+package org.cef.browser;
+
+/**
+ * Thrown when the evaluation of JavaScript code fails because the code throws, a promise it
+ * returns is rejected, or the script context is gone.
+ */
+public class CefJavaScriptException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    private final int index_;
+
+    /**
+     * @param message The exception message reported by the renderer.
+     * @param index The index of the failed expression in the evaluated batch.
+     */
+    public CefJavaScriptException(String message, int index) {
+        super(message);
+        index_ = index;
+    }
+
+    /**
+     * Returns the index of the failed expression in the evaluated batch.
+     */
+    public int getIndex() {
+        return index_;
+    }
+}
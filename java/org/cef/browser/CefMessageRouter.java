@@ -4,7 +4,15 @@
 
 package org.cef.browser;
 
+import org.cef.callback.CefBinaryQueryCallback;
+import org.cef.handler.CefBinaryQueryHandler;
 import org.cef.handler.CefMessageRouterHandler;
+import org.cef.handler.CefQueryStreamHandler;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * The below classes implement support for routing aynchronous messages between
@@ -140,9 +148,51 @@ import org.cef.handler.CefMessageRouterHandler;
  *    }
  *
  * 6. Notice that the success callback is executed in JavaScript.
+ *
+ *
+ * BINARY QUERIES
+ *
+ * Each router also exposes a binary query function and a binary cancel function
+ * named after the query function with the suffixes "Binary" and "BinaryCancel".
+ * Binary queries carry structured values and ArrayBuffers instead of strings
+ * and are handled by CefBinaryQueryHandler instances registered with
+ * addBinaryHandler():
+ *
+ *    var request_id = window.cefQueryBinary({
+ *        request: {name: 'image', data: new Uint8Array(bytes)},
+ *        persistent: false,
+ *        onSuccess: function(response) {},
+ *        onFailure: function(error_code, error_message) {}
+ *    });
+ *    window.cefQueryBinaryCancel(request_id);
+ *
+ *
+ * STREAMING QUERIES
+ *
+ * Each router also exposes a stream function named after the query function
+ * with the suffix "Stream". A stream is a persistent query with flow control
+ * that is handled by CefQueryStreamHandler instances registered with
+ * addStreamHandler(). JavaScript grants the browser process a number of
+ * credits and acknowledges delivered messages, and the browser process never
+ * sends more messages than there are credits. Messages queued while no
+ * credits are available are batched into a single response:
+ *
+ *    var stream = window.cefQueryStream({
+ *        request: 'prices',
+ *        credits: 32,
+ *        onMessage: function(message) {},
+ *        onComplete: function() {},
+ *        onFailure: function(error_code, error_message) {}
+ *    });
+ *    stream.cancel();
  */
 public abstract class CefMessageRouter {
     private CefMessageRouterConfig routerConfig_ = null;
+    private final List<CefBinaryQueryHandler> binaryHandlers_ =
+            new CopyOnWriteArrayList<CefBinaryQueryHandler>();
+    private final Map<Long, BinaryQuery> binaryQueries_ =
+            new ConcurrentHashMap<Long, BinaryQuery>();
+    private CefQueryStreamRouter streamRouter_ = null;
 
     /**
      * Used to configure the query router. If using multiple router pairs make
@@ -258,4 +308,127 @@ public abstract class CefMessageRouter {
      * @param handler The associated handler, or null.
      */
     public abstract void cancelPending(CefBrowser browser, CefMessageRouterHandler handler);
+
+    /**
+     * Add a new binary query handler.
+     *
+     * @param handler The handler to be added.
+     * @param first If true the handler will be added as the first handler, otherwise it will be
+     *         added as the last handler.
+     */
+    public final void addBinaryHandler(CefBinaryQueryHandler handler, boolean first) {
+        if (first) {
+            binaryHandlers_.add(0, handler);
+        } else {
+            binaryHandlers_.add(handler);
+        }
+    }
+
+    /**
+     * Remove an existing binary query handler. Any pending queries associated with the handler
+     * will be canceled. onQueryCanceled will be called on the calling thread with a null frame
+     * and the associated JavaScript onFailure callback will be executed with an error code of -1.
+     *
+     * @param handler The handler to be removed.
+     * @return True if the handler is removed successfully.
+     */
+    public final boolean removeBinaryHandler(CefBinaryQueryHandler handler) {
+        if (!binaryHandlers_.remove(handler)) return false;
+        for (BinaryQuery query : binaryQueries_.values()) {
+            if (query.handler_ != handler) continue;
+            query.failure(-1, "The query has been canceled");
+            handler.onQueryCanceled(query.browser_, null, query.queryId_);
+        }
+        return true;
+    }
+
+    /**
+     * Add a new stream handler.
+     *
+     * @param handler The handler to be added.
+     * @param first If true the handler will be added as the first handler, otherwise it will be
+     *         added as the last handler.
+     */
+    public final void addStreamHandler(CefQueryStreamHandler handler, boolean first) {
+        synchronized (this) {
+            if (streamRouter_ == null) {
+                streamRouter_ = new CefQueryStreamRouter();
+                addHandler(streamRouter_, true);
+            }
+        }
+        streamRouter_.addHandler(handler, first);
+    }
+
+    /**
+     * Remove an existing stream handler. Any open streams associated with the handler will be
+     * canceled. onCanceled will be called and the associated JavaScript onFailure callback will
+     * be executed with an error code of -1.
+     *
+     * @param handler The handler to be removed.
+     * @return True if the handler is removed successfully.
+     */
+    public final boolean removeStreamHandler(CefQueryStreamHandler handler) {
+        CefQueryStreamRouter streamRouter;
+        synchronized (this) {
+            streamRouter = streamRouter_;
+        }
+        return streamRouter != null && streamRouter.removeHandler(handler);
+    }
+
+    // Called from native code when JavaScript executes the binary query function.
+    boolean onBinaryQuery(CefBrowser browser, CefFrame frame, long queryId, byte[] request,
+            boolean persistent, CefBinaryQueryCallback_N callback) {
+        Object value;
+        try {
+            value = CefValueCodec.decode(request);
+        } catch (IllegalArgumentException e) {
+            e.printStackTrace();
+            return false;
+        }
+
+        BinaryQuery query = new BinaryQuery(browser, queryId, persistent, callback);
+        for (CefBinaryQueryHandler handler : binaryHandlers_) {
+            query.handler_ = handler;
+            binaryQueries_.put(queryId, query);
+            if (handler.onQuery(browser, frame, queryId, value, persistent, query)) return true;
+            binaryQueries_.remove(queryId, query);
+        }
+        return false;
+    }
+
+    // Called from native code when a pending binary query is canceled.
+    void onBinaryQueryCanceled(CefBrowser browser, CefFrame frame, long queryId) {
+        BinaryQuery query = binaryQueries_.remove(queryId);
+        if (query != null) query.handler_.onQueryCanceled(browser, frame, queryId);
+    }
+
+    private final class BinaryQuery implements CefBinaryQueryCallback {
+        private final CefBrowser browser_;
+        private final long queryId_;
+        private final boolean persistent_;
+        private final CefBinaryQueryCallback_N callback_;
+        private volatile CefBinaryQueryHandler handler_;
+
+        BinaryQuery(CefBrowser browser, long queryId, boolean persistent,
+                CefBinaryQueryCallback_N callback) {
+            browser_ = browser;
+            queryId_ = queryId;
+            persistent_ = persistent;
+            callback_ = callback;
+        }
+
+        @Override
+        public void success(Object response) {
+            if (binaryQueries_.get(queryId_) != this) return;
+            byte[] data = CefValueCodec.encode(response);
+            if (!persistent_) binaryQueries_.remove(queryId_, this);
+            callback_.success(data);
+        }
+
+        @Override
+        public void failure(int error_code, String error_message) {
+            if (!binaryQueries_.remove(queryId_, this)) return;
+            callback_.failure(error_code, error_message);
+        }
+    }
 }
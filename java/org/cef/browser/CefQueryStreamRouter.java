@@ -0,0 +1,266 @@
+package org.cef.browser;
+
+import org.cef.callback.CefQueryCallback;
+import org.cef.callback.CefQueryStream;
+import org.cef.handler.CefMessageRouterHandlerAdapter;
+import org.cef.handler.CefQueryStreamHandler;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Browser side of the streaming queries of a CefMessageRouter, implemented on top of its string
+ * queries. Must be kept in sync with native/query_stream_renderer_side.cpp.
+ *
+ * JavaScript opens a stream with a persistent query for OPEN_PREFIX + credits + ":" + request,
+ * where credits is the number of messages it is willing to receive before acknowledging them.
+ * Each response is the stream ID followed by ";" and one or more messages, each encoded as its
+ * length in UTF-16 code units, ":" and the message itself. JavaScript grants more credits with a
+ * non-persistent query for CREDIT_PREFIX + stream ID + ":" + credits. A failure with error code
+ * 0 completes the stream.
+ */
+final class CefQueryStreamRouter extends CefMessageRouterHandlerAdapter {
+    static final String OPEN_PREFIX = "cef-stream:";
+    static final String CREDIT_PREFIX = "cef-stream-credit:";
+
+    // Limits the size of a response with more than one message.
+    private static final int MAX_BATCH_LENGTH = 64 * 1024;
+    private static final int MAX_CREDITS = 1024;
+
+    // Sends the responses of all streams so that producers never block on native calls.
+    private static ExecutorService flushExecutor_;
+
+    private final List<CefQueryStreamHandler> handlers_ =
+            new CopyOnWriteArrayList<CefQueryStreamHandler>();
+    private final Map<Long, Stream> streams_ = new ConcurrentHashMap<Long, Stream>();
+
+    void addHandler(CefQueryStreamHandler handler, boolean first) {
+        if (first) {
+            handlers_.add(0, handler);
+        } else {
+            handlers_.add(handler);
+        }
+    }
+
+    boolean removeHandler(CefQueryStreamHandler handler) {
+        if (!handlers_.remove(handler)) return false;
+        for (Stream stream : streams_.values()) {
+            if (stream.handler_ != handler) continue;
+            if (stream.fail(-1, "The query has been canceled")) {
+                handler.onCanceled(stream.browser_, stream);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean onQuery(CefBrowser browser, CefFrame frame, long queryId, String request,
+            boolean persistent, CefQueryCallback callback) {
+        if (request.startsWith(CREDIT_PREFIX)) {
+            int colon = request.indexOf(':', CREDIT_PREFIX.length());
+            try {
+                long id = Long.parseLong(request.substring(CREDIT_PREFIX.length(), colon));
+                int credits = Integer.parseInt(request.substring(colon + 1));
+                Stream stream = streams_.get(id);
+                if (stream != null && stream.browser_ == browser) stream.addCredits(credits);
+                callback.success("");
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                callback.failure(-1, "Invalid stream credit");
+            }
+            return true;
+        }
+
+        if (!request.startsWith(OPEN_PREFIX) || !persistent) return false;
+        int colon = request.indexOf(':', OPEN_PREFIX.length());
+        int credits;
+        try {
+            credits = Integer.parseInt(request.substring(OPEN_PREFIX.length(), colon));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return false;
+        }
+        if (credits < 1 || credits > MAX_CREDITS) return false;
+
+        Stream stream = new Stream(browser, queryId, credits, callback);
+        streams_.put(queryId, stream);
+        String streamRequest = request.substring(colon + 1);
+        for (CefQueryStreamHandler handler : handlers_) {
+            stream.handler_ = handler;
+            if (handler.onOpen(browser, frame, streamRequest, stream)) return true;
+        }
+        streams_.remove(queryId, stream);
+        return false;
+    }
+
+    @Override
+    public void onQueryCanceled(CefBrowser browser, CefFrame frame, long queryId) {
+        Stream stream = streams_.remove(queryId);
+        if (stream != null && stream.cancel()) stream.handler_.onCanceled(browser, stream);
+    }
+
+    private static synchronized void execute(Runnable task) {
+        if (flushExecutor_ == null) {
+            flushExecutor_ = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "CefQueryStreamFlush");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        flushExecutor_.execute(task);
+    }
+
+    private final class Stream implements CefQueryStream {
+        private final CefBrowser browser_;
+        private final long id_;
+        private final int window_;
+        private final CefQueryCallback callback_;
+        private final ArrayDeque<String> buffer_ = new ArrayDeque<String>();
+        private volatile CefQueryStreamHandler handler_;
+        private int credits_;
+        private boolean closing_ = false;
+        private boolean closed_ = false;
+        private boolean flushScheduled_ = false;
+        private boolean wantWritable_ = false;
+        private Runnable writableListener_;
+
+        Stream(CefBrowser browser, long id, int window, CefQueryCallback callback) {
+            browser_ = browser;
+            id_ = id;
+            window_ = window;
+            credits_ = window;
+            callback_ = callback;
+        }
+
+        @Override
+        public long getId() {
+            return id_;
+        }
+
+        @Override
+        public synchronized boolean offer(String message) {
+            if (closed_ || closing_) return false;
+            if (buffer_.size() >= window_) {
+                wantWritable_ = true;
+                return false;
+            }
+            buffer_.add(message);
+            scheduleFlush();
+            return true;
+        }
+
+        @Override
+        public synchronized boolean send(String message) throws InterruptedException {
+            while (!closed_ && !closing_ && buffer_.size() >= window_) wait();
+            if (closed_ || closing_) return false;
+            buffer_.add(message);
+            scheduleFlush();
+            return true;
+        }
+
+        @Override
+        public synchronized int getAvailable() {
+            return closed_ || closing_ ? 0 : window_ - buffer_.size();
+        }
+
+        @Override
+        public synchronized void setWritableListener(Runnable listener) {
+            writableListener_ = listener;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (closed_ || closing_) return;
+            closing_ = true;
+            notifyAll();
+            scheduleFlush();
+        }
+
+        @Override
+        public void failure(int error_code, String error_message) {
+            fail(error_code, error_message);
+        }
+
+        @Override
+        public synchronized boolean isClosed() {
+            return closed_;
+        }
+
+        synchronized void addCredits(int credits) {
+            if (closed_ || credits <= 0) return;
+            credits_ = Math.min(credits_ + credits, window_);
+            scheduleFlush();
+        }
+
+        // Returns false if the stream was already closed.
+        boolean fail(int error_code, String error_message) {
+            if (!cancel()) return false;
+            streams_.remove(id_, this);
+            callback_.failure(error_code, error_message);
+            return true;
+        }
+
+        // Returns false if the stream was already closed.
+        synchronized boolean cancel() {
+            if (closed_) return false;
+            closed_ = true;
+            buffer_.clear();
+            notifyAll();
+            return true;
+        }
+
+        // Must be called while synchronized on this stream.
+        private void scheduleFlush() {
+            if (flushScheduled_ || closed_) return;
+            if ((credits_ == 0 || buffer_.isEmpty()) && !(closing_ && buffer_.isEmpty())) return;
+            flushScheduled_ = true;
+            execute(this::flush);
+        }
+
+        private void flush() {
+            String response = null;
+            boolean complete = false;
+            Runnable listener = null;
+            synchronized (this) {
+                flushScheduled_ = false;
+                if (closed_) return;
+                if (credits_ > 0 && !buffer_.isEmpty()) {
+                    StringBuilder builder = new StringBuilder();
+                    builder.append(id_).append(';');
+                    int count = 0;
+                    while (credits_ > 0 && !buffer_.isEmpty()
+                            && (count == 0
+                                    || builder.length() + buffer_.peek().length()
+                                            <= MAX_BATCH_LENGTH)) {
+                        String message = buffer_.poll();
+                        builder.append(message.length()).append(':').append(message);
+                        --credits_;
+                        ++count;
+                    }
+                    response = builder.toString();
+                    notifyAll();
+                    if (wantWritable_) {
+                        wantWritable_ = false;
+                        listener = writableListener_;
+                    }
+                }
+                if (closing_ && buffer_.isEmpty()) {
+                    closed_ = true;
+                    complete = true;
+                } else {
+                    scheduleFlush();
+                }
+            }
+
+            if (response != null) callback_.success(response);
+            if (complete) {
+                streams_.remove(id_, this);
+                callback_.failure(0, "");
+            }
+            if (listener != null) listener.run();
+        }
+    }
+}
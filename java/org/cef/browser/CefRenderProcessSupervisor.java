@@ -0,0 +1,382 @@
+package org.cef.browser;
+
+import org.cef.CefAppThread;
+import org.cef.CefClient;
+import org.cef.callback.CefAuthCallback;
+import org.cef.callback.CefRequestCallback;
+import org.cef.handler.CefLoadHandler.ErrorCode;
+import org.cef.handler.CefRequestHandler;
+import org.cef.handler.CefRequestHandlerAdapter;
+import org.cef.handler.CefResourceRequestHandler;
+import org.cef.misc.BoolRef;
+import org.cef.network.CefRequest;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+/**
+ * Recovers browsers whose render process terminated, which otherwise keep showing nothing until
+ * they are reloaded. Register the supervisor with CefClient.addRequestHandler() in place of the
+ * application's request handler, which is passed as the delegate and receives all request events
+ * including the termination.
+ *
+ * After a termination the browser is recovered after a delay that starts at the initial backoff
+ * and doubles with each further termination of the browser within the crash loop window, up to
+ * the maximum backoff. If the browser terminated more than the crash loop limit within the window
+ * the supervisor gives up and leaves the browser to the listeners.
+ *
+ * By default a browser is recovered by reloading it, which keeps its navigation history. The
+ * new render process requests the current message routers and user scripts of the client when
+ * it creates the first script context of the browser. Set the action to RECREATE to replace the
+ * browser with a new browser for the same URL instead, which starts a new history. Listeners
+ * must then place the UI component of the new browser.
+ */
+public final class CefRenderProcessSupervisor extends CefRequestHandlerAdapter {
+    public enum Action {
+        /**
+         * Reload the browser.
+         */
+        RELOAD,
+
+        /**
+         * Close the browser and create a new browser for its URL.
+         */
+        RECREATE,
+    }
+
+    /**
+     * Receives notifications about terminations and recoveries on the CEF UI thread for
+     * onTerminated and on the thread of CefAppThread otherwise.
+     */
+    public interface Listener {
+        /**
+         * Called when the render process of |browser| terminated.
+         * @param crashCount The number of terminations within the crash loop window.
+         */
+        default void onTerminated(CefBrowser browser, TerminationStatus status, int crashCount) {}
+
+        /**
+         * Called after |browser| was reloaded or recreated.
+         * @param newBrowser The recovered browser, which is |browser| unless it was recreated.
+         */
+        default void onRecovered(CefBrowser browser, CefBrowser newBrowser, Action action) {}
+
+        /**
+         * Called instead of recovering |browser| when it exceeded the crash loop limit.
+         */
+        default void onGaveUp(CefBrowser browser, int crashCount) {}
+    }
+
+    /**
+     * A snapshot of the supervisor metrics.
+     */
+    public static final class Metrics {
+        private final long terminationCount_;
+        private final long reloadCount_;
+        private final long recreateCount_;
+        private final long gaveUpCount_;
+        private final int maxCrashCount_;
+
+        Metrics(CefRenderProcessSupervisor supervisor) {
+            terminationCount_ = supervisor.terminationCount_;
+            reloadCount_ = supervisor.reloadCount_;
+            recreateCount_ = supervisor.recreateCount_;
+            gaveUpCount_ = supervisor.gaveUpCount_;
+            maxCrashCount_ = supervisor.maxCrashCount_;
+        }
+
+        /**
+         * Returns the number of render process terminations.
+         */
+        public long getTerminationCount() {
+            return terminationCount_;
+        }
+
+        public long getReloadCount() {
+            return reloadCount_;
+        }
+
+        public long getRecreateCount() {
+            return recreateCount_;
+        }
+
+        /**
+         * Returns the number of times a browser exceeded the crash loop limit.
+         */
+        public long getGaveUpCount() {
+            return gaveUpCount_;
+        }
+
+        /**
+         * Returns the highest number of terminations of a browser within the crash loop window.
+         */
+        public int getMaxCrashCount() {
+            return maxCrashCount_;
+        }
+    }
+
+    // Recovery state of a browser, moved to the new browser when it is recreated.
+    private static final class Record {
+        final ArrayDeque<Long> crashTimes = new ArrayDeque<Long>();
+        String url;
+        boolean pending = false;
+    }
+
+    private final CefClient client_;
+    private final CefRequestHandler delegate_;
+    private final List<Listener> listeners_ = new CopyOnWriteArrayList<Listener>();
+    private final Map<CefBrowser, Record> records_ = new WeakHashMap<CefBrowser, Record>();
+
+    private Action action_ = Action.RELOAD;
+    private Function<CefBrowser, CefRequestContext> contextFactory_ = null;
+    private long initialBackoffMs_ = 1000;
+    private long maxBackoffMs_ = 60000;
+    private int crashLoopLimit_ = 5;
+    private long crashLoopWindowMs_ = 10 * 60000;
+    private boolean disposed_ = false;
+
+    private long terminationCount_ = 0;
+    private long reloadCount_ = 0;
+    private long recreateCount_ = 0;
+    private long gaveUpCount_ = 0;
+    private int maxCrashCount_ = 0;
+
+    /**
+     * @param client The client whose browsers are supervised.
+     * @param delegate The request handler to forward all request events to or null.
+     */
+    public CefRenderProcessSupervisor(CefClient client, CefRequestHandler delegate) {
+        client_ = client;
+        delegate_ = delegate;
+    }
+
+    /**
+     * Set how browsers are recovered.
+     * @param contextFactory Creates the request context of recreated browsers from the original
+     *         browser, or null to use the global context. A browser closes its request context,
+     *         so recreated browsers can't use the context of the original browser.
+     */
+    public synchronized void setAction(
+            Action action, Function<CefBrowser, CefRequestContext> contextFactory) {
+        action_ = action;
+        contextFactory_ = contextFactory;
+    }
+
+    /**
+     * Set the delays before a browser is recovered.
+     * @param initialMs The delay after the first termination within the crash loop window.
+     * @param maxMs The maximum delay.
+     */
+    public synchronized void setBackoff(long initialMs, long maxMs) {
+        if (initialMs < 0 || maxMs < initialMs || maxMs > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid backoff");
+        }
+        initialBackoffMs_ = initialMs;
+        maxBackoffMs_ = maxMs;
+    }
+
+    /**
+     * Give up recovering a browser whose render process terminated more than |limit| times
+     * within |windowMs|.
+     */
+    public synchronized void setCrashLoopLimit(int limit, long windowMs) {
+        if (limit < 1 || windowMs <= 0) throw new IllegalArgumentException("Invalid crash loop");
+        crashLoopLimit_ = limit;
+        crashLoopWindowMs_ = windowMs;
+    }
+
+    public void addListener(Listener listener) {
+        listeners_.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners_.remove(listener);
+    }
+
+    /**
+     * Returns the number of terminations of |browser| within the crash loop window.
+     */
+    public synchronized int getCrashCount(CefBrowser browser) {
+        Record record = records_.get(browser);
+        if (record == null) return 0;
+        pruneCrashTimes(record, System.nanoTime());
+        return record.crashTimes.size();
+    }
+
+    /**
+     * Returns a snapshot of the current metrics.
+     */
+    public synchronized Metrics getMetrics() {
+        return new Metrics(this);
+    }
+
+    /**
+     * Stop recovering browsers. Request events are still forwarded to the delegate.
+     */
+    public synchronized void dispose() {
+        disposed_ = true;
+    }
+
+    @Override
+    public void onRenderProcessTerminated(CefBrowser browser, TerminationStatus status) {
+        int crashCount;
+        boolean giveUp;
+        long delayMs = 0;
+        Record record;
+        synchronized (this) {
+            if (disposed_) {
+                record = null;
+                crashCount = 0;
+                giveUp = false;
+            } else {
+                record = records_.get(browser);
+                if (record == null) {
+                    record = new Record();
+                    records_.put(browser, record);
+                }
+                long now = System.nanoTime();
+                pruneCrashTimes(record, now);
+                record.crashTimes.addLast(now);
+                record.url = browser.getURL();
+                crashCount = record.crashTimes.size();
+                ++terminationCount_;
+                maxCrashCount_ = Math.max(maxCrashCount_, crashCount);
+                giveUp = crashCount > crashLoopLimit_;
+                if (giveUp) {
+                    ++gaveUpCount_;
+                } else if (!record.pending) {
+                    record.pending = true;
+                    delayMs = Math.min(maxBackoffMs_,
+                            initialBackoffMs_ << Math.min(crashCount - 1, 30));
+                } else {
+                    // A recovery is already scheduled.
+                    record = null;
+                }
+            }
+        }
+
+        if (delegate_ != null) delegate_.onRenderProcessTerminated(browser, status);
+        if (crashCount == 0) return;
+        for (Listener listener : listeners_) listener.onTerminated(browser, status, crashCount);
+        if (giveUp) {
+            for (Listener listener : listeners_) listener.onGaveUp(browser, crashCount);
+        } else if (record != null) {
+            Record scheduled = record;
+            CefAppThread.invokeLater(() -> recover(browser, scheduled), (int) delayMs);
+        }
+    }
+
+    private void recover(CefBrowser browser, Record record) {
+        Action action;
+        Function<CefBrowser, CefRequestContext> contextFactory;
+        synchronized (this) {
+            record.pending = false;
+            if (disposed_ || isClosed(browser)) return;
+            action = action_;
+            contextFactory = contextFactory_;
+            if (action == Action.RELOAD) {
+                ++reloadCount_;
+            } else {
+                ++recreateCount_;
+            }
+        }
+
+        CefBrowser newBrowser = browser;
+        if (action == Action.RELOAD) {
+            if (browser.getURL().isEmpty() && record.url != null && !record.url.isEmpty()) {
+                browser.loadURL(record.url);
+            } else {
+                browser.reload();
+            }
+        } else {
+            CefRequestContext context =
+                    contextFactory != null ? contextFactory.apply(browser) : null;
+            newBrowser = client_.createBrowser(
+                    record.url, getRendering(browser), isTransparent(browser), context);
+            if (newBrowser.getUIComponent() == null) newBrowser.createImmediately();
+            synchronized (this) {
+                records_.remove(browser);
+                records_.put(newBrowser, record);
+            }
+            browser.close(true);
+        }
+        for (Listener listener : listeners_) listener.onRecovered(browser, newBrowser, action);
+    }
+
+    // Must be called while synchronized on this supervisor.
+    private void pruneCrashTimes(Record record, long now) {
+        long windowNanos = crashLoopWindowMs_ * 1000000;
+        while (!record.crashTimes.isEmpty() && now - record.crashTimes.peekFirst() > windowNanos) {
+            record.crashTimes.pollFirst();
+        }
+    }
+
+    private static CefRendering getRendering(CefBrowser browser) {
+        if (browser instanceof CefBrowserOsrWithHandler) {
+            return new CefRendering.CefRenderingWithHandler(browser.getRenderHandler());
+        }
+        return browser instanceof CefBrowserOsr ? CefRendering.OFFSCREEN : CefRendering.DEFAULT;
+    }
+
+    private static boolean isTransparent(CefBrowser browser) {
+        return browser instanceof CefBrowserOsr && ((CefBrowserOsr) browser).isTransparent();
+    }
+
+    private static boolean isClosed(CefBrowser browser) {
+        return browser instanceof CefBrowser_N && ((CefBrowser_N) browser).isClosed();
+    }
+
+    @Override
+    public boolean onBeforeBrowse(CefBrowser browser, CefFrame frame, CefRequest request,
+            boolean user_gesture, boolean is_redirect) {
+        return delegate_ != null
+                && delegate_.onBeforeBrowse(browser, frame, request, user_gesture, is_redirect);
+    }
+
+    @Override
+    public boolean onOpenURLFromTab(CefBrowser browser, CefFrame frame, String target_url,
+            boolean user_gesture) {
+        return delegate_ != null
+                && delegate_.onOpenURLFromTab(browser, frame, target_url, user_gesture);
+    }
+
+    @Override
+    public CefResourceRequestHandler getResourceRequestHandler(CefBrowser browser, CefFrame frame,
+            CefRequest request, boolean isNavigation, boolean isDownload, String requestInitiator,
+            BoolRef disableDefaultHandling) {
+        if (delegate_ == null) return null;
+        return delegate_.getResourceRequestHandler(browser, frame, request, isNavigation,
+                isDownload, requestInitiator, disableDefaultHandling);
+    }
+
+    @Override
+    public boolean getAuthCredentials(CefBrowser browser, String origin_url, boolean isProxy,
+            String host, int port, String realm, String scheme, CefAuthCallback callback) {
+        return delegate_ != null
+                && delegate_.getAuthCredentials(
+                        browser, origin_url, isProxy, host, port, realm, scheme, callback);
+    }
+
+    @Override
+    public boolean onQuotaRequest(
+            CefBrowser browser, String origin_url, long new_size, CefRequestCallback callback) {
+        return delegate_ != null
+                && delegate_.onQuotaRequest(browser, origin_url, new_size, callback);
+    }
+
+    @Override
+    public boolean onCertificateError(CefBrowser browser, ErrorCode cert_error, String request_url,
+            CefRequestCallback callback) {
+        return delegate_ != null
+                && delegate_.onCertificateError(browser, cert_error, request_url, callback);
+    }
+
+    @Override
+    public void onPluginCrashed(CefBrowser browser, String pluginPath) {
+        if (delegate_ != null) delegate_.onPluginCrashed(browser, pluginPath);
+    }
+}
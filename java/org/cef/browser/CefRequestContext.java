@@ -5,6 +5,7 @@
 package org.cef.browser;
 
 import org.cef.handler.CefRequestContextHandler;
+import org.cef.network.CefUrlRuleSet;
 
 /**
  * A request context provides request handling for a set of related browser
@@ -39,6 +40,21 @@ public abstract class CefRequestContext {
         return CefRequestContext_N.createNative(handler);
     }
 
+    /**
+     * Creates a new context object with the specified handler and URL rules. The rules are
+     * evaluated natively for every request of the context, so matching requests are blocked or
+     * redirected without calling into Java. Requests for which the CefRequestHandler of the
+     * browser returns a CefResourceRequestHandler are not subject to the rules.
+     * @param handler The handler or null.
+     * @param ruleSet The rules or null.
+     */
+    public static final CefRequestContext createContext(
+            CefRequestContextHandler handler, CefUrlRuleSet ruleSet) {
+        CefRequestContext context = CefRequestContext_N.createNative(handler);
+        if (context != null && ruleSet != null) context.setUrlRuleSet(ruleSet);
+        return context;
+    }
+
     public abstract void dispose();
 
     /**
@@ -50,4 +66,17 @@ public abstract class CefRequestContext {
      * Returns the handler for this context if any.
      */
     public abstract CefRequestContextHandler getHandler();
+
+    /**
+     * Replace the URL rules of this context. Takes effect for requests started afterwards.
+     * @param ruleSet The new rules or null to remove all rules.
+     * @throws IllegalStateException if this is the global context, which doesn't support rules,
+     *         or the rules couldn't be installed.
+     */
+    public abstract void setUrlRuleSet(CefUrlRuleSet ruleSet);
+
+    /**
+     * Returns the URL rules of this context if any.
+     */
+    public abstract CefUrlRuleSet getUrlRuleSet();
 }
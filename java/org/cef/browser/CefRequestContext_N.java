@@ -6,12 +6,17 @@ package org.cef.browser;
 
 import org.cef.callback.CefNative;
 import org.cef.handler.CefRequestContextHandler;
+import org.cef.network.CefUrlRule;
+import org.cef.network.CefUrlRuleSet;
+
+import java.util.List;
 
 class CefRequestContext_N extends CefRequestContext implements CefNative {
     // Used internally to store a pointer to the CEF object.
     private long N_CefHandle = 0;
     private static CefRequestContext_N globalInstance = null;
     private CefRequestContextHandler handler = null;
+    private volatile CefUrlRuleSet ruleSet = null;
 
     @Override
     public void setNativeRef(String identifer, long nativeRef) {
@@ -78,9 +83,47 @@ class CefRequestContext_N extends CefRequestContext implements CefNative {
         return handler;
     }
 
+    @Override
+    public void setUrlRuleSet(CefUrlRuleSet ruleSet) {
+        int[] actions = null;
+        String[] hosts = null;
+        String[] paths = null;
+        String[] targets = null;
+        if (ruleSet != null) {
+            List<CefUrlRule> rules = ruleSet.getRules();
+            actions = new int[rules.size()];
+            hosts = new String[rules.size()];
+            paths = new String[rules.size()];
+            targets = new String[rules.size()];
+            for (int i = 0; i < rules.size(); ++i) {
+                CefUrlRule rule = rules.get(i);
+                actions[i] = rule.getAction().ordinal();
+                hosts[i] = rule.getHost();
+                paths[i] = rule.getPathPattern();
+                targets[i] = rule.getTarget();
+            }
+        }
+        if (isGlobal())
+            throw new IllegalStateException("URL rules can't be installed on the global context");
+        try {
+            if (!N_SetUrlRules(actions, hosts, paths, targets))
+                throw new IllegalStateException("Failed to install URL rules");
+            this.ruleSet = ruleSet;
+        } catch (UnsatisfiedLinkError ule) {
+            ule.printStackTrace();
+        }
+    }
+
+    @Override
+    public CefUrlRuleSet getUrlRuleSet() {
+        return ruleSet;
+    }
+
     private final static native CefRequestContext_N N_GetGlobalContext();
     private final static native CefRequestContext_N N_CreateContext(
             CefRequestContextHandler handler);
     private final native boolean N_IsGlobal();
+    private final native boolean N_SetUrlRules(
+            int[] actions, String[] hosts, String[] paths, String[] targets);
     private final native void N_CefRequestContext_DTOR();
 }
@@ -0,0 +1,101 @@
+package org.cef.browser;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A script that is executed in every matching frame when its script context is created,
+ * registered with CefClient.addUserScript(). The script is sent to a render process once per
+ * browser and cached there, so navigations don't send it again.
+ *
+ * URL patterns are matched against the complete URL of the frame and support "*" and "?". A
+ * script runs in a frame if its URL matches any include pattern, or there are none, and no exclude
+ * pattern.
+ */
+public final class CefUserScript {
+    public enum RunAt {
+        /**
+         * Run when the script context is created, before any script of the page.
+         */
+        DOCUMENT_START,
+
+        /**
+         * Run when the DOMContentLoaded event is fired.
+         */
+        DOCUMENT_END,
+
+        /**
+         * Run after the load event has been fired.
+         */
+        DOCUMENT_IDLE,
+    }
+
+    private final String name_;
+    private final String source_;
+    private final List<String> includes_;
+    private final List<String> excludes_;
+    private final RunAt runAt_;
+    private final boolean allFrames_;
+
+    /**
+     * Create a script that runs at document start in the main frame of all pages.
+     * @param name The unique name of the script.
+     * @param source The JavaScript source code.
+     */
+    public CefUserScript(String name, String source) {
+        this(name, source, null, null, RunAt.DOCUMENT_START, false);
+    }
+
+    /**
+     * Create a script.
+     * @param name The unique name of the script.
+     * @param source The JavaScript source code.
+     * @param includes The URL patterns of the pages to run in or null to run in all pages.
+     * @param excludes The URL patterns of the pages not to run in or null.
+     * @param runAt When to run the script.
+     * @param allFrames True to run in all frames or false to run only in the main frame.
+     */
+    public CefUserScript(String name, String source, Collection<String> includes,
+            Collection<String> excludes, RunAt runAt, boolean allFrames) {
+        if (name == null || source == null || runAt == null) {
+            throw new IllegalArgumentException("name, source and runAt must not be null");
+        }
+        name_ = name;
+        source_ = source;
+        includes_ = copyOf(includes);
+        excludes_ = copyOf(excludes);
+        runAt_ = runAt;
+        allFrames_ = allFrames;
+    }
+
+    public String getName() {
+        return name_;
+    }
+
+    public String getSource() {
+        return source_;
+    }
+
+    public List<String> getIncludes() {
+        return includes_;
+    }
+
+    public List<String> getExcludes() {
+        return excludes_;
+    }
+
+    public RunAt getRunAt() {
+        return runAt_;
+    }
+
+    public boolean isAllFrames() {
+        return allFrames_;
+    }
+
+    private static List<String> copyOf(Collection<String> patterns) {
+        if (patterns == null) return Collections.emptyList();
+        return Collections.unmodifiableList(new ArrayList<String>(patterns));
+    }
+}
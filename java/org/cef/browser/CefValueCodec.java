@@ -0,0 +1,194 @@
+package org.cef.browser;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compact serialized representation of structured values used to transfer them to and from
+ * native code in a single call. A value is a type byte followed by its payload: nothing for null
+ * and booleans, a big-endian int32 for integers, an int64 bit pattern for doubles, an int32 length
+ * prefixed UTF-8 string or byte sequence for strings and binaries, and an int32 count followed by
+ * the elements for lists or by key strings and values for dictionaries. Must be kept in sync with
+ * native/value_codec.cpp.
+ *
+ * Java values map to null, Boolean, Integer (also Byte, Short and Long values that fit), Double
+ * (all other Numbers), String (also Character), ByteBuffer (the remaining bytes) or byte[],
+ * Map (keys are converted with String.valueOf) and Collection or Object[]. Decoding produces
+ * null, Boolean, Integer, Double, String, ByteBuffer, Map<String, Object> and List<Object>.
+ * Native code decodes empty binaries as null because CEF does not support them.
+ */
+final class CefValueCodec {
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_FALSE = 1;
+    private static final byte TYPE_TRUE = 2;
+    private static final byte TYPE_INT = 3;
+    private static final byte TYPE_DOUBLE = 4;
+    private static final byte TYPE_STRING = 5;
+    private static final byte TYPE_BINARY = 6;
+    private static final byte TYPE_LIST = 7;
+    private static final byte TYPE_DICTIONARY = 8;
+
+    // Limits recursion for self-referencing collections and malformed input.
+    private static final int MAX_DEPTH = 64;
+
+    private CefValueCodec() {}
+
+    /**
+     * Returns the serialized form of |value|.
+     * @throws IllegalArgumentException if |value| contains an unsupported type or is nested too
+     *         deeply.
+     */
+    static byte[] encode(Object value) {
+        Writer writer = new Writer();
+        writer.write(value, 0);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Returns the value serialized in |data|. Binary values share the storage of |data|.
+     * @throws IllegalArgumentException if |data| is malformed.
+     */
+    static Object decode(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        try {
+            Object value = read(buffer, 0);
+            if (buffer.hasRemaining()) throw new IllegalArgumentException("Trailing value data");
+            return value;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated value data", e);
+        }
+    }
+
+    private static Object read(ByteBuffer buffer, int depth) {
+        if (depth > MAX_DEPTH) throw new IllegalArgumentException("Value nested too deeply");
+        byte type = buffer.get();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_FALSE:
+                return Boolean.FALSE;
+            case TYPE_TRUE:
+                return Boolean.TRUE;
+            case TYPE_INT:
+                return buffer.getInt();
+            case TYPE_DOUBLE:
+                return Double.longBitsToDouble(buffer.getLong());
+            case TYPE_STRING: {
+                int length = readLength(buffer, 1);
+                String str = new String(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                        length, StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + length);
+                return str;
+            }
+            case TYPE_BINARY: {
+                int length = readLength(buffer, 1);
+                int offset = buffer.arrayOffset() + buffer.position();
+                ByteBuffer binary = ByteBuffer.wrap(buffer.array(), offset, length).slice();
+                buffer.position(buffer.position() + length);
+                return binary;
+            }
+            case TYPE_LIST: {
+                int count = readLength(buffer, 1);
+                ArrayList<Object> list = new ArrayList<Object>(count);
+                for (int i = 0; i < count; ++i) list.add(read(buffer, depth + 1));
+                return list;
+            }
+            case TYPE_DICTIONARY: {
+                int count = readLength(buffer, 5);
+                LinkedHashMap<String, Object> map = new LinkedHashMap<String, Object>();
+                for (int i = 0; i < count; ++i) {
+                    int length = readLength(buffer, 1);
+                    String key = new String(buffer.array(),
+                            buffer.arrayOffset() + buffer.position(), length,
+                            StandardCharsets.UTF_8);
+                    buffer.position(buffer.position() + length);
+                    map.put(key, read(buffer, depth + 1));
+                }
+                return map;
+            }
+            default:
+                throw new IllegalArgumentException("Invalid value type " + type);
+        }
+    }
+
+    // Reads a length or count of items that occupy at least |minItemSize| bytes each.
+    private static int readLength(ByteBuffer buffer, int minItemSize) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining() / minItemSize) {
+            throw new BufferUnderflowException();
+        }
+        return length;
+    }
+
+    private static final class Writer {
+        private ByteBuffer buffer_ = ByteBuffer.allocate(256);
+
+        byte[] toByteArray() {
+            byte[] data = new byte[buffer_.position()];
+            System.arraycopy(buffer_.array(), 0, data, 0, data.length);
+            return data;
+        }
+
+        void write(Object value, int depth) {
+            if (depth > MAX_DEPTH) throw new IllegalArgumentException("Value nested too deeply");
+            if (value == null) {
+                reserve(1).put(TYPE_NULL);
+            } else if (value instanceof Boolean) {
+                reserve(1).put(((Boolean) value) ? TYPE_TRUE : TYPE_FALSE);
+            } else if (value instanceof Integer || value instanceof Short
+                    || value instanceof Byte) {
+                reserve(5).put(TYPE_INT).putInt(((Number) value).intValue());
+            } else if (value instanceof Long && (Long) value == ((Long) value).intValue()) {
+                reserve(5).put(TYPE_INT).putInt(((Long) value).intValue());
+            } else if (value instanceof Number) {
+                reserve(9).put(TYPE_DOUBLE).putLong(
+                        Double.doubleToRawLongBits(((Number) value).doubleValue()));
+            } else if (value instanceof String || value instanceof Character) {
+                byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+                reserve(5 + bytes.length).put(TYPE_STRING).putInt(bytes.length).put(bytes);
+            } else if (value instanceof ByteBuffer) {
+                ByteBuffer binary = ((ByteBuffer) value).duplicate();
+                reserve(5 + binary.remaining()).put(TYPE_BINARY).putInt(binary.remaining());
+                buffer_.put(binary);
+            } else if (value instanceof byte[]) {
+                byte[] bytes = (byte[]) value;
+                reserve(5 + bytes.length).put(TYPE_BINARY).putInt(bytes.length).put(bytes);
+            } else if (value instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                reserve(5).put(TYPE_DICTIONARY).putInt(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    byte[] key = String.valueOf(entry.getKey()).getBytes(StandardCharsets.UTF_8);
+                    reserve(4 + key.length).putInt(key.length).put(key);
+                    write(entry.getValue(), depth + 1);
+                }
+            } else if (value instanceof Collection) {
+                Collection<?> list = (Collection<?>) value;
+                reserve(5).put(TYPE_LIST).putInt(list.size());
+                for (Object element : list) write(element, depth + 1);
+            } else if (value instanceof Object[]) {
+                Object[] list = (Object[]) value;
+                reserve(5).put(TYPE_LIST).putInt(list.length);
+                for (Object element : list) write(element, depth + 1);
+            } else {
+                throw new IllegalArgumentException(
+                        "Unsupported value type " + value.getClass().getName());
+            }
+        }
+
+        private ByteBuffer reserve(int size) {
+            if (buffer_.remaining() < size) {
+                int capacity = Math.max(buffer_.capacity() * 2, buffer_.position() + size);
+                ByteBuffer buffer = ByteBuffer.allocate(capacity);
+                buffer_.flip();
+                buffer.put(buffer_);
+                buffer_ = buffer;
+            }
+            return buffer_;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package org.cef.callback;
+
+/**
+ * Interface representing a binary query callback. The methods of this interface may be called on
+ * any thread.
+ */
+public interface CefBinaryQueryCallback {
+    /**
+     * Notify the associated JavaScript onSuccess callback that the query has completed
+     * successfully. May be called more than once for persistent queries.
+     * @param response Response passed to JavaScript. See CefBinaryQueryHandler for the supported
+     *         types.
+     * @throws IllegalArgumentException if |response| contains an unsupported type.
+     */
+    public void success(Object response);
+
+    /**
+     * Notify the associated JavaScript onFailure callback that the query has failed.
+     * @param error_code Error code passed to JavaScript.
+     * @param error_message Error message passed to JavaScript.
+     */
+    public void failure(int error_code, String error_message);
+}
@@ -0,0 +1,61 @@
+package org.cef.callback;
+
+/**
+ * Interface representing the browser side of a streaming query. Messages are delivered to the
+ * JavaScript onMessage callback in order. Only as many messages as JavaScript has granted credits
+ * for are sent, and at most as many as the credit window are buffered, so a producer that is
+ * faster than the renderer is slowed down instead of queuing messages without bound. The methods
+ * of this interface may be called on any thread.
+ */
+public interface CefQueryStream {
+    /**
+     * Returns the unique ID of the stream, which is the ID of the underlying persistent query.
+     */
+    public long getId();
+
+    /**
+     * Queue a message if the buffer has room.
+     * @return True if the message was queued or false if the buffer is full or the stream is
+     *         closed.
+     */
+    public boolean offer(String message);
+
+    /**
+     * Queue a message, waiting for room in the buffer if necessary. Must not be called on the
+     * browser process UI thread because credits are received on that thread.
+     * @return True if the message was queued or false if the stream is closed.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public boolean send(String message) throws InterruptedException;
+
+    /**
+     * Returns the number of messages that can currently be queued without blocking.
+     */
+    public int getAvailable();
+
+    /**
+     * Set a listener that is run on an internal thread when room becomes available in the buffer
+     * after offer() returned false, or null to remove the listener. The listener must not
+     * block.
+     */
+    public void setWritableListener(Runnable listener);
+
+    /**
+     * Complete the stream after the queued messages have been delivered. The JavaScript
+     * onComplete callback will be executed.
+     */
+    public void close();
+
+    /**
+     * Fail the stream immediately, discarding queued messages. The JavaScript onFailure callback
+     * will be executed.
+     * @param error_code Error code passed to JavaScript.
+     * @param error_message Error message passed to JavaScript.
+     */
+    public void failure(int error_code, String error_message);
+
+    /**
+     * Returns true if the stream was closed, failed or canceled.
+     */
+    public boolean isClosed();
+}
@@ -0,0 +1,20 @@
+package org.cef.callback;
+
+import org.cef.network.CefURLRequest;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A CefURLRequestClient that receives download data without an intermediate copy. If a client
+ * implements this interface {@link #onDownloadData(CefURLRequest, ByteBuffer)} is called instead
+ * of {@link CefURLRequestClient#onDownloadData(CefURLRequest, byte[], int)}.
+ */
+public interface CefURLRequestBufferClient extends CefURLRequestClient {
+    /**
+     * Called when some part of the response is read. |data| is a read-only view of the bytes
+     * received since the last call. It wraps native memory and is only valid until this method
+     * returns. Copy the data if it is needed later. This method will not be called if the
+     * UR_FLAG_NO_DOWNLOAD_DATA flag is set on the request.
+     */
+    void onDownloadData(CefURLRequest request, ByteBuffer data);
+}
@@ -0,0 +1,166 @@
+package org.cef.handler;
+
+import org.cef.callback.CefCallback;
+import org.cef.misc.IntRef;
+import org.cef.misc.StringRef;
+import org.cef.network.CefRequest;
+import org.cef.network.CefResponse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Resource handler for a single entry of a {@link ResourceArchive}. Stored entries are copied
+ * straight from the mapped archive. Deflated entries are served from the inflated content cache
+ * of the owning factory or, if too large to be cached, inflated incrementally while reading.
+ */
+class ArchiveResourceHandler implements CefResourceHandler {
+    private final ResourceArchive.Entry entry_;
+    private final CefArchiveSchemeHandlerFactory factory_;
+
+    private int status_ = 200;
+    private String statusText_ = "OK";
+    private final HashMap<String, String> headers_ = new HashMap<String, String>();
+
+    // Exactly one of |body_| or |inflater_| is set if a body will be sent.
+    private ByteBuffer body_;
+    private Inflater inflater_;
+
+    ArchiveResourceHandler(ResourceArchive.Entry entry, CefArchiveSchemeHandlerFactory factory) {
+        entry_ = entry;
+        factory_ = factory;
+    }
+
+    @Override
+    public boolean processRequest(CefRequest request, CefCallback callback) {
+        String method = request.getMethod();
+        boolean isHead = "HEAD".equalsIgnoreCase(method);
+        if (!isHead && method != null && !method.isEmpty() && !"GET".equalsIgnoreCase(method)) {
+            setStatus(405, "Method Not Allowed");
+            headers_.put("Allow", "GET, HEAD");
+            callback.Continue();
+            return true;
+        }
+
+        headers_.put("ETag", entry_.etag);
+        if (entry_.lastModified >= 0)
+            headers_.put("Last-Modified", ResourceHandlerUtils.formatHttpDate(entry_.lastModified));
+
+        if (ResourceHandlerUtils.isNotModified(request, entry_.etag, entry_.lastModified)) {
+            setStatus(304, "Not Modified");
+            callback.Continue();
+            return true;
+        }
+
+        try {
+            if (entry_.method == ResourceArchive.METHOD_STORED) {
+                body_ = entry_.data();
+            } else {
+                byte[] content = factory_.getInflatedContent(entry_);
+                if (content != null) {
+                    body_ = ByteBuffer.wrap(content);
+                } else if (!isHead) {
+                    inflater_ = new Inflater(true);
+                    inflater_.setInput(entry_.data());
+                }
+            }
+        } catch (IOException | DataFormatException e) {
+            e.printStackTrace();
+            close();
+            return false;
+        }
+
+        if (body_ != null) {
+            // Byte ranges are only supported if the content is directly addressable.
+            headers_.put("Accept-Ranges", "bytes");
+            long length = body_.remaining();
+            if (ResourceHandlerUtils.isRangeApplicable(request, entry_.etag, entry_.lastModified)) {
+                long[] range =
+                        ResourceHandlerUtils.parseRange(request.getHeaderByName("Range"), length);
+                if (range == ResourceHandlerUtils.UNSATISFIABLE_RANGE) {
+                    setStatus(416, "Range Not Satisfiable");
+                    headers_.put("Content-Range", "bytes */" + length);
+                    body_ = null;
+                } else if (range != null) {
+                    setStatus(206, "Partial Content");
+                    headers_.put(
+                            "Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + length);
+                    body_.position((int) range[0]);
+                    body_.limit((int) range[1] + 1);
+                }
+            }
+            if (isHead) body_ = null;
+        }
+
+        callback.Continue();
+        return true;
+    }
+
+    @Override
+    public void getResponseHeaders(
+            CefResponse response, IntRef responseLength, StringRef redirectUrl) {
+        response.setStatus(status_);
+        response.setStatusText(statusText_);
+        if (status_ == 200 || status_ == 206 || status_ == 304)
+            response.setMimeType(ResourceHandlerUtils.guessMimeType(entry_.name));
+        response.setHeaderMap(headers_);
+
+        long length = 0;
+        if (body_ != null) {
+            length = body_.remaining();
+        } else if (inflater_ != null) {
+            length = entry_.size;
+        }
+        responseLength.set(length <= Integer.MAX_VALUE ? (int) length : -1);
+    }
+
+    @Override
+    public boolean readResponse(
+            byte[] dataOut, int bytesToRead, IntRef bytesRead, CefCallback callback) {
+        int count = 0;
+        boolean failed = false;
+        if (body_ != null) {
+            count = Math.min(bytesToRead, body_.remaining());
+            body_.get(dataOut, 0, count);
+        } else if (inflater_ != null && inflater_.getBytesWritten() < entry_.size) {
+            try {
+                count = inflater_.inflate(dataOut, 0, bytesToRead);
+            } catch (DataFormatException e) {
+                e.printStackTrace();
+            }
+            // The entry data is corrupt or truncated.
+            failed = count <= 0;
+        }
+
+        if (count <= 0) {
+            close();
+            // Fail the request instead of completing it with a partial body.
+            if (failed) callback.cancel();
+            return false;
+        }
+        bytesRead.set(count);
+        return true;
+    }
+
+    @Override
+    public void cancel() {
+        close();
+    }
+
+    private void setStatus(int status, String statusText) {
+        status_ = status;
+        statusText_ = statusText;
+    }
+
+    private void close() {
+        body_ = null;
+        if (inflater_ != null) {
+            // Release the native zlib state right away instead of waiting for GC.
+            inflater_.end();
+            inflater_ = null;
+        }
+    }
+}
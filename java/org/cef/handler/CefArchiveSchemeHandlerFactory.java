@@ -0,0 +1,210 @@
+package org.cef.handler;
+
+import org.cef.browser.CefBrowser;
+import org.cef.browser.CefFrame;
+import org.cef.callback.CefSchemeHandlerFactory;
+import org.cef.network.CefRequest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Scheme handler factory that serves static resources bundled in JAR/ZIP archives or
+ * directories, for example web assets on the class path. All configured locations are indexed
+ * once when they are added, so a request is resolved with a single hash lookup and never
+ * touches the class loader or re-reads the archive directory.
+ *
+ * Archives are memory-mapped. Stored entries are served directly from the mapped region.
+ * Deflated entries up to a configurable size are inflated once and kept in a bounded LRU cache;
+ * larger entries are inflated incrementally for every request. Every entry gets an ETag derived
+ * from its CRC and size so the browser cache can revalidate cheaply.
+ *
+ * If the same resource path is provided by several locations the first one added wins, matching
+ * class path semantics.
+ */
+public class CefArchiveSchemeHandlerFactory implements CefSchemeHandlerFactory {
+    private static final String INDEX_FILE = "index.html";
+
+    /**
+     * Location of a resource: either an archive entry or a file in an indexed directory.
+     */
+    private static final class IndexEntry {
+        final ResourceArchive.Entry archiveEntry;
+        final Path file;
+
+        IndexEntry(ResourceArchive.Entry archiveEntry, Path file) {
+            this.archiveEntry = archiveEntry;
+            this.file = file;
+        }
+    }
+
+    private final ConcurrentHashMap<String, IndexEntry> index_ =
+            new ConcurrentHashMap<String, IndexEntry>();
+
+    private final long maxCacheSize_;
+    private final int maxCachedEntrySize_;
+    private final LinkedHashMap<ResourceArchive.Entry, byte[]> cache_ =
+            new LinkedHashMap<ResourceArchive.Entry, byte[]>(16, 0.75f, true);
+    private long cacheSize_ = 0;
+
+    /**
+     * Create a factory with a 32MB inflated content cache holding entries of up to 1MB.
+     */
+    public CefArchiveSchemeHandlerFactory() {
+        this(32 * 1024 * 1024, 1024 * 1024);
+    }
+
+    /**
+     * @param maxCacheSize The maximum total size in bytes of inflated entries kept in memory.
+     * @param maxCachedEntrySize Deflated entries larger than this are never cached.
+     */
+    public CefArchiveSchemeHandlerFactory(long maxCacheSize, int maxCachedEntrySize) {
+        maxCacheSize_ = maxCacheSize;
+        maxCachedEntrySize_ = maxCachedEntrySize;
+    }
+
+    /**
+     * Index all entries of a JAR/ZIP archive below |entryPrefix|. The entry "web/app/main.js"
+     * added with prefix "web/" is served for the URL path "/app/main.js".
+     * @param archive The archive file.
+     * @param entryPrefix Only entries starting with this prefix are indexed. May be empty.
+     */
+    public void addArchive(Path archive, String entryPrefix) throws IOException {
+        String prefix = normalizePrefix(entryPrefix);
+        ResourceArchive resourceArchive = ResourceArchive.open(archive);
+        for (ResourceArchive.Entry entry : resourceArchive.getEntries()) {
+            if (!entry.name.startsWith(prefix)) continue;
+            index_.putIfAbsent(
+                    entry.name.substring(prefix.length()), new IndexEntry(entry, null));
+        }
+    }
+
+    /**
+     * Index all regular files below |directory|. The file "dir/app/main.js" is served for the URL
+     * path "/app/main.js". Files added to the directory later are not visible.
+     */
+    public void addDirectory(Path directory) throws IOException {
+        final Path root = directory.toAbsolutePath().normalize();
+        try (Stream<Path> files = Files.walk(root)) {
+            files.filter(Files::isRegularFile).forEach(file -> {
+                String name = root.relativize(file).toString().replace(File.separatorChar, '/');
+                index_.putIfAbsent(name, new IndexEntry(null, file));
+            });
+        }
+    }
+
+    /**
+     * Index the resources below |resourcePrefix| of every archive and directory on the
+     * application class path. Locations that can't be read are skipped.
+     * @param resourcePrefix The resource package, for example "com/example/web/".
+     */
+    public void addClassPath(String resourcePrefix) {
+        String prefix = normalizePrefix(resourcePrefix);
+        String classPath = System.getProperty("java.class.path", "");
+        for (String element : classPath.split(File.pathSeparator)) {
+            if (element.isEmpty()) continue;
+            Path path = Paths.get(element);
+            try {
+                if (Files.isDirectory(path)) {
+                    Path directory = path.resolve(prefix);
+                    if (Files.isDirectory(directory)) addDirectory(directory);
+                } else if (Files.isRegularFile(path)) {
+                    addArchive(path, prefix);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of indexed resources.
+     */
+    public int getResourceCount() {
+        return index_.size();
+    }
+
+    /**
+     * Returns the total size in bytes of the inflated entries currently cached.
+     */
+    public synchronized long getCacheSize() {
+        return cacheSize_;
+    }
+
+    @Override
+    public CefResourceHandler create(
+            CefBrowser browser, CefFrame frame, String schemeName, CefRequest request) {
+        String path = ResourceHandlerUtils.getUrlPath(request.getURL());
+        if (path == null) return null;
+        if (path.isEmpty() || path.endsWith("/")) path += INDEX_FILE;
+
+        IndexEntry entry = index_.get(path);
+        if (entry == null) return null;
+        if (entry.file != null) return new CefFileResourceHandler(entry.file);
+        return new ArchiveResourceHandler(entry.archiveEntry, this);
+    }
+
+    /**
+     * Returns the inflated content of a deflated entry, from the cache if possible. Returns null
+     * if the entry is too large to be cached.
+     */
+    byte[] getInflatedContent(ResourceArchive.Entry entry)
+            throws IOException, DataFormatException {
+        if (entry.size > maxCachedEntrySize_ || entry.size > maxCacheSize_) return null;
+
+        synchronized (this) {
+            byte[] content = cache_.get(entry);
+            if (content != null) return content;
+        }
+
+        // Inflate outside the lock. Concurrent requests for the same cold entry may inflate it
+        // twice, which is cheaper than serializing all requests.
+        byte[] content = new byte[(int) entry.size];
+        Inflater inflater = new Inflater(true);
+        try {
+            ByteBuffer input = entry.data();
+            inflater.setInput(input);
+            int offset = 0;
+            while (offset < content.length) {
+                int count = inflater.inflate(content, offset, content.length - offset);
+                if (count == 0 && (inflater.finished() || inflater.needsInput())) break;
+                offset += count;
+            }
+            if (offset != content.length)
+                throw new IOException("Truncated entry " + entry.name + " in "
+                        + entry.archive.getPath());
+        } finally {
+            inflater.end();
+        }
+
+        synchronized (this) {
+            if (cache_.put(entry, content) == null) cacheSize_ += content.length;
+            Iterator<Map.Entry<ResourceArchive.Entry, byte[]>> it = cache_.entrySet().iterator();
+            while (cacheSize_ > maxCacheSize_ && it.hasNext()) {
+                Map.Entry<ResourceArchive.Entry, byte[]> eldest = it.next();
+                if (eldest.getKey() == entry) continue;
+                cacheSize_ -= eldest.getValue().length;
+                it.remove();
+            }
+        }
+        return content;
+    }
+
+    private static String normalizePrefix(String prefix) {
+        if (prefix == null || prefix.isEmpty()) return "";
+        while (prefix.startsWith("/")) prefix = prefix.substring(1);
+        if (!prefix.isEmpty() && !prefix.endsWith("/")) prefix += "/";
+        return prefix;
+    }
+}
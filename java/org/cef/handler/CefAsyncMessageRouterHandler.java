@@ -0,0 +1,415 @@
+package org.cef.handler;
+
+import org.cef.browser.CefBrowser;
+import org.cef.browser.CefFrame;
+import org.cef.callback.CefQueryCallback;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Predicate;
+
+/**
+ * A message router handler that runs another handler on an executor instead of the browser
+ * process UI thread, so that slow queries don't block rendering and input of all browsers. Any
+ * Executor may be used, including one that starts a virtual thread per task.
+ *
+ * The query is accepted on the UI thread if it passes the optional filter and then queued for the
+ * delegate. Queries the delegate doesn't handle fail with an error code of -1, so the delegate
+ * should be the last handler for the queries the filter accepts. If the maximum number of queued
+ * and running queries is reached, or the executor rejects the task, the query fails with
+ * {@link #REJECTED_ERROR_CODE}.
+ *
+ * The delegate's onQuery is called on the executor with a null frame since frames are only valid
+ * on the UI thread. Its onQueryCanceled is called on the UI thread, or on the thread that removed
+ * the route if this handler is a CefMessageRouterRouteTable route, and only for queries that it
+ * has already received. The callback passed to the delegate may be used from any thread and
+ * ignores calls after the query has completed or was canceled.
+ */
+public class CefAsyncMessageRouterHandler extends CefMessageRouterHandlerAdapter {
+    /**
+     * The error code passed to JavaScript if a query is rejected because the queue is full.
+     */
+    public static final int REJECTED_ERROR_CODE = -2;
+
+    public enum Ordering {
+        /**
+         * Run queries concurrently.
+         */
+        NONE,
+
+        /**
+         * Run the queries of a frame one at a time in the order they were received.
+         */
+        PER_FRAME,
+
+        /**
+         * Run the queries of a browser one at a time in the order they were received.
+         */
+        PER_BROWSER,
+    }
+
+    /**
+     * A snapshot of the handler metrics. Times are in milliseconds.
+     */
+    public static final class Metrics {
+        private final int queuedCount_;
+        private final int activeCount_;
+        private final long handledCount_;
+        private final long unhandledCount_;
+        private final long rejectedCount_;
+        private final long canceledCount_;
+        private final double averageQueueTime_;
+        private final double maxQueueTime_;
+        private final double averageHandlerTime_;
+        private final double maxHandlerTime_;
+        private final double averageResponseTime_;
+
+        Metrics(CefAsyncMessageRouterHandler handler) {
+            queuedCount_ = handler.queuedCount_;
+            activeCount_ = handler.activeCount_;
+            handledCount_ = handler.handledCount_;
+            unhandledCount_ = handler.unhandledCount_;
+            rejectedCount_ = handler.rejectedCount_;
+            canceledCount_ = handler.canceledCount_;
+            long started = handledCount_ + unhandledCount_ + activeCount_;
+            averageQueueTime_ = started == 0 ? 0 : handler.totalQueueNanos_ / 1e6 / started;
+            maxQueueTime_ = handler.maxQueueNanos_ / 1e6;
+            long finished = handledCount_ + unhandledCount_;
+            averageHandlerTime_ =
+                    finished == 0 ? 0 : handler.totalHandlerNanos_ / 1e6 / finished;
+            maxHandlerTime_ = handler.maxHandlerNanos_ / 1e6;
+            averageResponseTime_ = handler.respondedCount_ == 0
+                    ? 0
+                    : handler.totalResponseNanos_ / 1e6 / handler.respondedCount_;
+        }
+
+        /**
+         * Returns the number of queries waiting for the executor.
+         */
+        public int getQueuedCount() {
+            return queuedCount_;
+        }
+
+        /**
+         * Returns the number of queries whose onQuery is running.
+         */
+        public int getActiveCount() {
+            return activeCount_;
+        }
+
+        /**
+         * Returns the number of queries the delegate handled.
+         */
+        public long getHandledCount() {
+            return handledCount_;
+        }
+
+        /**
+         * Returns the number of queries the delegate didn't handle.
+         */
+        public long getUnhandledCount() {
+            return unhandledCount_;
+        }
+
+        /**
+         * Returns the number of queries rejected because the queue was full.
+         */
+        public long getRejectedCount() {
+            return rejectedCount_;
+        }
+
+        /**
+         * Returns the number of queries canceled before they completed.
+         */
+        public long getCanceledCount() {
+            return canceledCount_;
+        }
+
+        /**
+         * Returns the average time from receipt of a query to the start of onQuery.
+         */
+        public double getAverageQueueTime() {
+            return averageQueueTime_;
+        }
+
+        public double getMaxQueueTime() {
+            return maxQueueTime_;
+        }
+
+        /**
+         * Returns the average time spent in the delegate's onQuery.
+         */
+        public double getAverageHandlerTime() {
+            return averageHandlerTime_;
+        }
+
+        public double getMaxHandlerTime() {
+            return maxHandlerTime_;
+        }
+
+        /**
+         * Returns the average time from receipt of a query to its first response.
+         */
+        public double getAverageResponseTime() {
+            return averageResponseTime_;
+        }
+    }
+
+    private enum State {
+        QUEUED,
+        RUNNING,
+        RAN,
+        CANCELED,
+    }
+
+    private final class Query implements CefQueryCallback {
+        final CefBrowser browser;
+        final long queryId;
+        final String request;
+        final boolean persistent;
+        final CefQueryCallback callback;
+        final Object key;
+        final long receiveNanos = System.nanoTime();
+        State state = State.QUEUED;
+        boolean responded = false;
+        boolean done = false;
+
+        Query(CefBrowser browser, long queryId, String request, boolean persistent,
+                CefQueryCallback callback, Object key) {
+            this.browser = browser;
+            this.queryId = queryId;
+            this.request = request;
+            this.persistent = persistent;
+            this.callback = callback;
+            this.key = key;
+        }
+
+        @Override
+        public void success(String response) {
+            synchronized (this) {
+                if (done) return;
+                if (!persistent) done = true;
+                // Respond within the lock to keep persistent responses in order.
+                callback.success(response);
+            }
+            onResponse(this, !persistent);
+        }
+
+        @Override
+        public void failure(int error_code, String error_message) {
+            synchronized (this) {
+                if (done) return;
+                done = true;
+                callback.failure(error_code, error_message);
+            }
+            onResponse(this, true);
+        }
+    }
+
+    private final CefMessageRouterHandler delegate_;
+    private final Executor executor_;
+    private final Ordering ordering_;
+    private final int maxPending_;
+    private final Predicate<String> filter_;
+
+    // Queries that have not completed by query ID.
+    private final HashMap<Long, Query> queries_ = new HashMap<Long, Query>();
+    // Waiting queries per ordering key. A key is present while one of its queries is submitted.
+    private final HashMap<Object, ArrayDeque<Query>> serialQueues_ =
+            new HashMap<Object, ArrayDeque<Query>>();
+
+    private int queuedCount_ = 0;
+    private int activeCount_ = 0;
+    private long handledCount_ = 0;
+    private long unhandledCount_ = 0;
+    private long rejectedCount_ = 0;
+    private long canceledCount_ = 0;
+    private long respondedCount_ = 0;
+    private long totalQueueNanos_ = 0;
+    private long maxQueueNanos_ = 0;
+    private long totalHandlerNanos_ = 0;
+    private long maxHandlerNanos_ = 0;
+    private long totalResponseNanos_ = 0;
+
+    /**
+     * Create a handler that runs all queries concurrently without a queue limit.
+     * @param delegate The handler to run on the executor.
+     * @param executor The executor.
+     */
+    public CefAsyncMessageRouterHandler(CefMessageRouterHandler delegate, Executor executor) {
+        this(delegate, executor, Ordering.NONE, Integer.MAX_VALUE, null);
+    }
+
+    /**
+     * @param delegate The handler to run on the executor.
+     * @param executor The executor.
+     * @param ordering The ordering of queries.
+     * @param maxPending The maximum number of queued and running queries.
+     * @param filter Evaluated on the UI thread to decide whether to accept a query, or null to
+     *         accept all queries.
+     */
+    public CefAsyncMessageRouterHandler(CefMessageRouterHandler delegate, Executor executor,
+            Ordering ordering, int maxPending, Predicate<String> filter) {
+        if (maxPending < 1) throw new IllegalArgumentException("maxPending must be positive");
+        delegate_ = delegate;
+        executor_ = executor;
+        ordering_ = ordering;
+        maxPending_ = maxPending;
+        filter_ = filter;
+    }
+
+    /**
+     * Returns a snapshot of the current metrics.
+     */
+    public synchronized Metrics getMetrics() {
+        return new Metrics(this);
+    }
+
+    @Override
+    public boolean onQuery(CefBrowser browser, CefFrame frame, long queryId, String request,
+            boolean persistent, CefQueryCallback callback) {
+        if (filter_ != null && !filter_.test(request)) return false;
+
+        Object key = null;
+        if (ordering_ == Ordering.PER_FRAME) {
+            key = frame != null ? frame.getIdentifier() : browser;
+        } else if (ordering_ == Ordering.PER_BROWSER) {
+            key = browser;
+        }
+        Query query = new Query(browser, queryId, request, persistent, callback, key);
+
+        boolean accepted = true;
+        synchronized (this) {
+            if (queuedCount_ + activeCount_ >= maxPending_) {
+                ++rejectedCount_;
+                accepted = false;
+            } else {
+                queries_.put(queryId, query);
+                ++queuedCount_;
+                if (key != null) {
+                    ArrayDeque<Query> queue = serialQueues_.get(key);
+                    if (queue != null) {
+                        queue.add(query);
+                        return true;
+                    }
+                    serialQueues_.put(key, new ArrayDeque<Query>());
+                }
+            }
+        }
+        if (accepted) {
+            submit(query);
+        } else {
+            query.failure(REJECTED_ERROR_CODE, "The query queue is full");
+        }
+        return true;
+    }
+
+    @Override
+    public void onQueryCanceled(CefBrowser browser, CefFrame frame, long queryId) {
+        boolean notify;
+        synchronized (this) {
+            Query query = queries_.remove(queryId);
+            if (query == null) return;
+            synchronized (query) {
+                query.done = true;
+            }
+            ++canceledCount_;
+            if (query.state == State.QUEUED) {
+                --queuedCount_;
+                ArrayDeque<Query> queue = serialQueues_.get(query.key);
+                // Queries that were already submitted are skipped when they run.
+                if (queue != null) queue.remove(query);
+            }
+            notify = query.state != State.QUEUED;
+            query.state = State.CANCELED;
+        }
+        if (notify) delegate_.onQueryCanceled(browser, frame, queryId);
+    }
+
+    private void submit(Query query) {
+        try {
+            executor_.execute(() -> run(query));
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                if (query.state == State.QUEUED) {
+                    --queuedCount_;
+                    ++rejectedCount_;
+                    query.state = State.CANCELED;
+                }
+            }
+            query.failure(REJECTED_ERROR_CODE, "The query was rejected");
+            next(query);
+        }
+    }
+
+    private void run(Query query) {
+        long startNanos = System.nanoTime();
+        synchronized (this) {
+            if (query.state != State.QUEUED) {
+                // Canceled while queued.
+                next(query);
+                return;
+            }
+            query.state = State.RUNNING;
+            --queuedCount_;
+            ++activeCount_;
+            long queueNanos = startNanos - query.receiveNanos;
+            totalQueueNanos_ += queueNanos;
+            maxQueueNanos_ = Math.max(maxQueueNanos_, queueNanos);
+        }
+
+        boolean handled = false;
+        try {
+            handled = delegate_.onQuery(
+                    query.browser, null, query.queryId, query.request, query.persistent, query);
+            if (!handled) query.failure(-1, "The query was not handled");
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            query.failure(-1, e.toString());
+            handled = true;
+        } finally {
+            // Errors are propagated to the executor but must not stall the ordering key.
+            synchronized (this) {
+                --activeCount_;
+                if (handled) {
+                    ++handledCount_;
+                } else {
+                    ++unhandledCount_;
+                }
+                long handlerNanos = System.nanoTime() - startNanos;
+                totalHandlerNanos_ += handlerNanos;
+                maxHandlerNanos_ = Math.max(maxHandlerNanos_, handlerNanos);
+                if (query.state == State.RUNNING) query.state = State.RAN;
+            }
+            next(query);
+        }
+    }
+
+    /**
+     * Submit the next query with the same ordering key as |query|, if any.
+     */
+    private void next(Query query) {
+        if (query.key == null) return;
+        Query next;
+        synchronized (this) {
+            ArrayDeque<Query> queue = serialQueues_.get(query.key);
+            if (queue == null) return;
+            next = queue.poll();
+            if (next == null) serialQueues_.remove(query.key);
+        }
+        if (next != null) submit(next);
+    }
+
+    private void onResponse(Query query, boolean complete) {
+        synchronized (this) {
+            if (!query.responded) {
+                query.responded = true;
+                ++respondedCount_;
+                totalResponseNanos_ += System.nanoTime() - query.receiveNanos;
+            }
+            if (complete) queries_.remove(query.queryId, query);
+        }
+    }
+}
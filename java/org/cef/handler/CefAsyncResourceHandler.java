@@ -0,0 +1,345 @@
+package org.cef.handler;
+
+import org.cef.callback.CefCallback;
+import org.cef.misc.IntRef;
+import org.cef.misc.StringRef;
+import org.cef.network.CefRequest;
+import org.cef.network.CefResponse;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * Base class for resource handlers that produce their response asynchronously. Subclasses
+ * implement {@link #handleRequest(CefRequest)} and return a future of the response headers. The
+ * body is a {@link Flow.Publisher} of byte buffers that is consumed with demand signalling:
+ * at most {@link #getPrefetchCount()} buffers are requested ahead of what CEF has read, so a fast
+ * producer is throttled to the speed of the network stack and a slow producer never causes data
+ * to pile up in Java. All CefCallback handling is done by this class. If the publisher signals
+ * an error the request is canceled, so CEF never treats a partial body as a complete response.
+ *
+ * A new instance must be created for every request.
+ */
+public abstract class CefAsyncResourceHandler implements CefResourceHandler {
+    /**
+     * Response headers and body returned by {@link #handleRequest(CefRequest)}.
+     */
+    public static final class Response {
+        private final int status_;
+        private final String mimeType_;
+        private final Flow.Publisher<ByteBuffer> body_;
+        private String statusText_;
+        private long contentLength_ = -1;
+        private String redirectUrl_;
+        private final HashMap<String, String> headers_ = new HashMap<String, String>();
+
+        /**
+         * @param status The HTTP status code.
+         * @param mimeType The MIME type of the body.
+         * @param body The body publisher or null for an empty body. Each published buffer is
+         *         read from its position to its limit and must not be modified afterwards.
+         */
+        public Response(int status, String mimeType, Flow.Publisher<ByteBuffer> body) {
+            status_ = status;
+            mimeType_ = mimeType;
+            body_ = body;
+        }
+
+        public Response setStatusText(String statusText) {
+            statusText_ = statusText;
+            return this;
+        }
+
+        /**
+         * Set the body length if known in advance. Otherwise the body is read until the
+         * publisher completes.
+         */
+        public Response setContentLength(long contentLength) {
+            contentLength_ = contentLength;
+            return this;
+        }
+
+        /**
+         * Redirect the request to a new URL. The body is ignored.
+         */
+        public Response setRedirectUrl(String redirectUrl) {
+            redirectUrl_ = redirectUrl;
+            return this;
+        }
+
+        public Response setHeader(String name, String value) {
+            headers_.put(name, value);
+            return this;
+        }
+
+        public int getStatus() {
+            return status_;
+        }
+
+        public String getMimeType() {
+            return mimeType_;
+        }
+
+        public Flow.Publisher<ByteBuffer> getBody() {
+            return body_;
+        }
+
+        public String getStatusText() {
+            return statusText_;
+        }
+
+        public long getContentLength() {
+            return contentLength_;
+        }
+
+        public String getRedirectUrl() {
+            return redirectUrl_;
+        }
+
+        public Map<String, String> getHeaders() {
+            return headers_;
+        }
+    }
+
+    private CompletableFuture<Response> future_;
+    private Response response_;
+    private BodySubscriber subscriber_;
+
+    /**
+     * Start producing the response. Called on the IO thread; the returned future may be completed
+     * on any thread. If the future completes exceptionally the request is canceled.
+     * @param request The request. Only valid within the scope of this method, so any values
+     *         needed later must be copied.
+     */
+    protected abstract CompletableFuture<Response> handleRequest(CefRequest request);
+
+    /**
+     * Returns the maximum number of body buffers requested ahead of consumption. Override to
+     * trade memory for throughput.
+     */
+    protected int getPrefetchCount() {
+        return 2;
+    }
+
+    @Override
+    public final boolean processRequest(CefRequest request, CefCallback callback) {
+        CompletableFuture<Response> future;
+        try {
+            future = handleRequest(request);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return false;
+        }
+        if (future == null) return false;
+
+        synchronized (this) {
+            future_ = future;
+        }
+        future.whenComplete((response, error) -> {
+            if (error != null || response == null) {
+                if (error != null && !future.isCancelled()) error.printStackTrace();
+                callback.cancel();
+                return;
+            }
+            BodySubscriber subscriber = null;
+            synchronized (this) {
+                if (future_ == null) return; // Canceled in the meantime.
+                response_ = response;
+                boolean redirect =
+                        response.getRedirectUrl() != null && !response.getRedirectUrl().isEmpty();
+                if (response.getBody() != null && !redirect) {
+                    subscriber = new BodySubscriber(Math.max(1, getPrefetchCount()));
+                    subscriber_ = subscriber;
+                }
+            }
+            // Subscribe right away so that the first buffers are ready when CEF starts reading.
+            if (subscriber != null) response.getBody().subscribe(subscriber);
+            callback.Continue();
+        });
+        return true;
+    }
+
+    @Override
+    public final void getResponseHeaders(
+            CefResponse response, IntRef responseLength, StringRef redirectUrl) {
+        Response result;
+        synchronized (this) {
+            result = response_;
+        }
+        if (result == null) return;
+
+        response.setStatus(result.getStatus());
+        if (result.getStatusText() != null) response.setStatusText(result.getStatusText());
+        if (result.getMimeType() != null) response.setMimeType(result.getMimeType());
+        if (!result.getHeaders().isEmpty()) response.setHeaderMap(result.getHeaders());
+        if (result.getRedirectUrl() != null && !result.getRedirectUrl().isEmpty()) {
+            redirectUrl.set(result.getRedirectUrl());
+            return;
+        }
+
+        long length = result.getBody() == null ? 0 : result.getContentLength();
+        responseLength.set(length >= 0 && length <= Integer.MAX_VALUE ? (int) length : -1);
+    }
+
+    @Override
+    public final boolean readResponse(
+            byte[] dataOut, int bytesToRead, IntRef bytesRead, CefCallback callback) {
+        BodySubscriber subscriber;
+        synchronized (this) {
+            subscriber = subscriber_;
+        }
+        if (subscriber == null) return false;
+        return subscriber.read(dataOut, bytesToRead, bytesRead, callback);
+    }
+
+    @Override
+    public final void cancel() {
+        CompletableFuture<Response> future;
+        BodySubscriber subscriber;
+        synchronized (this) {
+            future = future_;
+            subscriber = subscriber_;
+            future_ = null;
+            subscriber_ = null;
+        }
+        if (future != null) future.cancel(false);
+        if (subscriber != null) subscriber.cancel();
+    }
+
+    /**
+     * Bridges the pull-based readResponse() calls to the publisher. Holds at most |prefetch|
+     * buffers and signals new demand only after a buffer has been fully consumed.
+     */
+    private static final class BodySubscriber implements Flow.Subscriber<ByteBuffer> {
+        private final int prefetch_;
+        private final ArrayDeque<ByteBuffer> queue_ = new ArrayDeque<ByteBuffer>();
+        private Flow.Subscription subscription_;
+        private ByteBuffer current_;
+        private CefCallback pendingCallback_;
+        private boolean completed_ = false;
+        private boolean canceled_ = false;
+        // Set if the publisher failed. The request is canceled on the next read.
+        private Throwable error_;
+
+        BodySubscriber(int prefetch) {
+            prefetch_ = prefetch;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            synchronized (this) {
+                if (subscription_ != null || canceled_) {
+                    subscription.cancel();
+                    return;
+                }
+                subscription_ = subscription;
+            }
+            subscription.request(prefetch_);
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+            CefCallback callback;
+            synchronized (this) {
+                if (canceled_ || completed_) return;
+                if (item.hasRemaining()) queue_.add(item);
+                callback = pendingCallback_;
+                pendingCallback_ = null;
+            }
+            if (!item.hasRemaining()) requestMore();
+            if (callback != null) callback.Continue();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            throwable.printStackTrace();
+            CefCallback callback;
+            synchronized (this) {
+                if (canceled_ || completed_) return;
+                error_ = throwable;
+                completed_ = true;
+                queue_.clear();
+                current_ = null;
+                callback = pendingCallback_;
+                pendingCallback_ = null;
+                // Canceling a pending read fails the request right away.
+                if (callback != null) canceled_ = true;
+            }
+            if (callback != null) callback.cancel();
+        }
+
+        @Override
+        public void onComplete() {
+            CefCallback callback;
+            synchronized (this) {
+                if (canceled_ || completed_) return;
+                completed_ = true;
+                callback = pendingCallback_;
+                pendingCallback_ = null;
+            }
+            // readResponse() will report the end of the body.
+            if (callback != null) callback.Continue();
+        }
+
+        boolean read(byte[] dataOut, int bytesToRead, IntRef bytesRead, CefCallback callback) {
+            boolean consumed = false;
+            boolean failed = false;
+            int count = 0;
+            synchronized (this) {
+                if (canceled_) return false;
+                if (error_ == null) {
+                    if (current_ == null || !current_.hasRemaining()) current_ = queue_.poll();
+                    if (current_ == null) {
+                        if (completed_) return false;
+                        // Wait for the publisher. onNext(), onComplete() or onError() will
+                        // continue.
+                        pendingCallback_ = callback;
+                        bytesRead.set(0);
+                        return true;
+                    }
+                    count = Math.min(bytesToRead, current_.remaining());
+                    current_.get(dataOut, 0, count);
+                    if (!current_.hasRemaining()) {
+                        current_ = null;
+                        consumed = true;
+                    }
+                } else {
+                    canceled_ = true;
+                    failed = true;
+                }
+            }
+            if (failed) {
+                // The publisher failed. Fail the request instead of ending the body early.
+                callback.cancel();
+                return false;
+            }
+            if (consumed) requestMore();
+            bytesRead.set(count);
+            return true;
+        }
+
+        void cancel() {
+            Flow.Subscription subscription;
+            synchronized (this) {
+                canceled_ = true;
+                queue_.clear();
+                current_ = null;
+                pendingCallback_ = null;
+                subscription = subscription_;
+            }
+            if (subscription != null) subscription.cancel();
+        }
+
+        private void requestMore() {
+            Flow.Subscription subscription;
+            synchronized (this) {
+                subscription = canceled_ || completed_ ? null : subscription_;
+            }
+            if (subscription != null) subscription.request(1);
+        }
+    }
+}
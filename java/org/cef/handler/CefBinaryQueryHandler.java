@@ -0,0 +1,51 @@
+package org.cef.handler;
+
+import org.cef.browser.CefBrowser;
+import org.cef.browser.CefFrame;
+import org.cef.callback.CefBinaryQueryCallback;
+
+/**
+ * Implement this interface to handle binary queries. Binary queries carry structured values
+ * instead of strings and are sent from JavaScript using the binary query function of a
+ * CefMessageRouter. All methods will be executed on the browser process UI thread, except that
+ * onQueryCanceled is called on the calling thread when the handler is removed.
+ *
+ * Values are mapped as follows. From JavaScript, null and undefined become null, booleans become
+ * Boolean, int32 numbers become Integer, other numbers and Dates become Double, strings become
+ * String, ArrayBuffers, typed arrays and DataViews become a ByteBuffer, arrays become a
+ * List<Object> and other objects become a Map<String, Object> of their own enumerable
+ * properties. Functions are omitted. To JavaScript, null, Boolean, Number, String and Character
+ * values become the corresponding primitive, a ByteBuffer (its remaining bytes) or byte[]
+ * becomes an ArrayBuffer, a Map becomes an object and a Collection or Object[] becomes an array.
+ * Empty binaries are delivered as null in both directions.
+ */
+public interface CefBinaryQueryHandler {
+    /**
+     * Called when the browser receives a binary JavaScript query.
+     *
+     * @param browser The corresponding browser.
+     * @param frame The frame generating the event. Instance only valid within the scope of this
+     *         method.
+     * @param queryId The unique ID for the query.
+     * @param request The request value.
+     * @param persistent True if the query is persistent.
+     * @param callback Object used to continue or cancel the query asynchronously.
+     * @return True to handle the query or false to propagate the query to other registered
+     *         handlers, if any. If no handlers return true from this method then the query will be
+     *         automatically canceled with an error code of -1 delivered to the JavaScript onFailure
+     *         callback.
+     */
+    public boolean onQuery(CefBrowser browser, CefFrame frame, long queryId, Object request,
+            boolean persistent, CefBinaryQueryCallback callback);
+
+    /**
+     * Called when a pending binary JavaScript query is canceled. If the query was canceled because
+     * the handler was removed this is called on the thread that called removeBinaryHandler.
+     *
+     * @param browser The corresponding browser.
+     * @param frame The frame generating the event or null if the query was canceled because the
+     *         handler was removed. Instance only valid within the scope of this method.
+     * @param queryId The unique ID for the query.
+     */
+    public void onQueryCanceled(CefBrowser browser, CefFrame frame, long queryId);
+}
@@ -0,0 +1,395 @@
+package org.cef.handler;
+
+import org.cef.browser.CefBrowser;
+import org.cef.browser.CefFrame;
+import org.cef.callback.CefCallback;
+import org.cef.callback.CefSchemeHandlerFactory;
+import org.cef.misc.IntRef;
+import org.cef.misc.StringRef;
+import org.cef.network.CefRequest;
+import org.cef.network.CefResponse;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scheme handler factory that caches the responses of another factory in memory. Response
+ * bodies are kept off-heap in direct buffers. A cached response is served without calling the
+ * wrapped factory or its resource handlers at all.
+ *
+ * Only successful (status 200) GET responses without a redirect are cached. Entries are keyed by
+ * URL and the values of the configured request headers, expire after a fixed time to live and
+ * are evicted in least-recently-used order once the total cache size exceeds the limit.
+ * Responses with "Cache-Control: no-store" or with a Vary header naming a request header that is
+ * not part of the key are never cached. A response is only cached if its body was read to the
+ * end without the request being canceled, either by CEF or by the wrapped handler through its
+ * callback, and if the body has the length announced in the response headers.
+ */
+public class CefCachingSchemeHandlerFactory implements CefSchemeHandlerFactory {
+    /**
+     * A cached response. The body is shared by all handlers serving it and must not be modified.
+     */
+    private static final class Entry {
+        final int status;
+        final String statusText;
+        final String mimeType;
+        final HashMap<String, String> headers;
+        final ByteBuffer body;
+        final long expiresAt;
+        final long size;
+
+        Entry(int status, String statusText, String mimeType, HashMap<String, String> headers,
+                ByteBuffer body, long expiresAt) {
+            this.status = status;
+            this.statusText = statusText;
+            this.mimeType = mimeType;
+            this.headers = headers;
+            this.body = body;
+            this.expiresAt = expiresAt;
+            // Rough accounting of the on-heap part so that many tiny entries are bounded too.
+            long headerSize = 64;
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                headerSize += 2 * (header.getKey().length() + header.getValue().length()) + 32;
+            }
+            this.size = body.capacity() + headerSize;
+        }
+    }
+
+    private final CefSchemeHandlerFactory delegate_;
+    private final long maxSize_;
+    private final long maxEntrySize_;
+    private final long timeToLiveMs_;
+    private final String[] varyHeaders_;
+
+    private final LinkedHashMap<String, Entry> entries_ =
+            new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private long size_ = 0;
+
+    private final AtomicLong hitCount_ = new AtomicLong();
+    private final AtomicLong missCount_ = new AtomicLong();
+    private final AtomicLong storeCount_ = new AtomicLong();
+    private final AtomicLong evictionCount_ = new AtomicLong();
+
+    /**
+     * @param delegate The factory whose responses are cached.
+     * @param maxSize The maximum total size in bytes of all cached responses. A single response
+     *         may use at most a quarter of it.
+     * @param timeToLiveMs The time in milliseconds a response is served from the cache or 0 to
+     *         keep responses until they are evicted.
+     * @param varyHeaders Request header names whose values are part of the cache key.
+     */
+    public CefCachingSchemeHandlerFactory(CefSchemeHandlerFactory delegate, long maxSize,
+            long timeToLiveMs, String... varyHeaders) {
+        delegate_ = delegate;
+        maxSize_ = maxSize;
+        maxEntrySize_ = Math.min(maxSize / 4, Integer.MAX_VALUE);
+        timeToLiveMs_ = timeToLiveMs;
+        varyHeaders_ = varyHeaders.clone();
+        for (int i = 0; i < varyHeaders_.length; ++i) {
+            varyHeaders_[i] = varyHeaders_[i].toLowerCase(Locale.ROOT);
+        }
+    }
+
+    @Override
+    public CefResourceHandler create(
+            CefBrowser browser, CefFrame frame, String schemeName, CefRequest request) {
+        String method = request.getMethod();
+        boolean cacheable = method == null || method.isEmpty() || "GET".equalsIgnoreCase(method);
+        if (!cacheable) return delegate_.create(browser, frame, schemeName, request);
+
+        String key = makeKey(request);
+        Entry entry = get(key);
+        if (entry != null) {
+            hitCount_.incrementAndGet();
+            return new CachedResourceHandler(entry);
+        }
+        missCount_.incrementAndGet();
+
+        CefResourceHandler handler = delegate_.create(browser, frame, schemeName, request);
+        if (handler == null) return null;
+        return new RecordingResourceHandler(handler, key);
+    }
+
+    /**
+     * Remove all cached responses.
+     */
+    public synchronized void clear() {
+        entries_.clear();
+        size_ = 0;
+    }
+
+    /**
+     * Returns the number of requests served from the cache.
+     */
+    public long getHitCount() {
+        return hitCount_.get();
+    }
+
+    /**
+     * Returns the number of cacheable requests that were forwarded to the wrapped factory.
+     */
+    public long getMissCount() {
+        return missCount_.get();
+    }
+
+    /**
+     * Returns the number of responses added to the cache.
+     */
+    public long getStoreCount() {
+        return storeCount_.get();
+    }
+
+    /**
+     * Returns the number of responses removed to stay within the size limit or after expiry.
+     */
+    public long getEvictionCount() {
+        return evictionCount_.get();
+    }
+
+    /**
+     * Returns the number of cached responses.
+     */
+    public synchronized int getEntryCount() {
+        return entries_.size();
+    }
+
+    /**
+     * Returns the approximate total size in bytes of the cached responses.
+     */
+    public synchronized long getSize() {
+        return size_;
+    }
+
+    private String makeKey(CefRequest request) {
+        StringBuilder key = new StringBuilder(request.getURL());
+        for (String name : varyHeaders_) {
+            String value = request.getHeaderByName(name);
+            key.append('\n').append(name).append(':');
+            if (value != null) key.append(value);
+        }
+        return key.toString();
+    }
+
+    private synchronized Entry get(String key) {
+        Entry entry = entries_.get(key);
+        if (entry != null && entry.expiresAt != 0
+                && entry.expiresAt <= System.currentTimeMillis()) {
+            entries_.remove(key);
+            size_ -= entry.size;
+            evictionCount_.incrementAndGet();
+            return null;
+        }
+        return entry;
+    }
+
+    private synchronized void put(String key, Entry entry) {
+        Entry previous = entries_.put(key, entry);
+        if (previous != null) size_ -= previous.size;
+        size_ += entry.size;
+        storeCount_.incrementAndGet();
+
+        Iterator<Entry> it = entries_.values().iterator();
+        while (size_ > maxSize_ && it.hasNext()) {
+            Entry eldest = it.next();
+            if (eldest == entry) continue;
+            size_ -= eldest.size;
+            it.remove();
+            evictionCount_.incrementAndGet();
+        }
+    }
+
+    private boolean isCacheable(HashMap<String, String> headers) {
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            String name = header.getKey();
+            String value = header.getValue().toLowerCase(Locale.ROOT);
+            if (name.equalsIgnoreCase("Cache-Control") && value.contains("no-store")) return false;
+            if (name.equalsIgnoreCase("Vary")) {
+                for (String varyName : value.split(",")) {
+                    varyName = varyName.trim();
+                    if (varyName.isEmpty()) continue;
+                    boolean keyed = false;
+                    for (String keyName : varyHeaders_) {
+                        if (keyName.equals(varyName)) keyed = true;
+                    }
+                    if (!keyed) return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Serves a cached response.
+     */
+    private static class CachedResourceHandler implements CefResourceHandler {
+        private final Entry entry_;
+        private ByteBuffer body_;
+
+        CachedResourceHandler(Entry entry) {
+            entry_ = entry;
+        }
+
+        @Override
+        public boolean processRequest(CefRequest request, CefCallback callback) {
+            body_ = entry_.body.duplicate();
+            callback.Continue();
+            return true;
+        }
+
+        @Override
+        public void getResponseHeaders(
+                CefResponse response, IntRef responseLength, StringRef redirectUrl) {
+            response.setStatus(entry_.status);
+            response.setStatusText(entry_.statusText);
+            response.setMimeType(entry_.mimeType);
+            if (!entry_.headers.isEmpty()) response.setHeaderMap(entry_.headers);
+            responseLength.set(entry_.body.capacity());
+        }
+
+        @Override
+        public boolean readResponse(
+                byte[] dataOut, int bytesToRead, IntRef bytesRead, CefCallback callback) {
+            if (body_ == null || !body_.hasRemaining()) return false;
+            int count = Math.min(bytesToRead, body_.remaining());
+            body_.get(dataOut, 0, count);
+            bytesRead.set(count);
+            return true;
+        }
+
+        @Override
+        public void cancel() {
+            body_ = null;
+        }
+    }
+
+    /**
+     * Forwards all calls to the handler of the wrapped factory and records the response. The
+     * response is added to the cache once the body was read completely.
+     */
+    private class RecordingResourceHandler implements CefResourceHandler {
+        private final CefResourceHandler handler_;
+        private final String key_;
+
+        // Set if the wrapped handler canceled the request through one of its callbacks.
+        private volatile boolean failed_ = false;
+        private boolean recording_ = false;
+        private int length_;
+        private int status_;
+        private String statusText_;
+        private String mimeType_;
+        private HashMap<String, String> headers_;
+        private ByteBuffer body_;
+
+        RecordingResourceHandler(CefResourceHandler handler, String key) {
+            handler_ = handler;
+            key_ = key;
+        }
+
+        @Override
+        public boolean processRequest(CefRequest request, CefCallback callback) {
+            return handler_.processRequest(request, wrap(callback));
+        }
+
+        @Override
+        public void getResponseHeaders(
+                CefResponse response, IntRef responseLength, StringRef redirectUrl) {
+            handler_.getResponseHeaders(response, responseLength, redirectUrl);
+
+            String redirect = redirectUrl.get();
+            if ((redirect != null && !redirect.isEmpty()) || response.getStatus() != 200) return;
+            if (responseLength.get() > maxEntrySize_) return;
+
+            headers_ = new HashMap<String, String>();
+            response.getHeaderMap(headers_);
+            if (!isCacheable(headers_)) return;
+
+            status_ = response.getStatus();
+            statusText_ = response.getStatusText();
+            mimeType_ = response.getMimeType();
+            length_ = responseLength.get();
+            body_ = ByteBuffer.allocateDirect(length_ > 0 ? length_ : 16 * 1024);
+            recording_ = !failed_;
+        }
+
+        @Override
+        public boolean readResponse(
+                byte[] dataOut, int bytesToRead, IntRef bytesRead, CefCallback callback) {
+            boolean result =
+                    handler_.readResponse(dataOut, bytesToRead, bytesRead, wrap(callback));
+            if (!recording_) return result;
+
+            if (failed_) {
+                recording_ = false;
+                body_ = null;
+            } else if (result) {
+                int count = bytesRead.get();
+                if (count > 0) record(dataOut, Math.min(count, bytesToRead));
+            } else {
+                recording_ = false;
+                body_.flip();
+                if (length_ >= 0 && body_.remaining() != length_) {
+                    // The body was truncated.
+                    body_ = null;
+                    return result;
+                }
+                ByteBuffer body = body_;
+                if (body.remaining() != body.capacity()) {
+                    // Trim the growth slack so the cache accounts for the real size.
+                    body = ByteBuffer.allocateDirect(body_.remaining());
+                    body.put(body_).flip();
+                }
+                long expiresAt = timeToLiveMs_ > 0 ? System.currentTimeMillis() + timeToLiveMs_ : 0;
+                put(key_,
+                        new Entry(status_, statusText_, mimeType_, headers_,
+                                body.asReadOnlyBuffer(), expiresAt));
+                body_ = null;
+            }
+            return result;
+        }
+
+        @Override
+        public void cancel() {
+            recording_ = false;
+            body_ = null;
+            handler_.cancel();
+        }
+
+        private CefCallback wrap(CefCallback callback) {
+            return new CefCallback() {
+                @Override
+                public void Continue() {
+                    callback.Continue();
+                }
+
+                @Override
+                public void cancel() {
+                    failed_ = true;
+                    callback.cancel();
+                }
+            };
+        }
+
+        private void record(byte[] data, int count) {
+            if (body_.remaining() < count) {
+                long required = (long) body_.position() + count;
+                if (required > maxEntrySize_) {
+                    // Too large to be cached. Keep serving but stop recording.
+                    recording_ = false;
+                    body_ = null;
+                    return;
+                }
+                long capacity = Math.min(Math.max(required, 2L * body_.capacity()), maxEntrySize_);
+                ByteBuffer grown = ByteBuffer.allocateDirect((int) capacity);
+                body_.flip();
+                grown.put(body_);
+                body_ = grown;
+            }
+            body_.put(data, 0, count);
+        }
+    }
+}
@@ -9,6 +9,7 @@ import java.util.Vector;
 
 import org.cef.browser.CefBrowser;
 import org.cef.browser.CefMessageRouter;
+import org.cef.browser.CefUserScript;
 import org.cef.callback.CefNative;
 
 /**
@@ -167,6 +168,17 @@ public abstract class CefClientHandler implements CefNative {
         }
     }
 
+    protected void addUserScript(CefUserScript script) {
+        try {
+            N_addUserScript(script.getName(), script.getSource(),
+                    script.getIncludes().toArray(new String[0]),
+                    script.getExcludes().toArray(new String[0]), script.getRunAt().ordinal(),
+                    script.isAllFrames());
+        } catch (UnsatisfiedLinkError err) {
+            err.printStackTrace();
+        }
+    }
+
     protected void removeContextMenuHandler(CefContextMenuHandler h) {
         try {
             N_removeContextMenuHandler(h);
@@ -256,6 +268,14 @@ public abstract class CefClientHandler implements CefNative {
         }
     }
 
+    protected void removeUserScript(String name) {
+        try {
+            N_removeUserScript(name);
+        } catch (UnsatisfiedLinkError err) {
+            err.printStackTrace();
+        }
+    }
+
     protected void removeRenderHandler(CefRenderHandler h) {
         try {
             N_removeRenderHandler(h);
@@ -282,6 +302,8 @@ public abstract class CefClientHandler implements CefNative {
 
     private final native void N_CefClientHandler_CTOR();
     private final native void N_addMessageRouter(CefMessageRouter h);
+    private final native void N_addUserScript(String name, String source, String[] includes,
+            String[] excludes, int runAt, boolean allFrames);
     private final native void N_removeContextMenuHandler(CefContextMenuHandler h);
     private final native void N_removeDialogHandler(CefDialogHandler h);
     private final native void N_removeDisplayHandler(CefDisplayHandler h);
@@ -293,6 +315,7 @@ public abstract class CefClientHandler implements CefNative {
     private final native void N_removeLifeSpanHandler(CefLifeSpanHandler h);
     private final native void N_removeLoadHandler(CefLoadHandler h);
     private final native void N_removeMessageRouter(CefMessageRouter h);
+    private final native void N_removeUserScript(String name);
     private final native void N_removeRenderHandler(CefRenderHandler h);
     private final native void N_removeRequestHandler(CefRequestHandler h);
     private final native void N_removeWindowHandler(CefWindowHandler h);
@@ -0,0 +1,225 @@
+package org.cef.handler;
+
+import org.cef.callback.CefCallback;
+import org.cef.misc.IntRef;
+import org.cef.misc.StringRef;
+import org.cef.network.CefRequest;
+import org.cef.network.CefResponse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+
+/**
+ * Resource handler that serves a single file from disk. The MIME type, length and validators
+ * are derived from the file name and attributes without reading the file. The body is copied
+ * straight from a {@link FileChannel} (small files) or a sliding {@link MappedByteBuffer} window
+ * (large files) into the buffer passed to {@link #readResponse}, so the file content is never
+ * materialized on the Java heap.
+ *
+ * Supports GET and HEAD requests, single byte ranges (Range and If-Range) and conditional
+ * requests (If-None-Match and If-Modified-Since).
+ *
+ * A new instance must be created for every request. See {@link CefFileSchemeHandlerFactory}.
+ */
+public class CefFileResourceHandler implements CefResourceHandler {
+    // Files smaller than this are read with positional channel reads. Mapping has a fixed setup
+    // cost that only pays off for larger files.
+    private static final long MAP_THRESHOLD = 256 * 1024;
+    // Size of the mapped region for large files. Bounds the address space used per request.
+    private static final long MAP_WINDOW_SIZE = 16 * 1024 * 1024;
+
+    private final Path path_;
+    private final String mimeType_;
+
+    private int status_ = 200;
+    private String statusText_ = "OK";
+    private final HashMap<String, String> headers_ = new HashMap<String, String>();
+    private boolean hasBody_ = false;
+    private boolean mapped_ = false;
+
+    private FileChannel channel_;
+    private MappedByteBuffer window_;
+    private long windowStart_;
+    private long position_;
+    private long end_;
+
+    /**
+     * @param path The file to serve.
+     */
+    public CefFileResourceHandler(Path path) {
+        this(path, ResourceHandlerUtils.guessMimeType(path.getFileName().toString()));
+    }
+
+    /**
+     * @param path The file to serve.
+     * @param mimeType The MIME type of the response.
+     */
+    public CefFileResourceHandler(Path path, String mimeType) {
+        path_ = path;
+        mimeType_ = mimeType;
+    }
+
+    @Override
+    public boolean processRequest(CefRequest request, CefCallback callback) {
+        String method = request.getMethod();
+        boolean isHead = "HEAD".equalsIgnoreCase(method);
+        if (!isHead && method != null && !method.isEmpty() && !"GET".equalsIgnoreCase(method)) {
+            setStatus(405, "Method Not Allowed");
+            headers_.put("Allow", "GET, HEAD");
+            callback.Continue();
+            return true;
+        }
+
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path_, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            attrs = null;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        if (attrs == null || !attrs.isRegularFile()) {
+            setStatus(404, "Not Found");
+            callback.Continue();
+            return true;
+        }
+
+        long length = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        String etag = ResourceHandlerUtils.makeETag(length, lastModified);
+        headers_.put("ETag", etag);
+        headers_.put("Last-Modified", ResourceHandlerUtils.formatHttpDate(lastModified));
+        headers_.put("Accept-Ranges", "bytes");
+
+        if (ResourceHandlerUtils.isNotModified(request, etag, lastModified)) {
+            setStatus(304, "Not Modified");
+            callback.Continue();
+            return true;
+        }
+
+        long start = 0;
+        end_ = length;
+        if (ResourceHandlerUtils.isRangeApplicable(request, etag, lastModified)) {
+            long[] range =
+                    ResourceHandlerUtils.parseRange(request.getHeaderByName("Range"), length);
+            if (range == ResourceHandlerUtils.UNSATISFIABLE_RANGE) {
+                setStatus(416, "Range Not Satisfiable");
+                headers_.put("Content-Range", "bytes */" + length);
+                callback.Continue();
+                return true;
+            }
+            if (range != null) {
+                start = range[0];
+                end_ = range[1] + 1;
+                setStatus(206, "Partial Content");
+                headers_.put("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + length);
+            }
+        }
+        position_ = start;
+
+        if (!isHead && end_ > start) {
+            try {
+                channel_ = FileChannel.open(path_, StandardOpenOption.READ);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return false;
+            }
+            hasBody_ = true;
+            mapped_ = end_ - start >= MAP_THRESHOLD;
+        }
+
+        callback.Continue();
+        return true;
+    }
+
+    @Override
+    public void getResponseHeaders(
+            CefResponse response, IntRef responseLength, StringRef redirectUrl) {
+        response.setStatus(status_);
+        response.setStatusText(statusText_);
+        if (status_ == 200 || status_ == 206 || status_ == 304) response.setMimeType(mimeType_);
+        // Pass all headers in a single native call.
+        if (!headers_.isEmpty()) response.setHeaderMap(headers_);
+
+        long bodyLength = hasBody_ ? end_ - position_ : 0;
+        // Larger bodies are streamed until readResponse() returns false.
+        responseLength.set(bodyLength <= Integer.MAX_VALUE ? (int) bodyLength : -1);
+    }
+
+    @Override
+    public boolean readResponse(
+            byte[] dataOut, int bytesToRead, IntRef bytesRead, CefCallback callback) {
+        if (!hasBody_ || position_ >= end_) {
+            close();
+            return false;
+        }
+
+        int count = (int) Math.min(bytesToRead, end_ - position_);
+        try {
+            if (mapped_) {
+                count = readMapped(dataOut, count);
+            } else {
+                count = channel_.read(ByteBuffer.wrap(dataOut, 0, count), position_);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            count = -1;
+        }
+        if (count <= 0) {
+            // The file was truncated or can't be read any more. Fail the request instead of
+            // completing it with a partial body.
+            close();
+            callback.cancel();
+            return false;
+        }
+
+        position_ += count;
+        bytesRead.set(count);
+        return true;
+    }
+
+    @Override
+    public void cancel() {
+        close();
+    }
+
+    private int readMapped(byte[] dataOut, int count) throws IOException {
+        if (window_ == null || position_ < windowStart_
+                || position_ >= windowStart_ + window_.capacity()) {
+            long size = Math.min(MAP_WINDOW_SIZE, end_ - position_);
+            window_ = channel_.map(FileChannel.MapMode.READ_ONLY, position_, size);
+            windowStart_ = position_;
+        }
+        window_.position((int) (position_ - windowStart_));
+        count = Math.min(count, window_.remaining());
+        window_.get(dataOut, 0, count);
+        return count;
+    }
+
+    private void setStatus(int status, String statusText) {
+        status_ = status;
+        statusText_ = statusText;
+    }
+
+    private void close() {
+        hasBody_ = false;
+        window_ = null;
+        if (channel_ != null) {
+            try {
+                channel_.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            channel_ = null;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.cef.handler;
+
+import org.cef.browser.CefBrowser;
+import org.cef.browser.CefFrame;
+import org.cef.callback.CefSchemeHandlerFactory;
+import org.cef.network.CefRequest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+
+/**
+ * Scheme handler factory that serves files below a root directory using
+ * {@link CefFileResourceHandler}. The path component of the request URL is resolved against the
+ * root directory; requests for a directory are served with the configured index file. Register
+ * it with CefApp.registerSchemeHandlerFactory().
+ */
+public class CefFileSchemeHandlerFactory implements CefSchemeHandlerFactory {
+    private final Path root_;
+    private final String indexFile_;
+
+    /**
+     * @param root The directory to serve files from.
+     */
+    public CefFileSchemeHandlerFactory(Path root) {
+        this(root, "index.html");
+    }
+
+    /**
+     * @param root The directory to serve files from.
+     * @param indexFile The file name served for directory requests or null to disable.
+     */
+    public CefFileSchemeHandlerFactory(Path root, String indexFile) {
+        root_ = root.toAbsolutePath().normalize();
+        indexFile_ = indexFile;
+    }
+
+    @Override
+    public CefResourceHandler create(
+            CefBrowser browser, CefFrame frame, String schemeName, CefRequest request) {
+        Path path = resolve(request.getURL());
+        if (path == null) return null;
+        return new CefFileResourceHandler(path);
+    }
+
+    /**
+     * Map the request URL to a file below the root directory. Symbolic links are followed only if
+     * their target is below the root directory as well.
+     * @return The file path or null if the URL doesn't map to a location below the root.
+     */
+    protected Path resolve(String url) {
+        String path = ResourceHandlerUtils.getUrlPath(url);
+        if (path == null) return null;
+
+        Path resolved;
+        try {
+            resolved = root_.resolve(path).normalize();
+        } catch (InvalidPathException e) {
+            return null;
+        }
+        // Reject attempts to escape the root directory with "..".
+        if (!resolved.startsWith(root_)) return null;
+
+        if (indexFile_ != null && Files.isDirectory(resolved)) {
+            resolved = resolved.resolve(indexFile_);
+        }
+        // Files that don't exist are served as not found.
+        if (!Files.exists(resolved, LinkOption.NOFOLLOW_LINKS)) return resolved;
+        try {
+            // Reject symbolic links within the root that point outside of it.
+            Path realPath = resolved.toRealPath();
+            return realPath.startsWith(root_.toRealPath()) ? resolved : null;
+        } catch (IOException e) {
+            // A dangling link or an inaccessible parent directory.
+            return null;
+        }
+    }
+}
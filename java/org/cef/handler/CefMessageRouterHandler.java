@@ -11,7 +11,8 @@ import org.cef.callback.CefQueryCallback;
 
 /**
  * Implement this interface to handle queries. All methods will be executed on the browser process
- * UI thread.
+ * UI thread, except that onQueryCanceled is called on the calling thread when a
+ * CefMessageRouterRouteTable route is removed or replaced.
  */
 public interface CefMessageRouterHandler extends CefNative {
     /**
@@ -32,7 +33,9 @@ public interface CefMessageRouterHandler extends CefNative {
             boolean persistent, CefQueryCallback callback);
 
     /**
-     * Called when a pending JavaScript query is canceled.
+     * Called when a pending JavaScript query is canceled. If the query was canceled because its
+     * CefMessageRouterRouteTable route was removed or replaced this is called on the thread that
+     * changed the route and |frame| is null.
      *
      * @param browser The corresponding browser.
      * @param frame The frame generating the event. Instance only valid within the scope of this
@@ -0,0 +1,344 @@
+package org.cef.handler;
+
+import org.cef.browser.CefBrowser;
+import org.cef.browser.CefFrame;
+import org.cef.callback.CefQueryCallback;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A message router handler that dispatches queries to other handlers through a lookup table
+ * instead of offering each query to every handler in turn. Register the table with
+ * CefMessageRouter.addHandler() in place of the individual handlers.
+ *
+ * The method of a query is the part of the request before the first occurrence of the method
+ * separator, or the complete request if it doesn't contain the separator. A query is dispatched
+ * to the first of the following handlers that handles it:
+ *
+ * 1. The handler registered for the method with addMethod(), found with a hash lookup.
+ * 2. The handlers registered for prefixes of the request with addPrefix(), longest prefix first,
+ *    found by walking a trie of the registered prefixes.
+ * 3. The fallback handlers registered with addFallback(), in order.
+ *
+ * Routes may be changed on any thread. The handler of a removed or replaced route receives
+ * onQueryCanceled for its pending queries on that thread instead of the UI thread. Each route
+ * counts the queries offered to it, the queries it handled and the queries canceled after it
+ * handled them.
+ */
+public class CefMessageRouterRouteTable extends CefMessageRouterHandlerAdapter {
+    public enum Kind {
+        METHOD,
+        PREFIX,
+        FALLBACK,
+    }
+
+    /**
+     * A registered handler and its counters.
+     */
+    public static final class Route {
+        private final Kind kind_;
+        private final String pattern_;
+        private final CefMessageRouterHandler handler_;
+        private final AtomicLong queryCount_ = new AtomicLong();
+        private final AtomicLong handledCount_ = new AtomicLong();
+        private final AtomicLong canceledCount_ = new AtomicLong();
+
+        Route(Kind kind, String pattern, CefMessageRouterHandler handler) {
+            kind_ = kind;
+            pattern_ = pattern;
+            handler_ = handler;
+        }
+
+        public Kind getKind() {
+            return kind_;
+        }
+
+        /**
+         * Returns the method or prefix of the route, or null for fallback handlers.
+         */
+        public String getPattern() {
+            return pattern_;
+        }
+
+        public CefMessageRouterHandler getHandler() {
+            return handler_;
+        }
+
+        /**
+         * Returns the number of queries offered to the handler.
+         */
+        public long getQueryCount() {
+            return queryCount_.get();
+        }
+
+        /**
+         * Returns the number of queries the handler handled.
+         */
+        public long getHandledCount() {
+            return handledCount_.get();
+        }
+
+        /**
+         * Returns the number of handled queries that were canceled.
+         */
+        public long getCanceledCount() {
+            return canceledCount_.get();
+        }
+    }
+
+    // Immutable trie node for the prefix routes.
+    private static final class Node {
+        final Map<Character, Node> children;
+        final Route route;
+
+        Node(Map<Character, Node> children, Route route) {
+            this.children = children;
+            this.route = route;
+        }
+    }
+
+    // Tracks a handled query so that its cancellation can be forwarded to the right handler.
+    private final class Query implements CefQueryCallback {
+        final Route route;
+        final CefBrowser browser;
+        final long queryId;
+        final boolean persistent;
+        final CefQueryCallback callback;
+
+        Query(Route route, CefBrowser browser, long queryId, boolean persistent,
+                CefQueryCallback callback) {
+            this.route = route;
+            this.browser = browser;
+            this.queryId = queryId;
+            this.persistent = persistent;
+            this.callback = callback;
+        }
+
+        @Override
+        public void success(String response) {
+            if (!persistent) pending_.remove(queryId, this);
+            callback.success(response);
+        }
+
+        @Override
+        public void failure(int error_code, String error_message) {
+            pending_.remove(queryId, this);
+            callback.failure(error_code, error_message);
+        }
+    }
+
+    private final char separator_;
+    private final Map<String, Route> methods_ = new ConcurrentHashMap<String, Route>();
+    private final Map<String, Route> prefixes_ = new HashMap<String, Route>();
+    private volatile Node prefixTrie_ = new Node(new HashMap<Character, Node>(), null);
+    private final List<Route> fallbacks_ = new CopyOnWriteArrayList<Route>();
+    private final Map<Long, Query> pending_ = new ConcurrentHashMap<Long, Query>();
+    private final AtomicLong unhandledCount_ = new AtomicLong();
+
+    /**
+     * Create a table that uses ':' as the method separator.
+     */
+    public CefMessageRouterRouteTable() {
+        this(':');
+    }
+
+    /**
+     * Create a table.
+     * @param separator The character that ends the method of a query.
+     */
+    public CefMessageRouterRouteTable(char separator) {
+        separator_ = separator;
+    }
+
+    /**
+     * Register |handler| for queries whose method is |method|, replacing any handler previously
+     * registered for it.
+     * @return The new route.
+     */
+    public Route addMethod(String method, CefMessageRouterHandler handler) {
+        Route route = new Route(Kind.METHOD, method, handler);
+        Route old = methods_.put(method, route);
+        if (old != null) cancelPending(old);
+        return route;
+    }
+
+    /**
+     * Register |handler| for queries whose request starts with |prefix|, replacing any handler
+     * previously registered for it.
+     * @return The new route.
+     */
+    public Route addPrefix(String prefix, CefMessageRouterHandler handler) {
+        Route route = new Route(Kind.PREFIX, prefix, handler);
+        Route old;
+        synchronized (prefixes_) {
+            old = prefixes_.put(prefix, route);
+            rebuildPrefixTrie();
+        }
+        if (old != null) cancelPending(old);
+        return route;
+    }
+
+    /**
+     * Add a handler that is offered queries no method or prefix route handled.
+     * @param first If true the handler is offered queries before the other fallback handlers.
+     * @return The new route.
+     */
+    public Route addFallback(CefMessageRouterHandler handler, boolean first) {
+        Route route = new Route(Kind.FALLBACK, null, handler);
+        if (first) {
+            fallbacks_.add(0, route);
+        } else {
+            fallbacks_.add(route);
+        }
+        return route;
+    }
+
+    /**
+     * Remove a route. Pending queries handled by the route are canceled with an error code of -1
+     * and its handler's onQueryCanceled is called with a null frame on the calling thread.
+     * Replacing a route does the same for the pending queries of the replaced route.
+     * @return True if the route was removed.
+     */
+    public boolean removeRoute(Route route) {
+        boolean removed;
+        switch (route.kind_) {
+            case METHOD:
+                removed = methods_.remove(route.pattern_, route);
+                break;
+            case PREFIX:
+                synchronized (prefixes_) {
+                    removed = prefixes_.remove(route.pattern_, route);
+                    if (removed) rebuildPrefixTrie();
+                }
+                break;
+            default:
+                removed = fallbacks_.remove(route);
+                break;
+        }
+        if (removed) cancelPending(route);
+        return removed;
+    }
+
+    /**
+     * Returns all routes in dispatch order of their kind.
+     */
+    public List<Route> getRoutes() {
+        List<Route> routes = new ArrayList<Route>(methods_.values());
+        synchronized (prefixes_) {
+            routes.addAll(prefixes_.values());
+        }
+        routes.addAll(fallbacks_);
+        return routes;
+    }
+
+    /**
+     * Returns the number of queries that no route handled.
+     */
+    public long getUnhandledCount() {
+        return unhandledCount_.get();
+    }
+
+    @Override
+    public boolean onQuery(CefBrowser browser, CefFrame frame, long queryId, String request,
+            boolean persistent, CefQueryCallback callback) {
+        int end = request.indexOf(separator_);
+        Route route = methods_.get(end < 0 ? request : request.substring(0, end));
+        if (route != null
+                && dispatch(route, browser, frame, queryId, request, persistent, callback)) {
+            return true;
+        }
+
+        List<Route> prefixes = matchPrefixes(request);
+        for (int i = prefixes.size() - 1; i >= 0; --i) {
+            if (dispatch(prefixes.get(i), browser, frame, queryId, request, persistent, callback)) {
+                return true;
+            }
+        }
+
+        for (Route fallback : fallbacks_) {
+            if (dispatch(fallback, browser, frame, queryId, request, persistent, callback)) {
+                return true;
+            }
+        }
+
+        unhandledCount_.incrementAndGet();
+        return false;
+    }
+
+    @Override
+    public void onQueryCanceled(CefBrowser browser, CefFrame frame, long queryId) {
+        Query query = pending_.remove(queryId);
+        if (query == null) return;
+        query.route.canceledCount_.incrementAndGet();
+        query.route.handler_.onQueryCanceled(browser, frame, queryId);
+    }
+
+    private boolean dispatch(Route route, CefBrowser browser, CefFrame frame, long queryId,
+            String request, boolean persistent, CefQueryCallback callback) {
+        route.queryCount_.incrementAndGet();
+        Query query = new Query(route, browser, queryId, persistent, callback);
+        // Register before calling the handler since it may complete the query synchronously.
+        pending_.put(queryId, query);
+        if (!route.handler_.onQuery(browser, frame, queryId, request, persistent, query)) {
+            pending_.remove(queryId, query);
+            return false;
+        }
+        route.handledCount_.incrementAndGet();
+        return true;
+    }
+
+    // Returns the prefix routes matching |request|, shortest prefix first.
+    private List<Route> matchPrefixes(String request) {
+        Node node = prefixTrie_;
+        List<Route> matches = Collections.emptyList();
+        for (int i = 0; node != null; ++i) {
+            if (node.route != null) {
+                if (matches.isEmpty()) matches = new ArrayList<Route>(2);
+                matches.add(node.route);
+            }
+            node = i < request.length() ? node.children.get(request.charAt(i)) : null;
+        }
+        return matches;
+    }
+
+    // Must be called while synchronized on |prefixes_|.
+    private void rebuildPrefixTrie() {
+        Map<String, Route> routes = new HashMap<String, Route>(prefixes_);
+        prefixTrie_ = buildNode(routes, "");
+    }
+
+    private static Node buildNode(Map<String, Route> routes, String path) {
+        Map<Character, List<String>> byChar = new HashMap<Character, List<String>>();
+        for (String prefix : routes.keySet()) {
+            if (prefix.length() > path.length() && prefix.startsWith(path)) {
+                char c = prefix.charAt(path.length());
+                List<String> list = byChar.get(c);
+                if (list == null) byChar.put(c, list = new ArrayList<String>());
+                list.add(prefix);
+            }
+        }
+        Map<Character, Node> children = new HashMap<Character, Node>();
+        for (Map.Entry<Character, List<String>> entry : byChar.entrySet()) {
+            Map<String, Route> subset = new HashMap<String, Route>();
+            for (String prefix : entry.getValue()) subset.put(prefix, routes.get(prefix));
+            children.put(entry.getKey(), buildNode(subset, path + entry.getKey()));
+        }
+        return new Node(children, routes.get(path));
+    }
+
+    private void cancelPending(Route route) {
+        for (Query query : pending_.values()) {
+            if (query.route != route || !pending_.remove(query.queryId, query)) continue;
+            route.canceledCount_.incrementAndGet();
+            query.callback.failure(-1, "The query has been canceled");
+            route.handler_.onQueryCanceled(query.browser, null, query.queryId);
+        }
+    }
+}
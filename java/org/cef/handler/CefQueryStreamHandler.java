@@ -0,0 +1,35 @@
+package org.cef.handler;
+
+import org.cef.browser.CefBrowser;
+import org.cef.browser.CefFrame;
+import org.cef.callback.CefQueryStream;
+
+/**
+ * Implement this interface to handle streaming queries sent from JavaScript using the stream
+ * function of a CefMessageRouter. All methods will be executed on the browser process UI thread.
+ */
+public interface CefQueryStreamHandler {
+    /**
+     * Called when JavaScript opens a stream.
+     *
+     * @param browser The corresponding browser.
+     * @param frame The frame generating the event. Instance only valid within the scope of this
+     *         method.
+     * @param request The request passed to the JavaScript stream function.
+     * @param stream Object used to send messages to JavaScript and to end the stream.
+     * @return True to handle the stream or false to propagate it to other registered handlers,
+     *         if any. If no handlers return true from this method then the stream will fail with
+     *         an error code of -1.
+     */
+    public boolean onOpen(
+            CefBrowser browser, CefFrame frame, String request, CefQueryStream stream);
+
+    /**
+     * Called when a stream is canceled by JavaScript, by navigation or browser destruction, or
+     * because the handler was removed. The stream is already closed.
+     *
+     * @param browser The corresponding browser.
+     * @param stream The canceled stream.
+     */
+    public void onCanceled(CefBrowser browser, CefQueryStream stream);
+}
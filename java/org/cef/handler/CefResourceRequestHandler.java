@@ -100,6 +100,24 @@ public interface CefResourceRequestHandler {
     boolean onResourceResponse(
             CefBrowser browser, CefFrame frame, CefRequest request, CefResponse response);
 
+    /**
+     * Called on the IO thread to optionally filter resource response content. The |browser| and
+     * |frame| values represent the source of the request, and may be null for requests
+     * originating from service workers or CefURLRequest.
+     *
+     * @param browser The corresponding browser.
+     * @param frame The frame generating the event. Instance only valid within the scope of this
+     *         method.
+     * @param request The request itself. Cannot be modified in this callback. Instance only valid
+     *         within the scope of this method.
+     * @param response The request response. Cannot be modified in this callback. Instance only
+     *         valid within the scope of this method.
+     * @return A CefResponseFilter instance or null. A new instance must be returned for every
+     *         request.
+     */
+    CefResponseFilter getResourceResponseFilter(
+            CefBrowser browser, CefFrame frame, CefRequest request, CefResponse response);
+
     /**
      * Called on the IO thread when a resource load has completed. The |browser| and |frame| values
      * represent the source of the request, and may be null for requests originating from service
@@ -46,6 +46,12 @@ public abstract class CefResourceRequestHandlerAdapter implements CefResourceReq
         return false;
     }
 
+    @Override
+    public CefResponseFilter getResourceResponseFilter(
+            CefBrowser browser, CefFrame frame, CefRequest request, CefResponse response) {
+        return null;
+    }
+
     @Override
     public void onResourceLoadComplete(CefBrowser browser, CefFrame frame, CefRequest request,
             CefResponse response, CefURLRequest.Status status, long receivedContentLength) {}
@@ -0,0 +1,64 @@
+package org.cef.handler;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Implement this interface to filter resource response content. The response body passes
+ * through the filter chunk by chunk while it is loaded, so content can be rewritten, compressed
+ * or inspected without replacing the resource handler. The methods of this class will be called
+ * on the IO thread.
+ */
+public interface CefResponseFilter {
+    /**
+     * Return values for {@link #filter(ByteBuffer, ByteBuffer)}.
+     */
+    enum FilterStatus {
+        /**
+         * Some or all of the pre-filter data was read successfully but more data is needed in
+         * order to continue filtering (filtered output is pending).
+         */
+        RESPONSE_FILTER_NEED_MORE_DATA,
+
+        /**
+         * Some or all of the pre-filter data was read successfully and all available filtered
+         * output has been written.
+         */
+        RESPONSE_FILTER_DONE,
+
+        /**
+         * An error occurred during filtering.
+         */
+        RESPONSE_FILTER_ERROR,
+    }
+
+    /**
+     * Initialize the response filter. Will only be called a single time. The filter will not be
+     * installed if this method returns false.
+     */
+    boolean initFilter();
+
+    /**
+     * Called to filter a chunk of data. The buffers are direct buffers that wrap native memory
+     * and are reused between calls, so they must not be accessed after this method returns.
+     *
+     * Expected usage is as follows:
+     * <ol>
+     * <li>Read input data from |dataIn| starting at its position and advance the position by the
+     * number of bytes read. |dataIn| will be null if there is no more input data. Input data that
+     * is not read will be passed again in the next call.</li>
+     * <li>Write filtered output data to |dataOut| and leave its position after the last byte
+     * written. The remaining space of |dataOut| is the maximum that can be written in one call. If
+     * some or all of the filtered output data does not fit, return
+     * RESPONSE_FILTER_NEED_MORE_DATA and write the rest in the next call.</li>
+     * <li>Return RESPONSE_FILTER_DONE once all filtered output was written or
+     * RESPONSE_FILTER_ERROR to fail the request.</li>
+     * </ol>
+     * This method will be called repeatedly until |dataIn| is null and the method returns
+     * RESPONSE_FILTER_DONE.
+     *
+     * @param dataIn The input data or null if there is no more input.
+     * @param dataOut The buffer for the filtered output data.
+     * @return The filter status.
+     */
+    FilterStatus filter(ByteBuffer dataIn, ByteBuffer dataOut);
+}
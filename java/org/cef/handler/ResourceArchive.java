@@ -0,0 +1,245 @@
+package org.cef.handler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only view of a ZIP/JAR archive that is memory-mapped once. The central directory is
+ * parsed up front so that the content of every entry can later be located without any further
+ * file access: stored entries are served as slices of the mapped region and deflated entries
+ * are inflated directly from it. Used by {@link CefArchiveSchemeHandlerFactory}.
+ */
+final class ResourceArchive {
+    static final int METHOD_STORED = 0;
+    static final int METHOD_DEFLATED = 8;
+
+    private static final int LOCAL_HEADER_SIG = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+    private static final int END_SIG = 0x06054b50;
+    private static final int ZIP64_END_SIG = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final int END_HEADER_SIZE = 22;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+    /**
+     * Metadata of a single archive entry, read from the central directory.
+     */
+    static final class Entry {
+        final ResourceArchive archive;
+        final String name;
+        /**
+         * METHOD_STORED or METHOD_DEFLATED. Entries using other methods are not indexed.
+         */
+        final int method;
+        final long compressedSize;
+        final long size;
+        final long crc;
+        /**
+         * The modification time in milliseconds or -1 if unknown.
+         */
+        final long lastModified;
+        final String etag;
+        private final long localHeaderOffset;
+
+        private Entry(ResourceArchive archive, String name, int method, long compressedSize,
+                long size, long crc, long lastModified, long localHeaderOffset) {
+            this.archive = archive;
+            this.name = name;
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.crc = crc;
+            this.lastModified = lastModified;
+            this.localHeaderOffset = localHeaderOffset;
+            // The CRC identifies the content; the size guards against collisions.
+            this.etag = "\"" + Long.toHexString(crc) + "-" + Long.toHexString(size) + "\"";
+        }
+
+        /**
+         * Returns the raw (possibly compressed) entry data as a read-only view of the mapped
+         * archive. No data is copied.
+         * @throws IOException if the local header of the entry is invalid.
+         */
+        ByteBuffer data() throws IOException {
+            return archive.data(this);
+        }
+    }
+
+    private final Path path_;
+    private final MappedByteBuffer buffer_;
+    private final List<Entry> entries_ = new ArrayList<Entry>();
+
+    private ResourceArchive(Path path, MappedByteBuffer buffer) {
+        path_ = path;
+        buffer_ = buffer;
+    }
+
+    /**
+     * Map the archive and index its central directory.
+     * @throws IOException if the file is not a valid archive or is larger than 2GB.
+     */
+    static ResourceArchive open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("Archive too large to be mapped: " + path);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        ResourceArchive archive = new ResourceArchive(path, buffer);
+        archive.readCentralDirectory();
+        return archive;
+    }
+
+    Path getPath() {
+        return path_;
+    }
+
+    /**
+     * Returns the file entries in central directory order. Directories, encrypted entries and
+     * entries using unsupported compression methods are skipped.
+     */
+    List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries_);
+    }
+
+    private ByteBuffer data(Entry entry) throws IOException {
+        ByteBuffer buffer = buffer_.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int offset = checkedOffset(entry.localHeaderOffset, 30);
+        if (buffer.getInt(offset) != LOCAL_HEADER_SIG)
+            throw new IOException("Invalid local header for " + entry.name + " in " + path_);
+        // The local extra field may differ from the central directory one.
+        long start = (long) offset + 30 + (buffer.getShort(offset + 26) & 0xFFFF)
+                + (buffer.getShort(offset + 28) & 0xFFFF);
+        int begin = checkedOffset(start, entry.compressedSize);
+        buffer.limit(begin + (int) entry.compressedSize);
+        buffer.position(begin);
+        return buffer.slice().asReadOnlyBuffer();
+    }
+
+    private void readCentralDirectory() throws IOException {
+        ByteBuffer buffer = buffer_.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int end = findEndHeader(buffer);
+
+        long count = buffer.getShort(end + 10) & 0xFFFF;
+        long offset = buffer.getInt(end + 16) & 0xFFFFFFFFL;
+        if (count == 0xFFFF || offset == 0xFFFFFFFFL) {
+            // ZIP64 archive. The locator precedes the end header.
+            int locator = end - 20;
+            if (locator >= 0 && buffer.getInt(locator) == ZIP64_LOCATOR_SIG) {
+                int zip64End = checkedOffset(buffer.getLong(locator + 8), 56);
+                if (buffer.getInt(zip64End) != ZIP64_END_SIG)
+                    throw new IOException("Invalid ZIP64 end header in " + path_);
+                count = buffer.getLong(zip64End + 32);
+                offset = buffer.getLong(zip64End + 48);
+            }
+        }
+
+        int pos = checkedOffset(offset, 0);
+        for (long i = 0; i < count; ++i) {
+            checkedOffset(pos, 46);
+            if (buffer.getInt(pos) != CENTRAL_HEADER_SIG)
+                throw new IOException("Invalid central directory in " + path_);
+            int flags = buffer.getShort(pos + 8) & 0xFFFF;
+            int method = buffer.getShort(pos + 10) & 0xFFFF;
+            int dosTime = buffer.getShort(pos + 12) & 0xFFFF;
+            int dosDate = buffer.getShort(pos + 14) & 0xFFFF;
+            long crc = buffer.getInt(pos + 16) & 0xFFFFFFFFL;
+            long compressedSize = buffer.getInt(pos + 20) & 0xFFFFFFFFL;
+            long size = buffer.getInt(pos + 24) & 0xFFFFFFFFL;
+            int nameLength = buffer.getShort(pos + 28) & 0xFFFF;
+            int extraLength = buffer.getShort(pos + 30) & 0xFFFF;
+            int commentLength = buffer.getShort(pos + 32) & 0xFFFF;
+            long localHeaderOffset = buffer.getInt(pos + 42) & 0xFFFFFFFFL;
+
+            checkedOffset(pos + 46, nameLength + extraLength);
+            byte[] nameBytes = new byte[nameLength];
+            buffer.position(pos + 46);
+            buffer.get(nameBytes);
+            String name = new String(nameBytes, StandardCharsets.UTF_8);
+
+            if (size == 0xFFFFFFFFL || compressedSize == 0xFFFFFFFFL
+                    || localHeaderOffset == 0xFFFFFFFFL) {
+                // Sizes and offset are stored in the ZIP64 extra field in this order, but only
+                // those that overflowed.
+                int extra = pos + 46 + nameLength;
+                int extraEnd = extra + extraLength;
+                boolean found = false;
+                while (extra + 4 <= extraEnd) {
+                    int id = buffer.getShort(extra) & 0xFFFF;
+                    int length = buffer.getShort(extra + 2) & 0xFFFF;
+                    if (extra + 4 + length > extraEnd) break;
+                    if (id == ZIP64_EXTRA_ID) {
+                        int field = extra + 4;
+                        int fieldEnd = field + length;
+                        if (size == 0xFFFFFFFFL && field + 8 <= fieldEnd) {
+                            size = buffer.getLong(field);
+                            field += 8;
+                        }
+                        if (compressedSize == 0xFFFFFFFFL && field + 8 <= fieldEnd) {
+                            compressedSize = buffer.getLong(field);
+                            field += 8;
+                        }
+                        if (localHeaderOffset == 0xFFFFFFFFL && field + 8 <= fieldEnd) {
+                            localHeaderOffset = buffer.getLong(field);
+                        }
+                        found = true;
+                        break;
+                    }
+                    extra += 4 + length;
+                }
+                if (!found || size < 0 || compressedSize < 0 || localHeaderOffset < 0)
+                    throw new IOException("Invalid ZIP64 extra field for " + name + " in " + path_);
+            }
+
+            pos += 46 + nameLength + extraLength + commentLength;
+
+            // Skip directories, encrypted entries and unsupported compression methods.
+            if (name.endsWith("/") || (flags & 0x1) != 0) continue;
+            if (method != METHOD_STORED && method != METHOD_DEFLATED) continue;
+
+            entries_.add(new Entry(this, name, method, compressedSize, size, crc,
+                    dosToJavaTime(dosDate, dosTime), localHeaderOffset));
+        }
+    }
+
+    private int findEndHeader(ByteBuffer buffer) throws IOException {
+        int limit = buffer.limit();
+        int min = Math.max(0, limit - END_HEADER_SIZE - MAX_COMMENT_SIZE);
+        for (int pos = limit - END_HEADER_SIZE; pos >= min; --pos) {
+            if (buffer.getInt(pos) == END_SIG) return pos;
+        }
+        throw new IOException("Not a ZIP archive: " + path_);
+    }
+
+    private int checkedOffset(long offset, long length) throws IOException {
+        if (offset < 0 || length < 0 || offset + length > buffer_.limit())
+            throw new IOException("Corrupt archive: " + path_);
+        return (int) offset;
+    }
+
+    private static long dosToJavaTime(int date, int time) {
+        if (date == 0) return -1;
+        try {
+            LocalDateTime dateTime = LocalDateTime.of(((date >> 9) & 0x7F) + 1980,
+                    (date >> 5) & 0x0F, date & 0x1F, (time >> 11) & 0x1F, (time >> 5) & 0x3F,
+                    (time << 1) & 0x3E);
+            return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package org.cef.handler;
+
+import org.cef.network.CefRequest;
+
+import java.net.FileNameMap;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLConnection;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * HTTP helpers shared by the built-in static resource handlers: MIME type lookup, HTTP date
+ * formatting, byte range parsing and conditional request evaluation. None of the methods touch
+ * the resource content. They may also be used by application resource handlers.
+ */
+public final class ResourceHandlerUtils {
+    public static final String DEFAULT_MIME_TYPE = "application/octet-stream";
+
+    /**
+     * Returned by {@link #parseRange(String, long)} if the requested range can't be satisfied.
+     * Compare the result by identity.
+     */
+    public static final long[] UNSATISFIABLE_RANGE = new long[0];
+
+    // Web types that are missing or outdated in the JDK content-types table.
+    private static final HashMap<String, String> mimeTypes_ = new HashMap<String, String>();
+    static {
+        mimeTypes_.put("html", "text/html");
+        mimeTypes_.put("htm", "text/html");
+        mimeTypes_.put("css", "text/css");
+        mimeTypes_.put("js", "text/javascript");
+        mimeTypes_.put("mjs", "text/javascript");
+        mimeTypes_.put("json", "application/json");
+        mimeTypes_.put("map", "application/json");
+        mimeTypes_.put("txt", "text/plain");
+        mimeTypes_.put("xml", "text/xml");
+        mimeTypes_.put("svg", "image/svg+xml");
+        mimeTypes_.put("png", "image/png");
+        mimeTypes_.put("gif", "image/gif");
+        mimeTypes_.put("jpg", "image/jpeg");
+        mimeTypes_.put("jpeg", "image/jpeg");
+        mimeTypes_.put("webp", "image/webp");
+        mimeTypes_.put("ico", "image/x-icon");
+        mimeTypes_.put("woff", "font/woff");
+        mimeTypes_.put("woff2", "font/woff2");
+        mimeTypes_.put("ttf", "font/ttf");
+        mimeTypes_.put("otf", "font/otf");
+        mimeTypes_.put("wasm", "application/wasm");
+        mimeTypes_.put("pdf", "application/pdf");
+        mimeTypes_.put("mp4", "video/mp4");
+        mimeTypes_.put("webm", "video/webm");
+        mimeTypes_.put("mp3", "audio/mpeg");
+        mimeTypes_.put("ogg", "audio/ogg");
+        mimeTypes_.put("wav", "audio/wav");
+    }
+
+    private static final DateTimeFormatter HTTP_DATE_FORMAT = DateTimeFormatter.RFC_1123_DATE_TIME;
+
+    private ResourceHandlerUtils() {}
+
+    /**
+     * Determine the MIME type from the file name extension only. The file is never opened.
+     */
+    public static String guessMimeType(String name) {
+        int slash = name.lastIndexOf('/');
+        int dot = name.lastIndexOf('.');
+        if (dot > slash && dot < name.length() - 1) {
+            String type = mimeTypes_.get(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+            if (type != null) return type;
+        }
+        FileNameMap fileNameMap = URLConnection.getFileNameMap();
+        String type = fileNameMap.getContentTypeFor(name);
+        return type != null ? type : DEFAULT_MIME_TYPE;
+    }
+
+    /**
+     * Returns the decoded path component of |url| without leading slashes or null if the URL
+     * can't be parsed.
+     */
+    public static String getUrlPath(String url) {
+        String path;
+        try {
+            URI uri = new URI(url);
+            path = uri.isOpaque() ? uri.getSchemeSpecificPart() : uri.getPath();
+        } catch (URISyntaxException e) {
+            return null;
+        }
+        if (path == null) return "";
+        int start = 0;
+        while (start < path.length() && path.charAt(start) == '/') ++start;
+        return path.substring(start);
+    }
+
+    public static String formatHttpDate(long millis) {
+        return HTTP_DATE_FORMAT.format(
+                ZonedDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC));
+    }
+
+    /**
+     * @return The parsed time in milliseconds or -1 if |value| is not a valid HTTP date.
+     */
+    public static long parseHttpDate(String value) {
+        if (value == null || value.isEmpty()) return -1;
+        try {
+            return ZonedDateTime.parse(value.trim(), HTTP_DATE_FORMAT).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Build a strong validator from the resource length and modification time.
+     */
+    public static String makeETag(long length, long lastModified) {
+        return "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+    /**
+     * Parse a single "bytes" range of a Range header value.
+     * @param header The Range header value, may be null.
+     * @param length The total length of the resource.
+     * @return {start, end} with an inclusive |end|, null if the whole resource should be served
+     *         (no header, multiple ranges or a malformed value) or {@link #UNSATISFIABLE_RANGE}.
+     */
+    public static long[] parseRange(String header, long length) {
+        if (header == null) return null;
+        header = header.trim();
+        if (!header.regionMatches(true, 0, "bytes=", 0, 6)) return null;
+        String spec = header.substring(6).trim();
+        // Multipart responses are not supported; serving the full body is always valid.
+        if (spec.indexOf(',') >= 0) return null;
+        int dash = spec.indexOf('-');
+        if (dash < 0) return null;
+
+        String first = spec.substring(0, dash).trim();
+        String last = spec.substring(dash + 1).trim();
+        // A syntactically invalid range is ignored.
+        if (!isDigits(first) || !isDigits(last)) return null;
+        try {
+            long start, end;
+            if (first.isEmpty()) {
+                // Suffix range: the last N bytes.
+                if (last.isEmpty()) return null;
+                long suffix = Long.parseLong(last);
+                if (suffix == 0 || length == 0) return UNSATISFIABLE_RANGE;
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+                if (end < start) return null;
+                if (start >= length) return UNSATISFIABLE_RANGE;
+                end = Math.min(end, length - 1);
+            }
+            return new long[] {start, end};
+        } catch (NumberFormatException e) {
+            // Out of range of long.
+            return null;
+        }
+    }
+
+    /**
+     * Evaluate If-None-Match and If-Modified-Since against the current validators. If-None-Match
+     * takes precedence as required by RFC 7232.
+     */
+    public static boolean isNotModified(CefRequest request, String etag, long lastModified) {
+        return isNotModified(request.getHeaderByName("If-None-Match"),
+                request.getHeaderByName("If-Modified-Since"), etag, lastModified);
+    }
+
+    /**
+     * Evaluate the If-None-Match and If-Modified-Since header values, each of which may be null.
+     */
+    public static boolean isNotModified(
+            String ifNoneMatch, String ifModifiedSince, String etag, long lastModified) {
+        if (ifNoneMatch != null && !ifNoneMatch.isEmpty()) {
+            return etagListMatches(ifNoneMatch, etag);
+        }
+        long date = parseHttpDate(ifModifiedSince);
+        // HTTP dates have a resolution of one second.
+        return date >= 0 && lastModified >= 0 && lastModified / 1000 <= date / 1000;
+    }
+
+    /**
+     * Evaluate If-Range. A Range header must be ignored if the validator doesn't match.
+     */
+    public static boolean isRangeApplicable(CefRequest request, String etag, long lastModified) {
+        return isRangeApplicable(request.getHeaderByName("If-Range"), etag, lastModified);
+    }
+
+    /**
+     * Evaluate the If-Range header value, which may be null.
+     */
+    public static boolean isRangeApplicable(String ifRange, String etag, long lastModified) {
+        if (ifRange == null || ifRange.isEmpty()) return true;
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range uses the strong comparison function, so weak validators never match.
+            return etag != null && !etag.startsWith("W/") && ifRange.equals(etag);
+        }
+        long date = parseHttpDate(ifRange);
+        return date >= 0 && lastModified >= 0 && lastModified / 1000 == date / 1000;
+    }
+
+    private static boolean etagListMatches(String list, String etag) {
+        if (etag == null) return false;
+        // If-None-Match uses the weak comparison function.
+        if (etag.startsWith("W/")) etag = etag.substring(2);
+        for (String candidate : list.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*")) return true;
+            if (candidate.startsWith("W/")) candidate = candidate.substring(2);
+            if (candidate.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    private static boolean isDigits(String value) {
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,616 @@
+package org.cef.network;
+
+import org.cef.callback.CefAuthCallback;
+import org.cef.callback.CefURLRequestBufferClient;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous API for CefURLRequest. Requests are sent through Chromium's network stack and
+ * the result is returned as a CompletableFuture instead of through a CefURLRequestClient.
+ *
+ * Use {@link #send(CefRequest)} for small bodies that are collected into a byte array. Use
+ * {@link #stream(CefRequest)} for large bodies, which are copied once from native memory into
+ * pooled direct buffers and published as a {@link Flow.Publisher}.
+ *
+ * Cancelling a returned future or the body subscription cancels the request. The request
+ * object is marked read-only when the request is started.
+ */
+public final class CefAsyncURLRequest {
+    static final int DEFAULT_MAX_BODY_SIZE = 64 * 1024 * 1024;
+    private static final long DEFAULT_MAX_BUFFERED_SIZE = 16 * 1024 * 1024;
+
+    // This CTOR can't be called directly. Use the static methods instead.
+    private CefAsyncURLRequest() {}
+
+    /**
+     * Response headers.
+     */
+    public static class ResponseInfo {
+        private final int status_;
+        private final String statusText_;
+        private final String mimeType_;
+        private final Map<String, String> headers_;
+
+        ResponseInfo(ResponseInfo info) {
+            this(info.status_, info.statusText_, info.mimeType_, info.headers_);
+        }
+
+        ResponseInfo(int status, String statusText, String mimeType, Map<String, String> headers) {
+            status_ = status;
+            statusText_ = statusText;
+            mimeType_ = mimeType;
+            headers_ = headers;
+        }
+
+        public int getStatus() {
+            return status_;
+        }
+
+        public String getStatusText() {
+            return statusText_;
+        }
+
+        public String getMimeType() {
+            return mimeType_;
+        }
+
+        /**
+         * Returns the response headers. The map is read-only.
+         */
+        public Map<String, String> getHeaders() {
+            return headers_;
+        }
+    }
+
+    /**
+     * A response with a body that was read completely.
+     */
+    public static final class Response extends ResponseInfo {
+        private final byte[] body_;
+
+        Response(ResponseInfo info, byte[] body) {
+            super(info);
+            body_ = body;
+        }
+
+        public byte[] getBody() {
+            return body_;
+        }
+    }
+
+    /**
+     * A response with a body that is streamed while it is downloaded.
+     */
+    public static final class StreamedResponse extends ResponseInfo {
+        private final BodyPublisher body_;
+
+        StreamedResponse(ResponseInfo info, BodyPublisher body) {
+            super(info);
+            body_ = body;
+        }
+
+        /**
+         * Returns the body publisher. It supports a single subscriber. Each buffer passed to
+         * onNext() is owned by the subscriber, which may keep it as long as needed. Pass it to
+         * {@link #release(ByteBuffer)} once it is no longer used so that it can be recycled.
+         * The network transfer can't be paused, so if the subscriber falls behind by more than
+         * the configured limit the request fails.
+         */
+        public Flow.Publisher<ByteBuffer> getBody() {
+            return body_;
+        }
+
+        /**
+         * Return a body buffer for reuse. The buffer must not be used afterwards. Buffers that
+         * are not released are reclaimed by the garbage collector. Releasing a buffer that
+         * wasn't published by this response, or releasing it twice, has no effect.
+         */
+        public void release(ByteBuffer buffer) {
+            body_.release(buffer);
+        }
+    }
+
+    /**
+     * Send a request and read the body into memory. Bodies larger than 64MB fail the request.
+     */
+    public static CompletableFuture<Response> send(CefRequest request) {
+        return send(request, DEFAULT_MAX_BODY_SIZE);
+    }
+
+    /**
+     * Send a request and read the body into memory.
+     * @param maxBodySize Bodies larger than this fail the request.
+     */
+    public static CompletableFuture<Response> send(CefRequest request, int maxBodySize) {
+        return send(request, maxBodySize, null);
+    }
+
+    /**
+     * Send a request and read the body into memory.
+     * @param onFinished Run once the native request has finished, including after the returned
+     *         future was cancelled, or right away if the request couldn't be created. May be null.
+     */
+    static CompletableFuture<Response> send(
+            CefRequest request, int maxBodySize, Runnable onFinished) {
+        CompletableFuture<Response> future = new CompletableFuture<Response>();
+        start(request, new Client(future, maxBodySize, onFinished), future);
+        return future;
+    }
+
+    /**
+     * Send a request and stream the body. Body buffers are delivered on the common fork-join
+     * pool and at most 16MB are buffered for a slow subscriber.
+     */
+    public static CompletableFuture<StreamedResponse> stream(CefRequest request) {
+        return stream(request, ForkJoinPool.commonPool(), DEFAULT_MAX_BUFFERED_SIZE);
+    }
+
+    /**
+     * Send a request and stream the body.
+     * @param executor The executor that delivers body buffers to the subscriber.
+     * @param maxBufferedSize The maximum number of bytes buffered for a subscriber that falls
+     *         behind. If exceeded, the request fails.
+     */
+    public static CompletableFuture<StreamedResponse> stream(
+            CefRequest request, Executor executor, long maxBufferedSize) {
+        CompletableFuture<StreamedResponse> future = new CompletableFuture<StreamedResponse>();
+        start(request, new Client(future, new BodyPublisher(executor, maxBufferedSize)), future);
+        return future;
+    }
+
+    private static void start(CefRequest request, Client client, CompletableFuture<?> future) {
+        CefURLRequest urlRequest = CefURLRequest.create(request, client);
+        if (urlRequest == null) {
+            future.completeExceptionally(new IOException("Failed to create URL request"));
+            client.finished();
+            return;
+        }
+        client.setRequest(urlRequest);
+    }
+
+    /**
+     * Receives the CefURLRequest callbacks on the CEF UI thread.
+     */
+    private static final class Client implements CefURLRequestBufferClient {
+        private long N_CefHandle = 0;
+
+        private final CompletableFuture<Response> bufferedFuture_;
+        private final int maxBodySize_;
+        private byte[] body_;
+        private int size_;
+
+        private final CompletableFuture<StreamedResponse> streamedFuture_;
+        private final BodyPublisher publisher_;
+
+        private final Runnable onFinished_;
+        private ResponseInfo info_;
+        private CefURLRequest request_;
+        private volatile boolean finished_ = false;
+
+        Client(CompletableFuture<Response> future, int maxBodySize, Runnable onFinished) {
+            bufferedFuture_ = future;
+            maxBodySize_ = maxBodySize;
+            streamedFuture_ = null;
+            publisher_ = null;
+            onFinished_ = onFinished;
+            future.whenComplete((response, error) -> {
+                if (future.isCancelled()) cancel();
+            });
+        }
+
+        Client(CompletableFuture<StreamedResponse> future, BodyPublisher publisher) {
+            bufferedFuture_ = null;
+            maxBodySize_ = 0;
+            streamedFuture_ = future;
+            publisher_ = publisher;
+            onFinished_ = null;
+            publisher.setOnCancel(this::cancel);
+            future.whenComplete((response, error) -> {
+                if (future.isCancelled()) cancel();
+            });
+        }
+
+        @Override
+        public void setNativeRef(String identifer, long nativeRef) {
+            N_CefHandle = nativeRef;
+        }
+
+        @Override
+        public long getNativeRef(String identifer) {
+            return N_CefHandle;
+        }
+
+        synchronized void setRequest(CefURLRequest request) {
+            if (request_ == null) request_ = request;
+            if (finished_) return;
+            boolean canceled = bufferedFuture_ != null ? bufferedFuture_.isCancelled()
+                                                       : streamedFuture_.isCancelled();
+            if (canceled) request.cancel();
+        }
+
+        @Override
+        public void onRequestComplete(CefURLRequest request) {
+            if (!finished_) {
+                finished_ = true;
+                CefURLRequest.Status status = request.getRequestStatus();
+                if (status == CefURLRequest.Status.UR_SUCCESS) {
+                    receiveHeaders(request);
+                    complete();
+                } else {
+                    fail(new IOException(
+                            "URL request failed: " + status + " " + request.getRequestError()));
+                }
+            }
+            // Release the native request and the global references held for this client.
+            request.dispose();
+            finished();
+        }
+
+        void finished() {
+            if (onFinished_ == null) return;
+            try {
+                onFinished_.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+
+        @Override
+        public void onUploadProgress(CefURLRequest request, int current, int total) {}
+
+        @Override
+        public void onDownloadProgress(CefURLRequest request, int current, int total) {
+            receiveHeaders(request);
+        }
+
+        @Override
+        public void onDownloadData(CefURLRequest request, ByteBuffer data) {
+            if (finished_) return;
+            receiveHeaders(request);
+            if (publisher_ != null) {
+                if (!publisher_.push(data)) {
+                    finished_ = true;
+                    request.cancel();
+                }
+                return;
+            }
+
+            int count = data.remaining();
+            if ((long) size_ + count > maxBodySize_) {
+                finished_ = true;
+                bufferedFuture_.completeExceptionally(
+                        new IOException("Response body exceeds " + maxBodySize_ + " bytes"));
+                request.cancel();
+                return;
+            }
+            if (body_ == null || body_.length - size_ < count) {
+                long capacity = Math.max((long) size_ + count,
+                        body_ == null ? 16 * 1024 : 2L * body_.length);
+                capacity = Math.min(capacity, maxBodySize_);
+                body_ = body_ == null ? new byte[(int) capacity]
+                                      : Arrays.copyOf(body_, (int) capacity);
+            }
+            data.get(body_, size_, count);
+            size_ += count;
+        }
+
+        @Override
+        public void onDownloadData(CefURLRequest request, byte[] data, int data_length) {
+            onDownloadData(request, ByteBuffer.wrap(data, 0, data_length));
+        }
+
+        @Override
+        public boolean getAuthCredentials(boolean isProxy, String host, int port, String realm,
+                String scheme, CefAuthCallback callback) {
+            return false;
+        }
+
+        private void receiveHeaders(CefURLRequest request) {
+            if (info_ != null) return;
+            CefResponse response = request.getResponse();
+            if (response == null) return;
+
+            HashMap<String, String> headers = new HashMap<String, String>();
+            response.getHeaderMap(headers);
+            info_ = new ResponseInfo(response.getStatus(), response.getStatusText(),
+                    response.getMimeType(), Collections.unmodifiableMap(headers));
+            response.dispose();
+
+            if (bufferedFuture_ != null) {
+                // Size the body buffer up front if the length is known.
+                for (Map.Entry<String, String> header : headers.entrySet()) {
+                    if (!header.getKey().equalsIgnoreCase("Content-Length")) continue;
+                    try {
+                        long length = Long.parseLong(header.getValue().trim());
+                        if (length > 0 && length <= maxBodySize_) body_ = new byte[(int) length];
+                    } catch (NumberFormatException e) {
+                        // Ignore the header.
+                    }
+                }
+            } else {
+                streamedFuture_.complete(new StreamedResponse(info_, publisher_));
+            }
+        }
+
+        private void complete() {
+            if (bufferedFuture_ != null) {
+                byte[] body = body_;
+                if (body == null) {
+                    body = new byte[0];
+                } else if (size_ != body.length) {
+                    body = Arrays.copyOf(body, size_);
+                }
+                body_ = null;
+                bufferedFuture_.complete(new Response(info_, body));
+            } else {
+                publisher_.complete();
+            }
+        }
+
+        private void fail(Throwable error) {
+            if (bufferedFuture_ != null) {
+                bufferedFuture_.completeExceptionally(error);
+            } else {
+                streamedFuture_.completeExceptionally(error);
+                publisher_.fail(error);
+            }
+        }
+
+        private void cancel() {
+            CefURLRequest request;
+            synchronized (this) {
+                request = request_;
+            }
+            if (request != null && !finished_) request.cancel();
+        }
+    }
+
+    /**
+     * Publishes the body of a streamed response. Data pushed on the CEF UI thread is copied into
+     * pooled buffers and delivered on the executor according to the subscriber's demand. A
+     * delivered buffer returns to the pool only when the subscriber releases it.
+     */
+    private static final class BodyPublisher
+            implements Flow.Publisher<ByteBuffer>, Flow.Subscription {
+        private final DirectBufferPool pool_ = DirectBufferPool.SHARED;
+        private final Executor executor_;
+        private final long maxBufferedSize_;
+        private final AtomicInteger wip_ = new AtomicInteger();
+
+        private final ArrayDeque<ByteBuffer> queue_ = new ArrayDeque<ByteBuffer>();
+        // Buffers owned by the subscriber that may be released.
+        private final Set<ByteBuffer> delivered_ =
+                Collections.newSetFromMap(new IdentityHashMap<ByteBuffer, Boolean>());
+        private long bufferedSize_ = 0;
+        private Flow.Subscriber<? super ByteBuffer> subscriber_;
+        private long demand_ = 0;
+        private boolean completed_ = false;
+        private Throwable error_;
+        private boolean terminated_ = false;
+        private boolean canceled_ = false;
+        private Runnable onCancel_;
+
+        BodyPublisher(Executor executor, long maxBufferedSize) {
+            executor_ = executor;
+            maxBufferedSize_ = maxBufferedSize;
+        }
+
+        void setOnCancel(Runnable onCancel) {
+            onCancel_ = onCancel;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            boolean accepted;
+            synchronized (this) {
+                accepted = subscriber_ == null;
+                if (accepted) subscriber_ = subscriber;
+            }
+            if (!accepted) {
+                subscriber.onSubscribe(new Flow.Subscription() {
+                    @Override
+                    public void request(long n) {}
+
+                    @Override
+                    public void cancel() {}
+                });
+                subscriber.onError(new IllegalStateException("Body already subscribed"));
+                return;
+            }
+            subscriber.onSubscribe(this);
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("Non-positive request: " + n));
+                cancel();
+                return;
+            }
+            synchronized (this) {
+                demand_ = demand_ + n < 0 ? Long.MAX_VALUE : demand_ + n;
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            Runnable onCancel;
+            synchronized (this) {
+                if (canceled_) return;
+                canceled_ = true;
+                onCancel = terminated_ ? null : onCancel_;
+            }
+            if (onCancel != null) onCancel.run();
+            drain();
+        }
+
+        /**
+         * Copy |data| into pooled buffers. Returns false if the subscriber fell too far behind.
+         */
+        boolean push(ByteBuffer data) {
+            synchronized (this) {
+                if (canceled_ || completed_) return true;
+                while (data.hasRemaining()) {
+                    ByteBuffer buffer = pool_.acquire();
+                    int limit = data.limit();
+                    data.limit(data.position() + Math.min(data.remaining(), buffer.remaining()));
+                    buffer.put(data);
+                    data.limit(limit);
+                    buffer.flip();
+                    queue_.add(buffer);
+                    bufferedSize_ += buffer.remaining();
+                }
+            }
+            if (bufferedSize() > maxBufferedSize_) {
+                fail(new IOException("Subscriber fell behind by more than " + maxBufferedSize_
+                        + " bytes"));
+                return false;
+            }
+            drain();
+            return true;
+        }
+
+        void complete() {
+            synchronized (this) {
+                completed_ = true;
+            }
+            drain();
+        }
+
+        void fail(Throwable error) {
+            synchronized (this) {
+                if (completed_) return;
+                completed_ = true;
+                error_ = error;
+            }
+            drain();
+        }
+
+        void release(ByteBuffer buffer) {
+            synchronized (this) {
+                if (!delivered_.remove(buffer)) return;
+            }
+            pool_.release(buffer);
+        }
+
+        private synchronized long bufferedSize() {
+            return bufferedSize_;
+        }
+
+        private void drain() {
+            if (wip_.getAndIncrement() != 0) return;
+            try {
+                executor_.execute(this::drainLoop);
+            } catch (RejectedExecutionException e) {
+                wip_.set(0);
+                onRejected(e);
+            }
+        }
+
+        // The executor rejected the delivery, for example because it was shut down. The request
+        // is canceled, undelivered data is dropped and the subscriber, if any, receives |e|
+        // through onError() on the calling thread.
+        private void onRejected(RejectedExecutionException e) {
+            Flow.Subscriber<? super ByteBuffer> subscriber;
+            Runnable onCancel;
+            synchronized (this) {
+                while (!queue_.isEmpty()) pool_.release(queue_.poll());
+                bufferedSize_ = 0;
+                completed_ = true;
+                if (error_ == null) error_ = e;
+                onCancel = canceled_ || terminated_ ? null : onCancel_;
+                canceled_ = true;
+                subscriber = terminated_ ? null : subscriber_;
+                if (subscriber != null) terminated_ = true;
+            }
+            if (onCancel != null) onCancel.run();
+            if (subscriber == null) return;
+            try {
+                subscriber.onError(e);
+            } catch (RuntimeException onErrorException) {
+                onErrorException.printStackTrace();
+            }
+        }
+
+        private void drainLoop() {
+            do {
+                while (true) {
+                    Flow.Subscriber<? super ByteBuffer> subscriber;
+                    ByteBuffer buffer = null;
+                    Throwable error = null;
+                    boolean complete = false;
+                    synchronized (this) {
+                        subscriber = subscriber_;
+                        if (canceled_ || (error_ != null && !terminated_)) {
+                            // Drop undelivered data.
+                            while (!queue_.isEmpty()) pool_.release(queue_.poll());
+                            bufferedSize_ = 0;
+                        }
+                        if (canceled_ || terminated_ || subscriber == null) break;
+                        if (error_ != null) {
+                            error = error_;
+                            terminated_ = true;
+                        } else if (!queue_.isEmpty()) {
+                            if (demand_ == 0) break;
+                            buffer = queue_.poll();
+                            bufferedSize_ -= buffer.remaining();
+                            delivered_.add(buffer);
+                            --demand_;
+                        } else if (completed_) {
+                            complete = true;
+                            terminated_ = true;
+                        } else {
+                            break;
+                        }
+                    }
+
+                    try {
+                        if (error != null) {
+                            subscriber.onError(error);
+                        } else if (complete) {
+                            subscriber.onComplete();
+                        } else {
+                            subscriber.onNext(buffer);
+                        }
+                    } catch (RuntimeException e) {
+                        onSubscriberError(subscriber, e, error != null || complete);
+                    }
+                }
+            } while (wip_.decrementAndGet() != 0);
+        }
+
+        // A subscriber method threw. The subscription is canceled and, unless the subscriber
+        // was already terminated, it receives |e| through onError().
+        private void onSubscriberError(Flow.Subscriber<? super ByteBuffer> subscriber,
+                RuntimeException e, boolean terminated) {
+            if (terminated) {
+                e.printStackTrace();
+                return;
+            }
+            // Cancels the request. Nothing is delivered after |canceled_| is set.
+            cancel();
+            try {
+                subscriber.onError(e);
+            } catch (RuntimeException onErrorException) {
+                onErrorException.printStackTrace();
+            }
+        }
+    }
+}
@@ -7,7 +7,11 @@ package org.cef.network;
 import org.cef.callback.CefCompletionCallback;
 import org.cef.callback.CefCookieVisitor;
 
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Class used for managing cookies. The methods of this class may be called on any thread unless
@@ -77,6 +81,39 @@ public abstract class CefCookieManager {
      */
     public abstract boolean setCookie(String url, CefCookie cookie);
 
+    /**
+     * Retrieve all cookies with a single native call. The cookies are collected natively and
+     * passed to Java as one compact batch instead of calling a visitor for each cookie.
+     * @return A future that completes with the cookies or fails if cookies cannot be accessed.
+     */
+    public abstract CompletableFuture<List<CefCookie>> getAllCookies();
+
+    /**
+     * Set a batch of cookies with a single native call. The URL of each cookie is derived from
+     * its attributes: the scheme is "https" for secure cookies and "http" otherwise and the host
+     * is the domain without its leading ".". A cookie whose domain has no leading "." is set as a
+     * host cookie.
+     * @param cookies The cookies to set.
+     * @return A future that completes with the number of cookies that were set successfully or
+     *         fails if cookies cannot be accessed.
+     */
+    public abstract CompletableFuture<Integer> setCookies(Collection<CefCookie> cookies);
+
+    /**
+     * Save a snapshot of all cookies to |file|. The file is written on a background thread.
+     * @param file The snapshot file. An existing file will be replaced.
+     * @return A future that completes with the number of cookies saved.
+     */
+    public abstract CompletableFuture<Integer> saveCookies(Path file);
+
+    /**
+     * Restore the cookies of a snapshot created with {@link #saveCookies(Path)}. Existing cookies
+     * are not removed. The file is read on a background thread.
+     * @param file The snapshot file.
+     * @return A future that completes with the number of cookies that were set successfully.
+     */
+    public abstract CompletableFuture<Integer> restoreCookies(Path file);
+
     /**
      * Delete all cookies that match the specified parameters. If both |url| and |cookieName| values
      * are specified all host and domain cookies matching both will be deleted. If only |url| is
@@ -8,7 +8,17 @@ import org.cef.callback.CefCompletionCallback;
 import org.cef.callback.CefCookieVisitor;
 import org.cef.callback.CefNative;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 class CefCookieManager_N extends CefCookieManager implements CefNative {
     // Used internally to store a pointer to the CEF object.
@@ -94,6 +104,88 @@ class CefCookieManager_N extends CefCookieManager implements CefNative {
         return false;
     }
 
+    @Override
+    public CompletableFuture<List<CefCookie>> getAllCookies() {
+        // Decode on a background thread to keep the UI thread responsive.
+        return getAllCookiesData().thenApplyAsync(data -> {
+            try {
+                return CookieCodec.decode(data, 0, data.length);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<Integer> setCookies(Collection<CefCookie> cookies) {
+        byte[] data = CookieCodec.encode(cookies);
+        return setCookiesData(data, 0, data.length);
+    }
+
+    @Override
+    public CompletableFuture<Integer> saveCookies(Path file) {
+        return getAllCookiesData().thenApplyAsync(data -> {
+            Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+            try {
+                Files.write(tempFile, CookieCodec.getSnapshotHeader());
+                Files.write(tempFile, data, StandardOpenOption.APPEND);
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+            return ByteBuffer.wrap(data).getInt();
+        });
+    }
+
+    @Override
+    public CompletableFuture<Integer> restoreCookies(Path file) {
+        return CompletableFuture
+                .supplyAsync(() -> {
+                    try {
+                        return readSnapshot(file);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                })
+                .thenCompose(data
+                        -> setCookiesData(data, CookieCodec.SNAPSHOT_HEADER_SIZE,
+                                data.length - CookieCodec.SNAPSHOT_HEADER_SIZE));
+    }
+
+    private static byte[] readSnapshot(Path file) throws IOException {
+        byte[] data = Files.readAllBytes(file);
+        CookieCodec.checkSnapshotHeader(data);
+        return data;
+    }
+
+    private CompletableFuture<byte[]> getAllCookiesData() {
+        CompletableFuture<byte[]> future = new CompletableFuture<byte[]>();
+        try {
+            if (!N_GetAllCookies(N_CefHandle, future)) {
+                future.completeExceptionally(
+                        new IllegalStateException("Cookies cannot be accessed"));
+            }
+        } catch (UnsatisfiedLinkError ule) {
+            ule.printStackTrace();
+            future.completeExceptionally(ule);
+        }
+        return future;
+    }
+
+    private CompletableFuture<Integer> setCookiesData(byte[] data, int offset, int length) {
+        CompletableFuture<Integer> future = new CompletableFuture<Integer>();
+        try {
+            if (!N_SetCookies(N_CefHandle, data, offset, length, future)) {
+                future.completeExceptionally(new IllegalStateException(
+                        "Cookie data is invalid or cookies cannot be accessed"));
+            }
+        } catch (UnsatisfiedLinkError ule) {
+            ule.printStackTrace();
+            future.completeExceptionally(ule);
+        }
+        return future;
+    }
+
     @Override
     public boolean deleteCookies(String url, String cookieName) {
         try {
@@ -122,6 +214,10 @@ class CefCookieManager_N extends CefCookieManager implements CefNative {
     private final native boolean N_VisitUrlCookies(
             long self, String url, boolean includeHttpOnly, CefCookieVisitor visitor);
     private final native boolean N_SetCookie(long self, String url, CefCookie cookie);
+    private final native boolean N_GetAllCookies(
+            long self, CompletableFuture<byte[]> future);
+    private final native boolean N_SetCookies(
+            long self, byte[] data, int offset, int length, CompletableFuture<Integer> future);
     private final native boolean N_DeleteCookies(long self, String url, String cookieName);
     private final native boolean N_FlushStore(long self, CefCompletionCallback handler);
 }
@@ -0,0 +1,441 @@
+package org.cef.network;
+
+import org.cef.browser.CefBrowser;
+import org.cef.browser.CefFrame;
+import org.cef.handler.CefCookieAccessFilter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-memory mirror of a cookie store. Lookups are served from concurrent maps without locking
+ * and without a round trip to the browser process.
+ *
+ * CEF does not report changes to the cookie store, so the mirror is kept in sync from two
+ * sources: cookies saved from responses are observed through a cookie access filter obtained
+ * from {@link #wrap(CefCookieAccessFilter)}, and the complete store is reloaded by
+ * {@link #sync()}, either on demand or periodically with {@link #setSyncInterval(long)}. Changes
+ * made by scripts are only picked up by a reload. Cookies set or deleted through the mirror are
+ * applied to the mirror immediately. A reload never reverts a change that was observed after
+ * the reload started.
+ */
+public class CefCookieMirror {
+    public enum ChangeType {
+        ADDED,
+        UPDATED,
+        REMOVED,
+    }
+
+    /**
+     * Receives changes of the mirrored cookies. Listeners are called on the thread that observed
+     * the change, which is the IO thread for cookies saved from responses.
+     */
+    public interface Listener {
+        /**
+         * Called when a cookie was added, updated or removed.
+         * @param cookie The new cookie or, if removed, the removed cookie.
+         * @param type The type of change.
+         */
+        void onCookieChanged(CefCookie cookie, ChangeType type);
+    }
+
+    private final CefCookieManager manager_;
+
+    // Cookies by domain, then by name and path. Host cookies are stored under their host and
+    // domain cookies under their domain with a leading ".".
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, CefCookie>> cookies_ =
+            new ConcurrentHashMap<String, ConcurrentHashMap<String, CefCookie>>();
+    private final CopyOnWriteArrayList<Listener> listeners_ =
+            new CopyOnWriteArrayList<Listener>();
+
+    // Sequence numbers of the cookies changed through the mirror or the filter, by domain and
+    // key. A reload keeps the mirrored state of cookies that changed after it started.
+    private final AtomicLong changeSequence_ = new AtomicLong();
+    private final ConcurrentHashMap<String, Long> changes_ = new ConcurrentHashMap<String, Long>();
+    // The start sequence of the newest applied reload. Guarded by |changes_|.
+    private long syncedSequence_ = 0;
+
+    private ScheduledExecutorService executor_;
+    private ScheduledFuture<?> syncTask_;
+
+    /**
+     * Create a mirror of |manager|. The mirror is empty until {@link #sync()} is called.
+     */
+    public CefCookieMirror(CefCookieManager manager) {
+        manager_ = manager;
+    }
+
+    public void addListener(Listener listener) {
+        listeners_.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners_.remove(listener);
+    }
+
+    /**
+     * Reload all cookies from the cookie store and notify listeners about the differences.
+     * @return A future that completes once the mirror has been updated.
+     */
+    public CompletableFuture<Void> sync() {
+        long sequence = changeSequence_.get();
+        return manager_.getAllCookies().thenAccept(cookies -> replaceAll(cookies, sequence));
+    }
+
+    /**
+     * Reload all cookies periodically.
+     * @param intervalMs The reload interval in milliseconds or 0 to stop reloading.
+     */
+    public synchronized void setSyncInterval(long intervalMs) {
+        if (syncTask_ != null) {
+            syncTask_.cancel(false);
+            syncTask_ = null;
+        }
+        if (intervalMs <= 0) return;
+        if (executor_ == null) {
+            executor_ = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "CefCookieMirror");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        // A failed reload must not end the periodic task.
+        syncTask_ = executor_.scheduleWithFixedDelay(() -> {
+            try {
+                sync().join();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop periodic reloading and release the reload thread.
+     */
+    public synchronized void close() {
+        setSyncInterval(0);
+        if (executor_ != null) {
+            executor_.shutdown();
+            executor_ = null;
+        }
+    }
+
+    /**
+     * Returns a cookie access filter that applies cookies saved from responses to the mirror.
+     * Return it from CefResourceRequestHandler.getCookieAccessFilter().
+     * @param filter The filter that decides which cookies may be sent and saved or null to allow
+     *         all cookies.
+     */
+    public CefCookieAccessFilter wrap(CefCookieAccessFilter filter) {
+        return new CefCookieAccessFilter() {
+            @Override
+            public boolean canSendCookie(
+                    CefBrowser browser, CefFrame frame, CefRequest request, CefCookie cookie) {
+                return filter == null || filter.canSendCookie(browser, frame, request, cookie);
+            }
+
+            @Override
+            public boolean canSaveCookie(CefBrowser browser, CefFrame frame, CefRequest request,
+                    CefResponse response, CefCookie cookie) {
+                if (filter != null
+                        && !filter.canSaveCookie(browser, frame, request, response, cookie)) {
+                    return false;
+                }
+                change(cookie);
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Set a cookie in the cookie store and the mirror. Like in the cookie store, a cookie with a
+     * domain is a domain cookie, a cookie without a domain is a host cookie of the host of |url|
+     * and a cookie without a path gets the directory of the path of |url|.
+     * @see CefCookieManager#setCookie(String, CefCookie)
+     */
+    public boolean setCookie(String url, CefCookie cookie) {
+        if (!manager_.setCookie(url, cookie)) return false;
+        String domain = cookie.domain;
+        if (domain == null || domain.isEmpty()) {
+            domain = UrlParser.getHost(url);
+            if (domain == null) return true;
+        } else if (!domain.startsWith(".")) {
+            domain = "." + domain;
+        }
+        String path = cookie.path;
+        if (path == null || path.isEmpty()) path = getDefaultPath(url);
+        change(new CefCookie(cookie.name, cookie.value, domain, path, cookie.secure,
+                cookie.httponly, cookie.creation, cookie.lastAccess, cookie.hasExpires,
+                cookie.expires));
+        return true;
+    }
+
+    /**
+     * Set a batch of cookies in the cookie store and the mirror. If some of the cookies could not
+     * be set the mirror is reloaded before the returned future completes.
+     * @see CefCookieManager#setCookies(Collection)
+     */
+    public CompletableFuture<Integer> setCookies(Collection<CefCookie> cookies) {
+        // Apply the cookies once they are stored, so that a reload in between can't revert them.
+        return manager_.setCookies(cookies).thenCompose(count -> {
+            if (count != cookies.size()) {
+                // It is not known which cookies were rejected.
+                return sync().thenApply(ignored -> count);
+            }
+            for (CefCookie cookie : cookies) change(cookie);
+            return CompletableFuture.completedFuture(count);
+        });
+    }
+
+    /**
+     * Delete cookies from the cookie store and the mirror.
+     * @see CefCookieManager#deleteCookies(String, String)
+     */
+    public boolean deleteCookies(String url, String cookieName) {
+        if (!manager_.deleteCookies(url, cookieName)) return false;
+        String host = url == null || url.isEmpty() ? null : UrlParser.getHost(url);
+        for (Map.Entry<String, ConcurrentHashMap<String, CefCookie>> domain :
+                cookies_.entrySet()) {
+            // Match the behavior of deleteCookies(): host cookies only if no name is given.
+            boolean matches = host == null
+                    || domain.getKey().equals(host)
+                    || (cookieName != null && domainMatches(host, domain.getKey()));
+            if (!matches) continue;
+            for (CefCookie cookie : domain.getValue().values()) {
+                if (cookieName != null && !cookieName.equals(cookie.name)) continue;
+                recordChange(cookie);
+                remove(cookie);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the cookie with the given domain, path and name or null if there is none. The
+     * domain of a domain cookie starts with ".".
+     */
+    public CefCookie getCookie(String domain, String path, String name) {
+        Map<String, CefCookie> cookies = cookies_.get(normalizeDomain(domain));
+        if (cookies == null) return null;
+        CefCookie cookie = cookies.get(getKey(name, path));
+        return cookie != null && !isExpired(cookie, System.currentTimeMillis()) ? cookie : null;
+    }
+
+    /**
+     * Returns the cookies stored for |domain|. The domain of a domain cookie starts with ".".
+     */
+    public List<CefCookie> getCookies(String domain) {
+        Map<String, CefCookie> cookies = cookies_.get(normalizeDomain(domain));
+        if (cookies == null) return Collections.emptyList();
+        ArrayList<CefCookie> result = new ArrayList<CefCookie>();
+        long now = System.currentTimeMillis();
+        for (CefCookie cookie : cookies.values()) {
+            if (!isExpired(cookie, now)) result.add(cookie);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the cookies that would be sent with a request to |url|, ordered by longest path.
+     * @param url The request URL.
+     * @param includeHttpOnly If true HTTP-only cookies will also be included.
+     */
+    public List<CefCookie> getUrlCookies(String url, boolean includeHttpOnly) {
+        String host = UrlParser.getHost(url);
+        if (host == null) return Collections.emptyList();
+        boolean secure = url.regionMatches(true, 0, "https:", 0, 6)
+                || url.regionMatches(true, 0, "wss:", 0, 4);
+        String path = UrlParser.getPath(url);
+
+        ArrayList<CefCookie> result = new ArrayList<CefCookie>();
+        long now = System.currentTimeMillis();
+        collectUrlCookies(host, path, secure, includeHttpOnly, now, result);
+        for (int dot = host.indexOf('.'); dot >= 0; dot = host.indexOf('.', dot + 1)) {
+            collectUrlCookies(host.substring(dot), path, secure, includeHttpOnly, now, result);
+        }
+        collectUrlCookies("." + host, path, secure, includeHttpOnly, now, result);
+        result.sort(Comparator.comparingInt((CefCookie cookie) -> cookiePath(cookie).length())
+                            .reversed());
+        return result;
+    }
+
+    /**
+     * Returns the number of mirrored cookies, including expired ones.
+     */
+    public int size() {
+        int size = 0;
+        for (Map<String, CefCookie> cookies : cookies_.values()) size += cookies.size();
+        return size;
+    }
+
+    private void collectUrlCookies(String domain, String path, boolean secure,
+            boolean includeHttpOnly, long now, List<CefCookie> result) {
+        Map<String, CefCookie> cookies = cookies_.get(domain);
+        if (cookies == null) return;
+        for (CefCookie cookie : cookies.values()) {
+            if (cookie.secure && !secure) continue;
+            if (cookie.httponly && !includeHttpOnly) continue;
+            if (!pathMatches(path, cookiePath(cookie)) || isExpired(cookie, now)) continue;
+            result.add(cookie);
+        }
+    }
+
+    /**
+     * Apply a cookie change that was observed outside of a reload.
+     */
+    private void change(CefCookie cookie) {
+        if (cookie.name == null || cookie.domain == null || cookie.domain.isEmpty()) return;
+        recordChange(cookie);
+        apply(cookie);
+    }
+
+    // Must be called before the mirror is modified so that a concurrent reload sees it.
+    private void recordChange(CefCookie cookie) {
+        changes_.put(getChangeKey(normalizeDomain(cookie.domain), getKey(cookie.name, cookie.path)),
+                changeSequence_.incrementAndGet());
+    }
+
+    private boolean changedSince(String domain, String key, long sequence) {
+        Long changed = changes_.get(getChangeKey(domain, key));
+        return changed != null && changed > sequence;
+    }
+
+    /**
+     * Add, update or, if it is expired, remove |cookie|.
+     */
+    private void apply(CefCookie cookie) {
+        if (cookie.name == null || cookie.domain == null || cookie.domain.isEmpty()) return;
+        if (isExpired(cookie, System.currentTimeMillis())) {
+            remove(cookie);
+            return;
+        }
+        CefCookie previous = cookies_
+                .computeIfAbsent(normalizeDomain(cookie.domain),
+                        domain -> new ConcurrentHashMap<String, CefCookie>())
+                .put(getKey(cookie.name, cookie.path), cookie);
+        if (previous == null) {
+            notify(cookie, ChangeType.ADDED);
+        } else if (!isSame(previous, cookie)) {
+            notify(cookie, ChangeType.UPDATED);
+        }
+    }
+
+    private void remove(CefCookie cookie) {
+        Map<String, CefCookie> cookies = cookies_.get(normalizeDomain(cookie.domain));
+        if (cookies == null) return;
+        CefCookie previous = cookies.remove(getKey(cookie.name, cookie.path));
+        if (previous != null) notify(previous, ChangeType.REMOVED);
+    }
+
+    /**
+     * Replace the mirrored cookies with a snapshot of the store that was requested when the
+     * change sequence was |sequence|.
+     */
+    private void replaceAll(List<CefCookie> cookies, long sequence) {
+        synchronized (changes_) {
+            // A snapshot older than the last applied one is outdated.
+            if (sequence < syncedSequence_) return;
+            syncedSequence_ = sequence;
+            replaceAllLocked(cookies, sequence);
+            // Older changes are part of this snapshot, and older snapshots are dropped above.
+            changes_.values().removeIf(changed -> changed <= sequence);
+        }
+    }
+
+    private void replaceAllLocked(List<CefCookie> cookies, long sequence) {
+        HashMap<String, HashMap<String, CefCookie>> current =
+                new HashMap<String, HashMap<String, CefCookie>>();
+        for (CefCookie cookie : cookies) {
+            if (cookie.name == null || cookie.domain == null || cookie.domain.isEmpty()) continue;
+            current.computeIfAbsent(normalizeDomain(cookie.domain),
+                           domain -> new HashMap<String, CefCookie>())
+                    .put(getKey(cookie.name, cookie.path), cookie);
+        }
+        for (Map.Entry<String, ConcurrentHashMap<String, CefCookie>> domain :
+                cookies_.entrySet()) {
+            Map<String, CefCookie> currentCookies = current.get(domain.getKey());
+            for (Map.Entry<String, CefCookie> entry : domain.getValue().entrySet()) {
+                if (currentCookies != null && currentCookies.containsKey(entry.getKey())) continue;
+                if (changedSince(domain.getKey(), entry.getKey(), sequence)) continue;
+                if (domain.getValue().remove(entry.getKey(), entry.getValue()))
+                    notify(entry.getValue(), ChangeType.REMOVED);
+            }
+        }
+        for (Map.Entry<String, HashMap<String, CefCookie>> domain : current.entrySet()) {
+            for (Map.Entry<String, CefCookie> entry : domain.getValue().entrySet()) {
+                if (!changedSince(domain.getKey(), entry.getKey(), sequence))
+                    apply(entry.getValue());
+            }
+        }
+    }
+
+    private void notify(CefCookie cookie, ChangeType type) {
+        for (Listener listener : listeners_) {
+            try {
+                listener.onCookieChanged(cookie, type);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static String getKey(String name, String path) {
+        // ';' is not allowed in cookie names.
+        return name + ';' + (path == null || path.isEmpty() ? "/" : path);
+    }
+
+    private static String getChangeKey(String domain, String key) {
+        return domain + '\n' + key;
+    }
+
+    private static String normalizeDomain(String domain) {
+        return domain.toLowerCase(Locale.ROOT);
+    }
+
+    // The default path of a cookie set for |url| (RFC 6265 section 5.1.4).
+    private static String getDefaultPath(String url) {
+        String path = UrlParser.getPath(url);
+        int slash = path != null ? path.lastIndexOf('/') : -1;
+        return slash > 0 ? path.substring(0, slash) : "/";
+    }
+
+    private static String cookiePath(CefCookie cookie) {
+        return cookie.path == null || cookie.path.isEmpty() ? "/" : cookie.path;
+    }
+
+    private static boolean pathMatches(String requestPath, String cookiePath) {
+        if (!requestPath.startsWith(cookiePath)) return false;
+        return requestPath.length() == cookiePath.length() || cookiePath.endsWith("/")
+                || requestPath.charAt(cookiePath.length()) == '/';
+    }
+
+    private static boolean domainMatches(String host, String domain) {
+        if (!domain.startsWith(".")) return host.equals(domain);
+        return host.equals(domain.substring(1)) || host.endsWith(domain);
+    }
+
+    private static boolean isExpired(CefCookie cookie, long now) {
+        return cookie.hasExpires && cookie.expires != null && cookie.expires.getTime() <= now;
+    }
+
+    private static boolean isSame(CefCookie a, CefCookie b) {
+        return Objects.equals(a.value, b.value) && a.secure == b.secure
+                && a.httponly == b.httponly && a.hasExpires == b.hasExpires
+                && (!a.hasExpires || Objects.equals(a.expires, b.expires));
+    }
+}
@@ -0,0 +1,155 @@
+package org.cef.network;
+
+import org.cef.browser.CefBrowser;
+import org.cef.browser.CefFrame;
+import org.cef.handler.CefCookieAccessFilter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A declarative cookie access filter built from {@link CefCookieRule} objects. The first rule
+ * that matches a cookie decides whether it may be sent or saved. Cookies that no rule matches are
+ * passed to an optional fallback filter and allowed if there is none.
+ *
+ * Return the policy from CefResourceRequestHandler.getCookieAccessFilter(). The rules are then
+ * compiled once and evaluated in native code on the IO thread, so only cookies that no rule
+ * matches cause a call into Java. The policy is immutable and may be shared by all requests.
+ *
+ * A request is third-party if its site differs from the site of the first-party URL of the
+ * request. The site is the registrable domain of the host: the public suffix plus one label.
+ * Public suffixes are the top-level domain or, for the two-label suffixes of the public suffix
+ * list that are in common use, such as "co.uk", "com.au" or "github.io", the last two labels.
+ * Requests without a first-party URL are first-party.
+ */
+public final class CefCookiePolicy implements CefCookieAccessFilter {
+    // Second-level labels under which country code top-level domains register names, e.g.
+    // "co.uk" or "ne.jp". Must be kept in sync with native/cookie_policy.cpp.
+    private static final Set<String> COUNTRY_SECOND_LEVEL_LABELS = new HashSet<String>(
+            Arrays.asList("ac", "co", "com", "edu", "gen", "go", "gob", "gov", "ltd", "me", "mil",
+                    "ne", "net", "nic", "nom", "or", "org", "plc", "sch"));
+
+    // Two-label public suffixes under generic top-level domains, mostly hosting providers
+    // that give each customer a subdomain. Must be kept in sync with native/cookie_policy.cpp.
+    private static final Set<String> TWO_LABEL_SUFFIXES = new HashSet<String>(Arrays.asList(
+            "appspot.com", "azurewebsites.net", "blogspot.com", "cloudfront.net",
+            "firebaseapp.com", "github.io", "gitlab.io", "herokuapp.com", "netlify.app",
+            "pages.dev", "vercel.app", "web.app", "workers.dev"));
+
+    private final List<CefCookieRule> rules_;
+    private final CefCookieAccessFilter fallback_;
+    private CefCookiePolicy_N peer_;
+
+    /**
+     * Create a policy that allows cookies no rule matches.
+     * @param rules The rules in order of precedence.
+     */
+    public CefCookiePolicy(Collection<CefCookieRule> rules) {
+        this(rules, null);
+    }
+
+    /**
+     * Create a policy.
+     * @param rules The rules in order of precedence.
+     * @param fallback The filter that decides about cookies no rule matches or null to allow
+     *         them.
+     */
+    public CefCookiePolicy(Collection<CefCookieRule> rules, CefCookieAccessFilter fallback) {
+        rules_ = Collections.unmodifiableList(new ArrayList<CefCookieRule>(rules));
+        fallback_ = fallback;
+    }
+
+    public List<CefCookieRule> getRules() {
+        return rules_;
+    }
+
+    public CefCookieAccessFilter getFallback() {
+        return fallback_;
+    }
+
+    /**
+     * Returns the rule that applies to |cookie| or null if no rule matches.
+     * @param url The request URL.
+     * @param firstPartyUrl The first-party URL of the request or null.
+     * @param cookie The cookie.
+     */
+    public CefCookieRule match(String url, String firstPartyUrl, CefCookie cookie) {
+        boolean thirdParty = isThirdParty(url, firstPartyUrl);
+        String domain = CefCookieRule.normalizeDomain(cookie.domain);
+        for (CefCookieRule rule : rules_) {
+            if (rule.matches(domain, cookie.name, thirdParty)) return rule;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean canSendCookie(
+            CefBrowser browser, CefFrame frame, CefRequest request, CefCookie cookie) {
+        CefCookieRule rule = match(request.getURL(), request.getFirstPartyForCookies(), cookie);
+        if (rule != null) return rule.getAction() == CefCookieRule.Action.ALLOW;
+        return fallback_ == null || fallback_.canSendCookie(browser, frame, request, cookie);
+    }
+
+    @Override
+    public boolean canSaveCookie(CefBrowser browser, CefFrame frame, CefRequest request,
+            CefResponse response, CefCookie cookie) {
+        CefCookieRule rule = match(request.getURL(), request.getFirstPartyForCookies(), cookie);
+        if (rule != null) return rule.getAction() == CefCookieRule.Action.ALLOW;
+        return fallback_ == null
+                || fallback_.canSaveCookie(browser, frame, request, response, cookie);
+    }
+
+    /**
+     * Returns the handle of the compiled native policy, creating it if necessary. Called from
+     * native code.
+     */
+    synchronized long getNativeHandle() {
+        if (peer_ == null) peer_ = CefCookiePolicy_N.create(this);
+        return peer_ != null ? peer_.getNativeRef(null) : 0;
+    }
+
+    static boolean isThirdParty(String url, String firstPartyUrl) {
+        if (firstPartyUrl == null || firstPartyUrl.isEmpty()) return false;
+        String firstPartySite = getSite(firstPartyUrl);
+        return firstPartySite != null && !firstPartySite.equals(getSite(url));
+    }
+
+    /**
+     * Returns the registrable domain of the host of |url|, the complete host if it is an IP
+     * address or a public suffix, or null if |url| has no host. Must be kept in sync with
+     * native/cookie_policy.cpp.
+     */
+    static String getSite(String url) {
+        if (url == null) return null;
+        String host = UrlParser.getHost(url);
+        if (host == null) return null;
+        if (host.startsWith("[")) return host;
+        host = CefCookieRule.normalizeDomain(host);
+        if (host.isEmpty()) return null;
+        if (Character.isDigit(host.charAt(host.length() - 1))) return host;
+        int tldDot = host.lastIndexOf('.');
+        if (tldDot <= 0) return host;
+        int suffixDot = host.lastIndexOf('.', tldDot - 1);
+        if (isTwoLabelSuffix(host.substring(suffixDot + 1), tldDot - suffixDot - 1)) {
+            if (suffixDot <= 0) return host;
+            return host.substring(host.lastIndexOf('.', suffixDot - 1) + 1);
+        }
+        return host.substring(suffixDot + 1);
+    }
+
+    /**
+     * Returns true if the last two labels |suffix| of a host are a public suffix.
+     * @param secondLevelLength The length of the first label of |suffix|.
+     */
+    private static boolean isTwoLabelSuffix(String suffix, int secondLevelLength) {
+        if (TWO_LABEL_SUFFIXES.contains(suffix)) return true;
+        // Country code top-level domains have two letters.
+        return suffix.length() == secondLevelLength + 3
+                && COUNTRY_SECOND_LEVEL_LABELS.contains(suffix.substring(0, secondLevelLength));
+    }
+}
@@ -0,0 +1,68 @@
+package org.cef.network;
+
+import org.cef.callback.CefNative;
+import org.cef.handler.CefCookieAccessFilter;
+
+import java.util.List;
+
+/**
+ * Native peer of a CefCookiePolicy that holds the compiled rules.
+ */
+final class CefCookiePolicy_N implements CefNative {
+    // Used internally to store a pointer to the CEF object.
+    private long N_CefHandle = 0;
+
+    @Override
+    public void setNativeRef(String identifer, long nativeRef) {
+        N_CefHandle = nativeRef;
+    }
+
+    @Override
+    public long getNativeRef(String identifer) {
+        return N_CefHandle;
+    }
+
+    private CefCookiePolicy_N() {}
+
+    @Override
+    protected void finalize() throws Throwable {
+        dispose();
+        super.finalize();
+    }
+
+    static CefCookiePolicy_N create(CefCookiePolicy policy) {
+        List<CefCookieRule> rules = policy.getRules();
+        int[] actions = new int[rules.size()];
+        int[] scopes = new int[rules.size()];
+        String[] domains = new String[rules.size()];
+        String[] namePatterns = new String[rules.size()];
+        for (int i = 0; i < rules.size(); ++i) {
+            CefCookieRule rule = rules.get(i);
+            actions[i] = rule.getAction().ordinal();
+            scopes[i] = rule.getScope().ordinal();
+            domains[i] = rule.getDomain();
+            namePatterns[i] = rule.getNamePattern();
+        }
+        CefCookiePolicy_N peer = new CefCookiePolicy_N();
+        try {
+            peer.N_Create(actions, scopes, domains, namePatterns, policy.getFallback());
+        } catch (UnsatisfiedLinkError ule) {
+            ule.printStackTrace();
+            return null;
+        }
+        return peer.N_CefHandle != 0 ? peer : null;
+    }
+
+    void dispose() {
+        if (N_CefHandle == 0) return;
+        try {
+            N_Dispose(N_CefHandle);
+        } catch (UnsatisfiedLinkError ule) {
+            ule.printStackTrace();
+        }
+    }
+
+    private final native void N_Create(int[] actions, int[] scopes, String[] domains,
+            String[] namePatterns, CefCookieAccessFilter fallback);
+    private final native void N_Dispose(long self);
+}
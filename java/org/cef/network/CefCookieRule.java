@@ -0,0 +1,125 @@
+package org.cef.network;
+
+import java.util.Locale;
+
+/**
+ * A rule of a {@link CefCookiePolicy}. A rule matches a cookie by the domain of the cookie, a
+ * glob pattern for its name and whether it is used in a first-party or third-party context.
+ *
+ * The domain "example.com" matches cookies of example.com and all its subdomains. A leading "*."
+ * or "." is ignored and the domain "*" or an empty domain matches all cookies. The name pattern
+ * supports "*" and "?"; an empty pattern matches all names.
+ */
+public final class CefCookieRule {
+    public enum Action {
+        /**
+         * Allow sending and saving the cookie.
+         */
+        ALLOW,
+
+        /**
+         * Deny sending and saving the cookie.
+         */
+        DENY,
+    }
+
+    public enum Scope {
+        /**
+         * Match the cookie in any context.
+         */
+        ANY,
+
+        /**
+         * Match the cookie only if the request belongs to the same site as the first-party URL.
+         */
+        FIRST_PARTY,
+
+        /**
+         * Match the cookie only if the request belongs to a different site than the first-party
+         * URL.
+         */
+        THIRD_PARTY,
+    }
+
+    private final Action action_;
+    private final Scope scope_;
+    private final String domain_;
+    private final String namePattern_;
+
+    private CefCookieRule(Action action, String domain, String namePattern, Scope scope) {
+        if (scope == null) throw new IllegalArgumentException("scope is null");
+        action_ = action;
+        scope_ = scope;
+        domain_ = normalizeDomain(domain);
+        namePattern_ = namePattern == null || namePattern.equals("*") ? "" : namePattern;
+    }
+
+    public static CefCookieRule allow(String domain, String namePattern) {
+        return new CefCookieRule(Action.ALLOW, domain, namePattern, Scope.ANY);
+    }
+
+    public static CefCookieRule allow(String domain, String namePattern, Scope scope) {
+        return new CefCookieRule(Action.ALLOW, domain, namePattern, scope);
+    }
+
+    public static CefCookieRule deny(String domain, String namePattern) {
+        return new CefCookieRule(Action.DENY, domain, namePattern, Scope.ANY);
+    }
+
+    public static CefCookieRule deny(String domain, String namePattern, Scope scope) {
+        return new CefCookieRule(Action.DENY, domain, namePattern, scope);
+    }
+
+    public Action getAction() {
+        return action_;
+    }
+
+    public Scope getScope() {
+        return scope_;
+    }
+
+    /**
+     * Returns the normalized domain or an empty string if the rule matches all domains.
+     */
+    public String getDomain() {
+        return domain_;
+    }
+
+    /**
+     * Returns the name pattern or an empty string if the rule matches all names.
+     */
+    public String getNamePattern() {
+        return namePattern_;
+    }
+
+    /**
+     * Returns true if the rule matches a cookie.
+     * @param cookieDomain The normalized cookie domain.
+     * @param cookieName The cookie name.
+     * @param thirdParty True if the cookie is used in a third-party context.
+     */
+    boolean matches(String cookieDomain, String cookieName, boolean thirdParty) {
+        if (scope_ == Scope.FIRST_PARTY && thirdParty) return false;
+        if (scope_ == Scope.THIRD_PARTY && !thirdParty) return false;
+        if (!domain_.isEmpty() && !cookieDomain.equals(domain_)
+                && !(cookieDomain.endsWith(domain_)
+                        && cookieDomain.charAt(cookieDomain.length() - domain_.length() - 1)
+                                == '.')) {
+            return false;
+        }
+        return CefUrlRuleSet.matchGlob(namePattern_, cookieName != null ? cookieName : "");
+    }
+
+    /**
+     * Returns |domain| in lower case without a leading "*." or "." and without a trailing ".".
+     * Returns an empty string for null or "*".
+     */
+    static String normalizeDomain(String domain) {
+        if (domain == null) return "";
+        domain = domain.toLowerCase(Locale.ROOT);
+        if (domain.startsWith("*.")) domain = domain.substring(2);
+        while (domain.startsWith(".")) domain = domain.substring(1);
+        while (domain.endsWith(".")) domain = domain.substring(0, domain.length() - 1);
+        return domain.equals("*") ? "" : domain;
+    }
+}
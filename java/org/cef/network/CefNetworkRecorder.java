@@ -0,0 +1,778 @@
+package org.cef.network;
+
+import org.cef.browser.CefBrowser;
+import org.cef.browser.CefFrame;
+import org.cef.callback.CefAuthCallback;
+import org.cef.callback.CefRequestCallback;
+import org.cef.handler.CefCookieAccessFilter;
+import org.cef.handler.CefLifeSpanHandler;
+import org.cef.handler.CefLoadHandler;
+import org.cef.handler.CefRequestContextHandler;
+import org.cef.handler.CefRequestHandler;
+import org.cef.handler.CefResourceHandler;
+import org.cef.handler.CefResourceRequestHandler;
+import org.cef.handler.CefResponseFilter;
+import org.cef.misc.BoolRef;
+import org.cef.misc.StringRef;
+import org.cef.network.CefRequest.ResourceType;
+import org.cef.network.CefURLRequest.Status;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records timing, size and status of network requests. Attach it by wrapping the request handler
+ * of a CefClient with {@link #wrap(CefRequestHandler)} or the handler of a CefRequestContext
+ * with {@link #wrap(CefRequestContextHandler)}. The wrapped handlers are still called for all
+ * events.
+ *
+ * Requests are grouped into pages: every main frame navigation of a browser starts a new page
+ * and all following requests of the browser belong to it. The IO thread only takes timestamps
+ * and appends finished entries to a lock-free queue; building HAR or binary logs happens on the
+ * thread calling the export methods. The number of retained entries is bounded, oldest entries
+ * are dropped first.
+ *
+ * Note that the wrapped handlers always return a CefResourceRequestHandler. When wrapping the
+ * handler of a CefClient, the CefRequestContextHandler of the browser's context, including its
+ * URL rules, is therefore not consulted for recorded requests. Wrap the context handler instead
+ * in that case.
+ *
+ * The recorder remembers the current page of every browser until the browser closes. Install the
+ * life span handler returned by {@link #wrap(CefLifeSpanHandler)} so that it learns about closed
+ * browsers.
+ */
+public class CefNetworkRecorder {
+    private static final int BINARY_MAGIC = 0x4A434E4C; // "JCNL"
+    private static final short BINARY_VERSION = 1;
+
+    // Codes of the resource types and request statuses in the binary format are the indexes in
+    // these arrays. They must not change when the enums do, so new values are only appended.
+    private static final ResourceType[] RESOURCE_TYPE_CODES = {ResourceType.RT_MAIN_FRAME,
+            ResourceType.RT_SUB_FRAME, ResourceType.RT_STYLESHEET, ResourceType.RT_SCRIPT,
+            ResourceType.RT_IMAGE, ResourceType.RT_FONT_RESOURCE, ResourceType.RT_SUB_RESOURCE,
+            ResourceType.RT_OBJECT, ResourceType.RT_MEDIA, ResourceType.RT_WORKER,
+            ResourceType.RT_SHARED_WORKER, ResourceType.RT_PREFETCH, ResourceType.RT_FAVICON,
+            ResourceType.RT_XHR, ResourceType.RT_PING, ResourceType.RT_SERVICE_WORKER,
+            ResourceType.RT_CSP_REPORT, ResourceType.RT_PLUGIN_RESOURCE};
+    private static final Status[] STATUS_CODES = {Status.UR_UNKNOWN, Status.UR_SUCCESS,
+            Status.UR_IO_PENDING, Status.UR_CANCELED, Status.UR_FAILED};
+
+    /**
+     * A main frame navigation and the requests that followed it.
+     */
+    public static final class Page {
+        private final long id_;
+        private final int browserId_;
+        private final long startTime_;
+        private final String url_;
+
+        Page(long id, int browserId, long startTime, String url) {
+            id_ = id;
+            browserId_ = browserId;
+            startTime_ = startTime;
+            url_ = url;
+        }
+
+        public long getId() {
+            return id_;
+        }
+
+        public int getBrowserId() {
+            return browserId_;
+        }
+
+        /**
+         * Returns the start time in milliseconds since the epoch.
+         */
+        public long getStartTime() {
+            return startTime_;
+        }
+
+        public String getUrl() {
+            return url_;
+        }
+    }
+
+    /**
+     * A recorded request. All times are in microseconds relative to the request start and -1 if
+     * the event didn't occur.
+     */
+    public static final class Entry {
+        private long pageId_;
+        private long startTime_;
+        private long startNanos_;
+        private int redirectTime_ = -1;
+        private int responseTime_ = -1;
+        private int completeTime_ = -1;
+        private int redirectCount_;
+        private int status_;
+        private ResourceType resourceType_;
+        private Status requestStatus_ = Status.UR_UNKNOWN;
+        private long receivedContentLength_;
+        private String method_;
+        private String url_;
+        private String statusText_;
+        private String mimeType_;
+
+        /**
+         * Returns the id of the page or 0 if the request doesn't belong to a page.
+         */
+        public long getPageId() {
+            return pageId_;
+        }
+
+        /**
+         * Returns the start time in milliseconds since the epoch.
+         */
+        public long getStartTime() {
+            return startTime_;
+        }
+
+        /**
+         * Returns the time of the last redirect.
+         */
+        public int getRedirectTime() {
+            return redirectTime_;
+        }
+
+        /**
+         * Returns the time the final response headers were received.
+         */
+        public int getResponseTime() {
+            return responseTime_;
+        }
+
+        /**
+         * Returns the time the request completed.
+         */
+        public int getCompleteTime() {
+            return completeTime_;
+        }
+
+        public int getRedirectCount() {
+            return redirectCount_;
+        }
+
+        /**
+         * Returns the HTTP status or 0 if no response was received.
+         */
+        public int getStatus() {
+            return status_;
+        }
+
+        public ResourceType getResourceType() {
+            return resourceType_;
+        }
+
+        public Status getRequestStatus() {
+            return requestStatus_;
+        }
+
+        public long getReceivedContentLength() {
+            return receivedContentLength_;
+        }
+
+        public String getMethod() {
+            return method_;
+        }
+
+        /**
+         * Returns the original URL of the request.
+         */
+        public String getUrl() {
+            return url_;
+        }
+
+        public String getStatusText() {
+            return statusText_;
+        }
+
+        public String getMimeType() {
+            return mimeType_;
+        }
+
+        private int elapsed() {
+            long micros = (System.nanoTime() - startNanos_) / 1000;
+            return (int) Math.min(micros, Integer.MAX_VALUE);
+        }
+    }
+
+    private final int maxEntries_;
+    private volatile boolean enabled_ = true;
+
+    private final ConcurrentLinkedQueue<Entry> entries_ = new ConcurrentLinkedQueue<Entry>();
+    private final AtomicInteger entryCount_ = new AtomicInteger();
+    private final ConcurrentLinkedQueue<Page> pages_ = new ConcurrentLinkedQueue<Page>();
+    private final AtomicInteger pageCount_ = new AtomicInteger();
+    private final ConcurrentHashMap<Integer, Page> currentPages_ =
+            new ConcurrentHashMap<Integer, Page>();
+    private final AtomicLong nextPageId_ = new AtomicLong(1);
+
+    /**
+     * Create a recorder that keeps up to 10000 entries.
+     */
+    public CefNetworkRecorder() {
+        this(10000);
+    }
+
+    /**
+     * @param maxEntries The maximum number of entries and pages kept in memory.
+     */
+    public CefNetworkRecorder(int maxEntries) {
+        maxEntries_ = maxEntries;
+    }
+
+    /**
+     * Returns a request handler that records all requests and forwards all events to |handler|.
+     * Install it with CefClient.addRequestHandler().
+     * @param handler The handler to wrap or null.
+     */
+    public CefRequestHandler wrap(CefRequestHandler handler) {
+        return new RecordingRequestHandler(handler);
+    }
+
+    /**
+     * Returns a request context handler that records all requests and forwards all events to
+     * |handler|. Pass it to CefRequestContext.createContext().
+     * @param handler The handler to wrap or null.
+     */
+    public CefRequestContextHandler wrap(CefRequestContextHandler handler) {
+        return new RecordingRequestContextHandler(handler);
+    }
+
+    /**
+     * Returns a life span handler that forgets the current page of a browser when it closes and
+     * forwards all events to |handler|. Install it with CefClient.addLifeSpanHandler().
+     * @param handler The handler to wrap or null.
+     */
+    public CefLifeSpanHandler wrap(CefLifeSpanHandler handler) {
+        return new RecordingLifeSpanHandler(handler);
+    }
+
+    /**
+     * Pause or resume recording. Requests started while paused are not recorded.
+     */
+    public void setEnabled(boolean enabled) {
+        enabled_ = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled_;
+    }
+
+    /**
+     * Remove all recorded entries and pages.
+     */
+    public void clear() {
+        while (entries_.poll() != null) entryCount_.decrementAndGet();
+        while (pages_.poll() != null) pageCount_.decrementAndGet();
+    }
+
+    /**
+     * Returns the completed requests in order of completion.
+     */
+    public List<Entry> getEntries() {
+        return new ArrayList<Entry>(entries_);
+    }
+
+    /**
+     * Returns the completed requests of a page in order of completion.
+     */
+    public List<Entry> getEntries(long pageId) {
+        ArrayList<Entry> result = new ArrayList<Entry>();
+        for (Entry entry : entries_) {
+            if (entry.pageId_ == pageId) result.add(entry);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the recorded pages in order of navigation.
+     */
+    public List<Page> getPages() {
+        return new ArrayList<Page>(pages_);
+    }
+
+    /**
+     * Write all recorded pages and entries in HTTP Archive (HAR) 1.2 format.
+     */
+    public void writeHar(Writer writer) throws IOException {
+        List<Page> pages = getPages();
+        List<Entry> entries = getEntries();
+
+        StringBuilder out = new StringBuilder(256 + 512 * entries.size());
+        out.append("{\"log\":{\"version\":\"1.2\",\"creator\":{\"name\":\"JCEF\",\"version\":\"");
+        String version = CefNetworkRecorder.class.getPackage().getImplementationVersion();
+        appendEscaped(out, version != null ? version : "unknown");
+        out.append("\"},\"pages\":[");
+        for (int i = 0; i < pages.size(); ++i) {
+            Page page = pages.get(i);
+            if (i > 0) out.append(',');
+            out.append("{\"startedDateTime\":\"")
+                    .append(Instant.ofEpochMilli(page.startTime_))
+                    .append("\",\"id\":\"page_")
+                    .append(page.id_)
+                    .append("\",\"title\":\"");
+            appendEscaped(out, page.url_);
+            out.append("\",\"pageTimings\":{}}");
+        }
+        out.append("],\"entries\":[");
+        for (int i = 0; i < entries.size(); ++i) {
+            Entry entry = entries.get(i);
+            if (i > 0) out.append(',');
+            double wait = (entry.responseTime_ >= 0 ? entry.responseTime_ : entry.completeTime_)
+                    / 1000.0;
+            double receive = entry.responseTime_ >= 0
+                    ? Math.max(0, entry.completeTime_ - entry.responseTime_) / 1000.0
+                    : 0;
+            out.append('{');
+            if (entry.pageId_ != 0)
+                out.append("\"pageref\":\"page_").append(entry.pageId_).append("\",");
+            out.append("\"startedDateTime\":\"").append(Instant.ofEpochMilli(entry.startTime_));
+            out.append("\",\"time\":").append(wait + receive);
+            out.append(",\"request\":{\"method\":\"");
+            appendEscaped(out, entry.method_);
+            out.append("\",\"url\":\"");
+            appendEscaped(out, entry.url_);
+            out.append("\",\"httpVersion\":\"\",\"cookies\":[],\"headers\":[],\"queryString\":[]"
+                    + ",\"headersSize\":-1,\"bodySize\":-1}");
+            out.append(",\"response\":{\"status\":").append(entry.status_);
+            out.append(",\"statusText\":\"");
+            appendEscaped(out, entry.statusText_);
+            out.append("\",\"httpVersion\":\"\",\"cookies\":[],\"headers\":[]");
+            out.append(",\"content\":{\"size\":")
+                    .append(entry.receivedContentLength_)
+                    .append(",\"mimeType\":\"");
+            appendEscaped(out, entry.mimeType_);
+            out.append("\"},\"redirectURL\":\"\",\"headersSize\":-1,\"bodySize\":")
+                    .append(entry.receivedContentLength_);
+            out.append("},\"cache\":{},\"timings\":{\"send\":0,\"wait\":").append(wait);
+            out.append(",\"receive\":").append(receive);
+            out.append("},\"_resourceType\":\"").append(entry.resourceType_);
+            out.append("\",\"_requestStatus\":\"").append(entry.requestStatus_);
+            out.append("\",\"_redirectCount\":").append(entry.redirectCount_);
+            out.append('}');
+        }
+        out.append("]}}");
+        writer.write(out.toString());
+        writer.flush();
+    }
+
+    /**
+     * Write all recorded pages and entries in a compact binary format that can be read with
+     * {@link #readBinary(InputStream)}.
+     */
+    public void writeBinary(OutputStream stream) throws IOException {
+        List<Page> pages = getPages();
+        List<Entry> entries = getEntries();
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+        out.writeInt(BINARY_MAGIC);
+        out.writeShort(BINARY_VERSION);
+        out.writeInt(pages.size());
+        for (Page page : pages) {
+            out.writeLong(page.id_);
+            out.writeInt(page.browserId_);
+            out.writeLong(page.startTime_);
+            writeString(out, page.url_);
+        }
+        out.writeInt(entries.size());
+        for (Entry entry : entries) {
+            out.writeLong(entry.pageId_);
+            out.writeLong(entry.startTime_);
+            out.writeInt(entry.redirectTime_);
+            out.writeInt(entry.responseTime_);
+            out.writeInt(entry.completeTime_);
+            out.writeShort(entry.redirectCount_);
+            out.writeShort(entry.status_);
+            out.writeByte(getCode(RESOURCE_TYPE_CODES, entry.resourceType_));
+            out.writeByte(getCode(STATUS_CODES, entry.requestStatus_));
+            out.writeLong(entry.receivedContentLength_);
+            writeString(out, entry.method_);
+            writeString(out, entry.url_);
+            writeString(out, entry.statusText_);
+            writeString(out, entry.mimeType_);
+        }
+        out.flush();
+    }
+
+    /**
+     * Read a log written by {@link #writeBinary(OutputStream)}. The returned recorder contains
+     * the pages and entries of the log and can be used to export them in HAR format.
+     */
+    public static CefNetworkRecorder readBinary(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != BINARY_MAGIC || in.readShort() != BINARY_VERSION)
+            throw new IOException("Unsupported network log format");
+
+        int pageCount = in.readInt();
+        ArrayList<Page> pages = new ArrayList<Page>();
+        for (int i = 0; i < pageCount; ++i) {
+            pages.add(new Page(in.readLong(), in.readInt(), in.readLong(), readString(in)));
+        }
+        int entryCount = in.readInt();
+        ArrayList<Entry> entries = new ArrayList<Entry>();
+        for (int i = 0; i < entryCount; ++i) {
+            Entry entry = new Entry();
+            entry.pageId_ = in.readLong();
+            entry.startTime_ = in.readLong();
+            entry.redirectTime_ = in.readInt();
+            entry.responseTime_ = in.readInt();
+            entry.completeTime_ = in.readInt();
+            entry.redirectCount_ = in.readUnsignedShort();
+            entry.status_ = in.readUnsignedShort();
+            int resourceType = in.readByte();
+            entry.resourceType_ = resourceType >= 0 && resourceType < RESOURCE_TYPE_CODES.length
+                    ? RESOURCE_TYPE_CODES[resourceType]
+                    : null;
+            int requestStatus = in.readByte();
+            entry.requestStatus_ = requestStatus >= 0 && requestStatus < STATUS_CODES.length
+                    ? STATUS_CODES[requestStatus]
+                    : Status.UR_UNKNOWN;
+            entry.receivedContentLength_ = in.readLong();
+            entry.method_ = readString(in);
+            entry.url_ = readString(in);
+            entry.statusText_ = readString(in);
+            entry.mimeType_ = readString(in);
+            entries.add(entry);
+        }
+
+        CefNetworkRecorder recorder =
+                new CefNetworkRecorder(Math.max(1, Math.max(pageCount, entryCount)));
+        recorder.enabled_ = false;
+        for (Page page : pages) recorder.addPage(page);
+        for (Entry entry : entries) recorder.addEntry(entry);
+        return recorder;
+    }
+
+    private Entry startEntry(CefBrowser browser, CefFrame frame, CefRequest request,
+            boolean isNavigation) {
+        if (!enabled_) return null;
+
+        Entry entry = new Entry();
+        entry.startTime_ = System.currentTimeMillis();
+        entry.startNanos_ = System.nanoTime();
+        entry.method_ = request.getMethod();
+        entry.url_ = request.getURL();
+        entry.resourceType_ = request.getResourceType();
+
+        if (browser != null) {
+            Integer browserId = browser.getIdentifier();
+            if (isNavigation && frame != null && frame.isMain()) {
+                Page page = new Page(nextPageId_.getAndIncrement(), browserId, entry.startTime_,
+                        entry.url_);
+                currentPages_.put(browserId, page);
+                addPage(page);
+            }
+            Page page = currentPages_.get(browserId);
+            if (page != null) entry.pageId_ = page.id_;
+        }
+        return entry;
+    }
+
+    private void addPage(Page page) {
+        pages_.add(page);
+        if (pageCount_.incrementAndGet() > maxEntries_ && pages_.poll() != null)
+            pageCount_.decrementAndGet();
+    }
+
+    private void addEntry(Entry entry) {
+        entries_.add(entry);
+        if (entryCount_.incrementAndGet() > maxEntries_ && entries_.poll() != null)
+            entryCount_.decrementAndGet();
+    }
+
+    // Returns the index of |value| in |codes| or -1 if |value| is null or has no code.
+    private static int getCode(Object[] codes, Object value) {
+        for (int i = 0; i < codes.length; ++i) {
+            if (codes[i] == value) return i;
+        }
+        return -1;
+    }
+
+    private static void appendEscaped(StringBuilder out, String value) {
+        if (value == null) return;
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Records the events of one request and forwards them to the original handler, if any.
+     */
+    private class RecordingResourceRequestHandler implements CefResourceRequestHandler {
+        private final CefResourceRequestHandler handler_;
+        private final Entry entry_;
+
+        RecordingResourceRequestHandler(CefResourceRequestHandler handler, Entry entry) {
+            handler_ = handler;
+            entry_ = entry;
+        }
+
+        @Override
+        public CefCookieAccessFilter getCookieAccessFilter(
+                CefBrowser browser, CefFrame frame, CefRequest request) {
+            if (handler_ == null) return null;
+            return handler_.getCookieAccessFilter(browser, frame, request);
+        }
+
+        @Override
+        public boolean onBeforeResourceLoad(
+                CefBrowser browser, CefFrame frame, CefRequest request) {
+            if (handler_ == null) return false;
+            return handler_.onBeforeResourceLoad(browser, frame, request);
+        }
+
+        @Override
+        public CefResourceHandler getResourceHandler(
+                CefBrowser browser, CefFrame frame, CefRequest request) {
+            if (handler_ == null) return null;
+            return handler_.getResourceHandler(browser, frame, request);
+        }
+
+        @Override
+        public void onResourceRedirect(CefBrowser browser, CefFrame frame, CefRequest request,
+                CefResponse response, StringRef new_url) {
+            entry_.redirectTime_ = entry_.elapsed();
+            ++entry_.redirectCount_;
+            if (handler_ != null)
+                handler_.onResourceRedirect(browser, frame, request, response, new_url);
+        }
+
+        @Override
+        public boolean onResourceResponse(
+                CefBrowser browser, CefFrame frame, CefRequest request, CefResponse response) {
+            entry_.responseTime_ = entry_.elapsed();
+            if (handler_ == null) return false;
+            return handler_.onResourceResponse(browser, frame, request, response);
+        }
+
+        @Override
+        public CefResponseFilter getResourceResponseFilter(
+                CefBrowser browser, CefFrame frame, CefRequest request, CefResponse response) {
+            if (handler_ == null) return null;
+            return handler_.getResourceResponseFilter(browser, frame, request, response);
+        }
+
+        @Override
+        public void onResourceLoadComplete(CefBrowser browser, CefFrame frame,
+                CefRequest request, CefResponse response, Status status,
+                long receivedContentLength) {
+            entry_.completeTime_ = entry_.elapsed();
+            entry_.requestStatus_ = status;
+            entry_.receivedContentLength_ = receivedContentLength;
+            if (response != null) {
+                entry_.status_ = response.getStatus();
+                entry_.statusText_ = response.getStatusText();
+                entry_.mimeType_ = response.getMimeType();
+            }
+            addEntry(entry_);
+            if (handler_ != null) {
+                handler_.onResourceLoadComplete(
+                        browser, frame, request, response, status, receivedContentLength);
+            }
+        }
+
+        @Override
+        public void onProtocolExecution(
+                CefBrowser browser, CefFrame frame, CefRequest request, BoolRef allowOsExecution) {
+            if (handler_ != null)
+                handler_.onProtocolExecution(browser, frame, request, allowOsExecution);
+        }
+    }
+
+    private CefResourceRequestHandler wrapResourceRequestHandler(CefResourceRequestHandler handler,
+            CefBrowser browser, CefFrame frame, CefRequest request, boolean isNavigation) {
+        Entry entry = startEntry(browser, frame, request, isNavigation);
+        if (entry == null) return handler;
+        return new RecordingResourceRequestHandler(handler, entry);
+    }
+
+    private class RecordingRequestHandler implements CefRequestHandler {
+        private final CefRequestHandler handler_;
+
+        RecordingRequestHandler(CefRequestHandler handler) {
+            handler_ = handler;
+        }
+
+        @Override
+        public boolean onBeforeBrowse(CefBrowser browser, CefFrame frame, CefRequest request,
+                boolean user_gesture, boolean is_redirect) {
+            if (handler_ == null) return false;
+            return handler_.onBeforeBrowse(browser, frame, request, user_gesture, is_redirect);
+        }
+
+        @Override
+        public boolean onOpenURLFromTab(
+                CefBrowser browser, CefFrame frame, String target_url, boolean user_gesture) {
+            if (handler_ == null) return false;
+            return handler_.onOpenURLFromTab(browser, frame, target_url, user_gesture);
+        }
+
+        @Override
+        public CefResourceRequestHandler getResourceRequestHandler(CefBrowser browser,
+                CefFrame frame, CefRequest request, boolean isNavigation, boolean isDownload,
+                String requestInitiator, BoolRef disableDefaultHandling) {
+            CefResourceRequestHandler handler = null;
+            if (handler_ != null) {
+                handler = handler_.getResourceRequestHandler(browser, frame, request,
+                        isNavigation, isDownload, requestInitiator, disableDefaultHandling);
+            }
+            return wrapResourceRequestHandler(handler, browser, frame, request, isNavigation);
+        }
+
+        @Override
+        public boolean getAuthCredentials(CefBrowser browser, String origin_url,
+                boolean isProxy, String host, int port, String realm, String scheme,
+                CefAuthCallback callback) {
+            if (handler_ == null) return false;
+            return handler_.getAuthCredentials(
+                    browser, origin_url, isProxy, host, port, realm, scheme, callback);
+        }
+
+        @Override
+        public boolean onQuotaRequest(CefBrowser browser, String origin_url, long new_size,
+                CefRequestCallback callback) {
+            if (handler_ == null) return false;
+            return handler_.onQuotaRequest(browser, origin_url, new_size, callback);
+        }
+
+        @Override
+        public boolean onCertificateError(CefBrowser browser,
+                CefLoadHandler.ErrorCode cert_error, String request_url,
+                CefRequestCallback callback) {
+            if (handler_ == null) return false;
+            return handler_.onCertificateError(browser, cert_error, request_url, callback);
+        }
+
+        @Override
+        public void onPluginCrashed(CefBrowser browser, String pluginPath) {
+            if (handler_ != null) handler_.onPluginCrashed(browser, pluginPath);
+        }
+
+        @Override
+        public void onRenderProcessTerminated(CefBrowser browser, TerminationStatus status) {
+            if (handler_ != null) handler_.onRenderProcessTerminated(browser, status);
+        }
+    }
+
+    private class RecordingLifeSpanHandler implements CefLifeSpanHandler {
+        private final CefLifeSpanHandler handler_;
+
+        RecordingLifeSpanHandler(CefLifeSpanHandler handler) {
+            handler_ = handler;
+        }
+
+        @Override
+        public boolean onBeforePopup(
+                CefBrowser browser, CefFrame frame, String target_url, String target_frame_name) {
+            if (handler_ == null) return false;
+            return handler_.onBeforePopup(browser, frame, target_url, target_frame_name);
+        }
+
+        @Override
+        public void onAfterCreated(CefBrowser browser) {
+            if (handler_ != null) handler_.onAfterCreated(browser);
+        }
+
+        @Override
+        public void onAfterParentChanged(CefBrowser browser) {
+            if (handler_ != null) handler_.onAfterParentChanged(browser);
+        }
+
+        @Override
+        public boolean doClose(CefBrowser browser) {
+            if (handler_ == null) return browser.doClose();
+            return handler_.doClose(browser);
+        }
+
+        @Override
+        public void onBeforeClose(CefBrowser browser) {
+            // Requests that complete later keep the page they started with.
+            currentPages_.remove(browser.getIdentifier());
+            if (handler_ != null) handler_.onBeforeClose(browser);
+        }
+    }
+
+    private class RecordingRequestContextHandler implements CefRequestContextHandler {
+        private final CefRequestContextHandler handler_;
+
+        RecordingRequestContextHandler(CefRequestContextHandler handler) {
+            handler_ = handler;
+        }
+
+        @Override
+        public boolean onBeforePluginLoad(String mime_type, String plugin_url,
+                boolean is_main_frame, String top_origin_url, CefWebPluginInfo plugin_info) {
+            if (handler_ == null) return false;
+            return handler_.onBeforePluginLoad(
+                    mime_type, plugin_url, is_main_frame, top_origin_url, plugin_info);
+        }
+
+        @Override
+        public CefResourceRequestHandler getResourceRequestHandler(CefBrowser browser,
+                CefFrame frame, CefRequest request, boolean isNavigation, boolean isDownload,
+                String requestInitiator, BoolRef disableDefaultHandling) {
+            CefResourceRequestHandler handler = null;
+            if (handler_ != null) {
+                handler = handler_.getResourceRequestHandler(browser, frame, request,
+                        isNavigation, isDownload, requestInitiator, disableDefaultHandling);
+            }
+            return wrapResourceRequestHandler(handler, browser, frame, request, isNavigation);
+        }
+    }
+}
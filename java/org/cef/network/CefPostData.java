@@ -4,6 +4,7 @@
 
 package org.cef.network;
 
+import java.io.InputStream;
 import java.util.Vector;
 
 /**
@@ -63,6 +64,18 @@ public abstract class CefPostData {
      */
     public abstract void removeElements();
 
+    /**
+     * Returns a stream that reads the contents of all post data elements in
+     * order. Elements are read one at a time: bytes are copied into native
+     * memory and files are read from disk, so large uploads are never held on
+     * the Java heap as a whole.
+     */
+    public InputStream getInputStream() {
+        Vector<CefPostDataElement> elements = new Vector<CefPostDataElement>();
+        getElements(elements);
+        return new PostDataInputStream(elements);
+    }
+
     @Override
     public String toString() {
         return toString(null);
@@ -72,10 +85,10 @@ public abstract class CefPostData {
         Vector<CefPostDataElement> elements = new Vector<CefPostDataElement>();
         getElements(elements);
 
-        String returnValue = "";
+        StringBuilder returnValue = new StringBuilder();
         for (CefPostDataElement el : elements) {
-            returnValue += el.toString(mimeType) + "\n";
+            returnValue.append(el.toString(mimeType)).append("\n");
         }
-        return returnValue;
+        return returnValue.toString();
     }
 }
@@ -4,6 +4,8 @@
 
 package org.cef.network;
 
+import java.nio.ByteBuffer;
+
 /**
  * Class used to represent a single element in the request post data. The
  * methods of this class may be called on any thread.
@@ -18,6 +20,8 @@ public abstract class CefPostDataElement {
         PDE_TYPE_FILE,
     }
 
+    private static final String HEX_DIGITS = "0123456789ABCDEF";
+
     // This CTOR can't be called directly. Call method create() instead.
     CefPostDataElement() {}
 
@@ -60,6 +64,14 @@ public abstract class CefPostDataElement {
      */
     public abstract void setToBytes(int size, byte[] bytes);
 
+    /**
+     * The post data element will represent the remaining bytes of |bytes|,
+     * which will be copied. The bytes of a direct buffer are copied straight
+     * from native memory without an intermediate copy on the Java heap. The
+     * position of |bytes| is advanced to its limit.
+     */
+    public abstract void setToBytes(ByteBuffer bytes);
+
     /**
      * Return the type of this post data element.
      */
@@ -81,6 +93,14 @@ public abstract class CefPostDataElement {
      */
     public abstract int getBytes(int size, byte[] bytes);
 
+    /**
+     * Read up to bytes.remaining() bytes into |bytes| starting at its
+     * position and return the number of bytes actually read. The position is
+     * advanced by that number. Bytes are copied straight into the memory of a
+     * direct buffer.
+     */
+    public abstract int getBytes(ByteBuffer bytes);
+
     @Override
     public String toString() {
         return toString(null);
@@ -105,23 +125,26 @@ public abstract class CefPostDataElement {
                 asText = true;
         }
 
-        String returnValue = "";
+        StringBuilder returnValue = new StringBuilder();
 
         if (getType() == Type.PDE_TYPE_BYTES) {
-            int setBytes = getBytes(bytes.length, bytes);
-            returnValue += "    Content-Length: " + bytesCnt + "\n";
+            int setBytes = bytes != null ? getBytes(bytes.length, bytes) : 0;
+            returnValue.append("    Content-Length: ").append(bytesCnt).append("\n");
             if (asText) {
-                returnValue += "\n    " + new String(bytes);
+                returnValue.append("\n    ");
+                if (setBytes > 0) returnValue.append(new String(bytes, 0, setBytes));
             } else {
                 for (int i = 0; i < setBytes; i++) {
-                    if (i % 40 == 0) returnValue += "\n    ";
-                    returnValue += String.format("%02X", bytes[i]) + " ";
+                    if (i % 40 == 0) returnValue.append("\n    ");
+                    returnValue.append(HEX_DIGITS.charAt((bytes[i] >> 4) & 0xF))
+                            .append(HEX_DIGITS.charAt(bytes[i] & 0xF))
+                            .append(' ');
                 }
             }
-            returnValue += "\n";
+            returnValue.append("\n");
         } else if (getType() == Type.PDE_TYPE_FILE) {
-            returnValue += "\n    Bytes of file: " + getFile() + "\n";
+            returnValue.append("\n    Bytes of file: ").append(getFile()).append("\n");
         }
-        return returnValue;
+        return returnValue.toString();
     }
 }
@@ -6,6 +6,8 @@ package org.cef.network;
 
 import org.cef.callback.CefNative;
 
+import java.nio.ByteBuffer;
+
 class CefPostDataElement_N extends CefPostDataElement implements CefNative {
     // Used internally to store a pointer to the CEF object.
     private long N_CefHandle = 0;
@@ -79,6 +81,29 @@ class CefPostDataElement_N extends CefPostDataElement implements CefNative {
         }
     }
 
+    @Override
+    public void setToBytes(ByteBuffer bytes) {
+        int size = bytes.remaining();
+        if (!bytes.isDirect()) {
+            byte[] array;
+            if (bytes.hasArray() && bytes.arrayOffset() + bytes.position() == 0) {
+                array = bytes.array();
+            } else {
+                array = new byte[size];
+                bytes.duplicate().get(array);
+            }
+            setToBytes(size, array);
+            bytes.position(bytes.limit());
+            return;
+        }
+        try {
+            N_SetToBuffer(N_CefHandle, bytes, bytes.position(), size);
+            bytes.position(bytes.limit());
+        } catch (UnsatisfiedLinkError ule) {
+            ule.printStackTrace();
+        }
+    }
+
     @Override
     public Type getType() {
         try {
@@ -119,14 +144,36 @@ class CefPostDataElement_N extends CefPostDataElement implements CefNative {
         return 0;
     }
 
+    @Override
+    public int getBytes(ByteBuffer bytes) {
+        int size = bytes.remaining();
+        if (!bytes.isDirect()) {
+            byte[] array = new byte[size];
+            int read = getBytes(size, array);
+            bytes.put(array, 0, read);
+            return read;
+        }
+        try {
+            int read = N_GetBuffer(N_CefHandle, bytes, bytes.position(), size);
+            bytes.position(bytes.position() + read);
+            return read;
+        } catch (UnsatisfiedLinkError ule) {
+            ule.printStackTrace();
+        }
+        return 0;
+    }
+
     private final native static CefPostDataElement_N N_Create();
     private final native void N_Dispose(long self);
     private final native boolean N_IsReadOnly(long self);
     private final native void N_SetToEmpty(long self);
     private final native void N_SetToFile(long self, String fileName);
     private final native void N_SetToBytes(long self, int size, byte[] bytes);
+    private final native void N_SetToBuffer(
+            long self, ByteBuffer buffer, int position, int size);
     private final native Type N_GetType(long self);
     private final native String N_GetFile(long self);
     private final native int N_GetBytesCount(long self);
     private final native int N_GetBytes(long self, int size, byte[] bytes);
+    private final native int N_GetBuffer(long self, ByteBuffer buffer, int position, int size);
 }
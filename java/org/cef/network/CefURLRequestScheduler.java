@@ -0,0 +1,384 @@
+package org.cef.network;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Schedules background URL requests so that they don't compete with interactive browser
+ * traffic. Submitted requests are queued and started through {@link CefAsyncURLRequest} while
+ * staying within a global and a per-host concurrency limit. Higher priority requests start
+ * first; requests of the same priority start in submission order, alternating between hosts.
+ *
+ * A request can be cancelled through the returned future. If a timeout is given, the request
+ * fails with a TimeoutException once it elapses, whether it is still queued or already running.
+ * A running request keeps its slot until the native request has actually finished.
+ */
+public class CefURLRequestScheduler {
+    public enum Priority {
+        HIGH,
+        NORMAL,
+        LOW,
+    }
+
+    /**
+     * A snapshot of the scheduler metrics. Times are in milliseconds.
+     */
+    public static final class Metrics {
+        private final int queuedCount_;
+        private final int activeCount_;
+        private final long completedCount_;
+        private final long failedCount_;
+        private final long canceledCount_;
+        private final long timedOutCount_;
+        private final double averageQueueTime_;
+        private final double maxQueueTime_;
+        private final double averageServiceTime_;
+        private final double maxServiceTime_;
+
+        Metrics(CefURLRequestScheduler scheduler) {
+            queuedCount_ = scheduler.queuedCount_;
+            activeCount_ = scheduler.activeCount_;
+            completedCount_ = scheduler.completedCount_;
+            failedCount_ = scheduler.failedCount_;
+            canceledCount_ = scheduler.canceledCount_;
+            timedOutCount_ = scheduler.timedOutCount_;
+            averageQueueTime_ = scheduler.startedCount_ == 0
+                    ? 0
+                    : scheduler.totalQueueNanos_ / 1e6 / scheduler.startedCount_;
+            maxQueueTime_ = scheduler.maxQueueNanos_ / 1e6;
+            long serviced = completedCount_ + failedCount_;
+            averageServiceTime_ =
+                    serviced == 0 ? 0 : scheduler.totalServiceNanos_ / 1e6 / serviced;
+            maxServiceTime_ = scheduler.maxServiceNanos_ / 1e6;
+        }
+
+        /**
+         * Returns the number of requests waiting to be started.
+         */
+        public int getQueuedCount() {
+            return queuedCount_;
+        }
+
+        /**
+         * Returns the number of running requests.
+         */
+        public int getActiveCount() {
+            return activeCount_;
+        }
+
+        /**
+         * Returns the number of requests that completed with a response.
+         */
+        public long getCompletedCount() {
+            return completedCount_;
+        }
+
+        /**
+         * Returns the number of requests that failed while running.
+         */
+        public long getFailedCount() {
+            return failedCount_;
+        }
+
+        /**
+         * Returns the number of requests that were cancelled by the caller.
+         */
+        public long getCanceledCount() {
+            return canceledCount_;
+        }
+
+        /**
+         * Returns the number of requests whose timeout elapsed.
+         */
+        public long getTimedOutCount() {
+            return timedOutCount_;
+        }
+
+        /**
+         * Returns the average time started requests spent in the queue.
+         */
+        public double getAverageQueueTime() {
+            return averageQueueTime_;
+        }
+
+        public double getMaxQueueTime() {
+            return maxQueueTime_;
+        }
+
+        /**
+         * Returns the average time from start to completion of completed and failed requests.
+         */
+        public double getAverageServiceTime() {
+            return averageServiceTime_;
+        }
+
+        public double getMaxServiceTime() {
+            return maxServiceTime_;
+        }
+    }
+
+    private enum State {
+        QUEUED,
+        RUNNING,
+        DONE,
+    }
+
+    private static final class Task {
+        final CefRequest request;
+        final String host;
+        final Priority priority;
+        final CompletableFuture<CefAsyncURLRequest.Response> future =
+                new CompletableFuture<CefAsyncURLRequest.Response>();
+        final long submitNanos = System.nanoTime();
+        long startNanos;
+        State state = State.QUEUED;
+        CompletableFuture<CefAsyncURLRequest.Response> running;
+
+        Task(CefRequest request, String host, Priority priority) {
+            this.request = request;
+            this.host = host;
+            this.priority = priority;
+        }
+    }
+
+    private final int maxActive_;
+    private final int maxActivePerHost_;
+
+    // Queued tasks per priority, grouped by host. Hosts are visited round-robin.
+    private final ArrayList<LinkedHashMap<String, ArrayDeque<Task>>> queues_ =
+            new ArrayList<LinkedHashMap<String, ArrayDeque<Task>>>();
+    private final HashMap<String, Integer> activePerHost_ = new HashMap<String, Integer>();
+    // Number of pending dispatch() calls. Only the first one dispatches so that requests
+    // completing synchronously don't recurse.
+    private final AtomicInteger dispatchWip_ = new AtomicInteger();
+
+    private int queuedCount_ = 0;
+    private int activeCount_ = 0;
+    private long startedCount_ = 0;
+    private long completedCount_ = 0;
+    private long failedCount_ = 0;
+    private long canceledCount_ = 0;
+    private long timedOutCount_ = 0;
+    private long totalQueueNanos_ = 0;
+    private long maxQueueNanos_ = 0;
+    private long totalServiceNanos_ = 0;
+    private long maxServiceNanos_ = 0;
+
+    /**
+     * @param maxActive The maximum number of requests running at the same time.
+     * @param maxActivePerHost The maximum number of requests to the same host running at the
+     *         same time.
+     */
+    public CefURLRequestScheduler(int maxActive, int maxActivePerHost) {
+        if (maxActive < 1 || maxActivePerHost < 1)
+            throw new IllegalArgumentException("Concurrency limits must be positive");
+        maxActive_ = maxActive;
+        maxActivePerHost_ = maxActivePerHost;
+        for (int i = 0; i < Priority.values().length; ++i) {
+            queues_.add(new LinkedHashMap<String, ArrayDeque<Task>>());
+        }
+    }
+
+    /**
+     * Submit a request with normal priority and no timeout.
+     */
+    public CompletableFuture<CefAsyncURLRequest.Response> submit(CefRequest request) {
+        return submit(request, Priority.NORMAL, 0);
+    }
+
+    /**
+     * Submit a request. The body of the response is read into memory.
+     * @param request The request. It is marked read-only when the request is started.
+     * @param priority The priority.
+     * @param timeoutMs The time in milliseconds after which the request fails if it hasn't
+     *         completed or 0 for no timeout.
+     */
+    public CompletableFuture<CefAsyncURLRequest.Response> submit(
+            CefRequest request, Priority priority, long timeoutMs) {
+        Task task = new Task(request, getHost(request.getURL()), priority);
+        synchronized (this) {
+            queues_.get(priority.ordinal())
+                    .computeIfAbsent(task.host, host -> new ArrayDeque<Task>())
+                    .add(task);
+            ++queuedCount_;
+        }
+        task.future.whenComplete((response, error) -> onTaskDone(task, error));
+        if (timeoutMs > 0) task.future.orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+        dispatch();
+        return task.future;
+    }
+
+    /**
+     * Cancel all queued requests. Running requests are not affected.
+     */
+    public void cancelQueued() {
+        ArrayList<Task> tasks = new ArrayList<Task>();
+        synchronized (this) {
+            for (LinkedHashMap<String, ArrayDeque<Task>> queue : queues_) {
+                for (ArrayDeque<Task> hostQueue : queue.values()) tasks.addAll(hostQueue);
+            }
+        }
+        for (Task task : tasks) task.future.cancel(false);
+    }
+
+    /**
+     * Returns a snapshot of the current metrics.
+     */
+    public synchronized Metrics getMetrics() {
+        return new Metrics(this);
+    }
+
+    /**
+     * Start queued tasks while below the concurrency limits.
+     */
+    private void dispatch() {
+        if (dispatchWip_.getAndIncrement() != 0) return;
+        do {
+            dispatchLoop();
+        } while (dispatchWip_.decrementAndGet() != 0);
+    }
+
+    private void dispatchLoop() {
+        while (true) {
+            Task task;
+            synchronized (this) {
+                task = nextTask();
+                if (task == null) return;
+                task.state = State.RUNNING;
+                task.startNanos = System.nanoTime();
+                long queueNanos = task.startNanos - task.submitNanos;
+                totalQueueNanos_ += queueNanos;
+                maxQueueNanos_ = Math.max(maxQueueNanos_, queueNanos);
+                ++startedCount_;
+                --queuedCount_;
+                ++activeCount_;
+                activePerHost_.merge(task.host, 1, Integer::sum);
+            }
+
+            // Start outside of the lock because creating the request may block until the CEF
+            // UI thread has processed it.
+            CompletableFuture<CefAsyncURLRequest.Response> running;
+            try {
+                running = CefAsyncURLRequest.send(task.request,
+                        CefAsyncURLRequest.DEFAULT_MAX_BODY_SIZE, () -> release(task));
+            } catch (RuntimeException e) {
+                running = new CompletableFuture<CefAsyncURLRequest.Response>();
+                running.completeExceptionally(e);
+                release(task);
+            }
+            boolean canceled;
+            synchronized (this) {
+                task.running = running;
+                canceled = task.state == State.DONE;
+            }
+            if (canceled) running.cancel(false);
+            running.whenComplete((response, error) -> onRequestDone(task, response, error));
+        }
+    }
+
+    /**
+     * Remove and return the next task that may be started or null. Must be called with the lock
+     * held.
+     */
+    private Task nextTask() {
+        if (activeCount_ >= maxActive_) return null;
+        for (LinkedHashMap<String, ArrayDeque<Task>> queue : queues_) {
+            Iterator<Map.Entry<String, ArrayDeque<Task>>> it = queue.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, ArrayDeque<Task>> entry = it.next();
+                if (activePerHost_.getOrDefault(entry.getKey(), 0) >= maxActivePerHost_) continue;
+                ArrayDeque<Task> hostQueue = entry.getValue();
+                Task task = hostQueue.poll();
+                // Move the host to the end so that hosts take turns.
+                it.remove();
+                if (!hostQueue.isEmpty()) queue.put(entry.getKey(), hostQueue);
+                return task;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Called when the future returned to the caller completes for any reason.
+     */
+    private void onTaskDone(Task task, Throwable error) {
+        CompletableFuture<CefAsyncURLRequest.Response> running = null;
+        synchronized (this) {
+            if (task.state == State.DONE) return;
+            if (error instanceof CancellationException) {
+                ++canceledCount_;
+            } else if (error instanceof TimeoutException) {
+                ++timedOutCount_;
+            } else {
+                // Completed by onRequestDone(), which does the accounting.
+                return;
+            }
+            if (task.state == State.QUEUED) {
+                LinkedHashMap<String, ArrayDeque<Task>> queue =
+                        queues_.get(task.priority.ordinal());
+                ArrayDeque<Task> hostQueue = queue.get(task.host);
+                if (hostQueue != null && hostQueue.remove(task)) {
+                    --queuedCount_;
+                    if (hostQueue.isEmpty()) queue.remove(task.host);
+                }
+                task.state = State.DONE;
+                return;
+            }
+            // Running. The slot is released once the native request has finished.
+            task.state = State.DONE;
+            running = task.running;
+        }
+        if (running != null) running.cancel(false);
+    }
+
+    /**
+     * Called when the future of a started request completes. This may happen before the native
+     * request has finished if it was cancelled.
+     */
+    private void onRequestDone(Task task, CefAsyncURLRequest.Response response, Throwable error) {
+        synchronized (this) {
+            if (task.state != State.DONE) {
+                task.state = State.DONE;
+                long serviceNanos = System.nanoTime() - task.startNanos;
+                totalServiceNanos_ += serviceNanos;
+                maxServiceNanos_ = Math.max(maxServiceNanos_, serviceNanos);
+                if (error == null) {
+                    ++completedCount_;
+                } else {
+                    ++failedCount_;
+                }
+            }
+        }
+        if (error == null) {
+            task.future.complete(response);
+        } else {
+            task.future.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * Called when the native request of a started task has finished. Releases its slot.
+     */
+    private void release(Task task) {
+        synchronized (this) {
+            --activeCount_;
+            activePerHost_.computeIfPresent(
+                    task.host, (host, count) -> count > 1 ? count - 1 : null);
+        }
+        dispatch();
+    }
+
+    private static String getHost(String url) {
+        String authority = UrlParser.getAuthority(url);
+        return authority != null ? authority : "";
+    }
+}
@@ -0,0 +1,148 @@
+package org.cef.network;
+
+import java.util.Locale;
+
+/**
+ * A rule that blocks, redirects or explicitly allows requests whose URL matches a pattern. Rules
+ * are combined and compiled with {@link CefUrlRuleSet}.
+ *
+ * A pattern has the form "host[/path]":
+ * <ul>
+ * <li>The host matches the domain itself and all of its subdomains, so "example.com" matches
+ * "example.com" and "ads.example.com". A leading "*." is allowed and has the same meaning. The
+ * host "*" matches every host. Ports are ignored.</li>
+ * <li>The optional path is a glob matched against the path and query of the URL, for example
+ * "/ads/*" or "/track?id=*". "*" matches any sequence of characters and "?" matches a single
+ * character. Without a path all URLs of the host match.</li>
+ * </ul>
+ */
+public final class CefUrlRule {
+    public enum Action {
+        /**
+         * Cancel the request.
+         */
+        BLOCK,
+
+        /**
+         * Load the request from another URL.
+         */
+        REDIRECT,
+
+        /**
+         * Load the request unmodified even if a BLOCK or REDIRECT rule matches as well.
+         */
+        ALLOW,
+    }
+
+    private final Action action_;
+    private final String pattern_;
+    private final String host_;
+    private final String path_;
+    private final String target_;
+    private final boolean targetIsOrigin_;
+
+    private CefUrlRule(Action action, String pattern, String target) {
+        if (pattern == null || pattern.isEmpty())
+            throw new IllegalArgumentException("Empty URL rule pattern");
+        action_ = action;
+        pattern_ = pattern;
+
+        int slash = pattern.indexOf('/');
+        String host = slash < 0 ? pattern : pattern.substring(0, slash);
+        host = host.toLowerCase(Locale.ROOT);
+        if (host.startsWith("*.")) host = host.substring(2);
+        if (host.equals("*")) host = "";
+        while (host.endsWith(".")) host = host.substring(0, host.length() - 1);
+        if (host.indexOf('*') >= 0 || host.indexOf(':') >= 0)
+            throw new IllegalArgumentException("Invalid host in URL rule pattern: " + pattern);
+        host_ = host;
+
+        String path = slash < 0 ? "" : pattern.substring(slash);
+        path_ = path.equals("/*") ? "" : path;
+
+        if (target != null) {
+            int schemeEnd = target.indexOf("://");
+            if (schemeEnd <= 0)
+                throw new IllegalArgumentException("Invalid redirect target: " + target);
+            target_ = target;
+            targetIsOrigin_ = target.indexOf('/', schemeEnd + 3) < 0;
+        } else {
+            target_ = null;
+            targetIsOrigin_ = false;
+        }
+    }
+
+    /**
+     * Create a rule that cancels matching requests.
+     */
+    public static CefUrlRule block(String pattern) {
+        return new CefUrlRule(Action.BLOCK, pattern, null);
+    }
+
+    /**
+     * Create a rule that loads matching requests from |target| instead. If |target| is just a
+     * scheme and host like "https://api.example.org" only the scheme, host and port of the
+     * request URL are replaced and the path and query are kept. Otherwise the whole URL is
+     * replaced.
+     */
+    public static CefUrlRule redirect(String pattern, String target) {
+        if (target == null) throw new IllegalArgumentException("Missing redirect target");
+        return new CefUrlRule(Action.REDIRECT, pattern, target);
+    }
+
+    /**
+     * Create a rule that exempts matching requests from all BLOCK and REDIRECT rules.
+     */
+    public static CefUrlRule allow(String pattern) {
+        return new CefUrlRule(Action.ALLOW, pattern, null);
+    }
+
+    public Action getAction() {
+        return action_;
+    }
+
+    /**
+     * Returns the pattern as passed when creating the rule.
+     */
+    public String getPattern() {
+        return pattern_;
+    }
+
+    /**
+     * Returns the normalized lower-case host or an empty string if the rule matches all hosts.
+     */
+    public String getHost() {
+        return host_;
+    }
+
+    /**
+     * Returns the path glob or an empty string if the rule matches all paths.
+     */
+    public String getPathPattern() {
+        return path_;
+    }
+
+    /**
+     * Returns the redirect target or null if this isn't a REDIRECT rule.
+     */
+    public String getTarget() {
+        return target_;
+    }
+
+    /**
+     * Returns the URL a request for |url| is redirected to by this rule or null if this isn't a
+     * REDIRECT rule.
+     */
+    public String getRedirectUrl(String url) {
+        if (target_ == null) return null;
+        if (!targetIsOrigin_) return target_;
+        int pathStart = UrlParser.findPathStart(url);
+        if (pathStart < 0 || pathStart == url.length()) return target_;
+        return target_ + (url.charAt(pathStart) == '/' ? "" : "/") + url.substring(pathStart);
+    }
+
+    @Override
+    public String toString() {
+        return action_ + " " + pattern_ + (target_ != null ? " -> " + target_ : "");
+    }
+}
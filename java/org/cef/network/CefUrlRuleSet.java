@@ -0,0 +1,160 @@
+package org.cef.network;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable set of {@link CefUrlRule} objects compiled for fast matching. The hosts of all
+ * rules are stored in a trie of reversed domain labels, so matching a URL costs one lookup per
+ * label of its host plus a glob match for each rule registered on one of the visited nodes,
+ * independent of the total number of rules.
+ *
+ * If an ALLOW rule matches, the URL is allowed. Otherwise the matching rule that was added first
+ * is applied.
+ *
+ * Redirects are never chained, which rules out redirect loops: if the URL produced by a REDIRECT
+ * rule is itself subject to a REDIRECT rule the request is blocked instead. A REDIRECT rule
+ * whose target URL is subject to a REDIRECT rule is rejected when the set is compiled.
+ *
+ * Install a rule set with CefRequestContext.createContext() or
+ * CefRequestContext.setUrlRuleSet() to apply it natively to all requests of a context without
+ * calling into Java, or call {@link #match(String)} from a request handler.
+ */
+public final class CefUrlRuleSet {
+    private static final class Node {
+        HashMap<String, Node> children;
+        // Indexes into |rules_| in ascending order.
+        int[] rules;
+    }
+
+    private final List<CefUrlRule> rules_;
+    private final Node root_ = new Node();
+
+    /**
+     * Compile a rule set.
+     * @param rules The rules in order of precedence.
+     * @throws IllegalArgumentException if the target URL of a REDIRECT rule would be redirected
+     *         again.
+     */
+    public CefUrlRuleSet(Collection<CefUrlRule> rules) {
+        rules_ = Collections.unmodifiableList(new ArrayList<CefUrlRule>(rules));
+        HashMap<Node, ArrayList<Integer>> nodeRules = new HashMap<Node, ArrayList<Integer>>();
+        for (int i = 0; i < rules_.size(); ++i) {
+            Node node = root_;
+            String host = rules_.get(i).getHost();
+            int end = host.length();
+            while (end > 0) {
+                int start = host.lastIndexOf('.', end - 1) + 1;
+                String label = host.substring(start, end);
+                if (node.children == null) node.children = new HashMap<String, Node>();
+                Node child = node.children.get(label);
+                if (child == null) {
+                    child = new Node();
+                    node.children.put(label, child);
+                }
+                node = child;
+                end = start - 1;
+            }
+            nodeRules.computeIfAbsent(node, n -> new ArrayList<Integer>()).add(i);
+        }
+        for (Map.Entry<Node, ArrayList<Integer>> entry : nodeRules.entrySet()) {
+            ArrayList<Integer> indexes = entry.getValue();
+            int[] array = new int[indexes.size()];
+            for (int i = 0; i < array.length; ++i) array[i] = indexes.get(i);
+            entry.getKey().rules = array;
+        }
+
+        for (CefUrlRule rule : rules_) {
+            if (rule.getAction() != CefUrlRule.Action.REDIRECT) continue;
+            // Targets that keep the request path are checked again when they are applied.
+            CefUrlRule next = matchRule(rule.getTarget());
+            if (next != null && next.getAction() == CefUrlRule.Action.REDIRECT) {
+                throw new IllegalArgumentException(
+                        "Redirect loop: " + rule + " is redirected by " + next);
+            }
+        }
+    }
+
+    /**
+     * Returns the rules in order of precedence.
+     */
+    public List<CefUrlRule> getRules() {
+        return rules_;
+    }
+
+    /**
+     * Returns the rule that applies to |url| or null if no rule matches. The result may be an
+     * ALLOW rule. If a REDIRECT rule matches but its redirect URL would be redirected again, a
+     * BLOCK rule with the same pattern is returned.
+     */
+    public CefUrlRule match(String url) {
+        CefUrlRule rule = matchRule(url);
+        if (rule == null || rule.getAction() != CefUrlRule.Action.REDIRECT) return rule;
+        CefUrlRule next = matchRule(rule.getRedirectUrl(url));
+        if (next != null && next.getAction() == CefUrlRule.Action.REDIRECT) {
+            return CefUrlRule.block(rule.getPattern());
+        }
+        return rule;
+    }
+
+    private CefUrlRule matchRule(String url) {
+        if (url == null) return null;
+        String host = UrlParser.getHost(url);
+        if (host == null) return null;
+        int pathStart = UrlParser.findPathStart(url);
+        while (host.endsWith(".")) host = host.substring(0, host.length() - 1);
+
+        int fragment = url.indexOf('#', pathStart);
+        String path = url.substring(pathStart, fragment < 0 ? url.length() : fragment);
+        if (!path.startsWith("/")) path = "/" + path;
+
+        int best = Integer.MAX_VALUE;
+        Node node = root_;
+        int end = host.length();
+        while (node != null) {
+            if (node.rules != null) {
+                for (int index : node.rules) {
+                    CefUrlRule rule = rules_.get(index);
+                    boolean allow = rule.getAction() == CefUrlRule.Action.ALLOW;
+                    if (!allow && index >= best) continue;
+                    if (!matchGlob(rule.getPathPattern(), path)) continue;
+                    if (allow) return rule;
+                    best = index;
+                }
+            }
+            if (end <= 0 || node.children == null) break;
+            int start = host.lastIndexOf('.', end - 1) + 1;
+            node = node.children.get(host.substring(start, end));
+            end = start - 1;
+        }
+        return best != Integer.MAX_VALUE ? rules_.get(best) : null;
+    }
+
+    /**
+     * Match |text| against a glob supporting "*" and "?". An empty glob matches everything.
+     */
+    static boolean matchGlob(String glob, String text) {
+        if (glob.isEmpty()) return true;
+        int g = 0, t = 0, star = -1, mark = 0;
+        while (t < text.length()) {
+            if (g < glob.length() && (glob.charAt(g) == '?' || glob.charAt(g) == text.charAt(t))) {
+                ++g;
+                ++t;
+            } else if (g < glob.length() && glob.charAt(g) == '*') {
+                star = g++;
+                mark = t;
+            } else if (star >= 0) {
+                g = star + 1;
+                t = ++mark;
+            } else {
+                return false;
+            }
+        }
+        while (g < glob.length() && glob.charAt(g) == '*') ++g;
+        return g == glob.length();
+    }
+}
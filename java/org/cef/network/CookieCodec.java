@@ -0,0 +1,140 @@
+package org.cef.network;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Compact serialized representation of cookies used to transfer them to and from native code in
+ * a single call and to store cookie snapshots. A batch is a big-endian int32 cookie count
+ * followed by one record per cookie. A record holds the name, value, domain and path as int32
+ * length prefixed UTF-8 strings, a flags byte and the creation, last access and expiration times
+ * as int64 milliseconds since the epoch. Must be kept in sync with native/cookie_batch.cpp.
+ *
+ * A snapshot file is a header of SNAPSHOT_HEADER_SIZE bytes, holding a magic number and a
+ * big-endian int32 format version, followed by a batch.
+ */
+final class CookieCodec {
+    static final int SNAPSHOT_HEADER_SIZE = 8;
+
+    private static final byte[] SNAPSHOT_MAGIC = {'J', 'C', 'C', 'K'};
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private static final int FLAG_SECURE = 1;
+    private static final int FLAG_HTTPONLY = 2;
+    private static final int FLAG_HAS_EXPIRES = 4;
+
+    private CookieCodec() {}
+
+    /**
+     * Returns the batch holding |cookies|. Null strings are encoded as empty strings and null
+     * times as the epoch.
+     */
+    static byte[] encode(Collection<CefCookie> cookies) {
+        ArrayList<byte[][]> strings = new ArrayList<byte[][]>(cookies.size());
+        int size = 4;
+        for (CefCookie cookie : cookies) {
+            byte[][] fields = {getBytes(cookie.name), getBytes(cookie.value),
+                    getBytes(cookie.domain), getBytes(cookie.path)};
+            for (byte[] field : fields) size += 4 + field.length;
+            size += 1 + 3 * 8;
+            strings.add(fields);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(cookies.size());
+        int i = 0;
+        for (CefCookie cookie : cookies) {
+            for (byte[] field : strings.get(i++)) {
+                buffer.putInt(field.length);
+                buffer.put(field);
+            }
+            buffer.put((byte) ((cookie.secure ? FLAG_SECURE : 0)
+                    | (cookie.httponly ? FLAG_HTTPONLY : 0)
+                    | (cookie.hasExpires ? FLAG_HAS_EXPIRES : 0)));
+            buffer.putLong(getTime(cookie.creation));
+            buffer.putLong(getTime(cookie.lastAccess));
+            buffer.putLong(cookie.hasExpires ? getTime(cookie.expires) : 0);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Returns the cookies of the batch stored in |length| bytes of |data| at |offset|.
+     * @throws IOException if the batch is malformed.
+     */
+    static List<CefCookie> decode(byte[] data, int offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data, offset, length);
+        try {
+            int count = buffer.getInt();
+            if (count < 0 || count > length / 41) throw new IOException("Invalid cookie count");
+            ArrayList<CefCookie> cookies = new ArrayList<CefCookie>(count);
+            for (int i = 0; i < count; ++i) {
+                String name = getString(buffer);
+                String value = getString(buffer);
+                String domain = getString(buffer);
+                String path = getString(buffer);
+                int flags = buffer.get();
+                Date creation = new Date(buffer.getLong());
+                Date lastAccess = new Date(buffer.getLong());
+                long expires = buffer.getLong();
+                boolean hasExpires = (flags & FLAG_HAS_EXPIRES) != 0;
+                cookies.add(new CefCookie(name, value, domain, path, (flags & FLAG_SECURE) != 0,
+                        (flags & FLAG_HTTPONLY) != 0, creation, lastAccess, hasExpires,
+                        hasExpires ? new Date(expires) : null));
+            }
+            return cookies;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Truncated cookie data", e);
+        }
+    }
+
+    /**
+     * Returns the header of a snapshot of the current version.
+     */
+    static byte[] getSnapshotHeader() {
+        ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER_SIZE);
+        header.put(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION);
+        return header.array();
+    }
+
+    /**
+     * Checks the header of the snapshot in |data|. The batch starts at SNAPSHOT_HEADER_SIZE.
+     * @throws IOException if |data| is not a snapshot or has an unsupported version.
+     */
+    static void checkSnapshotHeader(byte[] data) throws IOException {
+        if (data.length < SNAPSHOT_HEADER_SIZE
+                || !Arrays.equals(data, 0, SNAPSHOT_MAGIC.length, SNAPSHOT_MAGIC, 0,
+                        SNAPSHOT_MAGIC.length)) {
+            throw new IOException("Not a cookie snapshot");
+        }
+        int version = ByteBuffer.wrap(data).getInt(SNAPSHOT_MAGIC.length);
+        if (version != SNAPSHOT_VERSION) {
+            throw new IOException("Unsupported cookie snapshot version: " + version);
+        }
+    }
+
+    private static byte[] getBytes(String str) {
+        return str != null ? str.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) throw new BufferUnderflowException();
+        String str = new String(
+                buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return str;
+    }
+
+    private static long getTime(Date date) {
+        return date != null ? date.getTime() : 0;
+    }
+}
@@ -0,0 +1,49 @@
+package org.cef.network;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of equally sized direct byte buffers. Allocating direct buffers is expensive and their
+ * memory is only released on GC, so buffers used for streaming large bodies are recycled.
+ */
+final class DirectBufferPool {
+    static final DirectBufferPool SHARED = new DirectBufferPool(64 * 1024, 64);
+
+    private final int bufferSize_;
+    private final int maxPooled_;
+    private final ConcurrentLinkedQueue<ByteBuffer> pool_ = new ConcurrentLinkedQueue<ByteBuffer>();
+    private final AtomicInteger pooled_ = new AtomicInteger();
+
+    DirectBufferPool(int bufferSize, int maxPooled) {
+        bufferSize_ = bufferSize;
+        maxPooled_ = maxPooled;
+    }
+
+    int getBufferSize() {
+        return bufferSize_;
+    }
+
+    /**
+     * Returns a cleared buffer of getBufferSize() bytes.
+     */
+    ByteBuffer acquire() {
+        ByteBuffer buffer = pool_.poll();
+        if (buffer == null) return ByteBuffer.allocateDirect(bufferSize_);
+        pooled_.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Return a buffer obtained from acquire(). The buffer must not be used afterwards.
+     */
+    void release(ByteBuffer buffer) {
+        if (pooled_.incrementAndGet() > maxPooled_) {
+            pooled_.decrementAndGet();
+            return;
+        }
+        pool_.add(buffer);
+    }
+}
@@ -0,0 +1,101 @@
+package org.cef.network;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reads the contents of post data elements in order. The bytes of an element are copied into a
+ * direct buffer, pooled if it fits, and files are streamed from disk.
+ */
+final class PostDataInputStream extends InputStream {
+    private final Iterator<CefPostDataElement> elements_;
+    private ByteBuffer buffer_;
+    private boolean pooled_;
+    private InputStream file_;
+    private boolean closed_;
+
+    PostDataInputStream(List<CefPostDataElement> elements) {
+        elements_ = elements.iterator();
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) == 1 ? b[0] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) throw new IndexOutOfBoundsException();
+        if (closed_) throw new IOException("Stream closed");
+        if (len == 0) return 0;
+        while (true) {
+            if (buffer_ != null && buffer_.hasRemaining()) {
+                int count = Math.min(len, buffer_.remaining());
+                buffer_.get(b, off, count);
+                return count;
+            }
+            if (file_ != null) {
+                int count = file_.read(b, off, len);
+                if (count >= 0) return count;
+            }
+            if (!nextElement()) return -1;
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (buffer_ != null && buffer_.hasRemaining()) return buffer_.remaining();
+        if (file_ != null) return file_.available();
+        return 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed_) return;
+        closed_ = true;
+        releaseElement();
+    }
+
+    /**
+     * Advance to the next element. Returns false if there are no more elements.
+     */
+    private boolean nextElement() throws IOException {
+        releaseElement();
+        while (elements_.hasNext()) {
+            CefPostDataElement element = elements_.next();
+            CefPostDataElement.Type type = element.getType();
+            if (type == CefPostDataElement.Type.PDE_TYPE_BYTES) {
+                int count = element.getBytesCount();
+                if (count <= 0) continue;
+                pooled_ = count <= DirectBufferPool.SHARED.getBufferSize();
+                buffer_ = pooled_ ? DirectBufferPool.SHARED.acquire()
+                                  : ByteBuffer.allocateDirect(count);
+                buffer_.limit(count);
+                element.getBytes(buffer_);
+                buffer_.flip();
+                return true;
+            } else if (type == CefPostDataElement.Type.PDE_TYPE_FILE) {
+                file_ = new FileInputStream(element.getFile());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void releaseElement() throws IOException {
+        if (buffer_ != null) {
+            if (pooled_) DirectBufferPool.SHARED.release(buffer_);
+            buffer_ = null;
+        }
+        if (file_ != null) {
+            InputStream file = file_;
+            file_ = null;
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.cef.network;
+
+import java.util.Locale;
+
+/**
+ * Finds the parts of absolute URLs as reported by CEF. Unlike java.net.URI this accepts URLs with
+ * characters that are not escaped and doesn't allocate for the common lookups.
+ */
+final class UrlParser {
+    private UrlParser() {}
+
+    /**
+     * Returns the index where the path of |url| starts, which is the end of its authority, or
+     * -1 if |url| has no authority.
+     */
+    static int findPathStart(String url) {
+        int hostStart = url.indexOf("://");
+        if (hostStart <= 0) return -1;
+        for (int i = hostStart + 3; i < url.length(); ++i) {
+            char c = url.charAt(i);
+            if (c == '/' || c == '?' || c == '#') return i;
+        }
+        return url.length();
+    }
+
+    /**
+     * Returns the authority of |url| without user info in lower case, or null if |url| has no
+     * authority.
+     */
+    static String getAuthority(String url) {
+        int pathStart = findPathStart(url);
+        if (pathStart < 0) return null;
+        String authority = url.substring(url.indexOf("://") + 3, pathStart);
+        return authority.substring(authority.lastIndexOf('@') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the host of |url| without user info and port in lower case, or null if |url| has
+     * no authority. IPv6 addresses keep their brackets.
+     */
+    static String getHost(String url) {
+        String host = getAuthority(url);
+        if (host == null) return null;
+        if (host.startsWith("[")) {
+            int bracket = host.indexOf(']');
+            return bracket > 0 ? host.substring(0, bracket + 1) : host;
+        }
+        int colon = host.indexOf(':');
+        return colon >= 0 ? host.substring(0, colon) : host;
+    }
+
+    /**
+     * Returns the path of |url| without query and fragment, "/" if it is empty, or null if |url|
+     * has no authority.
+     */
+    static String getPath(String url) {
+        int pathStart = findPathStart(url);
+        if (pathStart < 0) return null;
+        int pathEnd = pathStart;
+        while (pathEnd < url.length() && url.charAt(pathEnd) != '?' && url.charAt(pathEnd) != '#')
+            ++pathEnd;
+        return pathEnd > pathStart ? url.substring(pathStart, pathEnd) : "/";
+    }
+}
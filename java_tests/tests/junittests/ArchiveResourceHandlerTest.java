@@ -0,0 +1,107 @@
+// Copyright (c) 2019 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package tests.junittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.cef.browser.CefBrowser;
+import org.cef.browser.CefFrame;
+import org.cef.handler.CefArchiveSchemeHandlerFactory;
+import org.cef.handler.CefDisplayHandlerAdapter;
+import org.cef.handler.CefResourceHandler;
+import org.cef.network.CefRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Test the ArchiveResourceHandler implementation.
+@ExtendWith(TestSetupExtension.class)
+class ArchiveResourceHandlerTest {
+    private final String testUrl_ = "http://test.com/";
+
+    @TempDir
+    Path dir;
+
+    private boolean gotCallback_ = false;
+
+    @Test
+    void deflatedEntry() throws IOException {
+        loadArchivePage(false);
+    }
+
+    @Test
+    void storedEntry() throws IOException {
+        loadArchivePage(true);
+    }
+
+    // Load the index page of an archive and wait for its title.
+    private void loadArchivePage(boolean stored) throws IOException {
+        final CefArchiveSchemeHandlerFactory factory = new CefArchiveSchemeHandlerFactory();
+        factory.addArchive(createArchive(stored), "web");
+
+        TestFrame frame = new TestFrame() {
+            @Override
+            protected void setupTest() {
+                client_.addDisplayHandler(new CefDisplayHandlerAdapter() {
+                    @Override
+                    public void onTitleChange(CefBrowser browser, String title) {
+                        // Ignore the 2nd OnTitleChange call which arrives after navigation
+                        // completion.
+                        if (gotCallback_) return;
+                        gotCallback_ = true;
+                        assertEquals("Archive Title", title);
+                        terminateTest();
+                    }
+                });
+
+                createBrowser(testUrl_);
+
+                super.setupTest();
+            }
+
+            @Override
+            public CefResourceHandler getResourceHandler(
+                    CefBrowser browser, CefFrame frame, CefRequest request) {
+                return factory.create(browser, frame, "http", request);
+            }
+        };
+
+        frame.awaitCompletion();
+
+        assertTrue(gotCallback_);
+    }
+
+    private Path createArchive(boolean stored) throws IOException {
+        byte[] content = "<html><head><title>Archive Title</title></head><body>Test!</body></html>"
+                                 .getBytes(StandardCharsets.UTF_8);
+        ZipEntry entry = new ZipEntry("web/index.html");
+        if (stored) {
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(content.length);
+            entry.setCrc(crc.getValue());
+        }
+
+        Path path = dir.resolve("test.zip");
+        try (OutputStream out = Files.newOutputStream(path);
+                ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(entry);
+            zip.write(content);
+            zip.closeEntry();
+        }
+        return path;
+    }
+}
@@ -0,0 +1,200 @@
+// Copyright (c) 2019 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package tests.junittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.cef.handler.CefArchiveSchemeHandlerFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Test the archive indexing of CefArchiveSchemeHandlerFactory.
+class ArchiveSchemeHandlerFactoryTest {
+    private static final byte[] CONTENT = "stored content".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path dir;
+
+    private final CefArchiveSchemeHandlerFactory factory_ = new CefArchiveSchemeHandlerFactory();
+
+    @Test
+    void indexesEntriesBelowPrefix() throws IOException {
+        Path path = write("test.zip", createZip());
+
+        // The directory entry is skipped.
+        factory_.addArchive(path, "web/sub");
+        assertEquals(1, factory_.getResourceCount());
+        factory_.addArchive(path, "web/");
+        assertEquals(3, factory_.getResourceCount());
+        factory_.addArchive(path, "");
+        assertEquals(5, factory_.getResourceCount());
+        // Paths that are already indexed are not added again.
+        factory_.addArchive(path, "");
+        assertEquals(5, factory_.getResourceCount());
+    }
+
+    @Test
+    void zip64() throws IOException {
+        factory_.addArchive(write("zip64.zip", createZip64(true)), "");
+        assertEquals(1, factory_.getResourceCount());
+
+        // The sizes and the offset are only in the missing extra field.
+        Path missingExtraField = write("missing.zip", createZip64(false));
+        assertThrows(IOException.class, () -> factory_.addArchive(missingExtraField, ""));
+        assertEquals(1, factory_.getResourceCount());
+    }
+
+    @Test
+    void notAnArchive() throws IOException {
+        Path empty = write("empty.zip", new byte[0]);
+        assertThrows(IOException.class, () -> factory_.addArchive(empty, ""));
+        Path text = write("text.zip", CONTENT);
+        assertThrows(IOException.class, () -> factory_.addArchive(text, ""));
+        assertEquals(0, factory_.getResourceCount());
+    }
+
+    @Test
+    void truncatedArchive() throws IOException {
+        byte[] zip = createZip();
+
+        // Without the end header.
+        Path truncated = write("truncated.zip", Arrays.copyOf(zip, zip.length - 10));
+        assertThrows(IOException.class, () -> factory_.addArchive(truncated, ""));
+
+        // Without the central directory but with the end header.
+        int end = findEndHeader(zip);
+        int offset = ByteBuffer.wrap(zip).order(ByteOrder.LITTLE_ENDIAN).getInt(end + 16);
+        byte[] data = new byte[offset + (zip.length - end)];
+        System.arraycopy(zip, 0, data, 0, offset);
+        System.arraycopy(zip, end, data, offset, zip.length - end);
+        Path cut = write("cut.zip", data);
+        assertThrows(IOException.class, () -> factory_.addArchive(cut, ""));
+        assertEquals(0, factory_.getResourceCount());
+    }
+
+    @Test
+    void corruptCentralDirectory() throws IOException {
+        byte[] zip = createZip();
+        int end = findEndHeader(zip);
+        int offset = ByteBuffer.wrap(zip).order(ByteOrder.LITTLE_ENDIAN).getInt(end + 16);
+
+        // Wrong central header signature.
+        byte[] data = zip.clone();
+        data[offset] = 0;
+        Path signature = write("signature.zip", data);
+        assertThrows(IOException.class, () -> factory_.addArchive(signature, ""));
+
+        // More entries than present.
+        data = zip.clone();
+        ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).putShort(end + 10, (short) 9);
+        Path count = write("count.zip", data);
+        assertThrows(IOException.class, () -> factory_.addArchive(count, ""));
+
+        // Directory offset past the end of the file.
+        data = zip.clone();
+        ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).putInt(end + 16, zip.length);
+        Path directoryOffset = write("offset.zip", data);
+        assertThrows(IOException.class, () -> factory_.addArchive(directoryOffset, ""));
+
+        // Name length past the end of the file.
+        data = zip.clone();
+        ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).putShort(offset + 28, (short) -1);
+        Path name = write("name.zip", data);
+        assertThrows(IOException.class, () -> factory_.addArchive(name, ""));
+
+        assertEquals(0, factory_.getResourceCount());
+    }
+
+    private Path write(String name, byte[] data) throws IOException {
+        return Files.write(dir.resolve(name), data);
+    }
+
+    private static byte[] createZip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            ZipEntry stored = new ZipEntry("web/stored.txt");
+            stored.setMethod(ZipEntry.STORED);
+            stored.setSize(CONTENT.length);
+            stored.setCrc(crc(CONTENT));
+            zip.putNextEntry(stored);
+            zip.write(CONTENT);
+            zip.closeEntry();
+
+            zip.putNextEntry(new ZipEntry("web/sub/"));
+            zip.closeEntry();
+
+            zip.putNextEntry(new ZipEntry("web/sub/deflated.txt"));
+            zip.write(CONTENT);
+            zip.closeEntry();
+        }
+        return out.toByteArray();
+    }
+
+    // A single stored entry whose sizes and offset are only in the ZIP64 extra field, referenced
+    // by a ZIP64 end header.
+    private static byte[] createZip64(boolean withExtraField) {
+        byte[] name = "big.txt".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(512).order(ByteOrder.LITTLE_ENDIAN);
+
+        // Local header.
+        buffer.putInt(0x04034b50).putShort((short) 45).putShort((short) 0).putShort((short) 0);
+        buffer.putShort((short) 0).putShort((short) 0x21).putInt((int) crc(CONTENT));
+        buffer.putInt(CONTENT.length).putInt(CONTENT.length);
+        buffer.putShort((short) name.length).putShort((short) 0).put(name).put(CONTENT);
+
+        // Central directory.
+        int central = buffer.position();
+        buffer.putInt(0x02014b50).putShort((short) 45).putShort((short) 45);
+        buffer.putShort((short) 0).putShort((short) 0).putShort((short) 0).putShort((short) 0x21);
+        buffer.putInt((int) crc(CONTENT)).putInt(-1).putInt(-1);
+        buffer.putShort((short) name.length).putShort((short) (withExtraField ? 28 : 0));
+        buffer.putShort((short) 0).putShort((short) 0).putShort((short) 0).putInt(0);
+        buffer.putInt(-1).put(name);
+        if (withExtraField) {
+            buffer.putShort((short) 0x0001).putShort((short) 24);
+            buffer.putLong(CONTENT.length).putLong(CONTENT.length).putLong(0);
+        }
+        int centralSize = buffer.position() - central;
+
+        // ZIP64 end header and locator.
+        int zip64End = buffer.position();
+        buffer.putInt(0x06064b50).putLong(44).putShort((short) 45).putShort((short) 45);
+        buffer.putInt(0).putInt(0).putLong(1).putLong(1).putLong(centralSize).putLong(central);
+        buffer.putInt(0x07064b50).putInt(0).putLong(zip64End).putInt(1);
+
+        // End header.
+        buffer.putInt(0x06054b50).putShort((short) 0).putShort((short) 0);
+        buffer.putShort((short) -1).putShort((short) -1).putInt(-1).putInt(-1);
+        buffer.putShort((short) 0);
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private static int findEndHeader(byte[] zip) {
+        ByteBuffer buffer = ByteBuffer.wrap(zip).order(ByteOrder.LITTLE_ENDIAN);
+        for (int pos = zip.length - 22; pos >= 0; --pos) {
+            if (buffer.getInt(pos) == 0x06054b50) return pos;
+        }
+        throw new IllegalStateException();
+    }
+
+    private static long crc(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,139 @@
+// Copyright (c) 2019 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package tests.junittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.cef.browser.CefBrowser;
+import org.cef.browser.CefFrame;
+import org.cef.browser.CefMessageRouter;
+import org.cef.callback.CefBinaryQueryCallback;
+import org.cef.handler.CefBinaryQueryHandler;
+import org.cef.handler.CefDisplayHandlerAdapter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Test the value conversion of CefMessageRouter binary queries.
+@ExtendWith(TestSetupExtension.class)
+class BinaryQueryTest {
+    private final String testUrl_ = "http://test.com/binary.html";
+
+    private Object request_ = null;
+    private String title_ = null;
+
+    @Test
+    void requestValues() {
+        runQuery("{int: -7, double: 0.5, string: 'a\\u00e4\\u20ac', binary: new Uint8Array([0, 1, "
+                        + "255]), list: [null, true, false, [1]], empty: {}}",
+                null, "true");
+
+        Map<String, Object> expected = new LinkedHashMap<String, Object>();
+        expected.put("int", -7);
+        expected.put("double", 0.5);
+        expected.put("string", "a\u00e4\u20ac");
+        expected.put("binary", ByteBuffer.wrap(new byte[] {0, 1, -1}));
+        expected.put("list", Arrays.asList(null, true, false, Collections.singletonList(1)));
+        expected.put("empty", Collections.emptyMap());
+        assertEquals(expected, request_);
+        assertEquals("Binary success", title_);
+    }
+
+    @Test
+    void responseValues() {
+        ByteBuffer binary = ByteBuffer.wrap(new byte[] {1, 2, 3, 4});
+        binary.position(1).limit(3);
+        Map<Object, Object> response = new LinkedHashMap<Object, Object>();
+        response.put("byte", (byte) 7);
+        response.put("long", (long) Integer.MAX_VALUE + 1);
+        response.put("float", 1.5f);
+        response.put("char", 'x');
+        response.put("array", new Object[] {"a", 1});
+        response.put("binary", binary);
+        response.put(1, "key");
+
+        runQuery("null", response,
+                "r.byte === 7 && r.long === 2147483648 && r.float === 1.5 && r.char === 'x' && "
+                        + "r.array.join() === 'a,1' && r.binary instanceof ArrayBuffer && "
+                        + "new Uint8Array(r.binary).join() === '2,3' && r['1'] === 'key'");
+        assertEquals("Binary success", title_);
+        assertEquals(null, request_);
+    }
+
+    @Test
+    void nestedValues() {
+        // Nesting up to 64 levels is supported in both directions.
+        Object response = null;
+        for (int i = 0; i < 64; ++i) response = Collections.singletonList(response);
+
+        runQuery("(function() { var v = null; for (var i = 0; i < 64; ++i) v = [v]; return v; })()",
+                response, "(function() { for (var i = 0; i < 64; ++i) r = r[0]; return r; })() "
+                        + "=== null");
+        assertEquals(response, request_);
+        assertEquals("Binary success", title_);
+    }
+
+    // Send |request| with a binary query from JavaScript and answer it with |response|.
+    // |condition| is evaluated for the response |r| and sets the page title.
+    private void runQuery(String request, Object response, String condition) {
+        final String content = "<html><body><script>window.cefQueryBinary({request: " + request
+                + ", onSuccess: function(r) { document.title = (" + condition
+                + ") ? 'Binary success' : 'Binary mismatch'; }, onFailure: function(code, "
+                + "message) { document.title = 'Binary failure ' + message; }});</script>"
+                + "</body></html>";
+
+        TestFrame frame = new TestFrame() {
+            private CefMessageRouter router_;
+
+            @Override
+            protected void setupTest() {
+                router_ = CefMessageRouter.create();
+                router_.addBinaryHandler(new CefBinaryQueryHandler() {
+                    @Override
+                    public boolean onQuery(CefBrowser browser, CefFrame frame, long queryId,
+                            Object request, boolean persistent, CefBinaryQueryCallback callback) {
+                        request_ = request;
+                        callback.success(response);
+                        return true;
+                    }
+
+                    @Override
+                    public void onQueryCanceled(CefBrowser browser, CefFrame frame, long queryId) {}
+                }, true);
+                client_.addMessageRouter(router_);
+
+                client_.addDisplayHandler(new CefDisplayHandlerAdapter() {
+                    @Override
+                    public void onTitleChange(CefBrowser browser, String title) {
+                        // Ignore the title that is derived from the URL.
+                        if (title_ != null || !title.startsWith("Binary ")) return;
+                        title_ = title;
+                        terminateTest();
+                    }
+                });
+
+                addResource(testUrl_, content, "text/html");
+
+                createBrowser(testUrl_);
+
+                super.setupTest();
+            }
+
+            @Override
+            protected void cleanupTest() {
+                client_.removeMessageRouter(router_);
+                router_.dispose();
+                super.cleanupTest();
+            }
+        };
+
+        frame.awaitCompletion();
+    }
+}
@@ -0,0 +1,47 @@
+// Copyright (c) 2019 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package tests.junittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.cef.network.CefCookie;
+import org.cef.network.CefCookieManager;
+import org.cef.network.CefCookieMirror;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Test the CefCookieMirror implementation.
+@ExtendWith(TestSetupExtension.class)
+class CookieMirrorTest {
+    @Test
+    void setCookieWithDomainMatchesSubdomains() throws Exception {
+        CefCookieManager manager = CefCookieManager.getGlobalManager();
+        CefCookieMirror mirror = new CefCookieMirror(manager);
+        try {
+            CefCookie cookie = new CefCookie("mirror", "1", "example.com", "", false, false,
+                    null, null, false, null);
+            assertTrue(mirror.setCookie("http://www.example.com/dir/page.html", cookie));
+
+            List<CefCookie> cookies =
+                    mirror.getUrlCookies("http://sub.example.com/dir/other.html", false);
+            assertEquals(1, cookies.size());
+            assertEquals(".example.com", cookies.get(0).domain);
+            assertEquals("/dir", cookies.get(0).path);
+            assertTrue(mirror.getUrlCookies("http://sub.example.com/", false).isEmpty());
+
+            // A reload finds the cookie under the same domain and path.
+            mirror.sync().get(5, TimeUnit.SECONDS);
+            assertEquals(1, mirror.getCookies(".example.com").size());
+            assertTrue(mirror.getCookies("example.com").isEmpty());
+        } finally {
+            mirror.deleteCookies("http://www.example.com", "mirror");
+            mirror.close();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+// Copyright (c) 2019 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package tests.junittests;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.cef.network.CefCookie;
+import org.cef.network.CefCookiePolicy;
+import org.cef.network.CefCookieRule;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+// Test the first-party and third-party classification of CefCookiePolicy.
+class CookiePolicyTest {
+    private static final CefCookiePolicy POLICY = new CefCookiePolicy(Collections.singletonList(
+            CefCookieRule.deny("*", "*", CefCookieRule.Scope.THIRD_PARTY)));
+    private static final CefCookie COOKIE =
+            new CefCookie("name", "value", ".example.com", "/", false, false, null, null, false,
+                    null);
+
+    private static boolean isThirdParty(String url, String firstPartyUrl) {
+        return POLICY.match(url, firstPartyUrl, COOKIE) != null;
+    }
+
+    @Test
+    void sameRegistrableDomain() {
+        assertFalse(isThirdParty("https://cdn.example.com/a.js", "https://www.example.com/"));
+        assertFalse(isThirdParty("http://EXAMPLE.com:8080/", "https://user@example.com./"));
+        assertFalse(isThirdParty("https://shop.example.co.uk/", "https://example.co.uk/"));
+        assertFalse(isThirdParty("https://a.b.example.com.au/", "https://example.com.au/x"));
+        assertFalse(isThirdParty("https://1.2.3.4/", "https://1.2.3.4:81/"));
+        assertFalse(isThirdParty("https://example.com/", null));
+    }
+
+    @Test
+    void multiLabelPublicSuffixes() {
+        // Different owners below the same public suffix are different sites.
+        assertTrue(isThirdParty("https://tracker.co.uk/", "https://news.co.uk/"));
+        assertTrue(isThirdParty("https://other.com.au/", "https://shop.com.au/"));
+        assertTrue(isThirdParty("https://alice.github.io/", "https://bob.github.io/"));
+        assertTrue(isThirdParty("https://a.herokuapp.com/", "https://b.herokuapp.com/"));
+        // Second-level labels like "co" are only public suffixes under country code domains.
+        assertFalse(isThirdParty("https://a.co.com/", "https://b.co.com/"));
+    }
+
+    @Test
+    void differentSites() {
+        assertTrue(isThirdParty("https://ads.net/", "https://example.com/"));
+        assertTrue(isThirdParty("https://example.com.evil.org/", "https://example.com/"));
+        assertTrue(isThirdParty("https://1.2.3.4/", "https://1.2.3.5/"));
+    }
+}
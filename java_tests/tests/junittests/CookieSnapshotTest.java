@@ -0,0 +1,142 @@
+// Copyright (c) 2019 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package tests.junittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.cef.network.CefCookie;
+import org.cef.network.CefCookieManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// Test the cookie snapshots of CefCookieManager.
+@ExtendWith(TestSetupExtension.class)
+class CookieSnapshotTest {
+    private static final int TIMEOUT = 5;
+
+    // Expiration times are stored with a precision of seconds.
+    private final Date expires_ =
+            new Date((System.currentTimeMillis() / 1000 + 24 * 60 * 60) * 1000);
+    private final CefCookie sessionCookie_ = new CefCookie("snapshot_session", "a=b",
+            ".example.com", "/", true, true, null, null, false, null);
+    private final CefCookie persistentCookie_ = new CefCookie("snapshot_persistent", "",
+            "www.example.com", "/app", false, false, null, null, true, expires_);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void saveAndRestore() throws Exception {
+        CefCookieManager manager = CefCookieManager.getGlobalManager();
+        Path file = dir.resolve("cookies");
+        try {
+            setCookies(manager);
+            assertTrue(manager.saveCookies(file).get(TIMEOUT, TimeUnit.SECONDS) >= 2);
+            deleteCookies(manager);
+
+            assertTrue(manager.restoreCookies(file).get(TIMEOUT, TimeUnit.SECONDS) >= 2);
+
+            CefCookie session = findCookie(manager, sessionCookie_.name);
+            assertNotNull(session);
+            assertEquals("a=b", session.value);
+            assertEquals(".example.com", session.domain);
+            assertEquals("/", session.path);
+            assertTrue(session.secure);
+            assertTrue(session.httponly);
+            assertFalse(session.hasExpires);
+
+            CefCookie persistent = findCookie(manager, persistentCookie_.name);
+            assertNotNull(persistent);
+            assertEquals("", persistent.value);
+            assertEquals("www.example.com", persistent.domain);
+            assertEquals("/app", persistent.path);
+            assertFalse(persistent.secure);
+            assertFalse(persistent.httponly);
+            assertTrue(persistent.hasExpires);
+            assertEquals(expires_, persistent.expires);
+        } finally {
+            deleteCookies(manager);
+        }
+    }
+
+    @Test
+    void invalidSnapshots() throws Exception {
+        CefCookieManager manager = CefCookieManager.getGlobalManager();
+        Path file = dir.resolve("cookies");
+        byte[] snapshot;
+        try {
+            setCookies(manager);
+            manager.saveCookies(file).get(TIMEOUT, TimeUnit.SECONDS);
+            snapshot = Files.readAllBytes(file);
+        } finally {
+            deleteCookies(manager);
+        }
+
+        // Missing files and files that are not snapshots.
+        Path missing = dir.resolve("missing");
+        assertThrows(ExecutionException.class,
+                () -> manager.restoreCookies(missing).get(TIMEOUT, TimeUnit.SECONDS));
+        Path empty = Files.write(dir.resolve("empty"), new byte[0]);
+        assertThrows(ExecutionException.class,
+                () -> manager.restoreCookies(empty).get(TIMEOUT, TimeUnit.SECONDS));
+
+        byte[] data = snapshot.clone();
+        data[0] = 'X';
+        Path magic = Files.write(dir.resolve("magic"), data);
+        assertThrows(ExecutionException.class,
+                () -> manager.restoreCookies(magic).get(TIMEOUT, TimeUnit.SECONDS));
+
+        // Snapshots of a newer version.
+        data = snapshot.clone();
+        ByteBuffer.wrap(data).putInt(4, 2);
+        Path version = Files.write(dir.resolve("version"), data);
+        assertThrows(ExecutionException.class,
+                () -> manager.restoreCookies(version).get(TIMEOUT, TimeUnit.SECONDS));
+
+        // Truncated snapshots and snapshots with an oversized cookie count.
+        Path truncated = Files.write(
+                dir.resolve("truncated"), Arrays.copyOf(snapshot, snapshot.length - 1));
+        assertThrows(ExecutionException.class,
+                () -> manager.restoreCookies(truncated).get(TIMEOUT, TimeUnit.SECONDS));
+        data = snapshot.clone();
+        ByteBuffer.wrap(data).putInt(8, Integer.MAX_VALUE);
+        Path count = Files.write(dir.resolve("count"), data);
+        assertThrows(ExecutionException.class,
+                () -> manager.restoreCookies(count).get(TIMEOUT, TimeUnit.SECONDS));
+    }
+
+    private void setCookies(CefCookieManager manager) throws Exception {
+        assertEquals(2,
+                manager.setCookies(Arrays.asList(sessionCookie_, persistentCookie_))
+                        .get(TIMEOUT, TimeUnit.SECONDS));
+    }
+
+    private void deleteCookies(CefCookieManager manager) {
+        manager.deleteCookies("https://example.com/", sessionCookie_.name);
+        manager.deleteCookies("http://www.example.com/app", persistentCookie_.name);
+    }
+
+    private static CefCookie findCookie(CefCookieManager manager, String name) throws Exception {
+        List<CefCookie> cookies = manager.getAllCookies().get(TIMEOUT, TimeUnit.SECONDS);
+        for (CefCookie cookie : cookies) {
+            if (cookie.name.equals(name)) return cookie;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,77 @@
+// Copyright (c) 2019 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package tests.junittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import org.cef.handler.CefFileSchemeHandlerFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Test the URL to file mapping of CefFileSchemeHandlerFactory.
+class FileSchemeHandlerFactoryTest {
+    private static class Factory extends CefFileSchemeHandlerFactory {
+        Factory(Path root) {
+            super(root);
+        }
+
+        Path map(String url) {
+            return resolve(url);
+        }
+    }
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void resolvesBelowRoot() throws IOException {
+        Path root = Files.createDirectories(dir.resolve("root"));
+        Files.createDirectories(root.resolve("sub"));
+        Files.write(root.resolve("sub/a.txt"), new byte[] {1});
+        Factory factory = new Factory(root);
+
+        assertEquals(root.resolve("sub/a.txt"), factory.map("app://host/sub/a.txt"));
+        assertEquals(root.resolve("sub/index.html"), factory.map("app://host/sub/"));
+        // Missing files are served as not found.
+        assertEquals(root.resolve("missing.txt"), factory.map("app://host/missing.txt"));
+    }
+
+    @Test
+    void rejectsDotDot() throws IOException {
+        Path root = Files.createDirectories(dir.resolve("root"));
+        Files.write(dir.resolve("secret.txt"), new byte[] {1});
+        Factory factory = new Factory(root);
+
+        assertNull(factory.map("app://host/../secret.txt"));
+        assertNull(factory.map("app://host/sub/%2E%2E/%2E%2E/secret.txt"));
+    }
+
+    @Test
+    void rejectsSymbolicLinkOutOfRoot() throws IOException {
+        Path root = Files.createDirectories(dir.resolve("root"));
+        Path outside = Files.createDirectories(dir.resolve("outside"));
+        Files.write(outside.resolve("secret.txt"), new byte[] {1});
+        Files.write(root.resolve("inside.txt"), new byte[] {1});
+        try {
+            Files.createSymbolicLink(root.resolve("file-link"), outside.resolve("secret.txt"));
+            Files.createSymbolicLink(root.resolve("dir-link"), outside);
+            Files.createSymbolicLink(root.resolve("inside-link"), root.resolve("inside.txt"));
+        } catch (UnsupportedOperationException | IOException e) {
+            assumeTrue(false, "Symbolic links are not supported");
+        }
+        Factory factory = new Factory(root);
+
+        assertNull(factory.map("app://host/file-link"));
+        assertNull(factory.map("app://host/dir-link/secret.txt"));
+        // Links that stay within the root are allowed.
+        assertEquals(root.resolve("inside-link"), factory.map("app://host/inside-link"));
+    }
+}
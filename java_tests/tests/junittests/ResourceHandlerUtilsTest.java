@@ -0,0 +1,136 @@
+// Copyright (c) 2019 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package tests.junittests;
+
+import static org.cef.handler.ResourceHandlerUtils.parseRange;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.cef.handler.ResourceHandlerUtils;
+import org.junit.jupiter.api.Test;
+
+// Test the ResourceHandlerUtils implementation.
+class ResourceHandlerUtilsTest {
+    private static final long[] UNSATISFIABLE = ResourceHandlerUtils.UNSATISFIABLE_RANGE;
+
+    @Test
+    void parseRangeBounded() {
+        assertArrayEquals(new long[] {0, 99}, parseRange("bytes=0-99", 1000));
+        assertArrayEquals(new long[] {5, 5}, parseRange("bytes=5-5", 1000));
+        assertArrayEquals(new long[] {10, 20}, parseRange(" Bytes=10 - 20 ", 1000));
+    }
+
+    @Test
+    void parseRangeOpenEnded() {
+        assertArrayEquals(new long[] {100, 999}, parseRange("bytes=100-", 1000));
+        assertArrayEquals(new long[] {999, 999}, parseRange("bytes=999-", 1000));
+    }
+
+    @Test
+    void parseRangeSuffix() {
+        assertArrayEquals(new long[] {900, 999}, parseRange("bytes=-100", 1000));
+        // A suffix longer than the resource selects the whole resource.
+        assertArrayEquals(new long[] {0, 9}, parseRange("bytes=-100", 10));
+        assertSame(UNSATISFIABLE, parseRange("bytes=-0", 1000));
+        assertSame(UNSATISFIABLE, parseRange("bytes=-5", 0));
+    }
+
+    @Test
+    void parseRangePastEnd() {
+        // The end is clamped to the resource length.
+        assertArrayEquals(new long[] {500, 999}, parseRange("bytes=500-5000", 1000));
+        assertSame(UNSATISFIABLE, parseRange("bytes=1000-", 1000));
+        assertSame(UNSATISFIABLE, parseRange("bytes=1000-2000", 1000));
+        assertSame(UNSATISFIABLE, parseRange("bytes=0-", 0));
+    }
+
+    @Test
+    void parseRangeIgnored() {
+        assertNull(parseRange(null, 1000));
+        assertNull(parseRange("", 1000));
+        assertNull(parseRange("items=0-10", 1000));
+        assertNull(parseRange("bytes=", 1000));
+        assertNull(parseRange("bytes=-", 1000));
+        assertNull(parseRange("bytes=10", 1000));
+        assertNull(parseRange("bytes=20-10", 1000));
+        assertNull(parseRange("bytes=0-10,20-30", 1000));
+        assertNull(parseRange("bytes=--5", 1000));
+        assertNull(parseRange("bytes=+5-10", 1000));
+        assertNull(parseRange("bytes=a-b", 1000));
+        assertNull(parseRange("bytes=0-99999999999999999999", 1000));
+    }
+
+    @Test
+    void httpDate() {
+        long millis = 784111777000L;
+        String date = ResourceHandlerUtils.formatHttpDate(millis);
+        assertEquals("Sun, 6 Nov 1994 08:49:37 GMT", date);
+        assertEquals(millis, ResourceHandlerUtils.parseHttpDate(date));
+        assertEquals(-1, ResourceHandlerUtils.parseHttpDate("yesterday"));
+        assertEquals(-1, ResourceHandlerUtils.parseHttpDate(null));
+    }
+
+    @Test
+    void notModifiedByETag() {
+        String etag = ResourceHandlerUtils.makeETag(10, 20);
+        assertTrue(ResourceHandlerUtils.isNotModified(etag, null, etag, 0));
+        assertTrue(ResourceHandlerUtils.isNotModified("\"x\", " + etag, null, etag, 0));
+        assertTrue(ResourceHandlerUtils.isNotModified("*", null, etag, 0));
+        // If-None-Match uses the weak comparison.
+        assertTrue(ResourceHandlerUtils.isNotModified("W/" + etag, null, etag, 0));
+        assertFalse(ResourceHandlerUtils.isNotModified("\"x\"", null, etag, 0));
+    }
+
+    @Test
+    void notModifiedBySince() {
+        long modified = 784111777123L;
+        String date = ResourceHandlerUtils.formatHttpDate(784111777000L);
+        assertTrue(ResourceHandlerUtils.isNotModified(null, date, "\"e\"", modified));
+        assertFalse(ResourceHandlerUtils.isNotModified(null, date, "\"e\"", modified + 1000));
+        assertFalse(ResourceHandlerUtils.isNotModified(null, "invalid", "\"e\"", modified));
+        assertFalse(ResourceHandlerUtils.isNotModified(null, date, "\"e\"", -1));
+        // If-None-Match takes precedence.
+        assertFalse(ResourceHandlerUtils.isNotModified("\"x\"", date, "\"e\"", modified));
+    }
+
+    @Test
+    void rangeApplicable() {
+        String etag = ResourceHandlerUtils.makeETag(10, 20);
+        long modified = 784111777000L;
+        String date = ResourceHandlerUtils.formatHttpDate(modified);
+        assertTrue(ResourceHandlerUtils.isRangeApplicable((String) null, etag, modified));
+        assertTrue(ResourceHandlerUtils.isRangeApplicable(etag, etag, modified));
+        assertFalse(ResourceHandlerUtils.isRangeApplicable("\"other\"", etag, modified));
+        assertTrue(ResourceHandlerUtils.isRangeApplicable(date, etag, modified));
+        assertFalse(ResourceHandlerUtils.isRangeApplicable(date, etag, modified + 1000));
+    }
+
+    @Test
+    void rangeNotApplicableForWeakETag() {
+        String etag = ResourceHandlerUtils.makeETag(10, 20);
+        assertFalse(ResourceHandlerUtils.isRangeApplicable("W/" + etag, etag, 0));
+        assertFalse(ResourceHandlerUtils.isRangeApplicable("W/" + etag, "W/" + etag, 0));
+    }
+
+    @Test
+    void urlPath() {
+        assertEquals("dir/file.js", ResourceHandlerUtils.getUrlPath("app://host/dir/file.js?x=1"));
+        assertEquals("a b", ResourceHandlerUtils.getUrlPath("app://host//a%20b"));
+        assertEquals("", ResourceHandlerUtils.getUrlPath("app://host"));
+        assertNull(ResourceHandlerUtils.getUrlPath("app://host/a b"));
+    }
+
+    @Test
+    void mimeType() {
+        assertEquals("text/javascript", ResourceHandlerUtils.guessMimeType("dir/app.JS"));
+        assertEquals("application/wasm", ResourceHandlerUtils.guessMimeType("a.wasm"));
+        assertEquals(ResourceHandlerUtils.DEFAULT_MIME_TYPE,
+                ResourceHandlerUtils.guessMimeType("dir.d/file"));
+    }
+}
@@ -21,6 +21,7 @@ import org.cef.handler.CefLoadHandler;
 import org.cef.handler.CefRequestHandler;
 import org.cef.handler.CefResourceHandler;
 import org.cef.handler.CefResourceRequestHandler;
+import org.cef.handler.CefResponseFilter;
 import org.cef.misc.BoolRef;
 import org.cef.misc.StringRef;
 import org.cef.network.CefRequest;
@@ -302,6 +303,12 @@ class TestFrame extends JFrame implements CefLifeSpanHandler, CefLoadHandler, Ce
         return false;
     }
 
+    @Override
+    public CefResponseFilter getResourceResponseFilter(
+            CefBrowser browser, CefFrame frame, CefRequest request, CefResponse response) {
+        return null;
+    }
+
     @Override
     public void onResourceLoadComplete(CefBrowser browser, CefFrame frame, CefRequest request,
             CefResponse response, CefURLRequest.Status status, long receivedContentLength) {}
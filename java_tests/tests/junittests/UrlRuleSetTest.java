@@ -0,0 +1,131 @@
+// Copyright (c) 2019 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+package tests.junittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.cef.network.CefUrlRule;
+import org.cef.network.CefUrlRuleSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+// Test the CefUrlRuleSet implementation.
+class UrlRuleSetTest {
+    private static CefUrlRuleSet ruleSet(CefUrlRule... rules) {
+        return new CefUrlRuleSet(Arrays.asList(rules));
+    }
+
+    private static boolean matchesPath(String glob, String path) {
+        return ruleSet(CefUrlRule.block("example.com" + glob)).match("https://example.com" + path)
+                != null;
+    }
+
+    @Test
+    void glob() {
+        assertTrue(matchesPath("/ads/*", "/ads/banner.png"));
+        assertTrue(matchesPath("/ads/*", "/ads/"));
+        assertFalse(matchesPath("/ads/*", "/ad"));
+        assertTrue(matchesPath("/a?c", "/abc"));
+        assertFalse(matchesPath("/a?c", "/ac"));
+        assertTrue(matchesPath("/*.js", "/dir/app.js"));
+        assertFalse(matchesPath("/*.js", "/dir/app.json"));
+        assertTrue(matchesPath("/*a*b*", "/xxaxxbxx"));
+        assertFalse(matchesPath("/*a*b", "/xxbxxa"));
+        assertTrue(matchesPath("/**", "/"));
+        assertTrue(matchesPath("/track?id=*", "/track?id=42"));
+        // The fragment is not part of the matched path.
+        assertFalse(matchesPath("/page#top", "/page#top"));
+        // Without a path all URLs of the host match.
+        assertTrue(matchesPath("", "/anything?x=1"));
+        assertTrue(matchesPath("/*", ""));
+    }
+
+    @Test
+    void hostMatchesSubdomains() {
+        CefUrlRuleSet rules = ruleSet(CefUrlRule.block("example.com"));
+        assertEquals(CefUrlRule.Action.BLOCK, rules.match("https://example.com/").getAction());
+        assertEquals(CefUrlRule.Action.BLOCK, rules.match("http://a.b.example.com").getAction());
+        assertEquals(CefUrlRule.Action.BLOCK,
+                rules.match("https://user@EXAMPLE.com.:8080/x").getAction());
+        assertNull(rules.match("https://notexample.com/"));
+        assertNull(rules.match("https://example.com.evil.org/"));
+        assertNull(rules.match("not a url"));
+        assertNull(rules.match(null));
+    }
+
+    @Test
+    void wildcardHost() {
+        CefUrlRuleSet rules =
+                ruleSet(CefUrlRule.block("*/tracker.js"), CefUrlRule.block("*.ads.net"));
+        assertEquals("*/tracker.js", rules.match("https://any.host/tracker.js").getPattern());
+        assertEquals("*.ads.net", rules.match("https://cdn.ads.net/x").getPattern());
+        assertEquals("*.ads.net", rules.match("https://ads.net/x").getPattern());
+        assertNull(rules.match("https://any.host/other.js"));
+        assertThrows(IllegalArgumentException.class, () -> CefUrlRule.block("a*.com"));
+        assertThrows(IllegalArgumentException.class, () -> CefUrlRule.block(""));
+        assertThrows(IllegalArgumentException.class, () -> CefUrlRule.block("example.com:80"));
+    }
+
+    @Test
+    void precedence() {
+        CefUrlRule first = CefUrlRule.block("a.example.com");
+        CefUrlRule second = CefUrlRule.redirect("example.com", "https://other.org/blocked.html");
+        CefUrlRule allow = CefUrlRule.allow("example.com/public/*");
+        CefUrlRuleSet rules = ruleSet(first, second, allow);
+        // The rule added first wins, independent of how specific the host is.
+        assertSame(first, rules.match("https://a.example.com/"));
+        assertSame(second, rules.match("https://b.example.com/"));
+        // ALLOW wins over all other rules.
+        assertSame(allow, rules.match("https://a.example.com/public/x"));
+    }
+
+    @Test
+    void redirectUrl() {
+        CefUrlRule origin = CefUrlRule.redirect("old.example.com", "https://new.example.org");
+        assertEquals("https://new.example.org/a/b?c=d",
+                origin.getRedirectUrl("http://old.example.com:81/a/b?c=d"));
+        assertEquals("https://new.example.org/?q",
+                origin.getRedirectUrl("http://old.example.com?q"));
+        assertEquals("https://new.example.org", origin.getRedirectUrl("http://old.example.com"));
+
+        CefUrlRule full = CefUrlRule.redirect("old.example.com", "https://new.example.org/x");
+        assertEquals("https://new.example.org/x", full.getRedirectUrl("http://old.example.com/a"));
+        assertThrows(
+                IllegalArgumentException.class, () -> CefUrlRule.redirect("a.com", "b.com"));
+    }
+
+    @Test
+    void redirectIntoOwnSubdomainIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ruleSet(CefUrlRule.redirect("example.com", "https://www.example.com")));
+        assertThrows(IllegalArgumentException.class,
+                ()
+                        -> ruleSet(CefUrlRule.redirect("a.com", "https://b.com/x"),
+                                CefUrlRule.redirect("b.com", "https://a.com/y")));
+        // Allowed targets can't loop.
+        ruleSet(CefUrlRule.redirect("example.com", "https://www.example.com"),
+                CefUrlRule.allow("www.example.com"));
+    }
+
+    @Test
+    void chainedRedirectIsBlocked() {
+        // The target host is only redirected again for the paths matched by the rule.
+        CefUrlRule rule = CefUrlRule.redirect("example.com/old/*", "https://example.com");
+        CefUrlRuleSet rules = ruleSet(rule);
+        CefUrlRule result = rules.match("https://example.com/old/page");
+        assertEquals(CefUrlRule.Action.BLOCK, result.getAction());
+        assertEquals(rule.getPattern(), result.getPattern());
+
+        CefUrlRuleSet moved = ruleSet(CefUrlRule.redirect("example.com/old/*", "https://new.org"));
+        assertEquals(CefUrlRule.Action.REDIRECT,
+                moved.match("https://example.com/old/page").getAction());
+    }
+}
@@ -0,0 +1,61 @@
+// Copyright (c) 2014 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+#include "CefBinaryQueryCallback_N.h"
+
+#include "binary_query_router.h"
+#include "jni_scoped_helpers.h"
+#include "jni_util.h"
+#include "value_codec.h"
+
+namespace {
+
+CefRefPtr<BinaryQueryCallback> GetSelf(jlong self) {
+  return reinterpret_cast<BinaryQueryCallback*>(self);
+}
+
+void ClearSelf(JNIEnv* env, jobject obj) {
+  // Clear the reference added in BinaryQueryRouter::OnQuery.
+  SetCefForJNIObject<BinaryQueryCallback>(env, obj, NULL,
+                                          "CefBinaryQueryCallback");
+}
+
+}  // namespace
+
+JNIEXPORT void JNICALL
+Java_org_cef_browser_CefBinaryQueryCallback_1N_N_1Success(
+    JNIEnv* env,
+    jobject obj,
+    jlong self,
+    jbyteArray jresponse) {
+  CefRefPtr<BinaryQueryCallback> callback = GetSelf(self);
+  if (!callback || !jresponse)
+    return;
+
+  jsize size = env->GetArrayLength(jresponse);
+  void* data = env->GetPrimitiveArrayCritical(jresponse, NULL);
+  if (!data)
+    return;
+  CefRefPtr<CefValue> response = DecodeValue(data, size);
+  env->ReleasePrimitiveArrayCritical(jresponse, data, JNI_ABORT);
+  if (!response)
+    return;
+
+  if (!callback->Success(response))
+    ClearSelf(env, obj);
+}
+
+JNIEXPORT void JNICALL
+Java_org_cef_browser_CefBinaryQueryCallback_1N_N_1Failure(
+    JNIEnv* env,
+    jobject obj,
+    jlong self,
+    jint error_code,
+    jstring error_message) {
+  CefRefPtr<BinaryQueryCallback> callback = GetSelf(self);
+  if (!callback)
+    return;
+  callback->Failure(error_code, GetJNIString(env, error_message));
+  ClearSelf(env, obj);
+}
@@ -1016,6 +1016,16 @@ void create(std::shared_ptr<JNIObjectsForCreate> objs,
     extra_info = CefDictionaryValue::Create();
     extra_info->SetList("router_configs", router_configs);
   }
+  int user_scripts_version;
+  CefRefPtr<CefDictionaryValue> user_scripts =
+      clientHandler->GetUserScripts(&user_scripts_version);
+  if (user_scripts->GetSize() > 0) {
+    // Send the user scripts to UserScriptRendererSide::OnBrowserCreated.
+    if (!extra_info)
+      extra_info = CefDictionaryValue::Create();
+    extra_info->SetDictionary("user_scripts", user_scripts);
+    extra_info->SetInt("user_scripts_version", user_scripts_version);
+  }
 
   bool result = CefBrowserHost::CreateBrowser(
       windowInfo, clientHandler.get(), strUrl, settings, extra_info, context);
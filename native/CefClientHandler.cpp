@@ -27,6 +27,39 @@ Java_org_cef_handler_CefClientHandler_N_1addMessageRouter(
   client->AddMessageRouter(env, jmessageRouter);
 }
 
+JNIEXPORT void JNICALL
+Java_org_cef_handler_CefClientHandler_N_1addUserScript(JNIEnv* env,
+                                                       jobject clientHandler,
+                                                       jstring name,
+                                                       jstring source,
+                                                       jobjectArray includes,
+                                                       jobjectArray excludes,
+                                                       jint runAt,
+                                                       jboolean allFrames) {
+  CefRefPtr<ClientHandler> client = GetCefFromJNIObject<ClientHandler>(
+      env, clientHandler, "CefClientHandler");
+  if (!client.get())
+    return;
+
+  std::vector<CefString> include_list, exclude_list;
+  GetJNIStringArray(env, includes, include_list);
+  GetJNIStringArray(env, excludes, exclude_list);
+
+  CefRefPtr<CefDictionaryValue> script = CefDictionaryValue::Create();
+  script->SetString("source", GetJNIString(env, source));
+  CefRefPtr<CefListValue> list = CefListValue::Create();
+  for (size_t i = 0; i < include_list.size(); ++i)
+    list->SetString(i, include_list[i]);
+  script->SetList("includes", list);
+  list = CefListValue::Create();
+  for (size_t i = 0; i < exclude_list.size(); ++i)
+    list->SetString(i, exclude_list[i]);
+  script->SetList("excludes", list);
+  script->SetInt("run_at", runAt);
+  script->SetBool("all_frames", allFrames != JNI_FALSE);
+  client->AddUserScript(env, GetJNIString(env, name), script);
+}
+
 JNIEXPORT void JNICALL
 Java_org_cef_handler_CefClientHandler_N_1removeContextMenuHandler(
     JNIEnv* env,
@@ -127,6 +160,17 @@ Java_org_cef_handler_CefClientHandler_N_1removeMessageRouter(
   client->RemoveMessageRouter(env, jmessageRouter);
 }
 
+JNIEXPORT void JNICALL
+Java_org_cef_handler_CefClientHandler_N_1removeUserScript(JNIEnv* env,
+                                                          jobject clientHandler,
+                                                          jstring name) {
+  CefRefPtr<ClientHandler> client = GetCefFromJNIObject<ClientHandler>(
+      env, clientHandler, "CefClientHandler");
+  if (!client.get())
+    return;
+  client->RemoveUserScript(env, GetJNIString(env, name));
+}
+
 JNIEXPORT void JNICALL
 Java_org_cef_handler_CefClientHandler_N_1removeRenderHandler(
     JNIEnv* env,
@@ -26,6 +26,22 @@ Java_org_cef_handler_CefClientHandler_N_1addMessageRouter(JNIEnv*,
                                                           jobject,
                                                           jobject);
 
+/*
+ * Class:     org_cef_handler_CefClientHandler
+ * Method:    N_addUserScript
+ * Signature:
+ * (Ljava/lang/String;Ljava/lang/String;[Ljava/lang/String;[Ljava/lang/String;IZ)V
+ */
+JNIEXPORT void JNICALL
+Java_org_cef_handler_CefClientHandler_N_1addUserScript(JNIEnv*,
+                                                       jobject,
+                                                       jstring,
+                                                       jstring,
+                                                       jobjectArray,
+                                                       jobjectArray,
+                                                       jint,
+                                                       jboolean);
+
 /*
  * Class:     org_cef_handler_CefClientHandler
  * Method:    N_removeContextMenuHandler
@@ -136,6 +152,16 @@ Java_org_cef_handler_CefClientHandler_N_1removeMessageRouter(JNIEnv*,
                                                              jobject,
                                                              jobject);
 
+/*
+ * Class:     org_cef_handler_CefClientHandler
+ * Method:    N_removeUserScript
+ * Signature: (Ljava/lang/String;)V
+ */
+JNIEXPORT void JNICALL
+Java_org_cef_handler_CefClientHandler_N_1removeUserScript(JNIEnv*,
+                                                          jobject,
+                                                          jstring);
+
 /*
  * Class:     org_cef_handler_CefClientHandler
  * Method:    N_removeRenderHandler
@@ -10,6 +10,7 @@
 #include "include/wrapper/cef_closure_task.h"
 
 #include "completion_callback.h"
+#include "cookie_batch.h"
 #include "cookie_visitor.h"
 #include "jni_scoped_helpers.h"
 #include "jni_util.h"
@@ -54,6 +55,15 @@ CefCookie GetJNICookie(JNIEnv* env, jobject jcookie) {
   return cookie;
 }
 
+void SetCookiesOnIOThread(CefRefPtr<CefCookieManager> manager,
+                          std::vector<CefCookie> cookies,
+                          CefRefPtr<CookieBatchSetCallback> callback) {
+  for (size_t i = 0; i < cookies.size(); ++i) {
+    CefString url = GetCookieUrl(&cookies[i]);
+    manager->SetCookie(url, cookies[i], callback.get());
+  }
+}
+
 }  // namespace
 
 JNIEXPORT jobject JNICALL
@@ -150,6 +160,62 @@ Java_org_cef_network_CefCookieManager_1N_N_1SetCookie(JNIEnv* env,
   return result ? JNI_TRUE : JNI_FALSE;
 }
 
+JNIEXPORT jboolean JNICALL
+Java_org_cef_network_CefCookieManager_1N_N_1GetAllCookies(JNIEnv* env,
+                                                          jobject obj,
+                                                          jlong self,
+                                                          jobject jfuture) {
+  CefRefPtr<CefCookieManager> manager = GetSelf(self);
+  if (!manager || !jfuture)
+    return JNI_FALSE;
+
+  // Cookies are collected natively and passed to Java in a single call.
+  CefRefPtr<CookieBatchVisitor> visitor = new CookieBatchVisitor(env, jfuture);
+  if (!manager->VisitAllCookies(visitor.get())) {
+    visitor->Cancel();
+    return JNI_FALSE;
+  }
+  return JNI_TRUE;
+}
+
+JNIEXPORT jboolean JNICALL
+Java_org_cef_network_CefCookieManager_1N_N_1SetCookies(JNIEnv* env,
+                                                       jobject obj,
+                                                       jlong self,
+                                                       jbyteArray jdata,
+                                                       jint joffset,
+                                                       jint jlength,
+                                                       jobject jfuture) {
+  CefRefPtr<CefCookieManager> manager = GetSelf(self);
+  if (!manager || !jdata || !jfuture)
+    return JNI_FALSE;
+
+  if (joffset < 0 || jlength < 0 ||
+      env->GetArrayLength(jdata) - joffset < jlength) {
+    return JNI_FALSE;
+  }
+
+  // Parse the batch without copying the array. No JNI calls may be made until
+  // it is released.
+  std::vector<CefCookie> cookies;
+  char* data = static_cast<char*>(env->GetPrimitiveArrayCritical(jdata, NULL));
+  if (!data)
+    return JNI_FALSE;
+  bool parsed = ParseCookieBatch(data + joffset, jlength, &cookies);
+  env->ReleasePrimitiveArrayCritical(jdata, data, JNI_ABORT);
+  if (!parsed)
+    return JNI_FALSE;
+
+  // The method CefCookieManager::SetCookie must be called on the IO thread.
+  CefRefPtr<CookieBatchSetCallback> callback =
+      new CookieBatchSetCallback(env, jfuture);
+  bool result = CefPostTask(
+      TID_IO, base::Bind(&SetCookiesOnIOThread, manager, cookies, callback));
+  if (!result)
+    callback->Cancel();
+  return result ? JNI_TRUE : JNI_FALSE;
+}
+
 JNIEXPORT jboolean JNICALL
 Java_org_cef_network_CefCookieManager_1N_N_1DeleteCookies(JNIEnv* env,
                                                           jobject obj,
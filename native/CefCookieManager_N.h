@@ -71,6 +71,31 @@ Java_org_cef_network_CefCookieManager_1N_N_1SetCookie(JNIEnv*,
                                                       jstring,
                                                       jobject);
 
+/*
+ * Class:     org_cef_network_CefCookieManager_N
+ * Method:    N_GetAllCookies
+ * Signature: (JLjava/util/concurrent/CompletableFuture;)Z
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_cef_network_CefCookieManager_1N_N_1GetAllCookies(JNIEnv*,
+                                                          jobject,
+                                                          jlong,
+                                                          jobject);
+
+/*
+ * Class:     org_cef_network_CefCookieManager_N
+ * Method:    N_SetCookies
+ * Signature: (J[BIILjava/util/concurrent/CompletableFuture;)Z
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_cef_network_CefCookieManager_1N_N_1SetCookies(JNIEnv*,
+                                                       jobject,
+                                                       jlong,
+                                                       jbyteArray,
+                                                       jint,
+                                                       jint,
+                                                       jobject);
+
 /*
  * Class:     org_cef_network_CefCookieManager_N
  * Method:    N_DeleteCookies
@@ -0,0 +1,65 @@
+// Copyright (c) 2014 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+#include "CefCookiePolicy_N.h"
+
+#include "cookie_access_filter.h"
+#include "cookie_policy.h"
+#include "jni_scoped_helpers.h"
+#include "jni_util.h"
+
+namespace {
+
+const char kCefClassName[] = "CefCookiePolicy";
+
+}  // namespace
+
+JNIEXPORT void JNICALL
+Java_org_cef_network_CefCookiePolicy_1N_N_1Create(JNIEnv* env,
+                                                  jobject obj,
+                                                  jintArray jactions,
+                                                  jintArray jscopes,
+                                                  jobjectArray jdomains,
+                                                  jobjectArray jnamePatterns,
+                                                  jobject jfallback) {
+  std::vector<CefString> domains, name_patterns;
+  GetJNIStringArray(env, jdomains, domains);
+  GetJNIStringArray(env, jnamePatterns, name_patterns);
+
+  jsize count = env->GetArrayLength(jactions);
+  if (env->GetArrayLength(jscopes) != count ||
+      domains.size() != static_cast<size_t>(count) ||
+      name_patterns.size() != static_cast<size_t>(count)) {
+    return;
+  }
+
+  std::vector<jint> actions(count), scopes(count);
+  if (count > 0) {
+    env->GetIntArrayRegion(jactions, 0, count, &actions[0]);
+    env->GetIntArrayRegion(jscopes, 0, count, &scopes[0]);
+  }
+
+  std::vector<CookiePolicy::Rule> rules(count);
+  for (jsize i = 0; i < count; ++i) {
+    CookiePolicy::Rule& rule = rules[i];
+    rule.action = static_cast<CookiePolicy::Action>(actions[i]);
+    rule.scope = static_cast<CookiePolicy::Scope>(scopes[i]);
+    rule.domain = domains[i].ToString();
+    rule.name_pattern = name_patterns[i].ToString();
+  }
+
+  CefRefPtr<CefCookieAccessFilter> fallback;
+  if (jfallback)
+    fallback = new CookieAccessFilter(env, jfallback);
+
+  CefRefPtr<CookiePolicy> policy = new CookiePolicy(rules, fallback);
+  SetCefForJNIObject(env, obj, policy.get(), kCefClassName);
+}
+
+JNIEXPORT void JNICALL
+Java_org_cef_network_CefCookiePolicy_1N_N_1Dispose(JNIEnv* env,
+                                                   jobject obj,
+                                                   jlong self) {
+  SetCefForJNIObject<CookiePolicy>(env, obj, NULL, kCefClassName);
+}
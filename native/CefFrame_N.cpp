@@ -6,6 +6,7 @@
 
 #include "include/cef_frame.h"
 
+#include "javascript_evaluation.h"
 #include "jni_scoped_helpers.h"
 #include "jni_util.h"
 
@@ -115,6 +116,22 @@ Java_org_cef_browser_CefFrame_1N_N_1ExecuteJavaScript(JNIEnv* env,
                            line);
 }
 
+JNIEXPORT jint JNICALL
+Java_org_cef_browser_CefFrame_1N_N_1EvaluateJavaScript(JNIEnv* env,
+                                                       jobject obj,
+                                                       jlong self,
+                                                       jint id,
+                                                       jobjectArray expressions,
+                                                       jboolean awaitPromises) {
+  CefRefPtr<CefFrame> frame = GetSelf(self);
+  if (!frame)
+    return 0;
+  std::vector<CefString> expression_list;
+  GetJNIStringArray(env, expressions, expression_list);
+  return SendJavaScriptEvaluation(frame, id, expression_list,
+                                  awaitPromises != JNI_FALSE);
+}
+
 JNIEXPORT void JNICALL Java_org_cef_browser_CefFrame_1N_N_1Undo(JNIEnv* env,
                                                                 jobject obj,
                                                                 jlong self) {
@@ -90,6 +90,19 @@ Java_org_cef_browser_CefFrame_1N_N_1ExecuteJavaScript(JNIEnv*,
                                                       jstring,
                                                       jint);
 
+/*
+ * Class:     org_cef_browser_CefFrame_N
+ * Method:    N_EvaluateJavaScript
+ * Signature: (JI[Ljava/lang/String;Z)I
+ */
+JNIEXPORT jint JNICALL
+Java_org_cef_browser_CefFrame_1N_N_1EvaluateJavaScript(JNIEnv*,
+                                                       jobject,
+                                                       jlong,
+                                                       jint,
+                                                       jobjectArray,
+                                                       jboolean);
+
 /*
  * Class:     org_cef_browser_CefFrame_N
  * Method:    N_Undo
@@ -153,6 +166,19 @@ JNIEXPORT void JNICALL Java_org_cef_browser_CefFrame_1N_N_1SelectAll(JNIEnv*,
                                                                      jobject,
                                                                      jlong);
 
+/*
+ * Class:     org_cef_browser_CefFrame_N
+ * Method:    N_EvaluateJavaScript
+ * Signature: (JI[Ljava/lang/String;Z)I
+ */
+JNIEXPORT jint JNICALL
+Java_org_cef_browser_CefFrame_1N_N_1EvaluateJavaScript(JNIEnv*,
+                                                       jobject,
+                                                       jlong,
+                                                       jint,
+                                                       jobjectArray,
+                                                       jboolean);
+
 /*
  * Class:     org_cef_browser_CefFrame_N
  * Method:    N_Undo
@@ -74,11 +74,30 @@ Java_org_cef_network_CefPostDataElement_1N_N_1SetToBytes(JNIEnv* env,
   if (!dataElement)
     return;
 
-  jbyte* jbyte = env->GetByteArrayElements(jbytes, NULL);
-  if (!jbyte)
+  // Access the array without copying it. No JNI calls may be made until it is
+  // released.
+  void* bytes = env->GetPrimitiveArrayCritical(jbytes, NULL);
+  if (!bytes)
     return;
-  dataElement->SetToBytes(jsize, jbyte);
-  env->ReleaseByteArrayElements(jbytes, jbyte, 0);
+  dataElement->SetToBytes(jsize, bytes);
+  env->ReleasePrimitiveArrayCritical(jbytes, bytes, JNI_ABORT);
+}
+
+JNIEXPORT void JNICALL
+Java_org_cef_network_CefPostDataElement_1N_N_1SetToBuffer(JNIEnv* env,
+                                                          jobject obj,
+                                                          jlong self,
+                                                          jobject jbuffer,
+                                                          jint jposition,
+                                                          jint jsize) {
+  CefRefPtr<CefPostDataElement> dataElement = GetSelf(self);
+  if (!dataElement)
+    return;
+
+  char* data = static_cast<char*>(env->GetDirectBufferAddress(jbuffer));
+  if (!data)
+    return;
+  dataElement->SetToBytes(jsize, data + jposition);
 }
 
 JNIEXPORT jobject JNICALL
@@ -132,12 +151,27 @@ Java_org_cef_network_CefPostDataElement_1N_N_1GetBytes(JNIEnv* env,
   if (!dataElement)
     return 0;
 
-  jbyte* jbyte = env->GetByteArrayElements(jbytes, NULL);
-  if (!jbyte)
+  void* bytes = env->GetPrimitiveArrayCritical(jbytes, NULL);
+  if (!bytes)
     return 0;
-  memset(jbyte, 0, jsize);
-
-  size_t readLen = dataElement->GetBytes(jsize, jbyte);
-  env->ReleaseByteArrayElements(jbytes, jbyte, 0);
+  size_t readLen = dataElement->GetBytes(jsize, bytes);
+  env->ReleasePrimitiveArrayCritical(jbytes, bytes, 0);
   return (jint)readLen;
 }
+
+JNIEXPORT jint JNICALL
+Java_org_cef_network_CefPostDataElement_1N_N_1GetBuffer(JNIEnv* env,
+                                                        jobject obj,
+                                                        jlong self,
+                                                        jobject jbuffer,
+                                                        jint jposition,
+                                                        jint jsize) {
+  CefRefPtr<CefPostDataElement> dataElement = GetSelf(self);
+  if (!dataElement)
+    return 0;
+
+  char* data = static_cast<char*>(env->GetDirectBufferAddress(jbuffer));
+  if (!data)
+    return 0;
+  return (jint)dataElement->GetBytes(jsize, data + jposition);
+}
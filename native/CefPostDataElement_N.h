@@ -66,6 +66,19 @@ Java_org_cef_network_CefPostDataElement_1N_N_1SetToBytes(JNIEnv*,
                                                          jint,
                                                          jbyteArray);
 
+/*
+ * Class:     org_cef_network_CefPostDataElement_N
+ * Method:    N_SetToBuffer
+ * Signature: (JLjava/nio/ByteBuffer;II)V
+ */
+JNIEXPORT void JNICALL
+Java_org_cef_network_CefPostDataElement_1N_N_1SetToBuffer(JNIEnv*,
+                                                          jobject,
+                                                          jlong,
+                                                          jobject,
+                                                          jint,
+                                                          jint);
+
 /*
  * Class:     org_cef_network_CefPostDataElement_N
  * Method:    N_GetType
@@ -104,6 +117,19 @@ Java_org_cef_network_CefPostDataElement_1N_N_1GetBytes(JNIEnv*,
                                                        jint,
                                                        jbyteArray);
 
+/*
+ * Class:     org_cef_network_CefPostDataElement_N
+ * Method:    N_GetBuffer
+ * Signature: (JLjava/nio/ByteBuffer;II)I
+ */
+JNIEXPORT jint JNICALL
+Java_org_cef_network_CefPostDataElement_1N_N_1GetBuffer(JNIEnv*,
+                                                        jobject,
+                                                        jlong,
+                                                        jobject,
+                                                        jint,
+                                                        jint);
+
 #ifdef __cplusplus
 }
 #endif
@@ -26,10 +26,9 @@ JNIEXPORT jobject JNICALL
 Java_org_cef_browser_CefRequestContext_1N_N_1CreateContext(JNIEnv* env,
                                                            jclass cls,
                                                            jobject jhandler) {
-  CefRefPtr<CefRequestContextHandler> handler = NULL;
-  if (jhandler != NULL) {
-    handler = new RequestContextHandler(env, jhandler);
-  }
+  // The handler is always created so that URL rules can be installed later.
+  CefRefPtr<CefRequestContextHandler> handler =
+      new RequestContextHandler(env, jhandler);
 
   // TODO(JCEF): Expose CefRequestContextSettings.
   CefRequestContextSettings settings;
@@ -56,6 +55,61 @@ Java_org_cef_browser_CefRequestContext_1N_N_1IsGlobal(JNIEnv* env,
   return context->IsGlobal() ? JNI_TRUE : JNI_FALSE;
 }
 
+JNIEXPORT jboolean JNICALL
+Java_org_cef_browser_CefRequestContext_1N_N_1SetUrlRules(JNIEnv* env,
+                                                         jobject obj,
+                                                         jintArray jactions,
+                                                         jobjectArray jhosts,
+                                                         jobjectArray jpaths,
+                                                         jobjectArray jtargets) {
+  CefRefPtr<CefRequestContext> context =
+      GetCefFromJNIObject<CefRequestContext>(env, obj, "CefRequestContext");
+  if (!context.get())
+    return JNI_FALSE;
+
+  // Only contexts created by N_CreateContext have a handler, and it is always
+  // a RequestContextHandler.
+  CefRefPtr<CefRequestContextHandler> handler = context->GetHandler();
+  if (!handler.get())
+    return JNI_FALSE;
+
+  CefRefPtr<UrlRuleSet> rule_set;
+  if (jactions != NULL) {
+    std::vector<CefString> hosts, paths, targets;
+    GetJNIStringArray(env, jhosts, hosts);
+    GetJNIStringArray(env, jpaths, paths);
+    GetJNIStringArray(env, jtargets, targets);
+
+    jsize count = env->GetArrayLength(jactions);
+    if (hosts.size() != static_cast<size_t>(count) ||
+        paths.size() != static_cast<size_t>(count) ||
+        targets.size() != static_cast<size_t>(count)) {
+      return JNI_FALSE;
+    }
+
+    std::vector<jint> actions(count);
+    if (count > 0)
+      env->GetIntArrayRegion(jactions, 0, count, &actions[0]);
+
+    std::vector<UrlRuleSet::Rule> rules(count);
+    for (jsize i = 0; i < count; ++i) {
+      UrlRuleSet::Rule& rule = rules[i];
+      rule.action = static_cast<UrlRuleSet::Action>(actions[i]);
+      rule.host = hosts[i].ToString();
+      rule.path = paths[i].ToString();
+      rule.target = targets[i].ToString();
+      size_t scheme_end = rule.target.find("://");
+      rule.target_is_origin =
+          scheme_end != std::string::npos &&
+          rule.target.find('/', scheme_end + 3) == std::string::npos;
+    }
+    rule_set = new UrlRuleSet(rules);
+  }
+
+  static_cast<RequestContextHandler*>(handler.get())->SetUrlRuleSet(rule_set);
+  return JNI_TRUE;
+}
+
 JNIEXPORT void JNICALL
 Java_org_cef_browser_CefRequestContext_1N_N_1CefRequestContext_1DTOR(
     JNIEnv* env,
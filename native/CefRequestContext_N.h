@@ -34,6 +34,19 @@ Java_org_cef_browser_CefRequestContext_1N_N_1CreateContext(JNIEnv*,
 JNIEXPORT jboolean JNICALL
 Java_org_cef_browser_CefRequestContext_1N_N_1IsGlobal(JNIEnv*, jobject);
 
+/*
+ * Class:     org_cef_browser_CefRequestContext_N
+ * Method:    N_SetUrlRules
+ * Signature: ([I[Ljava/lang/String;[Ljava/lang/String;[Ljava/lang/String;)Z
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_cef_browser_CefRequestContext_1N_N_1SetUrlRules(JNIEnv*,
+                                                         jobject,
+                                                         jintArray,
+                                                         jobjectArray,
+                                                         jobjectArray,
+                                                         jobjectArray);
+
 /*
  * Class:     org_cef_browser_CefRequestContext_N
  * Method:    N_CefRequestContext_DTOR
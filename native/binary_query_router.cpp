@@ -0,0 +1,298 @@
+// Copyright (c) 2014 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+#include "binary_query_router.h"
+
+#include "include/base/cef_bind.h"
+#include "include/wrapper/cef_closure_task.h"
+
+#include "jni_util.h"
+#include "util.h"
+#include "value_codec.h"
+
+namespace {
+
+// Process message names shared with native/binary_router_renderer_side.cpp.
+const char kBinaryQueryMessage[] = "BinaryQuery";
+const char kBinaryQueryCancelMessage[] = "BinaryQueryCancel";
+const char kBinaryQueryResponseMessage[] = "BinaryQueryResponse";
+
+// Matches the error reported by CefMessageRouterBrowserSide.
+const int kCanceledErrorCode = -1;
+const char kCanceledErrorMessage[] = "The query has been canceled";
+
+}  // namespace
+
+BinaryQueryRouter::BinaryQueryRouter() : next_query_id_(1) {}
+
+void BinaryQueryRouter::AddRouter(JNIEnv* env,
+                                  const CefMessageRouterConfig& config,
+                                  jobject jrouter) {
+  base::AutoLock lock_scope(lock_);
+  routers_[config.js_query_function.ToString()] = new JavaRouter(env, jrouter);
+}
+
+void BinaryQueryRouter::RemoveRouter(const CefMessageRouterConfig& config) {
+  std::string router_name = config.js_query_function.ToString();
+  {
+    base::AutoLock lock_scope(lock_);
+    routers_.erase(router_name);
+  }
+
+  if (CefCurrentlyOn(TID_UI)) {
+    CancelPending(0, router_name, true);
+  } else {
+    CefPostTask(TID_UI, base::Bind(&BinaryQueryRouter::CancelPending, this, 0,
+                                   router_name, true));
+  }
+}
+
+bool BinaryQueryRouter::OnProcessMessageReceived(
+    CefRefPtr<CefBrowser> browser,
+    CefRefPtr<CefFrame> frame,
+    CefRefPtr<CefProcessMessage> message) {
+  REQUIRE_UI_THREAD();
+
+  const std::string name = message->GetName().ToString();
+  if (name == kBinaryQueryMessage) {
+    OnQuery(browser, frame, message->GetArgumentList());
+    return true;
+  }
+  if (name != kBinaryQueryCancelMessage)
+    return false;
+
+  CefRefPtr<CefListValue> args = message->GetArgumentList();
+  auto id_it = query_ids_.find(RequestKey(
+      frame->GetIdentifier(), args->GetString(0).ToString(), args->GetInt(1)));
+  if (id_it == query_ids_.end())
+    return true;
+  int64 query_id = id_it->second;
+  auto it = queries_.find(query_id);
+  Query query = it->second;
+  EraseQuery(it);
+
+  ScopedJNIEnv env;
+  if (!env)
+    return true;
+
+  ScopedJNIBrowser jbrowser(env, browser);
+  ScopedJNIFrame jframe(env, frame);
+  jframe.SetTemporary();
+
+  JNI_CALL_VOID_METHOD(
+      env, query.router->handle_, "onBinaryQueryCanceled",
+      "(Lorg/cef/browser/CefBrowser;Lorg/cef/browser/CefFrame;J)V",
+      jbrowser.get(), jframe.get(), (jlong)query_id);
+  return true;
+}
+
+void BinaryQueryRouter::OnBeforeClose(CefRefPtr<CefBrowser> browser) {
+  CancelPending(browser->GetIdentifier(), std::string(), false);
+}
+
+void BinaryQueryRouter::OnBeforeBrowse(CefRefPtr<CefBrowser> browser,
+                                       CefRefPtr<CefFrame> frame) {
+  if (frame->IsMain())
+    CancelPending(browser->GetIdentifier(), std::string(), false);
+}
+
+void BinaryQueryRouter::OnRenderProcessTerminated(
+    CefRefPtr<CefBrowser> browser) {
+  CancelPending(browser->GetIdentifier(), std::string(), false);
+}
+
+void BinaryQueryRouter::Success(int64 query_id,
+                                CefRefPtr<CefValue> response) {
+  if (!CefCurrentlyOn(TID_UI)) {
+    CefPostTask(TID_UI, base::Bind(&BinaryQueryRouter::Success, this, query_id,
+                                   response));
+    return;
+  }
+
+  auto it = queries_.find(query_id);
+  if (it == queries_.end())
+    return;
+  Query query = it->second;
+  if (!query.persistent)
+    EraseQuery(it);
+  SendResponse(query, true, response, 0, CefString());
+}
+
+void BinaryQueryRouter::Failure(int64 query_id,
+                                int error_code,
+                                const CefString& error_message) {
+  if (!CefCurrentlyOn(TID_UI)) {
+    CefPostTask(TID_UI, base::Bind(&BinaryQueryRouter::Failure, this, query_id,
+                                   error_code, error_message));
+    return;
+  }
+
+  auto it = queries_.find(query_id);
+  if (it == queries_.end())
+    return;
+  Query query = it->second;
+  EraseQuery(it);
+  SendResponse(query, false, nullptr, error_code, error_message);
+}
+
+void BinaryQueryRouter::OnQuery(CefRefPtr<CefBrowser> browser,
+                                CefRefPtr<CefFrame> frame,
+                                CefRefPtr<CefListValue> args) {
+  Query query;
+  query.router_name = args->GetString(0).ToString();
+  query.browser = browser;
+  query.frame = frame;
+  query.request_id = args->GetInt(1);
+  query.persistent = args->GetBool(2);
+  {
+    base::AutoLock lock_scope(lock_);
+    auto it = routers_.find(query.router_name);
+    if (it != routers_.end())
+      query.router = it->second;
+  }
+
+  ScopedJNIEnv env;
+  if (!query.router || !env) {
+    SendResponse(query, false, nullptr, kCanceledErrorCode,
+                 kCanceledErrorMessage);
+    return;
+  }
+
+  std::string request;
+  EncodeValue(args->GetValue(3), &request);
+  ScopedJNIObjectLocal jrequest(env, env->NewByteArray((jsize)request.size()));
+  if (!jrequest) {
+    SendResponse(query, false, nullptr, kCanceledErrorCode,
+                 kCanceledErrorMessage);
+    return;
+  }
+  env->SetByteArrayRegion(static_cast<jbyteArray>(jrequest.get()), 0,
+                          (jsize)request.size(),
+                          reinterpret_cast<const jbyte*>(request.data()));
+
+  RequestKey key = GetRequestKey(query);
+  if (query_ids_.find(key) != query_ids_.end()) {
+    // The renderer reused a pending request ID.
+    SendResponse(query, false, nullptr, kCanceledErrorCode,
+                 kCanceledErrorMessage);
+    return;
+  }
+
+  // Register the query first because Java may respond synchronously.
+  int64 query_id = next_query_id_++;
+  queries_[query_id] = query;
+  query_ids_[key] = query_id;
+
+  ScopedJNIBrowser jbrowser(env, browser);
+  ScopedJNIFrame jframe(env, frame);
+  jframe.SetTemporary();
+  ScopedJNIObject<BinaryQueryCallback> jcallback(
+      env, new BinaryQueryCallback(this, query_id, query.persistent),
+      "org/cef/browser/CefBinaryQueryCallback_N", "CefBinaryQueryCallback");
+
+  jboolean jresult = JNI_FALSE;
+  JNI_CALL_METHOD(env, query.router->handle_, "onBinaryQuery",
+                  "(Lorg/cef/browser/CefBrowser;Lorg/cef/browser/CefFrame;J[BZ"
+                  "Lorg/cef/browser/CefBinaryQueryCallback_N;)Z",
+                  Boolean, jresult, jbrowser.get(), jframe.get(),
+                  (jlong)query_id, jrequest.get(),
+                  query.persistent ? JNI_TRUE : JNI_FALSE, jcallback.get());
+
+  if (jresult == JNI_FALSE) {
+    // If the Java method returns "false" the callback won't be used and
+    // the reference can therefore be removed.
+    jcallback.SetTemporary();
+    Failure(query_id, kCanceledErrorCode, kCanceledErrorMessage);
+  }
+}
+
+void BinaryQueryRouter::CancelPending(int browser_id,
+                                      const std::string& router_name,
+                                      bool notify_renderer) {
+  REQUIRE_UI_THREAD();
+
+  std::map<int64, Query> canceled;
+  for (auto it = queries_.begin(); it != queries_.end();) {
+    if ((browser_id == 0 ||
+         it->second.browser->GetIdentifier() == browser_id) &&
+        (router_name.empty() || it->second.router_name == router_name)) {
+      canceled.insert(*it);
+      it = EraseQuery(it);
+    } else {
+      ++it;
+    }
+  }
+  if (canceled.empty())
+    return;
+
+  ScopedJNIEnv env;
+  for (auto& entry : canceled) {
+    const Query& query = entry.second;
+    if (notify_renderer) {
+      SendResponse(query, false, nullptr, kCanceledErrorCode,
+                   kCanceledErrorMessage);
+    }
+    if (!env)
+      continue;
+
+    ScopedJNIBrowser jbrowser(env, query.browser);
+    ScopedJNIFrame jframe(env, query.frame);
+    jframe.SetTemporary();
+    JNI_CALL_VOID_METHOD(
+        env, query.router->handle_, "onBinaryQueryCanceled",
+        "(Lorg/cef/browser/CefBrowser;Lorg/cef/browser/CefFrame;J)V",
+        jbrowser.get(), jframe.get(), (jlong)entry.first);
+  }
+}
+
+// static
+BinaryQueryRouter::RequestKey BinaryQueryRouter::GetRequestKey(
+    const Query& query) {
+  return RequestKey(query.frame->GetIdentifier(), query.router_name,
+                    query.request_id);
+}
+
+std::map<int64, BinaryQueryRouter::Query>::iterator
+BinaryQueryRouter::EraseQuery(std::map<int64, Query>::iterator it) {
+  query_ids_.erase(GetRequestKey(it->second));
+  return queries_.erase(it);
+}
+
+void BinaryQueryRouter::SendResponse(const Query& query,
+                                     bool success,
+                                     CefRefPtr<CefValue> response,
+                                     int error_code,
+                                     const CefString& error_message) {
+  CefRefPtr<CefProcessMessage> message =
+      CefProcessMessage::Create(kBinaryQueryResponseMessage);
+  CefRefPtr<CefListValue> args = message->GetArgumentList();
+  args->SetString(0, query.router_name);
+  args->SetInt(1, query.request_id);
+  args->SetBool(2, success);
+  if (success) {
+    if (response)
+      args->SetValue(3, response);
+    else
+      args->SetNull(3);
+  } else {
+    args->SetInt(3, error_code);
+    args->SetString(4, error_message);
+  }
+  query.frame->SendProcessMessage(PID_RENDERER, message);
+}
+
+BinaryQueryCallback::BinaryQueryCallback(CefRefPtr<BinaryQueryRouter> router,
+                                         int64 query_id,
+                                         bool persistent)
+    : router_(router), query_id_(query_id), persistent_(persistent) {}
+
+bool BinaryQueryCallback::Success(CefRefPtr<CefValue> response) {
+  router_->Success(query_id_, response);
+  return persistent_;
+}
+
+void BinaryQueryCallback::Failure(int error_code,
+                                  const CefString& error_message) {
+  router_->Failure(query_id_, error_code, error_message);
+}
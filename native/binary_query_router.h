@@ -0,0 +1,134 @@
+// Copyright (c) 2014 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+#ifndef JCEF_NATIVE_BINARY_QUERY_ROUTER_H_
+#define JCEF_NATIVE_BINARY_QUERY_ROUTER_H_
+#pragma once
+
+#include <jni.h>
+
+#include <map>
+#include <string>
+#include <tuple>
+
+#include "include/base/cef_lock.h"
+#include "include/cef_browser.h"
+#include "include/cef_process_message.h"
+#include "include/wrapper/cef_message_router.h"
+
+#include "jni_scoped_helpers.h"
+
+// Browser-side counterpart of BinaryRouterRendererSide. Receives binary
+// queries from the renderer process, passes them to the Java CefMessageRouter
+// registered for the query function and sends the responses back. Query values
+// are passed to Java in the format of org.cef.browser.CefValueCodec.
+class BinaryQueryRouter : public CefBaseRefCounted {
+ public:
+  BinaryQueryRouter();
+
+  // Register or unregister the Java CefMessageRouter |jrouter| that handles
+  // the binary queries of |config|. Removing a router cancels its pending
+  // queries.
+  void AddRouter(JNIEnv* env,
+                 const CefMessageRouterConfig& config,
+                 jobject jrouter);
+  void RemoveRouter(const CefMessageRouterConfig& config);
+
+  // The following methods must be called on the browser process UI thread.
+  bool OnProcessMessageReceived(CefRefPtr<CefBrowser> browser,
+                                CefRefPtr<CefFrame> frame,
+                                CefRefPtr<CefProcessMessage> message);
+  void OnBeforeClose(CefRefPtr<CefBrowser> browser);
+  void OnBeforeBrowse(CefRefPtr<CefBrowser> browser, CefRefPtr<CefFrame> frame);
+  void OnRenderProcessTerminated(CefRefPtr<CefBrowser> browser);
+
+  // Send a response for the query |query_id| to the renderer. May be called on
+  // any thread. Responses for queries that are no longer pending are ignored.
+  void Success(int64 query_id, CefRefPtr<CefValue> response);
+  void Failure(int64 query_id, int error_code, const CefString& error_message);
+
+ private:
+  // Global reference to a Java CefMessageRouter.
+  class JavaRouter : public CefBaseRefCounted {
+   public:
+    JavaRouter(JNIEnv* env, jobject jrouter) : handle_(env, jrouter) {}
+
+    ScopedJNIObjectGlobal handle_;
+
+    IMPLEMENT_REFCOUNTING(JavaRouter);
+  };
+
+  struct Query {
+    std::string router_name;
+    CefRefPtr<JavaRouter> router;
+    CefRefPtr<CefBrowser> browser;
+    CefRefPtr<CefFrame> frame;
+    int request_id;
+    bool persistent;
+  };
+
+  // Identifies a query by the frame that sent it, the router name and the
+  // renderer-side request ID. Request IDs are only unique per router instance
+  // in a render process, and frames of one browser may live in different
+  // render processes.
+  typedef std::tuple<int64, std::string, int> RequestKey;
+
+  static RequestKey GetRequestKey(const Query& query);
+
+  void OnQuery(CefRefPtr<CefBrowser> browser,
+               CefRefPtr<CefFrame> frame,
+               CefRefPtr<CefListValue> args);
+
+  // Remove the pending query at |it| and return the next iterator.
+  std::map<int64, Query>::iterator EraseQuery(
+      std::map<int64, Query>::iterator it);
+
+  // Cancel the pending queries of the browser with |browser_id| and the router
+  // |router_name|. A value of 0 or an empty name matches all browsers or
+  // routers. The renderer is only notified if |notify_renderer| is true.
+  void CancelPending(int browser_id,
+                     const std::string& router_name,
+                     bool notify_renderer);
+
+  void SendResponse(const Query& query,
+                    bool success,
+                    CefRefPtr<CefValue> response,
+                    int error_code,
+                    const CefString& error_message);
+
+  // Accessed on any thread and protected by |lock_|.
+  std::map<std::string, CefRefPtr<JavaRouter>> routers_;
+  base::Lock lock_;
+
+  // Pending queries by query ID and the query IDs by request key. Query IDs
+  // are generated in the browser process. Only accessed on the UI thread.
+  std::map<int64, Query> queries_;
+  std::map<RequestKey, int64> query_ids_;
+  int64 next_query_id_;
+
+  IMPLEMENT_REFCOUNTING(BinaryQueryRouter);
+  DISALLOW_COPY_AND_ASSIGN(BinaryQueryRouter);
+};
+
+// Callback passed to Java for a single binary query.
+class BinaryQueryCallback : public CefBaseRefCounted {
+ public:
+  BinaryQueryCallback(CefRefPtr<BinaryQueryRouter> router,
+                      int64 query_id,
+                      bool persistent);
+
+  // Returns true if further responses may follow.
+  bool Success(CefRefPtr<CefValue> response);
+  void Failure(int error_code, const CefString& error_message);
+
+ private:
+  CefRefPtr<BinaryQueryRouter> router_;
+  const int64 query_id_;
+  const bool persistent_;
+
+  IMPLEMENT_REFCOUNTING(BinaryQueryCallback);
+  DISALLOW_COPY_AND_ASSIGN(BinaryQueryCallback);
+};
+
+#endif  // JCEF_NATIVE_BINARY_QUERY_ROUTER_H_
@@ -0,0 +1,174 @@
+// Copyright (c) 2014 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+#include "binary_router_renderer_side.h"
+
+#include "v8_value_converter.h"
+
+namespace {
+
+// Process message names shared with native/binary_query_router.cpp.
+const char kBinaryQueryMessage[] = "BinaryQuery";
+const char kBinaryQueryCancelMessage[] = "BinaryQueryCancel";
+const char kBinaryQueryResponseMessage[] = "BinaryQueryResponse";
+
+}  // namespace
+
+BinaryRouterRendererSide::BinaryRouterRendererSide(
+    const CefMessageRouterConfig& config)
+    : router_name_(config.js_query_function.ToString()),
+      query_function_(router_name_ + "Binary"),
+      cancel_function_(router_name_ + "BinaryCancel"),
+      next_request_id_(1) {}
+
+void BinaryRouterRendererSide::OnContextCreated(
+    CefRefPtr<CefBrowser> browser,
+    CefRefPtr<CefFrame> frame,
+    CefRefPtr<CefV8Context> context) {
+  CefRefPtr<CefV8Value> window = context->GetGlobal();
+  const cef_v8_propertyattribute_t attributes =
+      static_cast<cef_v8_propertyattribute_t>(V8_PROPERTY_ATTRIBUTE_READONLY |
+                                              V8_PROPERTY_ATTRIBUTE_DONTENUM |
+                                              V8_PROPERTY_ATTRIBUTE_DONTDELETE);
+  window->SetValue(query_function_,
+                   CefV8Value::CreateFunction(query_function_, this),
+                   attributes);
+  window->SetValue(cancel_function_,
+                   CefV8Value::CreateFunction(cancel_function_, this),
+                   attributes);
+}
+
+void BinaryRouterRendererSide::OnContextReleased(
+    CefRefPtr<CefBrowser> browser,
+    CefRefPtr<CefFrame> frame,
+    CefRefPtr<CefV8Context> context) {
+  // Cancel the pending queries of the context in the browser process.
+  for (auto it = requests_.begin(); it != requests_.end();) {
+    if (it->second.context->IsSame(context)) {
+      SendCancel(frame, it->first);
+      it = requests_.erase(it);
+    } else {
+      ++it;
+    }
+  }
+}
+
+bool BinaryRouterRendererSide::OnProcessMessageReceived(
+    CefRefPtr<CefBrowser> browser,
+    CefRefPtr<CefFrame> frame,
+    CefProcessId source_process,
+    CefRefPtr<CefProcessMessage> message) {
+  if (message->GetName() != kBinaryQueryResponseMessage)
+    return false;
+  CefRefPtr<CefListValue> args = message->GetArgumentList();
+  if (args->GetString(0).ToString() != router_name_)
+    return false;
+
+  auto it = requests_.find(args->GetInt(1));
+  if (it == requests_.end())
+    return true;
+  Request request = it->second;
+  bool success = args->GetBool(2);
+  if (!success || !request.persistent)
+    requests_.erase(it);
+
+  CefRefPtr<CefV8Value> callback =
+      success ? request.success_callback : request.failure_callback;
+  if (!callback || !request.context->IsValid() || !request.context->Enter())
+    return true;
+
+  CefV8ValueList callback_args;
+  if (success) {
+    V8ValueConverter converter(request.context);
+    callback_args.push_back(converter.ToV8Value(args->GetValue(3)));
+  } else {
+    callback_args.push_back(CefV8Value::CreateInt(args->GetInt(3)));
+    callback_args.push_back(CefV8Value::CreateString(args->GetString(4)));
+  }
+  callback->ExecuteFunction(NULL, callback_args);
+  request.context->Exit();
+  return true;
+}
+
+bool BinaryRouterRendererSide::Execute(const CefString& name,
+                                       CefRefPtr<CefV8Value> object,
+                                       const CefV8ValueList& arguments,
+                                       CefRefPtr<CefV8Value>& retval,
+                                       CefString& exception) {
+  const std::string function_name = name.ToString();
+  if (function_name == query_function_)
+    return SendQuery(arguments, retval, exception);
+  if (function_name == cancel_function_)
+    return CancelQuery(arguments, retval, exception);
+  return false;
+}
+
+bool BinaryRouterRendererSide::SendQuery(const CefV8ValueList& arguments,
+                                         CefRefPtr<CefV8Value>& retval,
+                                         CefString& exception) {
+  if (arguments.size() != 1 || !arguments[0]->IsObject()) {
+    exception = "Invalid arguments; expecting a single object";
+    return true;
+  }
+
+  CefRefPtr<CefV8Value> arg = arguments[0];
+  Request request;
+  request.context = CefV8Context::GetCurrentContext();
+  CefRefPtr<CefV8Value> success_callback = arg->GetValue("onSuccess");
+  if (success_callback && success_callback->IsFunction())
+    request.success_callback = success_callback;
+  CefRefPtr<CefV8Value> failure_callback = arg->GetValue("onFailure");
+  if (failure_callback && failure_callback->IsFunction())
+    request.failure_callback = failure_callback;
+  CefRefPtr<CefV8Value> persistent = arg->GetValue("persistent");
+  request.persistent =
+      persistent && persistent->IsBool() && persistent->GetBoolValue();
+
+  V8ValueConverter converter(request.context);
+  CefRefPtr<CefValue> value = converter.ToCefValue(arg->GetValue("request"));
+
+  int request_id = next_request_id_++;
+  CefRefPtr<CefProcessMessage> message =
+      CefProcessMessage::Create(kBinaryQueryMessage);
+  CefRefPtr<CefListValue> args = message->GetArgumentList();
+  args->SetString(0, router_name_);
+  args->SetInt(1, request_id);
+  args->SetBool(2, request.persistent);
+  args->SetValue(3, value);
+  request.context->GetFrame()->SendProcessMessage(PID_BROWSER, message);
+
+  requests_[request_id] = request;
+  retval = CefV8Value::CreateInt(request_id);
+  return true;
+}
+
+bool BinaryRouterRendererSide::CancelQuery(const CefV8ValueList& arguments,
+                                           CefRefPtr<CefV8Value>& retval,
+                                           CefString& exception) {
+  if (arguments.size() != 1 || !arguments[0]->IsInt()) {
+    exception = "Invalid arguments; expecting a single integer";
+    return true;
+  }
+
+  bool canceled = false;
+  auto it = requests_.find(arguments[0]->GetIntValue());
+  CefRefPtr<CefV8Context> context = CefV8Context::GetCurrentContext();
+  if (it != requests_.end() && it->second.context->IsSame(context)) {
+    SendCancel(context->GetFrame(), it->first);
+    requests_.erase(it);
+    canceled = true;
+  }
+  retval = CefV8Value::CreateBool(canceled);
+  return true;
+}
+
+void BinaryRouterRendererSide::SendCancel(CefRefPtr<CefFrame> frame,
+                                          int request_id) {
+  CefRefPtr<CefProcessMessage> message =
+      CefProcessMessage::Create(kBinaryQueryCancelMessage);
+  CefRefPtr<CefListValue> args = message->GetArgumentList();
+  args->SetString(0, router_name_);
+  args->SetInt(1, request_id);
+  frame->SendProcessMessage(PID_BROWSER, message);
+}
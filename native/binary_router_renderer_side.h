@@ -0,0 +1,72 @@
+// Copyright (c) 2014 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+#ifndef JCEF_NATIVE_BINARY_ROUTER_RENDERER_SIDE_H_
+#define JCEF_NATIVE_BINARY_ROUTER_RENDERER_SIDE_H_
+#pragma once
+
+#include <map>
+#include <string>
+
+#include "include/cef_browser.h"
+#include "include/cef_process_message.h"
+#include "include/cef_v8.h"
+#include "include/wrapper/cef_message_router.h"
+
+// Renderer-side router for binary queries of one message router
+// configuration. Exposes the functions |js_query_function| + "Binary" and
+// |js_query_function| + "BinaryCancel" on the window object, which work like
+// the functions of CefMessageRouterRendererSide but transfer structured values
+// and ArrayBuffers as CEF values instead of strings. Must only be used on the
+// render thread.
+class BinaryRouterRendererSide : public CefV8Handler {
+ public:
+  explicit BinaryRouterRendererSide(const CefMessageRouterConfig& config);
+
+  void OnContextCreated(CefRefPtr<CefBrowser> browser,
+                        CefRefPtr<CefFrame> frame,
+                        CefRefPtr<CefV8Context> context);
+  void OnContextReleased(CefRefPtr<CefBrowser> browser,
+                         CefRefPtr<CefFrame> frame,
+                         CefRefPtr<CefV8Context> context);
+  bool OnProcessMessageReceived(CefRefPtr<CefBrowser> browser,
+                                CefRefPtr<CefFrame> frame,
+                                CefProcessId source_process,
+                                CefRefPtr<CefProcessMessage> message);
+
+  // CefV8Handler methods
+  bool Execute(const CefString& name,
+               CefRefPtr<CefV8Value> object,
+               const CefV8ValueList& arguments,
+               CefRefPtr<CefV8Value>& retval,
+               CefString& exception) OVERRIDE;
+
+ private:
+  struct Request {
+    CefRefPtr<CefV8Context> context;
+    CefRefPtr<CefV8Value> success_callback;
+    CefRefPtr<CefV8Value> failure_callback;
+    bool persistent;
+  };
+
+  bool SendQuery(const CefV8ValueList& arguments,
+                 CefRefPtr<CefV8Value>& retval,
+                 CefString& exception);
+  bool CancelQuery(const CefV8ValueList& arguments,
+                   CefRefPtr<CefV8Value>& retval,
+                   CefString& exception);
+  void SendCancel(CefRefPtr<CefFrame> frame, int request_id);
+
+  const std::string router_name_;
+  const std::string query_function_;
+  const std::string cancel_function_;
+
+  int next_request_id_;
+  std::map<int, Request> requests_;
+
+  IMPLEMENT_REFCOUNTING(BinaryRouterRendererSide);
+  DISALLOW_COPY_AND_ASSIGN(BinaryRouterRendererSide);
+};
+
+#endif  // JCEF_NATIVE_BINARY_ROUTER_RENDERER_SIDE_H_
@@ -18,6 +18,7 @@
 #include "download_handler.h"
 #include "drag_handler.h"
 #include "focus_handler.h"
+#include "javascript_evaluation.h"
 #include "jsdialog_handler.h"
 #include "keyboard_handler.h"
 #include "life_span_handler.h"
@@ -57,7 +58,10 @@ CefMessageRouterConfig GetMessageRouterConfig(JNIEnv* env,
 }  // namespace
 
 ClientHandler::ClientHandler(JNIEnv* env, jobject handler)
-    : handle_(env, handler) {}
+    : handle_(env, handler),
+      binary_query_router_(new BinaryQueryRouter()),
+      user_scripts_(CefDictionaryValue::Create()),
+      user_scripts_version_(0) {}
 
 template <class T>
 CefRefPtr<T> ClientHandler::GetHandler(const char* class_name) {
@@ -145,6 +149,34 @@ bool ClientHandler::OnProcessMessageReceived(
     CefRefPtr<CefFrame> frame,
     CefProcessId source_process,
     CefRefPtr<CefProcessMessage> message) {
+  if (OnJavaScriptEvaluationResponse(message))
+    return true;
+  if (binary_query_router_->OnProcessMessageReceived(browser, frame, message))
+    return true;
+  if (message->GetName() == "GetUserScripts") {
+    // A new render process asks for the current user scripts because the
+    // extra info of its browser may be outdated.
+    CefRefPtr<CefProcessMessage> reply =
+        CefProcessMessage::Create("SetUserScripts");
+    int version;
+    CefRefPtr<CefDictionaryValue> scripts = GetUserScripts(&version);
+    reply->GetArgumentList()->SetInt(0, version);
+    reply->GetArgumentList()->SetDictionary(1, scripts);
+    frame->SendProcessMessage(PID_RENDERER, reply);
+    return true;
+  }
+  if (message->GetName() == "GetMessageRouters") {
+    // A new render process asks for the current routers for the same reason.
+    CefRefPtr<CefProcessMessage> reply =
+        CefProcessMessage::Create("SetMessageRouters");
+    CefRefPtr<CefListValue> configs =
+        BrowserProcessHandler::GetMessageRouterConfigs();
+    reply->GetArgumentList()->SetList(
+        0, configs ? configs : CefListValue::Create());
+    frame->SendProcessMessage(PID_RENDERER, reply);
+    return true;
+  }
+
   bool handled = false;
 
   // Iterate on a copy of |message_routers_| to avoid re-entrancy of
@@ -181,6 +213,7 @@ void ClientHandler::AddMessageRouter(JNIEnv* env, jobject jmessageRouter) {
     base::AutoLock lock_scope(message_router_lock_);
     message_routers_.insert(router);
   }
+  binary_query_router_->AddRouter(env, config, jmessageRouter);
 
   // 2) Update CefApp for new render-processes.
   BrowserProcessHandler::AddMessageRouterConfig(config);
@@ -214,6 +247,7 @@ void ClientHandler::RemoveMessageRouter(JNIEnv* env, jobject jmessageRouter) {
     base::AutoLock lock_scope(message_router_lock_);
     message_routers_.erase(router);
   }
+  binary_query_router_->RemoveRouter(config);
 
   // 2) Update CefApp.
   BrowserProcessHandler::RemoveMessageRouterConfig(config);
@@ -235,11 +269,75 @@ void ClientHandler::RemoveMessageRouter(JNIEnv* env, jobject jmessageRouter) {
   }
 }
 
+void ClientHandler::AddUserScript(JNIEnv* env,
+                                  const CefString& name,
+                                  CefRefPtr<CefDictionaryValue> script) {
+  int version;
+  {
+    base::AutoLock lock_scope(user_scripts_lock_);
+    user_scripts_->SetDictionary(name, script->Copy(false));
+    version = ++user_scripts_version_;
+  }
+
+  // Update the running render processes. New render processes receive the
+  // scripts with the extra info of new browsers and request the current
+  // scripts with "GetUserScripts".
+  CefRefPtr<CefProcessMessage> message =
+      CefProcessMessage::Create("AddUserScript");
+  CefRefPtr<CefListValue> args = message->GetArgumentList();
+  args->SetString(0, name);
+  args->SetDictionary(1, script);
+  args->SetInt(2, version);
+  SendToAllFrames(env, message);
+}
+
+void ClientHandler::RemoveUserScript(JNIEnv* env, const CefString& name) {
+  int version;
+  {
+    base::AutoLock lock_scope(user_scripts_lock_);
+    if (!user_scripts_->Remove(name))
+      return;
+    version = ++user_scripts_version_;
+  }
+
+  CefRefPtr<CefProcessMessage> message =
+      CefProcessMessage::Create("RemoveUserScript");
+  message->GetArgumentList()->SetString(0, name);
+  message->GetArgumentList()->SetInt(1, version);
+  SendToAllFrames(env, message);
+}
+
+CefRefPtr<CefDictionaryValue> ClientHandler::GetUserScripts(int* version) {
+  base::AutoLock lock_scope(user_scripts_lock_);
+  *version = user_scripts_version_;
+  return user_scripts_->Copy(false);
+}
+
+void ClientHandler::SendToAllFrames(JNIEnv* env,
+                                    CefRefPtr<CefProcessMessage> message) {
+  BrowserSet allBrowsers = GetAllBrowsers(env);
+  BrowserSet::const_iterator it = allBrowsers.begin();
+  for (; it != allBrowsers.end(); ++it) {
+    // Render processes that host several frames receive the message more
+    // than once. The receiver ignores versions it has already applied.
+    std::vector<int64> identifiers;
+    (*it)->GetFrameIdentifiers(identifiers);
+    for (size_t i = 0; i < identifiers.size(); ++i) {
+      CefRefPtr<CefFrame> frame = (*it)->GetFrame(identifiers[i]);
+      if (frame)
+        frame->SendProcessMessage(PID_RENDERER, message->Copy());
+    }
+  }
+}
+
 void ClientHandler::OnAfterCreated() {}
 
 void ClientHandler::OnBeforeClose(CefRefPtr<CefBrowser> browser) {
   REQUIRE_UI_THREAD();
 
+  binary_query_router_->OnBeforeClose(browser);
+  CancelJavaScriptEvaluations(browser, "The browser was closed");
+
   base::AutoLock lock_scope(message_router_lock_);
   for (auto& router : message_routers_) {
     router->OnBeforeClose(browser);
@@ -250,6 +348,8 @@ void ClientHandler::OnBeforeBrowse(CefRefPtr<CefBrowser> browser,
                                    CefRefPtr<CefFrame> frame) {
   REQUIRE_UI_THREAD();
 
+  binary_query_router_->OnBeforeBrowse(browser, frame);
+
   base::AutoLock lock_scope(message_router_lock_);
   for (auto& router : message_routers_) {
     router->OnBeforeBrowse(browser, frame);
@@ -259,6 +359,9 @@ void ClientHandler::OnBeforeBrowse(CefRefPtr<CefBrowser> browser,
 void ClientHandler::OnRenderProcessTerminated(CefRefPtr<CefBrowser> browser) {
   REQUIRE_UI_THREAD();
 
+  binary_query_router_->OnRenderProcessTerminated(browser);
+  CancelJavaScriptEvaluations(browser, "The render process terminated");
+
   base::AutoLock lock_scope(message_router_lock_);
   for (auto& router : message_routers_) {
     router->OnRenderProcessTerminated(browser);
@@ -14,6 +14,7 @@
 #include "include/cef_base.h"
 #include "include/cef_client.h"
 
+#include "binary_query_router.h"
 #include "jni_scoped_helpers.h"
 #include "message_router_handler.h"
 #include "window_handler.h"
@@ -49,6 +50,17 @@ class ClientHandler : public CefClient {
   void AddMessageRouter(JNIEnv* env, jobject jmessageRouter);
   void RemoveMessageRouter(JNIEnv* env, jobject jmessageRouter);
 
+  // Methods to deal with user scripts. |script| is a dictionary as expected
+  // by UserScriptRendererSide.
+  void AddUserScript(JNIEnv* env,
+                     const CefString& name,
+                     CefRefPtr<CefDictionaryValue> script);
+  void RemoveUserScript(JNIEnv* env, const CefString& name);
+
+  // Returns a copy of the user scripts by name and sets |version| to the
+  // version of the registry, which increases with every change.
+  CefRefPtr<CefDictionaryValue> GetUserScripts(int* version);
+
   // Methods to set and remove a browser ref.
   void OnAfterCreated();
   void OnBeforeClose(CefRefPtr<CefBrowser> browser);
@@ -61,6 +73,10 @@ class ClientHandler : public CefClient {
   typedef std::set<CefRefPtr<CefBrowser>> BrowserSet;
   BrowserSet GetAllBrowsers(JNIEnv* env);
 
+  // Send a copy of |message| to the render processes of all frames of all
+  // browsers. Frames of a browser may live in different render processes.
+  void SendToAllFrames(JNIEnv* env, CefRefPtr<CefProcessMessage> message);
+
   template <class T>
   CefRefPtr<T> GetHandler(const char* class_name);
 
@@ -75,6 +91,17 @@ class ClientHandler : public CefClient {
   // Protects access to |message_routers_|.
   base::Lock message_router_lock_;
 
+  // Handles binary queries for all message routers.
+  CefRefPtr<BinaryQueryRouter> binary_query_router_;
+
+  // User scripts by name, sent to the render process with new browsers and
+  // on request of new render processes.
+  CefRefPtr<CefDictionaryValue> user_scripts_;
+  int user_scripts_version_;
+
+  // Protects access to |user_scripts_| and |user_scripts_version_|.
+  base::Lock user_scripts_lock_;
+
   // Include the default reference counting implementation.
   IMPLEMENT_REFCOUNTING(ClientHandler);
 };
@@ -0,0 +1,222 @@
+// Copyright (c) 2014 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+#include "cookie_batch.h"
+
+#include "jni_util.h"
+
+namespace {
+
+const int kFlagSecure = 1;
+const int kFlagHttpOnly = 2;
+const int kFlagHasExpires = 4;
+
+void AppendInt32(std::string* data, uint32 value) {
+  for (int shift = 24; shift >= 0; shift -= 8)
+    data->push_back(static_cast<char>((value >> shift) & 0xFF));
+}
+
+void AppendInt64(std::string* data, int64 value) {
+  AppendInt32(data, static_cast<uint32>(static_cast<uint64>(value) >> 32));
+  AppendInt32(data, static_cast<uint32>(value));
+}
+
+void AppendString(std::string* data, const cef_string_t* value) {
+  std::string str = CefString(value).ToString();
+  AppendInt32(data, static_cast<uint32>(str.size()));
+  data->append(str);
+}
+
+void AppendTime(std::string* data, const cef_time_t& time) {
+  AppendInt64(data, static_cast<int64>(CefTime(time).GetDoubleT() * 1000));
+}
+
+class BatchReader {
+ public:
+  BatchReader(const char* data, size_t size)
+      : data_(reinterpret_cast<const uint8*>(data)), size_(size), pos_(0) {}
+
+  bool ReadByte(uint8* value) {
+    if (size_ - pos_ < 1)
+      return false;
+    *value = data_[pos_++];
+    return true;
+  }
+
+  bool ReadInt32(uint32* value) {
+    if (size_ - pos_ < 4)
+      return false;
+    *value = 0;
+    for (int i = 0; i < 4; ++i)
+      *value = (*value << 8) | data_[pos_++];
+    return true;
+  }
+
+  bool ReadInt64(int64* value) {
+    uint32 high, low;
+    if (!ReadInt32(&high) || !ReadInt32(&low))
+      return false;
+    *value = static_cast<int64>((static_cast<uint64>(high) << 32) | low);
+    return true;
+  }
+
+  bool ReadString(cef_string_t* value) {
+    uint32 length;
+    if (!ReadInt32(&length) || size_ - pos_ < length)
+      return false;
+    CefString(value).FromString(
+        std::string(reinterpret_cast<const char*>(data_ + pos_), length));
+    pos_ += length;
+    return true;
+  }
+
+  bool ReadTime(cef_time_t* value) {
+    int64 millis;
+    if (!ReadInt64(&millis))
+      return false;
+    if (millis != 0) {
+      CefTime time;
+      time.SetDoubleT(millis / 1000.0);
+      *value = time;
+    }
+    return true;
+  }
+
+ private:
+  const uint8* data_;
+  size_t size_;
+  size_t pos_;
+};
+
+}  // namespace
+
+void AppendCookieRecord(std::string* data, const CefCookie& cookie) {
+  AppendString(data, &cookie.name);
+  AppendString(data, &cookie.value);
+  AppendString(data, &cookie.domain);
+  AppendString(data, &cookie.path);
+  int flags = (cookie.secure ? kFlagSecure : 0) |
+              (cookie.httponly ? kFlagHttpOnly : 0) |
+              (cookie.has_expires ? kFlagHasExpires : 0);
+  data->push_back(static_cast<char>(flags));
+  AppendTime(data, cookie.creation);
+  AppendTime(data, cookie.last_access);
+  AppendTime(data, cookie.expires);
+}
+
+bool ParseCookieBatch(const char* data,
+                      size_t size,
+                      std::vector<CefCookie>* cookies) {
+  BatchReader reader(data, size);
+  uint32 count;
+  if (!reader.ReadInt32(&count))
+    return false;
+  // Every record has at least 41 bytes.
+  if (count > size / 41)
+    return false;
+  cookies->reserve(count);
+  for (uint32 i = 0; i < count; ++i) {
+    CefCookie cookie;
+    uint8 flags;
+    if (!reader.ReadString(&cookie.name) || !reader.ReadString(&cookie.value) ||
+        !reader.ReadString(&cookie.domain) ||
+        !reader.ReadString(&cookie.path) || !reader.ReadByte(&flags) ||
+        !reader.ReadTime(&cookie.creation) ||
+        !reader.ReadTime(&cookie.last_access) ||
+        !reader.ReadTime(&cookie.expires)) {
+      return false;
+    }
+    cookie.secure = (flags & kFlagSecure) ? 1 : 0;
+    cookie.httponly = (flags & kFlagHttpOnly) ? 1 : 0;
+    cookie.has_expires = (flags & kFlagHasExpires) ? 1 : 0;
+    cookies->push_back(cookie);
+  }
+  return true;
+}
+
+CefString GetCookieUrl(CefCookie* cookie) {
+  CefString domain_str(&cookie->domain);
+  std::string host = domain_str.ToString();
+  if (!host.empty() && host[0] == '.') {
+    host = host.substr(1);
+  } else {
+    // SetCookie creates a domain cookie for any non-empty domain.
+    domain_str.clear();
+  }
+  std::string path = CefString(&cookie->path).ToString();
+  if (path.empty() || path[0] != '/')
+    path = "/" + path;
+  return (cookie->secure ? "https://" : "http://") + host + path;
+}
+
+CookieBatchVisitor::CookieBatchVisitor(JNIEnv* env, jobject jfuture)
+    : handle_(env, jfuture), count_(0), canceled_(false) {
+  // Reserve space for the count.
+  AppendInt32(&data_, 0);
+}
+
+CookieBatchVisitor::~CookieBatchVisitor() {
+  if (canceled_)
+    return;
+  ScopedJNIEnv env;
+  if (!env)
+    return;
+
+  std::string count;
+  AppendInt32(&count, static_cast<uint32>(count_));
+  data_.replace(0, count.size(), count);
+
+  ScopedJNIObjectLocal jdata(env, env->NewByteArray((jsize)data_.size()));
+  if (!jdata)
+    return;
+  env->SetByteArrayRegion(static_cast<jbyteArray>(jdata.get()), 0,
+                          (jsize)data_.size(),
+                          reinterpret_cast<const jbyte*>(data_.data()));
+  jboolean jresult = JNI_FALSE;
+  JNI_CALL_METHOD(env, handle_, "complete", "(Ljava/lang/Object;)Z", Boolean,
+                  jresult, jdata.get());
+}
+
+void CookieBatchVisitor::Cancel() {
+  canceled_ = true;
+}
+
+bool CookieBatchVisitor::Visit(const CefCookie& cookie,
+                               int count,
+                               int total,
+                               bool& deleteCookie) {
+  AppendCookieRecord(&data_, cookie);
+  ++count_;
+  return true;
+}
+
+CookieBatchSetCallback::CookieBatchSetCallback(JNIEnv* env, jobject jfuture)
+    : handle_(env, jfuture), count_(0), canceled_(false) {}
+
+CookieBatchSetCallback::~CookieBatchSetCallback() {
+  if (canceled_)
+    return;
+  ScopedJNIEnv env;
+  if (!env)
+    return;
+
+  ScopedJNIObjectLocal jcount(
+      env, NewJNIObject(env, "java/lang/Integer", "(I)V", (jint)count_));
+  if (!jcount)
+    return;
+  jboolean jresult = JNI_FALSE;
+  JNI_CALL_METHOD(env, handle_, "complete", "(Ljava/lang/Object;)Z", Boolean,
+                  jresult, jcount.get());
+}
+
+void CookieBatchSetCallback::Cancel() {
+  canceled_ = true;
+}
+
+void CookieBatchSetCallback::OnComplete(bool success) {
+  if (success) {
+    base::AutoLock lock_scope(lock_);
+    ++count_;
+  }
+}
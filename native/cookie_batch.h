@@ -0,0 +1,89 @@
+// Copyright (c) 2014 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+#ifndef JCEF_NATIVE_COOKIE_BATCH_H_
+#define JCEF_NATIVE_COOKIE_BATCH_H_
+#pragma once
+
+#include <jni.h>
+
+#include <string>
+#include <vector>
+
+#include "include/base/cef_lock.h"
+#include "include/cef_cookie.h"
+
+#include "jni_scoped_helpers.h"
+
+// Cookies are transferred to and from Java in batches using the format of
+// org.cef.network.CookieCodec: a big-endian int32 cookie count followed by one
+// record per cookie. A record holds the name, value, domain and path as int32
+// length prefixed UTF-8 strings, a flags byte (1 = secure, 2 = httponly,
+// 4 = has expires) and the creation, last access and expiration times as int64
+// milliseconds since the epoch.
+
+// Append the record of |cookie| to |data|.
+void AppendCookieRecord(std::string* data, const CefCookie& cookie);
+
+// Parse the batch of |size| bytes at |data| into |cookies|. Returns false if
+// the batch is malformed.
+bool ParseCookieBatch(const char* data,
+                      size_t size,
+                      std::vector<CefCookie>* cookies);
+
+// Returns the URL to pass to CefCookieManager::SetCookie for |cookie|, which
+// is made a host cookie if its domain has no leading ".".
+CefString GetCookieUrl(CefCookie* cookie);
+
+// Collects all visited cookies into one batch and completes the Java
+// CompletableFuture<byte[]> with it once visiting has finished.
+class CookieBatchVisitor : public CefCookieVisitor {
+ public:
+  CookieBatchVisitor(JNIEnv* env, jobject jfuture);
+  virtual ~CookieBatchVisitor();
+
+  // Don't complete the future, e.g. because visiting could not be started.
+  void Cancel();
+
+  // CefCookieVisitor methods
+  virtual bool Visit(const CefCookie& cookie,
+                     int count,
+                     int total,
+                     bool& deleteCookie) OVERRIDE;
+
+ private:
+  ScopedJNIObjectGlobal handle_;
+  std::string data_;
+  int count_;
+  bool canceled_;
+
+  IMPLEMENT_REFCOUNTING(CookieBatchVisitor);
+  DISALLOW_COPY_AND_ASSIGN(CookieBatchVisitor);
+};
+
+// Counts the cookies that were set successfully and completes the Java
+// CompletableFuture<Integer> with the count once all SetCookie calls sharing
+// this callback have completed.
+class CookieBatchSetCallback : public CefSetCookieCallback {
+ public:
+  CookieBatchSetCallback(JNIEnv* env, jobject jfuture);
+  virtual ~CookieBatchSetCallback();
+
+  // Don't complete the future, e.g. because the cookies could not be set.
+  void Cancel();
+
+  // CefSetCookieCallback methods
+  virtual void OnComplete(bool success) OVERRIDE;
+
+ private:
+  ScopedJNIObjectGlobal handle_;
+  base::Lock lock_;
+  int count_;
+  bool canceled_;
+
+  IMPLEMENT_REFCOUNTING(CookieBatchSetCallback);
+  DISALLOW_COPY_AND_ASSIGN(CookieBatchSetCallback);
+};
+
+#endif  // JCEF_NATIVE_COOKIE_BATCH_H_
@@ -0,0 +1,175 @@
+// Copyright (c) 2014 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+#include "cookie_policy.h"
+
+#include <algorithm>
+#include <cctype>
+
+#include "url_rule_set.h"
+
+namespace {
+
+// Second-level labels under which country code top-level domains register
+// names, e.g. "co.uk" or "ne.jp". Must be kept in sync with CefCookiePolicy.
+const char* const kCountrySecondLevelLabels[] = {
+    "ac", "co",  "com", "edu", "gen", "go", "gob", "gov", "ltd", "me",
+    "mil", "ne", "net", "nic", "nom", "or", "org", "plc", "sch"};
+
+// Two-label public suffixes under generic top-level domains. Must be kept in
+// sync with CefCookiePolicy.
+const char* const kTwoLabelSuffixes[] = {
+    "appspot.com",     "azurewebsites.net", "blogspot.com", "cloudfront.net",
+    "firebaseapp.com", "github.io",         "gitlab.io",    "herokuapp.com",
+    "netlify.app",     "pages.dev",         "vercel.app",   "web.app",
+    "workers.dev"};
+
+template <size_t N>
+bool Contains(const char* const (&values)[N], const std::string& value) {
+  for (size_t i = 0; i < N; ++i) {
+    if (value == values[i])
+      return true;
+  }
+  return false;
+}
+
+// Returns true if the last two labels |suffix| of a host are a public suffix.
+// |second_level_length| is the length of the first label of |suffix|.
+bool IsTwoLabelSuffix(const std::string& suffix, size_t second_level_length) {
+  if (Contains(kTwoLabelSuffixes, suffix))
+    return true;
+  // Country code top-level domains have two letters.
+  return suffix.size() == second_level_length + 3 &&
+         Contains(kCountrySecondLevelLabels,
+                  suffix.substr(0, second_level_length));
+}
+
+bool DomainMatches(const std::string& cookie_domain,
+                   const std::string& rule_domain) {
+  if (rule_domain.empty() || cookie_domain == rule_domain)
+    return true;
+  size_t size = rule_domain.size();
+  return cookie_domain.size() > size &&
+         cookie_domain.compare(cookie_domain.size() - size, size,
+                               rule_domain) == 0 &&
+         cookie_domain[cookie_domain.size() - size - 1] == '.';
+}
+
+}  // namespace
+
+CookiePolicy::CookiePolicy(const std::vector<Rule>& rules,
+                           CefRefPtr<CefCookieAccessFilter> fallback)
+    : rules_(rules), fallback_(fallback) {}
+
+const CookiePolicy::Rule* CookiePolicy::Match(
+    const std::string& url,
+    const std::string& first_party_url,
+    const std::string& cookie_domain,
+    const std::string& cookie_name) const {
+  bool third_party = false;
+  if (!first_party_url.empty()) {
+    std::string first_party_site = GetSite(first_party_url);
+    third_party = !first_party_site.empty() && first_party_site != GetSite(url);
+  }
+  std::string domain = NormalizeDomain(cookie_domain);
+
+  for (size_t i = 0; i < rules_.size(); ++i) {
+    const Rule& rule = rules_[i];
+    if (rule.scope == SCOPE_FIRST_PARTY && third_party)
+      continue;
+    if (rule.scope == SCOPE_THIRD_PARTY && !third_party)
+      continue;
+    if (!DomainMatches(domain, rule.domain))
+      continue;
+    if (!UrlRuleSet::MatchGlob(rule.name_pattern, cookie_name))
+      continue;
+    return &rule;
+  }
+  return NULL;
+}
+
+// static
+std::string CookiePolicy::NormalizeDomain(const std::string& domain) {
+  std::string result = domain;
+  std::transform(result.begin(), result.end(), result.begin(), ::tolower);
+  if (result.compare(0, 2, "*.") == 0)
+    result = result.substr(2);
+  size_t start = result.find_first_not_of('.');
+  if (start == std::string::npos)
+    return std::string();
+  size_t end = result.find_last_not_of('.');
+  result = result.substr(start, end - start + 1);
+  return result == "*" ? std::string() : result;
+}
+
+// static
+std::string CookiePolicy::GetSite(const std::string& url) {
+  size_t path_start = UrlRuleSet::FindPathStart(url);
+  if (path_start == std::string::npos)
+    return std::string();
+  size_t host_start = url.find("://") + 3;
+  std::string host = url.substr(host_start, path_start - host_start);
+  size_t at = host.rfind('@');
+  if (at != std::string::npos)
+    host = host.substr(at + 1);
+  if (!host.empty() && host[0] == '[') {
+    // Drop the port of IPv6 addresses.
+    size_t bracket = host.find(']');
+    if (bracket != std::string::npos)
+      host = host.substr(0, bracket + 1);
+    std::transform(host.begin(), host.end(), host.begin(), ::tolower);
+    return host;
+  }
+  size_t colon = host.find(':');
+  if (colon != std::string::npos)
+    host = host.substr(0, colon);
+  host = NormalizeDomain(host);
+  if (!host.empty() && isdigit(static_cast<unsigned char>(host.back())))
+    return host;
+  size_t tld_dot = host.rfind('.');
+  if (tld_dot == std::string::npos || tld_dot == 0)
+    return host;
+  size_t suffix_dot = host.rfind('.', tld_dot - 1);
+  size_t suffix_start = suffix_dot == std::string::npos ? 0 : suffix_dot + 1;
+  if (IsTwoLabelSuffix(host.substr(suffix_start), tld_dot - suffix_start)) {
+    if (suffix_dot == std::string::npos || suffix_dot == 0)
+      return host;
+    size_t site_dot = host.rfind('.', suffix_dot - 1);
+    return site_dot == std::string::npos ? host : host.substr(site_dot + 1);
+  }
+  return host.substr(suffix_start);
+}
+
+bool CookiePolicy::CanSendCookie(CefRefPtr<CefBrowser> browser,
+                                 CefRefPtr<CefFrame> frame,
+                                 CefRefPtr<CefRequest> request,
+                                 const CefCookie& cookie) {
+  const Rule* rule = Match(request, cookie);
+  if (rule)
+    return rule->action == ACTION_ALLOW;
+  if (fallback_)
+    return fallback_->CanSendCookie(browser, frame, request, cookie);
+  return true;
+}
+
+bool CookiePolicy::CanSaveCookie(CefRefPtr<CefBrowser> browser,
+                                 CefRefPtr<CefFrame> frame,
+                                 CefRefPtr<CefRequest> request,
+                                 CefRefPtr<CefResponse> response,
+                                 const CefCookie& cookie) {
+  const Rule* rule = Match(request, cookie);
+  if (rule)
+    return rule->action == ACTION_ALLOW;
+  if (fallback_)
+    return fallback_->CanSaveCookie(browser, frame, request, response, cookie);
+  return true;
+}
+
+const CookiePolicy::Rule* CookiePolicy::Match(CefRefPtr<CefRequest> request,
+                                              const CefCookie& cookie) const {
+  return Match(request->GetURL().ToString(),
+               request->GetFirstPartyForCookies().ToString(),
+               CefString(&cookie.domain).ToString(),
+               CefString(&cookie.name).ToString());
+}
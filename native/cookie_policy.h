@@ -0,0 +1,81 @@
+// Copyright (c) 2014 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+#ifndef JCEF_NATIVE_COOKIE_POLICY_H_
+#define JCEF_NATIVE_COOKIE_POLICY_H_
+#pragma once
+
+#include <string>
+#include <vector>
+
+#include "include/cef_resource_request_handler.h"
+
+// Compiled cookie policy matching the semantics of the Java class
+// org.cef.network.CefCookiePolicy. Cookies that a rule matches are decided
+// without calling into Java. Other cookies are passed to the fallback filter,
+// if any. Immutable after construction and safe to use on any thread.
+class CookiePolicy : public CefCookieAccessFilter {
+ public:
+  // Values match the ordinals of CefCookieRule.Action.
+  enum Action {
+    ACTION_ALLOW = 0,
+    ACTION_DENY = 1,
+  };
+
+  // Values match the ordinals of CefCookieRule.Scope.
+  enum Scope {
+    SCOPE_ANY = 0,
+    SCOPE_FIRST_PARTY = 1,
+    SCOPE_THIRD_PARTY = 2,
+  };
+
+  struct Rule {
+    Action action;
+    Scope scope;
+    // Normalized domain or empty to match all domains.
+    std::string domain;
+    // Name glob or empty to match all names.
+    std::string name_pattern;
+  };
+
+  CookiePolicy(const std::vector<Rule>& rules,
+               CefRefPtr<CefCookieAccessFilter> fallback);
+
+  // Returns the rule that applies to a cookie or NULL if no rule matches.
+  const Rule* Match(const std::string& url,
+                    const std::string& first_party_url,
+                    const std::string& cookie_domain,
+                    const std::string& cookie_name) const;
+
+  // Returns |domain| in lower case without a leading "*." or "." and without a
+  // trailing ".". Returns an empty string for "*".
+  static std::string NormalizeDomain(const std::string& domain);
+
+  // Returns the site of the host of |url|, which is its registrable domain as
+  // described by CefCookiePolicy, or an empty string if |url| has no host.
+  static std::string GetSite(const std::string& url);
+
+  // CefCookieAccessFilter methods:
+  bool CanSendCookie(CefRefPtr<CefBrowser> browser,
+                     CefRefPtr<CefFrame> frame,
+                     CefRefPtr<CefRequest> request,
+                     const CefCookie& cookie) OVERRIDE;
+  bool CanSaveCookie(CefRefPtr<CefBrowser> browser,
+                     CefRefPtr<CefFrame> frame,
+                     CefRefPtr<CefRequest> request,
+                     CefRefPtr<CefResponse> response,
+                     const CefCookie& cookie) OVERRIDE;
+
+ private:
+  const Rule* Match(CefRefPtr<CefRequest> request,
+                    const CefCookie& cookie) const;
+
+  const std::vector<Rule> rules_;
+  CefRefPtr<CefCookieAccessFilter> fallback_;
+
+  IMPLEMENT_REFCOUNTING(CookiePolicy);
+  DISALLOW_COPY_AND_ASSIGN(CookiePolicy);
+};
+
+#endif  // JCEF_NATIVE_COOKIE_POLICY_H_
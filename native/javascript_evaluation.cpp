@@ -0,0 +1,96 @@
+// Copyright (c) 2014 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+#include "javascript_evaluation.h"
+
+#include "jni_util.h"
+#include "value_codec.h"
+
+namespace {
+
+// Process message names shared with
+// native/javascript_evaluator_renderer_side.cpp.
+const char kEvaluateMessage[] = "EvaluateJavaScript";
+const char kEvaluateResponseMessage[] = "EvaluateJavaScriptResponse";
+
+const char kEvaluationClass[] = "org/cef/browser/CefJavaScriptEvaluation";
+
+}  // namespace
+
+int SendJavaScriptEvaluation(CefRefPtr<CefFrame> frame,
+                             int id,
+                             const std::vector<CefString>& expressions,
+                             bool await_promises) {
+  if (!frame->IsValid())
+    return 0;
+
+  CefRefPtr<CefListValue> list = CefListValue::Create();
+  list->SetSize(expressions.size());
+  for (size_t i = 0; i < expressions.size(); ++i)
+    list->SetString(i, expressions[i]);
+
+  CefRefPtr<CefProcessMessage> message =
+      CefProcessMessage::Create(kEvaluateMessage);
+  CefRefPtr<CefListValue> args = message->GetArgumentList();
+  args->SetInt(0, id);
+  args->SetList(1, list);
+  args->SetBool(2, await_promises);
+  frame->SendProcessMessage(PID_RENDERER, message);
+  return frame->GetBrowser()->GetIdentifier();
+}
+
+bool OnJavaScriptEvaluationResponse(CefRefPtr<CefProcessMessage> message) {
+  if (message->GetName().ToString() != kEvaluateResponseMessage)
+    return false;
+
+  ScopedJNIEnv env;
+  if (!env)
+    return true;
+
+  CefRefPtr<CefListValue> args = message->GetArgumentList();
+  std::string data;
+  EncodeValue(args->GetValue(1), &data);
+  ScopedJNIObjectLocal jdata(env, env->NewByteArray((jsize)data.size()));
+  if (!jdata)
+    return true;
+  env->SetByteArrayRegion(static_cast<jbyteArray>(jdata.get()), 0,
+                          (jsize)data.size(),
+                          reinterpret_cast<const jbyte*>(data.data()));
+
+  ScopedJNIClass jcls(env, kEvaluationClass);
+  if (!jcls)
+    return true;
+  jmethodID methodId = env->GetStaticMethodID(jcls, "onResult", "(I[B)V");
+  if (methodId) {
+    env->CallStaticVoidMethod(jcls, methodId, (jint)args->GetInt(0),
+                              jdata.get());
+  }
+  if (env->ExceptionOccurred()) {
+    env->ExceptionDescribe();
+    env->ExceptionClear();
+  }
+  return true;
+}
+
+void CancelJavaScriptEvaluations(CefRefPtr<CefBrowser> browser,
+                                 const char* reason) {
+  ScopedJNIEnv env;
+  if (!env)
+    return;
+
+  ScopedJNIClass jcls(env, kEvaluationClass);
+  if (!jcls)
+    return;
+  jmethodID methodId =
+      env->GetStaticMethodID(jcls, "onBrowserGone", "(ILjava/lang/String;)V");
+  if (methodId) {
+    ScopedJNIString jreason(env, reason);
+    env->CallStaticVoidMethod(jcls, methodId, (jint)browser->GetIdentifier(),
+                              jreason.get());
+  }
+  if (env->ExceptionOccurred()) {
+    env->ExceptionDescribe();
+    env->ExceptionClear();
+  }
+}
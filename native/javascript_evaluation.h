@@ -0,0 +1,33 @@
+// Copyright (c) 2014 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+#ifndef JCEF_NATIVE_JAVASCRIPT_EVALUATION_H_
+#define JCEF_NATIVE_JAVASCRIPT_EVALUATION_H_
+#pragma once
+
+#include <vector>
+
+#include "include/cef_browser.h"
+#include "include/cef_frame.h"
+#include "include/cef_process_message.h"
+
+// Browser side of org.cef.browser.CefJavaScriptEvaluation. The expressions are
+// evaluated in the render process by JavaScriptEvaluatorRendererSide.
+
+// Sends the expressions of evaluation |id| to the render process of |frame|.
+// Returns the ID of the frame's browser or 0 if |frame| is invalid.
+int SendJavaScriptEvaluation(CefRefPtr<CefFrame> frame,
+                             int id,
+                             const std::vector<CefString>& expressions,
+                             bool await_promises);
+
+// Passes the results of an evaluation to Java. Returns false if |message| is
+// not an evaluation response.
+bool OnJavaScriptEvaluationResponse(CefRefPtr<CefProcessMessage> message);
+
+// Fails the pending evaluations of |browser| with |reason|.
+void CancelJavaScriptEvaluations(CefRefPtr<CefBrowser> browser,
+                                 const char* reason);
+
+#endif  // JCEF_NATIVE_JAVASCRIPT_EVALUATION_H_
@@ -0,0 +1,206 @@
+// Copyright (c) 2014 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+#include "javascript_evaluator_renderer_side.h"
+
+#include "v8_value_converter.h"
+
+namespace {
+
+// Process message names shared with native/javascript_evaluation.cpp.
+const char kEvaluateMessage[] = "EvaluateJavaScript";
+const char kEvaluateResponseMessage[] = "EvaluateJavaScriptResponse";
+
+// Settles all values, which may be promises or other thenables, and passes an
+// array of [fulfilled, value or reason] pairs to |done|.
+const char kAwaitSource[] =
+    "(function(values, done) {"
+    "  Promise.all(values.map(function(v) {"
+    "    return Promise.resolve(v).then("
+    "        function(r) { return [true, r]; },"
+    "        function(e) { return [false, String(e)]; });"
+    "  })).then(done);"
+    "})";
+
+CefRefPtr<CefListValue> CreateResult(bool success,
+                                     CefRefPtr<CefValue> value) {
+  CefRefPtr<CefListValue> result = CefListValue::Create();
+  result->SetBool(0, success);
+  if (value)
+    result->SetValue(1, value);
+  else
+    result->SetNull(1);
+  return result;
+}
+
+CefRefPtr<CefListValue> CreateError(const CefString& message) {
+  CefRefPtr<CefValue> value = CefValue::Create();
+  value->SetString(message);
+  return CreateResult(false, value);
+}
+
+class SettledHandler : public CefV8Handler {
+ public:
+  SettledHandler(CefRefPtr<JavaScriptEvaluatorRendererSide> evaluator, int id)
+      : evaluator_(evaluator), id_(id) {}
+
+  bool Execute(const CefString& name,
+               CefRefPtr<CefV8Value> object,
+               const CefV8ValueList& arguments,
+               CefRefPtr<CefV8Value>& retval,
+               CefString& exception) OVERRIDE {
+    if (arguments.size() == 1)
+      evaluator_->OnSettled(id_, arguments[0]);
+    return true;
+  }
+
+ private:
+  CefRefPtr<JavaScriptEvaluatorRendererSide> evaluator_;
+  const int id_;
+
+  IMPLEMENT_REFCOUNTING(SettledHandler);
+  DISALLOW_COPY_AND_ASSIGN(SettledHandler);
+};
+
+}  // namespace
+
+JavaScriptEvaluatorRendererSide::JavaScriptEvaluatorRendererSide() {}
+
+void JavaScriptEvaluatorRendererSide::OnContextReleased(
+    CefRefPtr<CefBrowser> browser,
+    CefRefPtr<CefFrame> frame,
+    CefRefPtr<CefV8Context> context) {
+  for (auto it = pending_.begin(); it != pending_.end();) {
+    if (!it->second.context->IsSame(context)) {
+      ++it;
+      continue;
+    }
+    CefRefPtr<CefListValue> results = it->second.results;
+    for (size_t i = 0; i < results->GetSize(); ++i) {
+      if (results->GetType(i) == VTYPE_NULL)
+        results->SetList(i, CreateError("The script context was released"));
+    }
+    SendResponse(it->second.frame, it->first, results);
+    it = pending_.erase(it);
+  }
+}
+
+bool JavaScriptEvaluatorRendererSide::OnProcessMessageReceived(
+    CefRefPtr<CefBrowser> browser,
+    CefRefPtr<CefFrame> frame,
+    CefProcessId source_process,
+    CefRefPtr<CefProcessMessage> message) {
+  if (message->GetName().ToString() != kEvaluateMessage)
+    return false;
+  CefRefPtr<CefListValue> args = message->GetArgumentList();
+  Evaluate(frame, args->GetInt(0), args->GetList(1), args->GetBool(2));
+  return true;
+}
+
+void JavaScriptEvaluatorRendererSide::OnSettled(
+    int id,
+    CefRefPtr<CefV8Value> settled) {
+  auto it = pending_.find(id);
+  if (it == pending_.end())
+    return;
+  Evaluation evaluation = it->second;
+  pending_.erase(it);
+
+  V8ValueConverter converter(evaluation.context);
+  CefRefPtr<CefListValue> results = evaluation.results;
+  for (size_t i = 0; i < results->GetSize(); ++i) {
+    if (results->GetType(i) != VTYPE_NULL)
+      continue;
+    CefRefPtr<CefV8Value> pair = settled->IsArray()
+                                     ? settled->GetValue(static_cast<int>(i))
+                                     : NULL;
+    if (!pair || !pair->IsArray()) {
+      results->SetList(i, CreateError("The result could not be awaited"));
+      continue;
+    }
+    bool fulfilled = pair->GetValue(0)->GetBoolValue();
+    results->SetList(i, CreateResult(fulfilled, converter.ToCefValue(
+                                                    pair->GetValue(1))));
+  }
+  SendResponse(evaluation.frame, id, results);
+}
+
+void JavaScriptEvaluatorRendererSide::Evaluate(
+    CefRefPtr<CefFrame> frame,
+    int id,
+    CefRefPtr<CefListValue> expressions,
+    bool await_promises) {
+  size_t count = expressions->GetSize();
+  CefRefPtr<CefListValue> results = CefListValue::Create();
+  results->SetSize(count);
+
+  CefRefPtr<CefV8Context> context = frame->GetV8Context();
+  if (!context || !context->IsValid() || !context->Enter()) {
+    for (size_t i = 0; i < count; ++i)
+      results->SetList(i, CreateError("The frame has no script context"));
+    SendResponse(frame, id, results);
+    return;
+  }
+
+  V8ValueConverter converter(context);
+  CefRefPtr<CefV8Value> values =
+      CefV8Value::CreateArray(static_cast<int>(count));
+  for (size_t i = 0; i < count; ++i) {
+    CefRefPtr<CefV8Value> retval;
+    CefRefPtr<CefV8Exception> exception;
+    if (!context->Eval(expressions->GetString(i), frame->GetURL(), 1, retval,
+                       exception)) {
+      results->SetList(
+          i, CreateError(exception ? exception->GetMessage()
+                                   : CefString("The evaluation failed")));
+      values->SetValue(static_cast<int>(i), CefV8Value::CreateUndefined());
+    } else if (await_promises) {
+      values->SetValue(static_cast<int>(i), retval);
+    } else {
+      results->SetList(i, CreateResult(true, converter.ToCefValue(retval)));
+    }
+  }
+
+  bool awaiting = false;
+  if (await_promises) {
+    CefRefPtr<CefV8Value> await_function;
+    CefRefPtr<CefV8Exception> exception;
+    if (context->Eval(kAwaitSource, CefString(), 0, await_function,
+                      exception) &&
+        await_function && await_function->IsFunction()) {
+      Evaluation evaluation = {context, frame, results};
+      pending_[id] = evaluation;
+      CefV8ValueList args;
+      args.push_back(values);
+      args.push_back(
+          CefV8Value::CreateFunction("done", new SettledHandler(this, id)));
+      // The handler usually runs when the microtasks are performed on exit.
+      awaiting = await_function->ExecuteFunction(NULL, args) != NULL;
+      if (!awaiting)
+        pending_.erase(id);
+    }
+    if (!awaiting) {
+      for (size_t i = 0; i < count; ++i) {
+        if (results->GetType(i) == VTYPE_NULL)
+          results->SetList(i, CreateError("The result could not be awaited"));
+      }
+    }
+  }
+  context->Exit();
+
+  if (!awaiting)
+    SendResponse(frame, id, results);
+}
+
+void JavaScriptEvaluatorRendererSide::SendResponse(
+    CefRefPtr<CefFrame> frame,
+    int id,
+    CefRefPtr<CefListValue> results) {
+  CefRefPtr<CefProcessMessage> message =
+      CefProcessMessage::Create(kEvaluateResponseMessage);
+  CefRefPtr<CefListValue> args = message->GetArgumentList();
+  args->SetInt(0, id);
+  args->SetList(1, results);
+  frame->SendProcessMessage(PID_BROWSER, message);
+}
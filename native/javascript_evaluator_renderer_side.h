@@ -0,0 +1,59 @@
+// Copyright (c) 2014 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+#ifndef JCEF_NATIVE_JAVASCRIPT_EVALUATOR_RENDERER_SIDE_H_
+#define JCEF_NATIVE_JAVASCRIPT_EVALUATOR_RENDERER_SIDE_H_
+#pragma once
+
+#include <map>
+
+#include "include/cef_browser.h"
+#include "include/cef_process_message.h"
+#include "include/cef_v8.h"
+
+// Renderer side of org.cef.browser.CefJavaScriptEvaluation. Evaluates the
+// expressions of an evaluation request in the script context of the target
+// frame, optionally awaits the resulting promises, and responds with a
+// [true, value] or [false, error message] pair per expression. Must only be
+// used on the render thread.
+class JavaScriptEvaluatorRendererSide : public CefBaseRefCounted {
+ public:
+  JavaScriptEvaluatorRendererSide();
+
+  void OnContextReleased(CefRefPtr<CefBrowser> browser,
+                         CefRefPtr<CefFrame> frame,
+                         CefRefPtr<CefV8Context> context);
+  bool OnProcessMessageReceived(CefRefPtr<CefBrowser> browser,
+                                CefRefPtr<CefFrame> frame,
+                                CefProcessId source_process,
+                                CefRefPtr<CefProcessMessage> message);
+
+  // Called when the promises of evaluation |id| have settled. |settled| is an
+  // array of [fulfilled, value or reason] pairs.
+  void OnSettled(int id, CefRefPtr<CefV8Value> settled);
+
+ private:
+  struct Evaluation {
+    CefRefPtr<CefV8Context> context;
+    CefRefPtr<CefFrame> frame;
+    // Holds the results of the expressions that threw during evaluation.
+    CefRefPtr<CefListValue> results;
+  };
+
+  void Evaluate(CefRefPtr<CefFrame> frame,
+                int id,
+                CefRefPtr<CefListValue> expressions,
+                bool await_promises);
+  void SendResponse(CefRefPtr<CefFrame> frame,
+                    int id,
+                    CefRefPtr<CefListValue> results);
+
+  // Evaluations waiting for promises by ID.
+  std::map<int, Evaluation> pending_;
+
+  IMPLEMENT_REFCOUNTING(JavaScriptEvaluatorRendererSide);
+  DISALLOW_COPY_AND_ASSIGN(JavaScriptEvaluatorRendererSide);
+};
+
+#endif  // JCEF_NATIVE_JAVASCRIPT_EVALUATOR_RENDERER_SIDE_H_
@@ -3,9 +3,15 @@
 // can be found in the LICENSE file.
 
 #include <fstream>
+#include <set>
 
 #include "include/cef_app.h"
 #include "include/wrapper/cef_message_router.h"
+
+#include "binary_router_renderer_side.h"
+#include "javascript_evaluator_renderer_side.h"
+#include "query_stream_renderer_side.h"
+#include "user_script_renderer_side.h"
 #include "util.h"
 
 #if defined(OS_MAC)
@@ -37,7 +43,9 @@ struct cmpCfg {
 
 class CefHelperApp : public CefApp, public CefRenderProcessHandler {
  public:
-  CefHelperApp() {}
+  CefHelperApp()
+      : javascript_evaluator_(new JavaScriptEvaluatorRendererSide()),
+        user_scripts_(new UserScriptRendererSide()) {}
 
   void OnRegisterCustomSchemes(
       CefRawPtr<CefSchemeRegistrar> registrar) OVERRIDE {
@@ -76,12 +84,15 @@ class CefHelperApp : public CefApp, public CefRenderProcessHandler {
         CefMessageRouterConfig config;
         config.js_query_function = dict->GetString("js_query_function");
         config.js_cancel_function = dict->GetString("js_cancel_function");
-
-        CefRefPtr<CefMessageRouterRendererSide> router =
-            CefMessageRouterRendererSide::Create(config);
-        message_router_.insert(std::make_pair(config, router));
+        AddRouter(config);
       }
     }
+    user_scripts_->OnBrowserCreated(browser, extra_info);
+  }
+
+  void OnBrowserDestroyed(CefRefPtr<CefBrowser> browser) OVERRIDE {
+    routers_requested_.erase(browser->GetIdentifier());
+    user_scripts_->OnBrowserDestroyed(browser);
   }
 
   void OnContextCreated(CefRefPtr<CefBrowser> browser,
@@ -92,7 +103,19 @@ class CefHelperApp : public CefApp, public CefRenderProcessHandler {
     for (iter = message_router_.begin(); iter != message_router_.end();
          iter++) {
       iter->second->OnContextCreated(browser, frame, context);
+      InstallQueryStreamFunction(context, iter->first);
+    }
+    for (auto& binary_router : binary_router_)
+      binary_router.second->OnContextCreated(browser, frame, context);
+    if (routers_requested_.insert(browser->GetIdentifier()).second) {
+      // Routers added after the browser was created are missing from the
+      // extra info if this render process was started later, e.g. after the
+      // previous one terminated.
+      frame->SendProcessMessage(
+          PID_BROWSER, CefProcessMessage::Create("GetMessageRouters"));
     }
+    // Run after the routers were installed so that scripts can use them.
+    user_scripts_->OnContextCreated(browser, frame, context);
   }
 
   void OnContextReleased(CefRefPtr<CefBrowser> browser,
@@ -104,26 +127,49 @@ class CefHelperApp : public CefApp, public CefRenderProcessHandler {
          iter++) {
       iter->second->OnContextReleased(browser, frame, context);
     }
+    for (auto& binary_router : binary_router_)
+      binary_router.second->OnContextReleased(browser, frame, context);
+    javascript_evaluator_->OnContextReleased(browser, frame, context);
   }
 
   bool OnProcessMessageReceived(CefRefPtr<CefBrowser> browser,
                                 CefRefPtr<CefFrame> frame,
                                 CefProcessId source_process,
                                 CefRefPtr<CefProcessMessage> message) OVERRIDE {
+    if (javascript_evaluator_->OnProcessMessageReceived(
+            browser, frame, source_process, message) ||
+        user_scripts_->OnProcessMessageReceived(browser, frame, source_process,
+                                                message)) {
+      return true;
+    }
+
     if (message->GetName() == "AddMessageRouter") {
       CefRefPtr<CefListValue> args = message->GetArgumentList();
       CefMessageRouterConfig config;
       config.js_query_function = args->GetString(0);
       config.js_cancel_function = args->GetString(1);
+      AddRouter(config);
+      return true;
 
-      // only add a new message router if it wasn't already created
-      if (message_router_.find(config) != message_router_.end()) {
-        return true;
+    } else if (message->GetName() == "SetMessageRouters") {
+      // Reply to "GetMessageRouters". The context of |frame| was created
+      // before the reply arrived, so new routers are also installed there.
+      CefRefPtr<CefListValue> configs = message->GetArgumentList()->GetList(0);
+      CefRefPtr<CefV8Context> context = frame->GetV8Context();
+      for (size_t idx = 0; configs && idx < configs->GetSize(); idx++) {
+        CefRefPtr<CefDictionaryValue> dict = configs->GetDictionary(idx);
+        CefMessageRouterConfig config;
+        config.js_query_function = dict->GetString("js_query_function");
+        config.js_cancel_function = dict->GetString("js_cancel_function");
+        if (!AddRouter(config) || !context || !context->IsValid())
+          continue;
+        if (context->Enter()) {
+          message_router_[config]->OnContextCreated(browser, frame, context);
+          InstallQueryStreamFunction(context, config);
+          binary_router_[config]->OnContextCreated(browser, frame, context);
+          context->Exit();
+        }
       }
-
-      CefRefPtr<CefMessageRouterRendererSide> router =
-          CefMessageRouterRendererSide::Create(config);
-      message_router_.insert(std::make_pair(config, router));
       return true;
 
     } else if (message->GetName() == "RemoveMessageRouter") {
@@ -133,9 +179,17 @@ class CefHelperApp : public CefApp, public CefRenderProcessHandler {
       config.js_cancel_function = args->GetString(1);
 
       message_router_.erase(config);
+      binary_router_.erase(config);
       return true;
     }
 
+    for (auto& binary_router : binary_router_) {
+      if (binary_router.second->OnProcessMessageReceived(
+              browser, frame, source_process, message)) {
+        return true;
+      }
+    }
+
     bool handled = false;
     std::map<CefMessageRouterConfig, CefRefPtr<CefMessageRouterRendererSide>,
              cmpCfg>::iterator iter;
@@ -150,10 +204,28 @@ class CefHelperApp : public CefApp, public CefRenderProcessHandler {
   }
 
  private:
+  // Creates the renderer-side routers for |config| unless they exist. Returns
+  // true if they were created.
+  bool AddRouter(const CefMessageRouterConfig& config) {
+    if (message_router_.find(config) != message_router_.end())
+      return false;
+    message_router_.insert(
+        std::make_pair(config, CefMessageRouterRendererSide::Create(config)));
+    binary_router_.insert(
+        std::make_pair(config, new BinaryRouterRendererSide(config)));
+    return true;
+  }
+
   std::map<CefMessageRouterConfig,
            CefRefPtr<CefMessageRouterRendererSide>,
            cmpCfg>
       message_router_;
+  std::map<CefMessageRouterConfig, CefRefPtr<BinaryRouterRendererSide>, cmpCfg>
+      binary_router_;
+  CefRefPtr<JavaScriptEvaluatorRendererSide> javascript_evaluator_;
+  CefRefPtr<UserScriptRendererSide> user_scripts_;
+  // IDs of the browsers whose current routers were requested.
+  std::set<int> routers_requested_;
 
   IMPLEMENT_REFCOUNTING(CefHelperApp);
 };
@@ -0,0 +1,73 @@
+// Copyright (c) 2014 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+#include "query_stream_renderer_side.h"
+
+namespace {
+
+// Installs the stream function. Must be kept in sync with the protocol of
+// java/org/cef/browser/CefQueryStreamRouter.java. Credits for delivered
+// messages are returned once half of the window has been delivered.
+const char kInstallSource[] =
+    "(function(queryName, cancelName, streamName) {"
+    "  var query = window[queryName], cancel = window[cancelName];"
+    "  if (typeof query !== 'function' || window[streamName]) return;"
+    "  var noop = function() {};"
+    "  Object.defineProperty(window, streamName, {value: function(options) {"
+    "    var credits = Math.min(Math.max(options.credits | 0, 0), 1024) || 16;"
+    "    var delivered = 0, closed = false;"
+    "    var requestId = query({"
+    "      request: 'cef-stream:' + credits + ':' + String(options.request),"
+    "      persistent: true,"
+    "      onSuccess: function(response) {"
+    "        var pos = response.indexOf(';');"
+    "        var id = response.substring(0, pos);"
+    "        for (++pos; pos < response.length && !closed;) {"
+    "          var colon = response.indexOf(':', pos);"
+    "          pos = colon + 1 + parseInt(response.substring(pos, colon), 10);"
+    "          ++delivered;"
+    "          if (options.onMessage)"
+    "            options.onMessage(response.substring(colon + 1, pos));"
+    "        }"
+    "        if (closed || delivered * 2 < credits) return;"
+    "        query({request: 'cef-stream-credit:' + id + ':' + delivered,"
+    "               persistent: false, onSuccess: noop, onFailure: noop});"
+    "        delivered = 0;"
+    "      },"
+    "      onFailure: function(code, message) {"
+    "        if (closed) return;"
+    "        closed = true;"
+    "        if (code === 0) {"
+    "          if (options.onComplete) options.onComplete();"
+    "        } else if (options.onFailure) {"
+    "          options.onFailure(code, message);"
+    "        }"
+    "      }"
+    "    });"
+    "    return {cancel: function() {"
+    "      if (closed) return;"
+    "      closed = true;"
+    "      cancel(requestId);"
+    "    }};"
+    "  }});"
+    "})";
+
+}  // namespace
+
+void InstallQueryStreamFunction(CefRefPtr<CefV8Context> context,
+                                const CefMessageRouterConfig& config) {
+  CefRefPtr<CefV8Value> install;
+  CefRefPtr<CefV8Exception> exception;
+  if (!context->Eval(kInstallSource, CefString(), 0, install, exception) ||
+      !install || !install->IsFunction()) {
+    return;
+  }
+
+  std::string query_function = config.js_query_function.ToString();
+  CefV8ValueList args;
+  args.push_back(CefV8Value::CreateString(query_function));
+  args.push_back(CefV8Value::CreateString(config.js_cancel_function));
+  args.push_back(CefV8Value::CreateString(query_function + "Stream"));
+  install->ExecuteFunction(NULL, args);
+}
@@ -0,0 +1,20 @@
+// Copyright (c) 2014 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+#ifndef JCEF_NATIVE_QUERY_STREAM_RENDERER_SIDE_H_
+#define JCEF_NATIVE_QUERY_STREAM_RENDERER_SIDE_H_
+#pragma once
+
+#include "include/cef_v8.h"
+#include "include/wrapper/cef_message_router.h"
+
+// Exposes the function |js_query_function| + "Stream" on the window object of
+// |context|. The function implements the renderer side of the streaming
+// queries of org.cef.browser.CefQueryStreamRouter on top of the query function
+// of the router, which must already be installed. Must be called on the render
+// thread from OnContextCreated.
+void InstallQueryStreamFunction(CefRefPtr<CefV8Context> context,
+                                const CefMessageRouterConfig& config);
+
+#endif  // JCEF_NATIVE_QUERY_STREAM_RENDERER_SIDE_H_
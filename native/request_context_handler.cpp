@@ -25,6 +25,11 @@ class ScopedJNIWebPluginInfo : public ScopedJNIObject<CefWebPluginInfo> {
 RequestContextHandler::RequestContextHandler(JNIEnv* env, jobject jhandler)
     : handle_(env, jhandler) {}
 
+void RequestContextHandler::SetUrlRuleSet(CefRefPtr<UrlRuleSet> rule_set) {
+  base::AutoLock lock_scope(rule_set_lock_);
+  rule_set_ = rule_set;
+}
+
 bool RequestContextHandler::OnBeforePluginLoad(
     const CefString& mime_type,
     const CefString& plugin_url,
@@ -32,6 +37,9 @@ bool RequestContextHandler::OnBeforePluginLoad(
     const CefString& top_origin_url,
     CefRefPtr<CefWebPluginInfo> plugin_info,
     PluginPolicy* plugin_policy) {
+  if (!handle_.get())
+    return false;
+
   ScopedJNIEnv env;
   if (!env)
     return false;
@@ -77,6 +85,22 @@ RequestContextHandler::GetResourceRequestHandler(
     bool is_download,
     const CefString& request_initiator,
     bool& disable_default_handling) {
+  CefRefPtr<UrlRuleSet> rule_set;
+  {
+    base::AutoLock lock_scope(rule_set_lock_);
+    rule_set = rule_set_;
+  }
+  if (rule_set) {
+    // Blocked and redirected requests are handled without calling into Java.
+    CefRefPtr<CefResourceRequestHandler> rule_handler =
+        rule_set->GetResourceRequestHandler(request);
+    if (rule_handler)
+      return rule_handler;
+  }
+
+  if (!handle_.get())
+    return NULL;
+
   ScopedJNIEnv env;
   if (!env)
     return NULL;
@@ -7,15 +7,22 @@
 #pragma once
 
 #include <jni.h>
+#include "include/base/cef_lock.h"
 #include "include/cef_request_context_handler.h"
 
 #include "jni_scoped_helpers.h"
+#include "url_rule_set.h"
 
-// RequestContextHandler implementation.
+// RequestContextHandler implementation. |jhandler| may be NULL if the context
+// only applies URL rules.
 class RequestContextHandler : public CefRequestContextHandler {
  public:
   RequestContextHandler(JNIEnv* env, jobject jhandler);
 
+  // Replace the URL rules. May be called on any thread. Pass NULL to remove
+  // all rules.
+  void SetUrlRuleSet(CefRefPtr<UrlRuleSet> rule_set);
+
   // RequestContextHandler methods
   bool OnBeforePluginLoad(const CefString& mime_type,
                           const CefString& plugin_url,
@@ -36,6 +43,9 @@ class RequestContextHandler : public CefRequestContextHandler {
  protected:
   ScopedJNIObjectGlobal handle_;
 
+  base::Lock rule_set_lock_;
+  CefRefPtr<UrlRuleSet> rule_set_;
+
   // Include the default reference counting implementation.
   IMPLEMENT_REFCOUNTING(RequestContextHandler);
 };
@@ -5,8 +5,10 @@
 #include "resource_request_handler.h"
 
 #include "cookie_access_filter.h"
+#include "cookie_policy.h"
 #include "jni_util.h"
 #include "resource_handler.h"
+#include "response_filter.h"
 #include "util.h"
 
 ResourceRequestHandler::ResourceRequestHandler(JNIEnv* env, jobject handler)
@@ -34,9 +36,19 @@ CefRefPtr<CefCookieAccessFilter> ResourceRequestHandler::GetCookieAccessFilter(
                   Object, jresult, jbrowser.get(), jframe.get(),
                   jrequest.get());
 
-  if (jresult)
-    return new CookieAccessFilter(env, jresult);
-  return NULL;
+  if (!jresult)
+    return NULL;
+
+  // Evaluate a CefCookiePolicy natively instead of calling into Java for every
+  // cookie.
+  ScopedJNIClass policy_cls(env, "org/cef/network/CefCookiePolicy");
+  if (policy_cls && env->IsInstanceOf(jresult, policy_cls)) {
+    jlong jpolicy = 0;
+    JNI_CALL_METHOD(env, jresult, "getNativeHandle", "()J", Long, jpolicy);
+    if (jpolicy)
+      return reinterpret_cast<CookiePolicy*>(jpolicy);
+  }
+  return new CookieAccessFilter(env, jresult);
 }
 
 // TODO(JCEF): Expose the |callback| parameter.
@@ -149,6 +161,36 @@ bool ResourceRequestHandler::OnResourceResponse(
   return (result != JNI_FALSE);
 }
 
+CefRefPtr<CefResponseFilter> ResourceRequestHandler::GetResourceResponseFilter(
+    CefRefPtr<CefBrowser> browser,
+    CefRefPtr<CefFrame> frame,
+    CefRefPtr<CefRequest> request,
+    CefRefPtr<CefResponse> response) {
+  ScopedJNIEnv env;
+  if (!env)
+    return NULL;
+
+  ScopedJNIBrowser jbrowser(env, browser);
+  ScopedJNIFrame jframe(env, frame);
+  jframe.SetTemporary();
+  ScopedJNIRequest jrequest(env, request);
+  jrequest.SetTemporary();
+  ScopedJNIResponse jresponse(env, response);
+  jresponse.SetTemporary();
+  ScopedJNIObjectResult jresult(env);
+
+  JNI_CALL_METHOD(env, handle_, "getResourceResponseFilter",
+                  "(Lorg/cef/browser/CefBrowser;Lorg/cef/browser/CefFrame;"
+                  "Lorg/cef/network/CefRequest;Lorg/cef/network/CefResponse;)"
+                  "Lorg/cef/handler/CefResponseFilter;",
+                  Object, jresult, jbrowser.get(), jframe.get(), jrequest.get(),
+                  jresponse.get());
+
+  if (jresult)
+    return new ResponseFilter(env, jresult);
+  return NULL;
+}
+
 void ResourceRequestHandler::OnResourceLoadComplete(
     CefRefPtr<CefBrowser> browser,
     CefRefPtr<CefFrame> frame,
@@ -0,0 +1,125 @@
+// Copyright (c) 2019 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+#include "response_filter.h"
+
+#include "jni_util.h"
+#include "util.h"
+
+namespace {
+
+const char kFilterStatusClass[] =
+    "org/cef/handler/CefResponseFilter$FilterStatus";
+
+// Returns the position of a java.nio.Buffer clamped to [0, |max|].
+size_t GetBufferPosition(JNIEnv* env, jobject jbuffer, size_t max) {
+  jint position = 0;
+  JNI_CALL_METHOD(env, jbuffer, "position", "()I", Int, position);
+  if (position < 0)
+    return 0;
+  return static_cast<size_t>(position) < max ? static_cast<size_t>(position)
+                                             : max;
+}
+
+}  // namespace
+
+ResponseFilter::ResponseFilter(JNIEnv* env, jobject handler)
+    : handle_(env, handler) {}
+
+ResponseFilter::~ResponseFilter() {
+  ScopedJNIEnv env;
+  if (!env)
+    return;
+  ReleaseDirectBuffer(env, in_buffer_);
+  ReleaseDirectBuffer(env, out_buffer_);
+}
+
+bool ResponseFilter::InitFilter() {
+  ScopedJNIEnv env;
+  if (!env)
+    return false;
+
+  jboolean jresult = JNI_FALSE;
+  JNI_CALL_METHOD(env, handle_, "initFilter", "()Z", Boolean, jresult);
+  return (jresult != JNI_FALSE);
+}
+
+ResponseFilter::FilterStatus ResponseFilter::Filter(void* data_in,
+                                                    size_t data_in_size,
+                                                    size_t& data_in_read,
+                                                    void* data_out,
+                                                    size_t data_out_size,
+                                                    size_t& data_out_written) {
+  data_in_read = 0;
+  data_out_written = 0;
+
+  ScopedJNIEnv env;
+  if (!env)
+    return RESPONSE_FILTER_ERROR;
+
+  jobject jdataIn = NULL;
+  if (data_in && data_in_size > 0) {
+    jdataIn = GetDirectBuffer(env, in_buffer_, data_in, data_in_size);
+    if (!jdataIn)
+      return RESPONSE_FILTER_ERROR;
+  }
+  jobject jdataOut = GetDirectBuffer(env, out_buffer_, data_out, data_out_size);
+  if (!jdataOut)
+    return RESPONSE_FILTER_ERROR;
+
+  ScopedJNIObjectResult jresult(env);
+  JNI_CALL_METHOD(env, handle_, "filter",
+                  "(Ljava/nio/ByteBuffer;Ljava/nio/ByteBuffer;)Lorg/cef/"
+                  "handler/CefResponseFilter$FilterStatus;",
+                  Object, jresult, jdataIn, jdataOut);
+
+  if (jdataIn)
+    data_in_read = GetBufferPosition(env, jdataIn, data_in_size);
+  data_out_written = GetBufferPosition(env, jdataOut, data_out_size);
+
+  if (!jresult)
+    return RESPONSE_FILTER_ERROR;
+  if (IsJNIEnumValue(env, jresult, kFilterStatusClass,
+                     "RESPONSE_FILTER_NEED_MORE_DATA")) {
+    return RESPONSE_FILTER_NEED_MORE_DATA;
+  }
+  if (IsJNIEnumValue(env, jresult, kFilterStatusClass,
+                     "RESPONSE_FILTER_DONE")) {
+    return RESPONSE_FILTER_DONE;
+  }
+  return RESPONSE_FILTER_ERROR;
+}
+
+// static
+jobject ResponseFilter::GetDirectBuffer(JNIEnv* env,
+                                        DirectBuffer& buffer,
+                                        void* data,
+                                        size_t size) {
+  if (buffer.jbuffer && buffer.data == data && buffer.size == size) {
+    // Reset position and limit left over from the previous call.
+    ScopedJNIObjectResult jresult(env);
+    JNI_CALL_METHOD(env, buffer.jbuffer, "clear", "()Ljava/nio/Buffer;",
+                    Object, jresult);
+    return buffer.jbuffer;
+  }
+
+  ReleaseDirectBuffer(env, buffer);
+  ScopedJNIObjectLocal jbuffer(
+      env, env->NewDirectByteBuffer(data, static_cast<jlong>(size)));
+  if (!jbuffer)
+    return NULL;
+  buffer.jbuffer = env->NewGlobalRef(jbuffer);
+  buffer.data = data;
+  buffer.size = size;
+  return buffer.jbuffer;
+}
+
+// static
+void ResponseFilter::ReleaseDirectBuffer(JNIEnv* env, DirectBuffer& buffer) {
+  if (buffer.jbuffer)
+    env->DeleteGlobalRef(buffer.jbuffer);
+  buffer.jbuffer = NULL;
+  buffer.data = NULL;
+  buffer.size = 0;
+}
@@ -0,0 +1,53 @@
+// Copyright (c) 2019 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+#ifndef JCEF_NATIVE_RESPONSE_FILTER_H_
+#define JCEF_NATIVE_RESPONSE_FILTER_H_
+#pragma once
+
+#include <jni.h>
+#include "include/cef_response_filter.h"
+
+#include "jni_scoped_helpers.h"
+
+// ResponseFilter implementation.
+class ResponseFilter : public CefResponseFilter {
+ public:
+  ResponseFilter(JNIEnv* env, jobject handler);
+  virtual ~ResponseFilter();
+
+  // CefResponseFilter methods:
+  bool InitFilter() OVERRIDE;
+  FilterStatus Filter(void* data_in,
+                      size_t data_in_size,
+                      size_t& data_in_read,
+                      void* data_out,
+                      size_t data_out_size,
+                      size_t& data_out_written) OVERRIDE;
+
+ protected:
+  // A direct ByteBuffer wrapping native memory. CEF usually passes the same
+  // memory for consecutive calls, in which case the Java object is reused.
+  struct DirectBuffer {
+    jobject jbuffer = NULL;  // Global reference.
+    void* data = NULL;
+    size_t size = 0;
+  };
+
+  // Returns a direct buffer for |data| with position 0 and limit |size|.
+  static jobject GetDirectBuffer(JNIEnv* env,
+                                 DirectBuffer& buffer,
+                                 void* data,
+                                 size_t size);
+  static void ReleaseDirectBuffer(JNIEnv* env, DirectBuffer& buffer);
+
+  ScopedJNIObjectGlobal handle_;
+  DirectBuffer in_buffer_;
+  DirectBuffer out_buffer_;
+
+  // Include the default reference counting implementation.
+  IMPLEMENT_REFCOUNTING(ResponseFilter);
+};
+
+#endif  // JCEF_NATIVE_RESPONSE_FILTER_H_
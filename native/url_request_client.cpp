@@ -10,6 +10,8 @@
 namespace {
 
 const char kCefClassName[] = "CefURLRequestClient";
+const char kBufferClientClassName[] =
+    "org/cef/callback/CefURLRequestBufferClient";
 
 }  // namespace
 
@@ -17,7 +19,12 @@ URLRequestClient::URLRequestClient(JNIEnv* env,
                                    jobject jURLRequestClient,
                                    jobject jURLRequest)
     : client_handle_(env, jURLRequestClient),
-      request_handle_(env, jURLRequest) {}
+      request_handle_(env, jURLRequest),
+      buffer_client_(false) {
+  ScopedJNIClass cls(env, kBufferClientClassName);
+  if (cls && env->IsInstanceOf(jURLRequestClient, cls))
+    buffer_client_ = true;
+}
 
 CefRefPtr<URLRequestClient> URLRequestClient::Create(JNIEnv* env,
                                                      jobject jURLRequestClient,
@@ -82,6 +89,24 @@ void URLRequestClient::OnDownloadData(CefRefPtr<CefURLRequest> request,
   if (!env)
     return;
 
+  if (buffer_client_) {
+    // Wrap the data without copying. The buffer is only valid during the
+    // call. The client gets a read-only view because the data belongs to CEF.
+    ScopedJNIObjectLocal jbuffer(
+        env, env->NewDirectByteBuffer(const_cast<void*>(data),
+                                      static_cast<jlong>(data_length)));
+    ScopedJNIObjectResult jview(env);
+    JNI_CALL_METHOD(env, jbuffer.get(), "asReadOnlyBuffer",
+                    "()Ljava/nio/ByteBuffer;", Object, jview);
+    if (!jview)
+      return;
+    JNI_CALL_VOID_METHOD(
+        env, client_handle_, "onDownloadData",
+        "(Lorg/cef/network/CefURLRequest;Ljava/nio/ByteBuffer;)V",
+        request_handle_.get(), jview.get());
+    return;
+  }
+
   jbyteArray jbyteArray = env->NewByteArray((jsize)data_length);
   env->SetByteArrayRegion(jbyteArray, 0, (jsize)data_length,
                           (const jbyte*)data);
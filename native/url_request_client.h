@@ -51,6 +51,10 @@ class URLRequestClient : public CefURLRequestClient {
   ScopedJNIObjectGlobal client_handle_;
   ScopedJNIObjectGlobal request_handle_;
 
+  // True if the client implements CefURLRequestBufferClient and receives
+  // download data as a direct ByteBuffer instead of a copied byte array.
+  bool buffer_client_;
+
   // Include the default reference counting implementation.
   IMPLEMENT_REFCOUNTING(URLRequestClient);
 };
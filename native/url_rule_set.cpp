@@ -0,0 +1,188 @@
+// Copyright (c) 2014 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+#include "url_rule_set.h"
+
+#include <algorithm>
+#include <cctype>
+
+#include "include/base/cef_logging.h"
+
+namespace {
+
+// Cancels or redirects a request in OnBeforeResourceLoad.
+class UrlRuleResourceRequestHandler : public CefResourceRequestHandler {
+ public:
+  // An empty |redirect_url| cancels the request.
+  explicit UrlRuleResourceRequestHandler(const std::string& redirect_url)
+      : redirect_url_(redirect_url) {}
+
+  ReturnValue OnBeforeResourceLoad(
+      CefRefPtr<CefBrowser> browser,
+      CefRefPtr<CefFrame> frame,
+      CefRefPtr<CefRequest> request,
+      CefRefPtr<CefRequestCallback> callback) OVERRIDE {
+    if (redirect_url_.empty())
+      return RV_CANCEL;
+    request->SetURL(redirect_url_);
+    return RV_CONTINUE;
+  }
+
+ private:
+  const std::string redirect_url_;
+
+  IMPLEMENT_REFCOUNTING(UrlRuleResourceRequestHandler);
+};
+
+}  // namespace
+
+// static
+size_t UrlRuleSet::FindPathStart(const std::string& url) {
+  size_t host_start = url.find("://");
+  if (host_start == std::string::npos || host_start == 0)
+    return std::string::npos;
+  size_t path_start = url.find_first_of("/?#", host_start + 3);
+  return path_start == std::string::npos ? url.size() : path_start;
+}
+
+// static
+bool UrlRuleSet::MatchGlob(const std::string& glob, const std::string& text) {
+  if (glob.empty())
+    return true;
+  size_t g = 0, t = 0, mark = 0;
+  size_t star = std::string::npos;
+  while (t < text.size()) {
+    if (g < glob.size() && (glob[g] == '?' || glob[g] == text[t])) {
+      ++g;
+      ++t;
+    } else if (g < glob.size() && glob[g] == '*') {
+      star = g++;
+      mark = t;
+    } else if (star != std::string::npos) {
+      g = star + 1;
+      t = ++mark;
+    } else {
+      return false;
+    }
+  }
+  while (g < glob.size() && glob[g] == '*')
+    ++g;
+  return g == glob.size();
+}
+
+UrlRuleSet::UrlRuleSet(const std::vector<Rule>& rules) : rules_(rules) {
+  nodes_.push_back(Node());
+  for (size_t i = 0; i < rules_.size(); ++i) {
+    size_t node = 0;
+    const std::string& host = rules_[i].host;
+    size_t end = host.size();
+    while (end > 0) {
+      size_t dot = host.rfind('.', end - 1);
+      size_t start = dot == std::string::npos ? 0 : dot + 1;
+      std::string label = host.substr(start, end - start);
+      std::map<std::string, size_t>::const_iterator it =
+          nodes_[node].children.find(label);
+      if (it == nodes_[node].children.end()) {
+        nodes_.push_back(Node());
+        nodes_[node].children[label] = nodes_.size() - 1;
+        node = nodes_.size() - 1;
+      } else {
+        node = it->second;
+      }
+      end = start == 0 ? 0 : start - 1;
+    }
+    nodes_[node].rules.push_back(i);
+  }
+}
+
+const UrlRuleSet::Rule* UrlRuleSet::Match(const std::string& url) const {
+  size_t path_start = FindPathStart(url);
+  if (path_start == std::string::npos)
+    return NULL;
+  size_t host_start = url.find("://") + 3;
+  std::string host = url.substr(host_start, path_start - host_start);
+  size_t at = host.rfind('@');
+  if (at != std::string::npos)
+    host = host.substr(at + 1);
+  if (!host.empty() && host[0] == '[') {
+    size_t bracket = host.find(']');
+    if (bracket != std::string::npos)
+      host = host.substr(0, bracket + 1);
+  } else {
+    size_t colon = host.find(':');
+    if (colon != std::string::npos)
+      host = host.substr(0, colon);
+  }
+  std::transform(host.begin(), host.end(), host.begin(), ::tolower);
+  while (!host.empty() && host[host.size() - 1] == '.')
+    host.erase(host.size() - 1);
+
+  size_t fragment = url.find('#', path_start);
+  std::string path = url.substr(
+      path_start,
+      fragment == std::string::npos ? std::string::npos : fragment - path_start);
+  if (path.empty() || path[0] != '/')
+    path.insert(0, "/");
+
+  size_t best = rules_.size();
+  size_t node = 0;
+  size_t end = host.size();
+  while (true) {
+    const std::vector<size_t>& node_rules = nodes_[node].rules;
+    for (size_t i = 0; i < node_rules.size(); ++i) {
+      size_t index = node_rules[i];
+      const Rule& rule = rules_[index];
+      bool allow = rule.action == ACTION_ALLOW;
+      if (!allow && index >= best)
+        continue;
+      if (!MatchGlob(rule.path, path))
+        continue;
+      if (allow)
+        return &rule;
+      best = index;
+    }
+    if (end == 0)
+      break;
+    size_t dot = host.rfind('.', end - 1);
+    size_t start = dot == std::string::npos ? 0 : dot + 1;
+    std::map<std::string, size_t>::const_iterator it =
+        nodes_[node].children.find(host.substr(start, end - start));
+    if (it == nodes_[node].children.end())
+      break;
+    node = it->second;
+    end = start == 0 ? 0 : start - 1;
+  }
+  return best < rules_.size() ? &rules_[best] : NULL;
+}
+
+// static
+std::string UrlRuleSet::GetRedirectUrl(const Rule& rule,
+                                       const std::string& url) {
+  if (!rule.target_is_origin)
+    return rule.target;
+  size_t path_start = FindPathStart(url);
+  if (path_start == std::string::npos || path_start == url.size())
+    return rule.target;
+  return rule.target + (url[path_start] == '/' ? "" : "/") +
+         url.substr(path_start);
+}
+
+CefRefPtr<CefResourceRequestHandler> UrlRuleSet::GetResourceRequestHandler(
+    CefRefPtr<CefRequest> request) const {
+  std::string url = request->GetURL().ToString();
+  const Rule* rule = Match(url);
+  if (!rule || rule->action == ACTION_ALLOW)
+    return NULL;
+  if (rule->action == ACTION_BLOCK)
+    return new UrlRuleResourceRequestHandler(std::string());
+  std::string redirect_url = GetRedirectUrl(*rule, url);
+  const Rule* next_rule = Match(redirect_url);
+  if (next_rule && next_rule->action == ACTION_REDIRECT) {
+    // Redirects are never chained so that rules can't cause a redirect loop.
+    LOG(WARNING) << "Blocked redirect of " << url << " to " << redirect_url
+                 << " which would be redirected again";
+    return new UrlRuleResourceRequestHandler(std::string());
+  }
+  return new UrlRuleResourceRequestHandler(redirect_url);
+}
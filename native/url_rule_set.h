@@ -0,0 +1,72 @@
+// Copyright (c) 2014 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+#ifndef JCEF_NATIVE_URL_RULE_SET_H_
+#define JCEF_NATIVE_URL_RULE_SET_H_
+#pragma once
+
+#include <map>
+#include <string>
+#include <vector>
+
+#include "include/cef_resource_request_handler.h"
+
+// Compiled set of URL rules matching the semantics of the Java class
+// org.cef.network.CefUrlRuleSet. Rule hosts are stored in a trie of reversed
+// domain labels. Immutable after construction and safe to use on any thread.
+class UrlRuleSet : public CefBaseRefCounted {
+ public:
+  // Values match the ordinals of CefUrlRule.Action.
+  enum Action {
+    ACTION_BLOCK = 0,
+    ACTION_REDIRECT = 1,
+    ACTION_ALLOW = 2,
+  };
+
+  struct Rule {
+    Action action;
+    std::string host;
+    std::string path;
+    std::string target;
+    bool target_is_origin;
+  };
+
+  explicit UrlRuleSet(const std::vector<Rule>& rules);
+
+  // Returns the rule that applies to |url| or NULL if no rule matches.
+  const Rule* Match(const std::string& url) const;
+
+  // Returns the URL that a request for |url| is redirected to by |rule|.
+  static std::string GetRedirectUrl(const Rule& rule, const std::string& url);
+
+  // Returns the index where the path of |url| starts, which is the end of its
+  // authority, or std::string::npos if |url| has no authority.
+  static size_t FindPathStart(const std::string& url);
+
+  // Match |text| against a glob supporting "*" and "?". An empty glob matches
+  // everything.
+  static bool MatchGlob(const std::string& glob, const std::string& text);
+
+  // Returns a handler that blocks or redirects |request| or NULL if the
+  // request isn't affected by the rules. A request whose redirect URL would be
+  // redirected again is blocked.
+  CefRefPtr<CefResourceRequestHandler> GetResourceRequestHandler(
+      CefRefPtr<CefRequest> request) const;
+
+ private:
+  struct Node {
+    std::map<std::string, size_t> children;
+    // Indexes into |rules_| in ascending order.
+    std::vector<size_t> rules;
+  };
+
+  std::vector<Rule> rules_;
+  // Trie nodes. The first node is the root.
+  std::vector<Node> nodes_;
+
+  IMPLEMENT_REFCOUNTING(UrlRuleSet);
+  DISALLOW_COPY_AND_ASSIGN(UrlRuleSet);
+};
+
+#endif  // JCEF_NATIVE_URL_RULE_SET_H_
@@ -0,0 +1,231 @@
+// Copyright (c) 2014 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+#include "user_script_renderer_side.h"
+
+#include "url_rule_set.h"
+
+namespace {
+
+// Process message names shared with native/client_handler.cpp.
+const char kAddUserScriptMessage[] = "AddUserScript";
+const char kRemoveUserScriptMessage[] = "RemoveUserScript";
+const char kGetUserScriptsMessage[] = "GetUserScripts";
+const char kSetUserScriptsMessage[] = "SetUserScripts";
+
+// Calls |run| once the DOMContentLoaded event has fired or, if |idle| is
+// true, after the load event has fired.
+const char kDeferSource[] =
+    "(function(run, idle) {"
+    "  if (idle) {"
+    "    window.addEventListener('load', function() { setTimeout(run, 0); },"
+    "                            {once: true});"
+    "  } else {"
+    "    document.addEventListener('DOMContentLoaded', run, {once: true});"
+    "  }"
+    "})";
+
+CefString GetScriptUrl(const std::string& name) {
+  return "userscript:" + name;
+}
+
+// Runs a deferred user script in the context it is called in.
+class RunScriptHandler : public CefV8Handler {
+ public:
+  RunScriptHandler(const CefString& source, const CefString& url)
+      : source_(source), url_(url) {}
+
+  bool Execute(const CefString& name,
+               CefRefPtr<CefV8Value> object,
+               const CefV8ValueList& arguments,
+               CefRefPtr<CefV8Value>& retval,
+               CefString& exception) OVERRIDE {
+    CefRefPtr<CefV8Value> result;
+    CefRefPtr<CefV8Exception> script_exception;
+    CefV8Context::GetCurrentContext()->Eval(source_, url_, 1, result,
+                                            script_exception);
+    return true;
+  }
+
+ private:
+  const CefString source_;
+  const CefString url_;
+
+  IMPLEMENT_REFCOUNTING(RunScriptHandler);
+  DISALLOW_COPY_AND_ASSIGN(RunScriptHandler);
+};
+
+}  // namespace
+
+UserScriptRendererSide::UserScriptRendererSide() {}
+
+void UserScriptRendererSide::OnBrowserCreated(
+    CefRefPtr<CefBrowser> browser,
+    CefRefPtr<CefDictionaryValue> extra_info) {
+  BrowserScripts& browser_scripts = scripts_[browser->GetIdentifier()];
+  if (!extra_info)
+    return;
+  CefRefPtr<CefDictionaryValue> scripts =
+      extra_info->GetDictionary("user_scripts");
+  if (scripts) {
+    SetScripts(&browser_scripts, scripts,
+               extra_info->GetInt("user_scripts_version"));
+  }
+}
+
+void UserScriptRendererSide::OnBrowserDestroyed(CefRefPtr<CefBrowser> browser) {
+  scripts_.erase(browser->GetIdentifier());
+}
+
+void UserScriptRendererSide::OnContextCreated(
+    CefRefPtr<CefBrowser> browser,
+    CefRefPtr<CefFrame> frame,
+    CefRefPtr<CefV8Context> context) {
+  auto it = scripts_.find(browser->GetIdentifier());
+  if (it == scripts_.end())
+    return;
+
+  if (!it->second.requested) {
+    // Scripts added after the browser was created are missing from the extra
+    // info if this render process was started later, e.g. for a cross-site
+    // navigation or frame. This context runs the scripts known so far.
+    it->second.requested = true;
+    frame->SendProcessMessage(
+        PID_BROWSER, CefProcessMessage::Create(kGetUserScriptsMessage));
+  }
+
+  const std::string url = frame->GetURL().ToString();
+  const bool is_main = frame->IsMain();
+  CefRefPtr<CefV8Value> defer_function;
+  for (auto& entry : it->second.scripts) {
+    const Script& script = entry.second;
+    if ((!script.all_frames && !is_main) || !Matches(script, url))
+      continue;
+
+    CefRefPtr<CefV8Value> retval;
+    CefRefPtr<CefV8Exception> exception;
+    if (script.run_at == RUN_AT_DOCUMENT_START) {
+      context->Eval(script.source, GetScriptUrl(entry.first), 1, retval,
+                    exception);
+      continue;
+    }
+
+    if (!defer_function &&
+        (!context->Eval(kDeferSource, CefString(), 0, defer_function,
+                        exception) ||
+         !defer_function || !defer_function->IsFunction())) {
+      return;
+    }
+    CefV8ValueList args;
+    args.push_back(CefV8Value::CreateFunction(
+        entry.first,
+        new RunScriptHandler(script.source, GetScriptUrl(entry.first))));
+    args.push_back(
+        CefV8Value::CreateBool(script.run_at == RUN_AT_DOCUMENT_IDLE));
+    defer_function->ExecuteFunction(NULL, args);
+  }
+}
+
+bool UserScriptRendererSide::OnProcessMessageReceived(
+    CefRefPtr<CefBrowser> browser,
+    CefRefPtr<CefFrame> frame,
+    CefProcessId source_process,
+    CefRefPtr<CefProcessMessage> message) {
+  const std::string message_name = message->GetName().ToString();
+  CefRefPtr<CefListValue> args = message->GetArgumentList();
+  int version;
+  if (message_name == kAddUserScriptMessage) {
+    version = args->GetInt(2);
+  } else if (message_name == kRemoveUserScriptMessage) {
+    version = args->GetInt(1);
+  } else if (message_name == kSetUserScriptsMessage) {
+    version = args->GetInt(0);
+  } else {
+    return false;
+  }
+
+  BrowserScripts& browser_scripts = scripts_[browser->GetIdentifier()];
+  if (message_name == kSetUserScriptsMessage) {
+    // The complete registry. Changes that arrived first are part of it.
+    if (version >= browser_scripts.version)
+      SetScripts(&browser_scripts, args->GetDictionary(1), version);
+    if (version >= browser_scripts.awaited_version)
+      browser_scripts.awaited_version = 0;
+    return true;
+  }
+  // A process hosting several frames of the browser receives every change
+  // once per frame.
+  if (version <= browser_scripts.version)
+    return true;
+  if (version != browser_scripts.version + 1) {
+    // Changes are sent from the threads that made them and may overtake each
+    // other or a snapshot. Request the registry, which includes this change.
+    if (version > browser_scripts.awaited_version) {
+      browser_scripts.awaited_version = version;
+      frame->SendProcessMessage(
+          PID_BROWSER, CefProcessMessage::Create(kGetUserScriptsMessage));
+    }
+    return true;
+  }
+  browser_scripts.version = version;
+  if (message_name == kAddUserScriptMessage) {
+    AddScript(&browser_scripts.scripts, args->GetString(0).ToString(),
+              args->GetDictionary(1));
+  } else {
+    browser_scripts.scripts.erase(args->GetString(0).ToString());
+  }
+  return true;
+}
+
+// static
+void UserScriptRendererSide::AddScript(ScriptMap* scripts,
+                                       const std::string& name,
+                                       CefRefPtr<CefDictionaryValue> script) {
+  if (!script)
+    return;
+
+  Script& entry = (*scripts)[name];
+  entry.source = script->GetString("source");
+  entry.includes.clear();
+  entry.excludes.clear();
+  CefRefPtr<CefListValue> list = script->GetList("includes");
+  for (size_t i = 0; list && i < list->GetSize(); ++i)
+    entry.includes.push_back(list->GetString(i).ToString());
+  list = script->GetList("excludes");
+  for (size_t i = 0; list && i < list->GetSize(); ++i)
+    entry.excludes.push_back(list->GetString(i).ToString());
+  entry.run_at = static_cast<RunAt>(script->GetInt("run_at"));
+  entry.all_frames = script->GetBool("all_frames");
+}
+
+// static
+void UserScriptRendererSide::SetScripts(BrowserScripts* browser_scripts,
+                                        CefRefPtr<CefDictionaryValue> scripts,
+                                        int version) {
+  browser_scripts->scripts.clear();
+  browser_scripts->version = version;
+  if (!scripts)
+    return;
+  CefDictionaryValue::KeyList names;
+  scripts->GetKeys(names);
+  for (size_t i = 0; i < names.size(); ++i) {
+    AddScript(&browser_scripts->scripts, names[i].ToString(),
+              scripts->GetDictionary(names[i]));
+  }
+}
+
+// static
+bool UserScriptRendererSide::Matches(const Script& script,
+                                     const std::string& url) {
+  bool included = script.includes.empty();
+  for (size_t i = 0; !included && i < script.includes.size(); ++i)
+    included = UrlRuleSet::MatchGlob(script.includes[i], url);
+  if (!included)
+    return false;
+  for (size_t i = 0; i < script.excludes.size(); ++i) {
+    if (UrlRuleSet::MatchGlob(script.excludes[i], url))
+      return false;
+  }
+  return true;
+}
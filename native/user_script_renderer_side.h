@@ -0,0 +1,90 @@
+// Copyright (c) 2014 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+#ifndef JCEF_NATIVE_USER_SCRIPT_RENDERER_SIDE_H_
+#define JCEF_NATIVE_USER_SCRIPT_RENDERER_SIDE_H_
+#pragma once
+
+#include <map>
+#include <string>
+#include <vector>
+
+#include "include/cef_browser.h"
+#include "include/cef_process_message.h"
+#include "include/cef_v8.h"
+#include "include/cef_values.h"
+
+// Renderer side of the user scripts registered with
+// org.cef.CefClient.addUserScript. The scripts of a browser are received with
+// its extra info or with "AddUserScript" and "RemoveUserScript" messages, kept
+// for the lifetime of the browser and executed in every matching script
+// context. The extra info is fixed when the browser is created, so a render
+// process requests the current scripts with "GetUserScripts" once it creates
+// the first context of a browser. Every message carries the version of the
+// browser-side registry. Changes are only applied in version order, outdated
+// messages are ignored and the current scripts are requested again if a change
+// was skipped. Must only be used on the render thread.
+class UserScriptRendererSide : public CefBaseRefCounted {
+ public:
+  UserScriptRendererSide();
+
+  void OnBrowserCreated(CefRefPtr<CefBrowser> browser,
+                        CefRefPtr<CefDictionaryValue> extra_info);
+  void OnBrowserDestroyed(CefRefPtr<CefBrowser> browser);
+  void OnContextCreated(CefRefPtr<CefBrowser> browser,
+                        CefRefPtr<CefFrame> frame,
+                        CefRefPtr<CefV8Context> context);
+  bool OnProcessMessageReceived(CefRefPtr<CefBrowser> browser,
+                                CefRefPtr<CefFrame> frame,
+                                CefProcessId source_process,
+                                CefRefPtr<CefProcessMessage> message);
+
+ private:
+  // Values match the ordinals of CefUserScript.RunAt.
+  enum RunAt {
+    RUN_AT_DOCUMENT_START = 0,
+    RUN_AT_DOCUMENT_END = 1,
+    RUN_AT_DOCUMENT_IDLE = 2,
+  };
+
+  struct Script {
+    CefString source;
+    std::vector<std::string> includes;
+    std::vector<std::string> excludes;
+    RunAt run_at;
+    bool all_frames;
+  };
+
+  // Scripts by name.
+  typedef std::map<std::string, Script> ScriptMap;
+
+  struct BrowserScripts {
+    BrowserScripts() : version(0), requested(false), awaited_version(0) {}
+
+    ScriptMap scripts;
+    // The registry version that |scripts| reflects.
+    int version;
+    // True once the current scripts were requested from the browser process.
+    bool requested;
+    // The version of a change that arrived before the preceding changes, or 0.
+    // The current scripts were requested again and have at least this version.
+    int awaited_version;
+  };
+
+  static void AddScript(ScriptMap* scripts,
+                        const std::string& name,
+                        CefRefPtr<CefDictionaryValue> script);
+  static void SetScripts(BrowserScripts* browser_scripts,
+                         CefRefPtr<CefDictionaryValue> scripts,
+                         int version);
+  static bool Matches(const Script& script, const std::string& url);
+
+  // Scripts by browser ID.
+  std::map<int, BrowserScripts> scripts_;
+
+  IMPLEMENT_REFCOUNTING(UserScriptRendererSide);
+  DISALLOW_COPY_AND_ASSIGN(UserScriptRendererSide);
+};
+
+#endif  // JCEF_NATIVE_USER_SCRIPT_RENDERER_SIDE_H_
@@ -0,0 +1,194 @@
+// Copyright (c) 2014 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+#include "v8_value_converter.h"
+
+#include <stdlib.h>
+
+#include <vector>
+
+namespace {
+
+// Limits recursion for cyclic objects. Matches CefValueCodec.MAX_DEPTH.
+const int kMaxDepth = 64;
+
+// CEF does not expose the contents of ArrayBuffers to native code. This
+// function copies them into a string with one character per byte instead,
+// which is converted in chunks to keep the argument count of
+// String.fromCharCode bounded. Returns null for other values.
+const char kReadBinarySource[] =
+    "(function(b) {"
+    "  var u;"
+    "  if (b instanceof ArrayBuffer) u = new Uint8Array(b);"
+    "  else if (ArrayBuffer.isView(b))"
+    "    u = new Uint8Array(b.buffer, b.byteOffset, b.byteLength);"
+    "  else return null;"
+    "  var s = '';"
+    "  for (var i = 0; i < u.length; i += 8192)"
+    "    s += String.fromCharCode.apply(null, u.subarray(i, i + 8192));"
+    "  return s;"
+    "})";
+
+class BinaryReleaseCallback : public CefV8ArrayBufferReleaseCallback {
+ public:
+  BinaryReleaseCallback() {}
+
+  void ReleaseBuffer(void* buffer) OVERRIDE { free(buffer); }
+
+ private:
+  IMPLEMENT_REFCOUNTING(BinaryReleaseCallback);
+  DISALLOW_COPY_AND_ASSIGN(BinaryReleaseCallback);
+};
+
+}  // namespace
+
+V8ValueConverter::V8ValueConverter(CefRefPtr<CefV8Context> context)
+    : context_(context) {}
+
+CefRefPtr<CefValue> V8ValueConverter::ToCefValue(
+    CefRefPtr<CefV8Value> value) {
+  return ToCefValue(value, 0);
+}
+
+CefRefPtr<CefV8Value> V8ValueConverter::ToV8Value(CefRefPtr<CefValue> value) {
+  return ToV8Value(value, 0);
+}
+
+CefRefPtr<CefValue> V8ValueConverter::ToCefValue(CefRefPtr<CefV8Value> value,
+                                                 int depth) {
+  CefRefPtr<CefValue> result = CefValue::Create();
+  if (depth > kMaxDepth || !value || !value->IsValid() || value->IsNull() ||
+      value->IsUndefined() || value->IsFunction()) {
+    result->SetNull();
+  } else if (value->IsBool()) {
+    result->SetBool(value->GetBoolValue());
+  } else if (value->IsInt()) {
+    result->SetInt(value->GetIntValue());
+  } else if (value->IsUInt() || value->IsDouble()) {
+    result->SetDouble(value->GetDoubleValue());
+  } else if (value->IsDate()) {
+    result->SetDouble(value->GetDateValue().GetDoubleT() * 1000);
+  } else if (value->IsString()) {
+    result->SetString(value->GetStringValue());
+  } else if (value->IsArrayBuffer()) {
+    CefRefPtr<CefBinaryValue> binary;
+    if (ReadBinary(value, &binary) && binary)
+      result->SetBinary(binary);
+    else
+      result->SetNull();
+  } else if (value->IsArray()) {
+    CefRefPtr<CefListValue> list = CefListValue::Create();
+    int length = value->GetArrayLength();
+    list->SetSize(length);
+    for (int i = 0; i < length; ++i)
+      list->SetValue(i, ToCefValue(value->GetValue(i), depth + 1));
+    result->SetList(list);
+  } else if (value->IsObject()) {
+    // Typed arrays and DataViews are identified with ArrayBuffer.isView() so
+    // that plain objects with a buffer property stay dictionaries. Empty views
+    // become null.
+    CefRefPtr<CefBinaryValue> binary;
+    if (ReadBinary(value, &binary)) {
+      if (binary)
+        result->SetBinary(binary);
+      else
+        result->SetNull();
+    } else {
+      CefRefPtr<CefDictionaryValue> dict = CefDictionaryValue::Create();
+      std::vector<CefString> keys;
+      value->GetKeys(keys);
+      for (size_t i = 0; i < keys.size(); ++i) {
+        CefRefPtr<CefV8Value> element = value->GetValue(keys[i]);
+        if (element && (element->IsFunction() || element->IsUndefined()))
+          continue;
+        dict->SetValue(keys[i], ToCefValue(element, depth + 1));
+      }
+      result->SetDictionary(dict);
+    }
+  } else {
+    result->SetNull();
+  }
+  return result;
+}
+
+CefRefPtr<CefV8Value> V8ValueConverter::ToV8Value(CefRefPtr<CefValue> value,
+                                                  int depth) {
+  if (depth > kMaxDepth || !value || !value->IsValid())
+    return CefV8Value::CreateNull();
+
+  switch (value->GetType()) {
+    case VTYPE_BOOL:
+      return CefV8Value::CreateBool(value->GetBool());
+    case VTYPE_INT:
+      return CefV8Value::CreateInt(value->GetInt());
+    case VTYPE_DOUBLE:
+      return CefV8Value::CreateDouble(value->GetDouble());
+    case VTYPE_STRING:
+      return CefV8Value::CreateString(value->GetString());
+    case VTYPE_BINARY: {
+      // The buffer is owned by V8 and freed by BinaryReleaseCallback.
+      CefRefPtr<CefBinaryValue> binary = value->GetBinary();
+      size_t size = binary->GetSize();
+      void* buffer = malloc(size > 0 ? size : 1);
+      if (!buffer)
+        return CefV8Value::CreateNull();
+      if (size > 0)
+        binary->GetData(buffer, size, 0);
+      return CefV8Value::CreateArrayBuffer(buffer, size,
+                                           new BinaryReleaseCallback());
+    }
+    case VTYPE_LIST: {
+      CefRefPtr<CefListValue> list = value->GetList();
+      int size = static_cast<int>(list->GetSize());
+      CefRefPtr<CefV8Value> array = CefV8Value::CreateArray(size);
+      for (int i = 0; i < size; ++i)
+        array->SetValue(i, ToV8Value(list->GetValue(i), depth + 1));
+      return array;
+    }
+    case VTYPE_DICTIONARY: {
+      CefRefPtr<CefDictionaryValue> dict = value->GetDictionary();
+      CefDictionaryValue::KeyList keys;
+      dict->GetKeys(keys);
+      CefRefPtr<CefV8Value> object = CefV8Value::CreateObject(NULL, NULL);
+      for (size_t i = 0; i < keys.size(); ++i) {
+        object->SetValue(keys[i], ToV8Value(dict->GetValue(keys[i]), depth + 1),
+                         V8_PROPERTY_ATTRIBUTE_NONE);
+      }
+      return object;
+    }
+    default:
+      return CefV8Value::CreateNull();
+  }
+}
+
+bool V8ValueConverter::ReadBinary(CefRefPtr<CefV8Value> value,
+                                  CefRefPtr<CefBinaryValue>* binary) {
+  *binary = NULL;
+  if (!read_binary_function_) {
+    CefRefPtr<CefV8Exception> exception;
+    if (!context_->Eval(kReadBinarySource, CefString(), 0,
+                        read_binary_function_, exception) ||
+        !read_binary_function_ || !read_binary_function_->IsFunction()) {
+      read_binary_function_ = NULL;
+      return false;
+    }
+  }
+
+  CefV8ValueList args;
+  args.push_back(value);
+  CefRefPtr<CefV8Value> str =
+      read_binary_function_->ExecuteFunction(NULL, args);
+  if (!str || !str->IsString())
+    return false;
+
+  // Every character holds one byte. Empty binaries are not supported by CEF.
+  CefString chars = str->GetStringValue();
+  if (chars.empty())
+    return true;
+  std::vector<uint8> bytes(chars.length());
+  for (size_t i = 0; i < bytes.size(); ++i)
+    bytes[i] = static_cast<uint8>(chars.c_str()[i]);
+  *binary = CefBinaryValue::Create(&bytes[0], bytes.size());
+  return true;
+}
@@ -0,0 +1,44 @@
+// Copyright (c) 2014 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+#ifndef JCEF_NATIVE_V8_VALUE_CONVERTER_H_
+#define JCEF_NATIVE_V8_VALUE_CONVERTER_H_
+#pragma once
+
+#include "include/cef_v8.h"
+#include "include/cef_values.h"
+
+// Converts between V8 values and CEF values in the render process. Must be
+// used on the render thread while |context| is entered.
+//
+// JavaScript null and undefined become null, int32 numbers become int, other
+// numbers and Dates become double, ArrayBuffers, typed arrays and DataViews
+// become binary, arrays become lists and other objects become dictionaries of
+// their own enumerable properties. Functions are omitted from objects and
+// arrays and values nested deeper than 64 levels and empty binaries become
+// null. In the other direction binaries become ArrayBuffers.
+class V8ValueConverter {
+ public:
+  explicit V8ValueConverter(CefRefPtr<CefV8Context> context);
+
+  CefRefPtr<CefValue> ToCefValue(CefRefPtr<CefV8Value> value);
+  CefRefPtr<CefV8Value> ToV8Value(CefRefPtr<CefValue> value);
+
+ private:
+  CefRefPtr<CefValue> ToCefValue(CefRefPtr<CefV8Value> value, int depth);
+  CefRefPtr<CefV8Value> ToV8Value(CefRefPtr<CefValue> value, int depth);
+
+  // Returns false if |value| is neither an ArrayBuffer nor an ArrayBuffer
+  // view. Otherwise sets |binary| to its contents or to NULL if it is empty.
+  bool ReadBinary(CefRefPtr<CefV8Value> value,
+                  CefRefPtr<CefBinaryValue>* binary);
+
+  CefRefPtr<CefV8Context> context_;
+  // Created on first use by ReadBinary.
+  CefRefPtr<CefV8Value> read_binary_function_;
+
+  DISALLOW_COPY_AND_ASSIGN(V8ValueConverter);
+};
+
+#endif  // JCEF_NATIVE_V8_VALUE_CONVERTER_H_
@@ -0,0 +1,245 @@
+// Copyright (c) 2014 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+#include "value_codec.h"
+
+#include <string.h>
+
+namespace {
+
+enum ValueTag {
+  TAG_NULL = 0,
+  TAG_FALSE = 1,
+  TAG_TRUE = 2,
+  TAG_INT = 3,
+  TAG_DOUBLE = 4,
+  TAG_STRING = 5,
+  TAG_BINARY = 6,
+  TAG_LIST = 7,
+  TAG_DICTIONARY = 8,
+};
+
+// Limits recursion for malformed input. Matches CefValueCodec.MAX_DEPTH.
+const int kMaxDepth = 64;
+
+void AppendInt32(std::string* data, uint32 value) {
+  for (int shift = 24; shift >= 0; shift -= 8)
+    data->push_back(static_cast<char>((value >> shift) & 0xFF));
+}
+
+void AppendString(std::string* data, const std::string& str) {
+  AppendInt32(data, static_cast<uint32>(str.size()));
+  data->append(str);
+}
+
+void Encode(CefRefPtr<CefValue> value, std::string* data, int depth) {
+  if (depth > kMaxDepth || !value || !value->IsValid()) {
+    data->push_back(TAG_NULL);
+    return;
+  }
+
+  switch (value->GetType()) {
+    case VTYPE_BOOL:
+      data->push_back(value->GetBool() ? TAG_TRUE : TAG_FALSE);
+      break;
+    case VTYPE_INT:
+      data->push_back(TAG_INT);
+      AppendInt32(data, static_cast<uint32>(value->GetInt()));
+      break;
+    case VTYPE_DOUBLE: {
+      double number = value->GetDouble();
+      uint64 bits;
+      memcpy(&bits, &number, sizeof(bits));
+      data->push_back(TAG_DOUBLE);
+      AppendInt32(data, static_cast<uint32>(bits >> 32));
+      AppendInt32(data, static_cast<uint32>(bits));
+      break;
+    }
+    case VTYPE_STRING:
+      data->push_back(TAG_STRING);
+      AppendString(data, value->GetString().ToString());
+      break;
+    case VTYPE_BINARY: {
+      CefRefPtr<CefBinaryValue> binary = value->GetBinary();
+      size_t size = binary->GetSize();
+      data->push_back(TAG_BINARY);
+      AppendInt32(data, static_cast<uint32>(size));
+      size_t offset = data->size();
+      data->resize(offset + size);
+      if (size > 0)
+        binary->GetData(&(*data)[offset], size, 0);
+      break;
+    }
+    case VTYPE_LIST: {
+      CefRefPtr<CefListValue> list = value->GetList();
+      size_t size = list->GetSize();
+      data->push_back(TAG_LIST);
+      AppendInt32(data, static_cast<uint32>(size));
+      for (size_t i = 0; i < size; ++i)
+        Encode(list->GetValue(i), data, depth + 1);
+      break;
+    }
+    case VTYPE_DICTIONARY: {
+      CefRefPtr<CefDictionaryValue> dict = value->GetDictionary();
+      CefDictionaryValue::KeyList keys;
+      dict->GetKeys(keys);
+      data->push_back(TAG_DICTIONARY);
+      AppendInt32(data, static_cast<uint32>(keys.size()));
+      for (size_t i = 0; i < keys.size(); ++i) {
+        AppendString(data, keys[i].ToString());
+        Encode(dict->GetValue(keys[i]), data, depth + 1);
+      }
+      break;
+    }
+    default:
+      data->push_back(TAG_NULL);
+      break;
+  }
+}
+
+class ValueReader {
+ public:
+  ValueReader(const void* data, size_t size)
+      : data_(static_cast<const uint8*>(data)), size_(size), pos_(0) {}
+
+  bool AtEnd() const { return pos_ == size_; }
+
+  CefRefPtr<CefValue> Read(int depth) {
+    uint8 tag;
+    if (depth > kMaxDepth || !ReadByte(&tag))
+      return nullptr;
+
+    CefRefPtr<CefValue> value = CefValue::Create();
+    switch (tag) {
+      case TAG_NULL:
+        value->SetNull();
+        break;
+      case TAG_FALSE:
+      case TAG_TRUE:
+        value->SetBool(tag == TAG_TRUE);
+        break;
+      case TAG_INT: {
+        uint32 number;
+        if (!ReadInt32(&number))
+          return nullptr;
+        value->SetInt(static_cast<int32>(number));
+        break;
+      }
+      case TAG_DOUBLE: {
+        uint32 high, low;
+        if (!ReadInt32(&high) || !ReadInt32(&low))
+          return nullptr;
+        uint64 bits = (static_cast<uint64>(high) << 32) | low;
+        double number;
+        memcpy(&number, &bits, sizeof(number));
+        value->SetDouble(number);
+        break;
+      }
+      case TAG_STRING: {
+        std::string str;
+        if (!ReadString(&str))
+          return nullptr;
+        value->SetString(str);
+        break;
+      }
+      case TAG_BINARY: {
+        uint32 size;
+        if (!ReadLength(&size, 1))
+          return nullptr;
+        // CEF does not support empty binaries.
+        if (size > 0)
+          value->SetBinary(CefBinaryValue::Create(data_ + pos_, size));
+        else
+          value->SetNull();
+        pos_ += size;
+        break;
+      }
+      case TAG_LIST: {
+        uint32 count;
+        if (!ReadLength(&count, 1))
+          return nullptr;
+        CefRefPtr<CefListValue> list = CefListValue::Create();
+        list->SetSize(count);
+        for (uint32 i = 0; i < count; ++i) {
+          CefRefPtr<CefValue> element = Read(depth + 1);
+          if (!element)
+            return nullptr;
+          list->SetValue(i, element);
+        }
+        value->SetList(list);
+        break;
+      }
+      case TAG_DICTIONARY: {
+        uint32 count;
+        if (!ReadLength(&count, 5))
+          return nullptr;
+        CefRefPtr<CefDictionaryValue> dict = CefDictionaryValue::Create();
+        for (uint32 i = 0; i < count; ++i) {
+          std::string key;
+          if (!ReadString(&key))
+            return nullptr;
+          CefRefPtr<CefValue> element = Read(depth + 1);
+          if (!element)
+            return nullptr;
+          dict->SetValue(key, element);
+        }
+        value->SetDictionary(dict);
+        break;
+      }
+      default:
+        return nullptr;
+    }
+    return value;
+  }
+
+ private:
+  bool ReadByte(uint8* value) {
+    if (size_ - pos_ < 1)
+      return false;
+    *value = data_[pos_++];
+    return true;
+  }
+
+  bool ReadInt32(uint32* value) {
+    if (size_ - pos_ < 4)
+      return false;
+    *value = 0;
+    for (int i = 0; i < 4; ++i)
+      *value = (*value << 8) | data_[pos_++];
+    return true;
+  }
+
+  // Reads a length or count of items that occupy at least |min_item_size|
+  // bytes each.
+  bool ReadLength(uint32* value, size_t min_item_size) {
+    return ReadInt32(value) && *value <= (size_ - pos_) / min_item_size;
+  }
+
+  bool ReadString(std::string* value) {
+    uint32 length;
+    if (!ReadLength(&length, 1))
+      return false;
+    value->assign(reinterpret_cast<const char*>(data_ + pos_), length);
+    pos_ += length;
+    return true;
+  }
+
+  const uint8* data_;
+  size_t size_;
+  size_t pos_;
+};
+
+}  // namespace
+
+void EncodeValue(CefRefPtr<CefValue> value, std::string* data) {
+  Encode(value, data, 0);
+}
+
+CefRefPtr<CefValue> DecodeValue(const void* data, size_t size) {
+  ValueReader reader(data, size);
+  CefRefPtr<CefValue> value = reader.Read(0);
+  if (!value || !reader.AtEnd())
+    return nullptr;
+  return value;
+}
@@ -0,0 +1,29 @@
+// Copyright (c) 2014 The Chromium Embedded Framework Authors. All rights
+// reserved. Use of this source code is governed by a BSD-style license that
+// can be found in the LICENSE file.
+
+#ifndef JCEF_NATIVE_VALUE_CODEC_H_
+#define JCEF_NATIVE_VALUE_CODEC_H_
+#pragma once
+
+#include <string>
+
+#include "include/cef_values.h"
+
+// Structured values are transferred to and from Java in the format of
+// org.cef.browser.CefValueCodec: a type byte followed by its payload. Null and
+// booleans have no payload, integers are a big-endian int32, doubles an int64
+// bit pattern, strings and binaries an int32 length prefixed UTF-8 string or
+// byte sequence, lists an int32 count followed by the elements and
+// dictionaries an int32 count followed by key strings and values. Empty
+// binaries are decoded as null because CEF does not support them.
+
+// Append the serialized form of |value| to |data|. Invalid values and values
+// nested too deeply are serialized as null.
+void EncodeValue(CefRefPtr<CefValue> value, std::string* data);
+
+// Returns the value serialized in the |size| bytes at |data| or NULL if the
+// data is malformed.
+CefRefPtr<CefValue> DecodeValue(const void* data, size_t size);
+
+#endif  // JCEF_NATIVE_VALUE_CODEC_H_
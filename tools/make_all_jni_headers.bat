@@ -16,6 +16,7 @@ goto end
 call compile.bat %1
 
 call make_jni_header.bat %1 org.cef.CefApp
+call make_jni_header.bat %1 org.cef.browser.CefBinaryQueryCallback_N
 call make_jni_header.bat %1 org.cef.browser.CefBrowser_N
 call make_jni_header.bat %1 org.cef.browser.CefFrame_N
 call make_jni_header.bat %1 org.cef.browser.CefMessageRouter_N
@@ -39,6 +40,7 @@ call make_jni_header.bat %1 org.cef.callback.CefSchemeRegistrar_N
 call make_jni_header.bat %1 org.cef.handler.CefClientHandler
 call make_jni_header.bat %1 org.cef.misc.CefPrintSettings_N
 call make_jni_header.bat %1 org.cef.network.CefCookieManager_N
+call make_jni_header.bat %1 org.cef.network.CefCookiePolicy_N
 call make_jni_header.bat %1 org.cef.network.CefPostData_N
 call make_jni_header.bat %1 org.cef.network.CefPostDataElement_N
 call make_jni_header.bat %1 org.cef.network.CefRequest_N
@@ -8,6 +8,7 @@ if [ -z "$1" ]; then
 else
   DIR="$( cd "$( dirname "$0" )" && pwd )"
   "${DIR}"/make_jni_header.sh $1 org.cef.CefApp
+  "${DIR}"/make_jni_header.sh $1 org.cef.browser.CefBinaryQueryCallback_N
   "${DIR}"/make_jni_header.sh $1 org.cef.browser.CefBrowser_N
   "${DIR}"/make_jni_header.sh $1 org.cef.browser.CefFrame_N
   "${DIR}"/make_jni_header.sh $1 org.cef.browser.CefMessageRouter_N
@@ -31,6 +32,7 @@ else
   "${DIR}"/make_jni_header.sh $1 org.cef.handler.CefClientHandler
   "${DIR}"/make_jni_header.sh $1 org.cef.misc.CefPrintSettings_N
   "${DIR}"/make_jni_header.sh $1 org.cef.network.CefCookieManager_N
+  "${DIR}"/make_jni_header.sh $1 org.cef.network.CefCookiePolicy_N
   "${DIR}"/make_jni_header.sh $1 org.cef.network.CefPostData_N
   "${DIR}"/make_jni_header.sh $1 org.cef.network.CefPostDataElement_N
   "${DIR}"/make_jni_header.sh $1 org.cef.network.CefRequest_N